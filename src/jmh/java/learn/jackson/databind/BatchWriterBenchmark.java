@@ -0,0 +1,65 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.BatchWriterTest.BatchWriter;
+import learn.jackson.databind.BatchWriterTest.Slices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 작은 값 1,000개(사용자, 다형 타입 Car/Aeroplane, Map을 섞은 것)를 직렬화할 때 값 하나당 비용.
+ * loop는 값마다 writeValueAsBytes를 부르고, 나머지는 BatchWriter로 배치 하나에 쓴다. 값 하나당 할당량은 -prof gc로 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(BatchWriterBenchmark.BATCH_SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class BatchWriterBenchmark {
+
+    static final int BATCH_SIZE = 1_000;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    BatchWriter batchWriter = new BatchWriter(mapper);
+
+    List<Object> values = BatchWriterTest.values(BATCH_SIZE);
+
+    @Benchmark
+    public List<byte[]> loop() throws IOException {
+        List<byte[]> results = new ArrayList<>(values.size());
+        for (Object value : values) {
+            results.add(mapper.writeValueAsBytes(value));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public byte[] array() throws IOException {
+        return batchWriter.writeArray(values);
+    }
+
+    @Benchmark
+    public byte[] ndjson() throws IOException {
+        return batchWriter.writeNdjson(values);
+    }
+
+    @Benchmark
+    public Slices slices() throws IOException {
+        return batchWriter.writeSlices(values);
+    }
+}
@@ -0,0 +1,100 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import learn.jackson.databind.BufferRecyclerPoolTest.BoundedLockFreeRecyclerPool;
+import learn.jackson.databind.BufferRecyclerPoolTest.PooledObjectMapper;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 작업마다 새 스레드에서 SimpleTest의 사용자를 직렬화할 때, 기본 ThreadLocal 풀과 공유 풀(BoundedLockFreeRecyclerPool)의 처리량 비교.
+ * 할당률은 -prof gc 옵션(gc.alloc.rate.norm)으로 함께 본다
+ * <p>
+ * 가상 스레드를 쓸 수 있는 JDK(21+)에서는 Executors.newVirtualThreadPerTaskExecutor()를, 그렇지 않으면 작업마다 플랫폼 스레드를 새로 만든다.
+ * 어느 쪽이든 작업마다 ThreadLocal이 비어 있다는 점은 같다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BufferRecyclerPoolBenchmark {
+
+    private static final int TASKS = 10_000;
+
+    @Param({"threadLocal", "boundedLockFree"})
+    String pool;
+
+    ObjectMapper mapper;
+
+    Executor executor;
+
+    ImmutableUser user = new ImmutableUser("John", 100);
+
+    @Setup
+    public void setUp() {
+        mapper = switch (pool) {
+            case "threadLocal" -> new ObjectMapper(JsonFactory.builder().recyclerPool(JsonRecyclerPools.threadLocalPool()).build());
+            case "boundedLockFree" -> new PooledObjectMapper(new BoundedLockFreeRecyclerPool());
+            default -> throw new IllegalArgumentException(pool);
+        };
+        executor = newThreadPerTaskExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public int serializeOnFreshThreads() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        AtomicInteger length = new AtomicInteger();
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try {
+                    length.addAndGet(mapper.writeValueAsString(user).length());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return length.get();
+    }
+
+    // 스레드 풀은 스레드(와 ThreadLocal)를 재사용하므로 쓰지 않는다
+    private static Executor newThreadPerTaskExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return runnable -> new Thread(runnable).start();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.ByteBufferOutputTest.ByteBufferChainOutputStream;
+import learn.jackson.databind.ByteBufferOutputTest.DirectByteBufferPool;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 같은 값을 채널(/dev/null)에 쓸 때 writeValueAsBytes() + ByteBuffer.wrap()과 ByteBufferChainOutputStream의 비교.
+ * 힙 버퍼를 채널에 쓰면 JDK가 임시 다이렉트 버퍼로 복사하는 비용까지 포함하기 위해 실제 FileChannel을 사용한다.
+ * 할당량은 -prof gc 옵션(gc.alloc.rate.norm)으로 함께 본다
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ByteBufferOutputBenchmark {
+
+    @Param({"10", "1000"})
+    int users;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    Map<String, ImmutableUser> value;
+
+    FileChannel channel;
+
+    ByteBuffer callerBuffer = ByteBuffer.allocateDirect(8 * 1024);
+
+    DirectByteBufferPool pool = new DirectByteBufferPool(16 * 1024, 16);
+
+    @Setup
+    public void setUp() throws IOException {
+        value = new LinkedHashMap<>();
+        for (int i = 0; i < users; i++) {
+            value.put("user" + i, new ImmutableUser("name" + i, i));
+        }
+        channel = FileChannel.open(Path.of("/dev/null"), StandardOpenOption.WRITE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close();
+    }
+
+    @Benchmark
+    public long writeValueAsBytesAndWrap() throws IOException {
+        return channel.write(ByteBuffer.wrap(mapper.writeValueAsBytes(value)));
+    }
+
+    @Benchmark
+    public long byteBufferChain() throws IOException {
+        ByteBufferChainOutputStream out = new ByteBufferChainOutputStream(callerBuffer.clear(), pool);
+        mapper.writeValue(out, value);
+        long written = channel.write(out.toBuffers());
+        out.release();
+        return written;
+    }
+}
@@ -0,0 +1,142 @@
+package learn.jackson.databind;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * AppCDS 아카이브를 만들 때 실행하는 학습 작업.
+ * <p>
+ * 테스트의 시나리오(매퍼 설정, 믹스인, 기본 타이핑, JavaTimeModule, 타입 id 리졸버, 생성된 코덱)를 그대로 돌려 Jackson과 모델 클래스를 로드시킨다.
+ * -XX:ArchiveClassesAtExit로 실행하면 종료할 때 로드된 클래스가 아카이브로 덤프된다(build.gradle의 cdsArchive 태스크).
+ * 할당량/힙/병렬 처리 측정처럼 오래 걸리는 테스트는 시나리오가 아니므로 SCENARIOS에 넣지 않고, @Tag("heap")이 붙은 클래스나 메서드도 건너뛴다.
+ * <p>
+ * JUnit 없이 @BeforeEach/@Test/@AfterEach 메서드를 리플렉션으로 호출한다. 실패한 테스트도 그때까지 로드한 클래스는 남으므로 개수만 알린다
+ */
+public class CdsTrainingWorkload {
+
+    /**
+     * 실행할 테스트 클래스. 패키지 단위로 고르면 새로 추가된 측정 테스트까지 딸려 오므로 클래스를 하나씩 적는다.
+     * 실행 중에 javac로 코드를 컴파일하는 PluginTypeIdResolverTest, 병렬 스캔을 재는 ParallelTypeNameScannerTest는 넣지 않는다
+     */
+    static final List<String> SCENARIOS = List.of("learn.jackson.databind.SimpleTest",
+                                                  "learn.jackson.databind.TreeModelTest",
+                                                  "learn.jackson.databind.GenericCollectionsTest",
+                                                  "learn.jackson.databind.MergePatchTest",
+                                                  "learn.jackson.databind.annotation.DeserializationTest",
+                                                  "learn.jackson.databind.annotation.SerializationTest",
+                                                  "learn.jackson.databind.annotation.mixin.MixInClassTest",
+                                                  "learn.jackson.databind.annotation.mixin.MixInInterfaceTest",
+                                                  "learn.jackson.databind.codegen.JsonCodegenTest",
+                                                  "learn.jackson.databind.defaulttyping.annotation.JsonTypeIdResolverTest",
+                                                  "learn.jackson.databind.defaulttyping.annotation.JsonTypeIdTest",
+                                                  "learn.jackson.databind.defaulttyping.annotation.JsonTypeInfoIdByClassTest",
+                                                  "learn.jackson.databind.defaulttyping.annotation.JsonTypeInfoIdByNameTest",
+                                                  "learn.jackson.databind.defaulttyping.annotation.NoTypeInfoTest",
+                                                  "learn.jackson.databind.defaulttyping.polymorphism.CachingClassIdResolverTest",
+                                                  "learn.jackson.databind.defaulttyping.polymorphism.LogicalTypeIdTest",
+                                                  "learn.jackson.databind.defaulttyping.polymorphism.PhysicalTypeIdTest",
+                                                  "learn.jackson.databind.defaulttyping.polymorphism.TypeIdRewritingParserTest",
+                                                  "learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest",
+                                                  "learn.jackson.databind.defaulttyping.polymorphism.intermediate.PreEncodedTypeIdTest",
+                                                  "learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest",
+                                                  "learn.jackson.databind.defaulttyping.programmatic.InstrumentedTypeIdResolverTest",
+                                                  "learn.jackson.databind.defaulttyping.programmatic.ProgrammaticDefaultTypingTest",
+                                                  "learn.jackson.databind.defaulttyping.programmatic.TriePolymorphicTypeValidatorTest",
+                                                  "learn.jackson.databind.feature.DeserializationFeaturesTest",
+                                                  "learn.jackson.databind.feature.SerializationFeaturesTest",
+                                                  "learn.jackson.databind.module.ImmutableCollectionsModuleTest",
+                                                  "learn.jackson.databind.module.Java8DateTest");
+
+    /**
+     * 시나리오 클래스 안에서 건너뛸 메서드. 실행 중에 javac를 돌려 jdk.compiler 클래스를 아카이브에 채우는 테스트이다
+     */
+    static final Set<String> EXCLUDED_TESTS = Set.of("learn.jackson.databind.codegen.JsonCodegenTest.constructorAndFactoryCreators",
+                                                     "learn.jackson.databind.codegen.JsonCodegenTest.multipleCreators");
+
+    private static final String HEAP_TAG = "heap";
+
+    public static void main(String[] args) throws Exception {
+        int passed = 0;
+        int failed = 0;
+        for (String className : SCENARIOS) {
+            Class<?> testClass = Class.forName(className);
+            if (hasHeapTag(testClass)) {
+                continue;
+            }
+            for (Method test : methods(testClass, "org.junit.jupiter.api.Test")) {
+                if (hasHeapTag(test) || EXCLUDED_TESTS.contains(className + "." + test.getName())) {
+                    continue;
+                }
+                if (run(testClass, test)) {
+                    passed++;
+                } else {
+                    failed++;
+                }
+            }
+        }
+        System.out.printf("CDS training workload: %d tests passed, %d failed%n", passed, failed);
+    }
+
+    private static boolean run(Class<?> testClass, Method test) throws ReflectiveOperationException {
+        Constructor<?> constructor = testClass.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Object instance = constructor.newInstance();
+        try {
+            for (Method beforeEach : methods(testClass, "org.junit.jupiter.api.BeforeEach")) {
+                beforeEach.invoke(instance);
+            }
+            test.invoke(instance);
+            for (Method afterEach : methods(testClass, "org.junit.jupiter.api.AfterEach")) {
+                afterEach.invoke(instance);
+            }
+            return true;
+        } catch (InvocationTargetException e) {
+            System.out.printf("%s.%s failed: %s%n", testClass.getName(), test.getName(), e.getCause());
+            return false;
+        }
+    }
+
+    private static List<Method> methods(Class<?> testClass, String annotation) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : testClass.getDeclaredMethods()) {
+            for (Annotation present : method.getAnnotations()) {
+                if (present.annotationType().getName().equals(annotation)) {
+                    method.setAccessible(true);
+                    methods.add(method);
+                }
+            }
+        }
+        methods.sort((m1, m2) -> m1.getName().compareTo(m2.getName()));
+        return methods;
+    }
+
+    /**
+     * @Tag("heap")이 붙었는지 본다. @Tag를 여러 개 붙이면 컨테이너 @Tags로 감싸지므로 둘 다 확인한다
+     */
+    private static boolean hasHeapTag(AnnotatedElement element) throws ReflectiveOperationException {
+        for (Annotation present : element.getAnnotations()) {
+            String name = present.annotationType().getName();
+            if (name.equals("org.junit.jupiter.api.Tag") && HEAP_TAG.equals(tagValue(present))) {
+                return true;
+            }
+            if (name.equals("org.junit.jupiter.api.Tags")) {
+                for (Annotation tag : (Annotation[]) present.annotationType().getMethod("value").invoke(present)) {
+                    if (HEAP_TAG.equals(tagValue(tag))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Object tagValue(Annotation tag) throws ReflectiveOperationException {
+        return tag.annotationType().getMethod("value").invoke(tag);
+    }
+}
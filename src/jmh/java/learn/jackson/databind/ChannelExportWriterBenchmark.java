@@ -0,0 +1,84 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.ByteBufferOutputTest.DirectByteBufferPool;
+import learn.jackson.databind.ChannelExportWriterTest.ChannelExportWriter;
+import learn.jackson.databind.ChannelExportWriterTest.ExportStats;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 사용자 1,000,000행(약 33 MB)을 파일로 내보내는 비용.
+ * writeValue는 목록을 모두 만든 뒤 mapper.writeValue(File, List)로 쓰고(목록 생성 비용 포함),
+ * array/ndjson은 행을 하나씩 만들어 ChannelExportWriter로 쓴다. 처리량은 33 MB / 평균 시간으로 환산한다.
+ * 힙 사용량은 -prof gc 또는 ChannelExportWriterTest.constantHeap(gradle heapTest)로 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ChannelExportWriterBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    @Param({"65536", "1048576"})
+    int chunkSize;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    ChannelExportWriter<ImmutableUser> writer;
+
+    Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        writer = new ChannelExportWriter<>(mapper, ImmutableUser.class, new DirectByteBufferPool(chunkSize, 1), null);
+        file = Files.createTempFile("users", ".json");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public long writeValue() throws IOException {
+        List<ImmutableUser> users = ChannelExportWriterTest.users(ROWS).toList();
+        mapper.writeValue(file.toFile(), users);
+        return users.size();
+    }
+
+    @Benchmark
+    public ExportStats array() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return writer.writeArray(channel, ChannelExportWriterTest.users(ROWS));
+        }
+    }
+
+    @Benchmark
+    public ExportStats ndjson() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return writer.writeNdjson(channel, ChannelExportWriterTest.users(ROWS));
+        }
+    }
+}
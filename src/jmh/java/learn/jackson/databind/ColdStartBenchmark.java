@@ -0,0 +1,109 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import learn.jackson.databind.AllocationRegressionTest.Car;
+import learn.jackson.databind.AllocationRegressionTest.Vehicle;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+
+/**
+ * JVM을 띄운 뒤 첫 직렬화, 첫 다형 역직렬화까지 걸리는 시간을 AppCDS 아카이브 유무로 비교한다.
+ * <p>
+ * JMH는 측정 전에 하네스 클래스를 먼저 로드하므로 콜드 스타트를 재려고 매번 새 JVM을 직접 띄운다.
+ * 자식 JVM은 같은 클래스패스로 실행하며(아카이브는 덤프할 때의 클래스패스로만 쓰인다), 각 시점의 시각을 출력하고 부모가 실행 시각과의 차이를 계산한다.
+ * 아카이브 없이 실행하는 쪽도 JDK 기본 CDS 아카이브는 쓴다. 아카이브를 쓰는 쪽은 -Xshare:on으로 아카이브를 쓸 수 없으면 바로 실패하게 한다.
+ * <p>
+ * 사용법: {@code ColdStartBenchmark <아카이브 경로> [실행 횟수]} (build.gradle의 coldStartBenchmark 태스크)
+ */
+public class ColdStartBenchmark {
+
+    private static final String CHILD = "child";
+
+    private static final String[] EVENTS = {"main", "firstSerialize", "firstPolymorphicDeserialize"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(CHILD)) {
+            child();
+            return;
+        }
+        Path archive = Paths.get(args[0]);
+        if (!Files.exists(archive)) {
+            throw new IllegalArgumentException("No CDS archive at " + archive + ", run the cdsArchive task first");
+        }
+        int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+
+        Map<String, List<String>> configurations = new LinkedHashMap<>();
+        configurations.put("default CDS", List.of());
+        configurations.put("AppCDS", List.of("-Xshare:on", "-XX:SharedArchiveFile=" + archive));
+        Map<String, List<long[]>> results = new LinkedHashMap<>();
+        configurations.keySet().forEach(name -> results.put(name, new ArrayList<>()));
+        // 시스템 상태 변화가 한쪽에 몰리지 않도록 번갈아 실행한다
+        for (int i = 0; i < runs; i++) {
+            configurations.forEach((name, jvmArgs) -> results.get(name).add(launch(jvmArgs)));
+        }
+
+        System.out.printf("ms since launch, median/min of %d runs%n", runs);
+        for (Map.Entry<String, List<long[]>> result : results.entrySet()) {
+            StringBuilder line = new StringBuilder(String.format("%-14s", result.getKey()));
+            for (int event = 0; event < EVENTS.length; event++) {
+                int index = event;
+                long[] micros = result.getValue().stream().mapToLong(times -> times[index]).sorted().toArray();
+                line.append(String.format("  %s %.1f/%.1f", EVENTS[event], micros[micros.length / 2] / 1000.0, micros[0] / 1000.0));
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * 자식 JVM을 한 번 실행하고 실행 시각부터 각 시점까지의 시간(마이크로초)을 돌려준다
+     */
+    private static long[] launch(List<String> jvmArgs) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), ColdStartBenchmark.class.getName(), CHILD));
+        try {
+            long launched = epochMicros();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("Cold start run failed: " + command + "\n" + output);
+            }
+            String[] lines = output.split("\n");
+            return Arrays.stream(lines[lines.length - 1].trim().split(" ")).mapToLong(time -> Long.parseLong(time) - launched).toArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void child() throws IOException {
+        long main = epochMicros();
+        ObjectMapper mapper = new ObjectMapper();
+        byte[] json = mapper.writeValueAsBytes(new ImmutableUser("John", 100));
+        long firstSerialize = epochMicros();
+        Vehicle vehicle = mapper.readValue("{\"@type\":\"car\",\"licensePlate\":\"12가3456\"}", Vehicle.class);
+        long firstPolymorphicDeserialize = epochMicros();
+        if (json.length == 0 || !(vehicle instanceof Car)) {
+            throw new IllegalStateException("Unexpected result " + vehicle);
+        }
+        System.out.println(main + " " + firstSerialize + " " + firstPolymorphicDeserialize);
+    }
+
+    private static long epochMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+}
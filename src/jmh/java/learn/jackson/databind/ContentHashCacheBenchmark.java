@@ -0,0 +1,74 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.ContentHashCacheTest.ContentHashCachingReader;
+import learn.jackson.databind.GenericCollectionsTest.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * user-map.json 형태의 입력 16개를 돌아가며 읽을 때의 처리량. none은 매번 파싱하고, cached/verified는 ContentHashCachingReader를 쓴다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ContentHashCacheBenchmark {
+
+    private static final int INPUTS = 16;
+
+    @Param({"none", "cached", "verified"})
+    String mode;
+
+    @Param({"2", "100"})
+    int users;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    JavaType type = mapper.constructType(new TypeReference<Map<String, User>>() {
+    });
+
+    ContentHashCachingReader reader;
+
+    byte[][] inputs = new byte[INPUTS][];
+
+    int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        reader = new ContentHashCachingReader(mapper, 1_000, 64 * 1024 * 1024, mode.equals("verified"));
+        for (int i = 0; i < INPUTS; i++) {
+            Map<String, Map<String, Integer>> userMap = new LinkedHashMap<>();
+            for (int u = 0; u < users; u++) {
+                userMap.put("user" + u, Map.of("age", i * users + u));
+            }
+            inputs[i] = mapper.writeValueAsBytes(userMap);
+        }
+    }
+
+    @Benchmark
+    public Map<String, User> read() throws IOException {
+        byte[] input = inputs[next++ & (INPUTS - 1)];
+        if (mode.equals("none")) {
+            return mapper.readValue(input, type);
+        }
+        return reader.readValue(input, type, Map::copyOf);
+    }
+}
@@ -0,0 +1,61 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.MergePatchTest.StreamingMergePatch;
+import learn.jackson.databind.MergePatchTest.TreeMergePatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 큰 문서에 작은 merge patch를 적용할 때, readTree() + 트리 수정 + 출력과 StreamingMergePatch의 비교.
+ * 할당량은 -prof gc 옵션(gc.alloc.rate.norm)으로 함께 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class MergePatchBenchmark {
+
+    @Param({"100", "5000"})
+    int users;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    StreamingMergePatch streaming = new StreamingMergePatch(mapper);
+
+    byte[] document;
+
+    JsonNode patch;
+
+    @Setup
+    public void setUp() throws IOException {
+        document = MergePatchTest.largeDocument(mapper, users);
+        patch = mapper.readTree("""
+                                    {"user50" : {"age" : 1, "tags" : ["c"]}, "user99" : null, "updatedBy" : "admin"}""");
+    }
+
+    @Benchmark
+    public void readTreeAndWrite() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), TreeMergePatch.apply(mapper.readTree(document), patch));
+    }
+
+    @Benchmark
+    public void streaming() throws IOException {
+        streaming.apply(document, patch, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,100 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import learn.jackson.databind.ParallelGzipTest.ParallelGzipInputStream;
+import learn.jackson.databind.ParallelGzipTest.ParallelGzipOutputStream;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 사용자 1,000,000명의 목록(약 30 MB)을 gzip으로 압축해 쓰고 다시 읽는 비용.
+ * gzip*은 JDK GZIPOutputStream/GZIPInputStream 한 스레드, parallel*은 256KB 블록을 작업자 threads개로 압축/해제한다.
+ * 코어 수에 따른 확장성은 threads를 코어 수까지 늘려 보고, 출력 크기 차이는 ParallelGzipTest.compressionRatio로 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ParallelGzipBenchmark {
+
+    private static final int BLOCK_SIZE = 256 * 1024;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    List<ImmutableUser> users = ParallelGzipTest.users(1_000_000);
+
+    ExecutorService executor;
+
+    byte[] gzip;
+
+    byte[] blockGzip;
+
+    @Setup
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(threads);
+        gzip = gzip();
+        blockGzip = parallelGzip();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public byte[] gzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024 * 1024);
+        mapper.writeValue(new GZIPOutputStream(bytes, 64 * 1024), users);
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] parallelGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024 * 1024);
+        OutputStream out = new ParallelGzipOutputStream(bytes, executor, BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION, threads * 2);
+        mapper.writeValue(out, users);
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public int gunzip() throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip), 64 * 1024)) {
+            return mapper.readTree(in).size();
+        }
+    }
+
+    @Benchmark
+    public int parallelGunzip() throws IOException {
+        try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(blockGzip), executor, threads * 2)) {
+            return mapper.readTree(in).size();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.SerializedFormCacheTest.SerializedFormCache;
+import learn.jackson.databind.SerializedFormCacheTest.SerializedFormCacheModule;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 같은 불변 객체들을 여러 구독자에게 반복해서 보내는(fan-out) 상황에서 SerializedFormCache가 있을 때와 없을 때의 비교.
+ * 메시지마다 10,000명 중 200명을 고르되, 앞쪽 사용자가 더 자주 뽑히도록(지수 분포) 해서 인기 있는 객체가 반복되게 한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SerializedFormCacheBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private static final int MESSAGES = 64;
+
+    @Param({"false", "true"})
+    boolean cached;
+
+    ObjectMapper mapper;
+
+    SerializedFormCache cache;
+
+    List<List<ImmutableUser>> messages = new ArrayList<>();
+
+    int next;
+
+    @Setup
+    public void setUp() {
+        mapper = new ObjectMapper();
+        if (cached) {
+            cache = new SerializedFormCache(256 * 1024);
+            mapper.registerModule(new SerializedFormCacheModule(cache).cacheByIdentity(ImmutableUser.class));
+        }
+
+        List<ImmutableUser> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new ImmutableUser("name" + i, i));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int m = 0; m < MESSAGES; m++) {
+            List<ImmutableUser> message = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int index = (int) Math.min(USERS - 1, -Math.log(1 - random.nextDouble()) * 500);
+                message.add(users.get(index));
+            }
+            messages.add(message);
+        }
+    }
+
+    @Benchmark
+    public void fanOut() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), messages.get(next++ & (MESSAGES - 1)));
+    }
+}
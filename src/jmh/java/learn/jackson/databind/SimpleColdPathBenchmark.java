@@ -0,0 +1,58 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import learn.jackson.databind.SimpleTest.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SimpleTest 시나리오의 첫 호출 비용. 포크마다 새 JVM에서 한 번만 측정하므로(SingleShotTime, 워밍업 없음) 배포 직후의 비용이다.
+ * 측정할 단계 앞의 준비(매퍼 생성 등)는 벤치마크마다 따로 둔 @State에서 끝내므로, 각 벤치마크는 해당 단계의 비용만 잰다.
+ * 역직렬화할 JSON은 문자열 상수로 두어 준비 단계에서 직렬화 경로가 데워지지 않게 한다
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(30)
+public class SimpleColdPathBenchmark {
+
+    private static final String USER_JSON = "{\"name\":\"John\",\"age\":100}";
+
+    @State(Scope.Thread)
+    public static class MapperState {
+
+        ObjectMapper mapper;
+
+        @Setup
+        public void setUp() {
+            mapper = new ObjectMapper();
+        }
+    }
+
+    @Benchmark
+    public ObjectMapper newObjectMapper() {
+        return new ObjectMapper();
+    }
+
+    @Benchmark
+    public String firstSerialize(MapperState state) throws IOException {
+        return state.mapper.writeValueAsString(new ImmutableUser("John", 100));
+    }
+
+    @Benchmark
+    public User firstDeserialize(MapperState state) throws IOException {
+        return state.mapper.readValue(USER_JSON, User.class);
+    }
+}
@@ -0,0 +1,89 @@
+package learn.jackson.databind;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import learn.jackson.databind.GenericCollectionsTest.User;
+import learn.jackson.databind.StreamingMapReaderTest.StreamingMapReader;
+import learn.jackson.databind.StreamingMapReaderTest.UserMapInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 사용자 1,000,000명의 user-map 문서를 읽어 나이를 합하는 비용.
+ * map은 Map&lt;String, User&gt;로 모두 읽은 뒤 합하고, forEach는 항목마다 콜백을 부르며, forEachBatch는 1,000개씩 작업자 4개에 넘긴다.
+ * 힙 사용량은 -prof gc 또는 StreamingMapReaderTest.constantHeapPerEntry(gradle heapTest)로 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class StreamingMapReaderBenchmark {
+
+    private static final int USERS = 1_000_000;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    JavaType mapType = mapper.constructType(new TypeReference<Map<String, User>>() {
+    });
+
+    StreamingMapReader<User> reader = new StreamingMapReader<>(mapper, User.class);
+
+    ExecutorService executor;
+
+    byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = new UserMapInputStream(USERS).readAllBytes();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public long map() throws IOException {
+        Map<String, User> users = mapper.readValue(json, mapType);
+        long sum = 0;
+        for (User user : users.values()) {
+            sum += user.getAge();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long forEach() throws IOException {
+        LongAdder sum = new LongAdder();
+        reader.forEach(new ByteArrayInputStream(json), (name, user) -> sum.add(user.getAge()));
+        return sum.sum();
+    }
+
+    @Benchmark
+    public long forEachBatch() throws IOException {
+        LongAdder sum = new LongAdder();
+        reader.forEachBatch(new ByteArrayInputStream(json), 1_000, 8, executor,
+                            batch -> batch.forEach(entry -> sum.add(entry.getValue().getAge())));
+        return sum.sum();
+    }
+}
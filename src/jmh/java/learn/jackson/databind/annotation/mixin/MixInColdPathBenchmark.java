@@ -0,0 +1,72 @@
+package learn.jackson.databind.annotation.mixin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.annotation.mixin.MixInClassTest.MixIn;
+import learn.jackson.databind.annotation.mixin.MixInClassTest.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MixInClassTest 시나리오의 첫 호출 비용. addMixIn 자체는 등록만 하고, 믹스인 애너테이션을 합치는 비용은 첫 직렬화(firstSerialize)에 들어간다.
+ * 믹스인 없는 첫 직렬화(firstSerializeWithoutMixIn)와 비교하면 믹스인의 몫을 알 수 있다
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(30)
+public class MixInColdPathBenchmark {
+
+    @State(Scope.Thread)
+    public static class MapperState {
+
+        ObjectMapper mapper;
+
+        Rectangle rectangle;
+
+        @Setup
+        public void setUp() {
+            mapper = new ObjectMapper();
+            rectangle = new Rectangle(10, 10);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MixInState {
+
+        ObjectMapper mapper;
+
+        Rectangle rectangle;
+
+        @Setup
+        public void setUp() {
+            mapper = new ObjectMapper().addMixIn(Rectangle.class, MixIn.class);
+            rectangle = new Rectangle(10, 10);
+        }
+    }
+
+    @Benchmark
+    public ObjectMapper firstAddMixIn(MapperState state) {
+        return state.mapper.addMixIn(Rectangle.class, MixIn.class);
+    }
+
+    @Benchmark
+    public String firstSerialize(MixInState state) throws IOException {
+        return state.mapper.writeValueAsString(state.rectangle);
+    }
+
+    @Benchmark
+    public String firstSerializeWithoutMixIn(MapperState state) throws IOException {
+        return state.mapper.writeValueAsString(state.rectangle);
+    }
+}
@@ -0,0 +1,110 @@
+package learn.jackson.databind.codegen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.codegen.JsonCodegenTest.Garage;
+import learn.jackson.databind.codegen.JsonCodegenTest.Money;
+import learn.jackson.databind.codegen.JsonCodegenTest.MoneyMixIn;
+import learn.jackson.databind.codegen.JsonCodegenTest.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 리플렉션 경로(BeanSerializer/BeanDeserializer)와 JsonCodegenProcessor가 생성한 직렬화기/역직렬화기의 비용.
+ * reflective*, codegen*은 매퍼가 데워진 뒤 값 하나를 쓰고 읽는 시간이고,
+ * firstCall*은 새 ObjectMapper로 처음 쓰고 읽는 시간(직렬화기/역직렬화기를 찾고 만드는 비용 포함)이다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JsonCodegenBenchmark {
+
+    ObjectMapper reflectiveMapper = new ObjectMapper().addMixIn(Money.class, MoneyMixIn.class);
+
+    ObjectMapper codegenMapper = new ObjectMapper().registerModule(new JsonCodegenModule());
+
+    User user = JsonCodegenTest.user();
+
+    Garage garage = JsonCodegenTest.garage();
+
+    byte[] userJson;
+
+    byte[] garageJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        userJson = reflectiveMapper.writeValueAsBytes(user);
+        garageJson = reflectiveMapper.writeValueAsBytes(garage);
+    }
+
+    @Benchmark
+    public byte[] reflectiveSerialize() throws IOException {
+        return reflectiveMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] codegenSerialize() throws IOException {
+        return codegenMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User reflectiveDeserialize() throws IOException {
+        return reflectiveMapper.readValue(userJson, User.class);
+    }
+
+    @Benchmark
+    public User codegenDeserialize() throws IOException {
+        return codegenMapper.readValue(userJson, User.class);
+    }
+
+    @Benchmark
+    public Garage reflectivePolymorphic() throws IOException {
+        return reflectiveMapper.readValue(reflectiveMapper.writeValueAsBytes(garage), Garage.class);
+    }
+
+    @Benchmark
+    public Garage codegenPolymorphic() throws IOException {
+        return codegenMapper.readValue(codegenMapper.writeValueAsBytes(garage), Garage.class);
+    }
+
+    /**
+     * 새 매퍼가 User와 Garage를 처음 쓰고 읽는 시간. 클래스 로딩은 첫 반복에만 들어가므로 반복마다 매퍼를 새로 만들어 매퍼 단위의 준비 비용을 본다
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 50)
+    public Object firstCallReflective() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        return firstCall(mapper);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 50)
+    public Object firstCallCodegen() throws IOException {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JsonCodegenModule());
+        return firstCall(mapper);
+    }
+
+    private Object firstCall(ObjectMapper mapper) throws IOException {
+        User readUser = mapper.readValue(mapper.writeValueAsBytes(user), User.class);
+        Garage readGarage = mapper.readValue(mapper.writeValueAsBytes(garage), Garage.class);
+        return new Object[]{readUser, readGarage};
+    }
+}
@@ -0,0 +1,94 @@
+package learn.jackson.databind.defaulttyping;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import learn.jackson.databind.defaulttyping.ParallelTypeNameScannerTest.ParallelTypeNameScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+/**
+ * 클래스 10,000개(패키지 10개 x 1,000개, 10개마다 @JsonTypeName)가 든 JAR에서 타입 식별자 맵을 만드는 시작 비용.
+ * componentScan은 리졸버들이 하던 대로 패키지를 하나씩 컴포넌트 스캔하고 Class.forName()을 부르며, parallel은 ParallelTypeNameScanner다.
+ * 호출마다 새 클래스 로더를 만들어 클래스가 아직 로드되지 않은 상태에서 잰다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(3)
+public class ParallelTypeNameScannerBenchmark {
+
+    private static final List<String> PACKAGES = IntStream.range(0, 10).mapToObj(p -> "generated.p" + p).toList();
+
+    @Param({"componentScan", "parallel"})
+    String scanner;
+
+    Path jar;
+
+    URLClassLoader classLoader;
+
+    @Setup(Level.Trial)
+    public void createJar() throws IOException {
+        jar = Files.createTempFile("classes", ".jar");
+        ParallelTypeNameScannerTest.writeJar(jar, PACKAGES.size(), 1_000, 10);
+    }
+
+    @Setup(Level.Invocation)
+    public void createClassLoader() throws IOException {
+        classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJar() throws IOException {
+        Files.delete(jar);
+    }
+
+    @Benchmark
+    public Map<String, Class<?>> scan() throws ClassNotFoundException {
+        if (scanner.equals("parallel")) {
+            return new ParallelTypeNameScanner(classLoader).scan(PACKAGES);
+        }
+
+        ClassPathScanningCandidateComponentProvider componentProvider = new ClassPathScanningCandidateComponentProvider(false);
+        componentProvider.setResourceLoader(new DefaultResourceLoader(classLoader));
+        componentProvider.addIncludeFilter(new AnnotationTypeFilter(JsonTypeName.class));
+        Map<String, Class<?>> classById = new HashMap<>();
+        for (String basePackage : PACKAGES) {
+            for (BeanDefinition candidate : componentProvider.findCandidateComponents(basePackage)) {
+                Class<?> type = Class.forName(candidate.getBeanClassName(), false, classLoader);
+                classById.put(type.getDeclaredAnnotation(JsonTypeName.class).value(), type);
+            }
+        }
+        return classById;
+    }
+}
@@ -0,0 +1,71 @@
+package learn.jackson.databind.defaulttyping.polymorphism;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.defaulttyping.polymorphism.TypeIdRewritingParserTest.Garage;
+import learn.jackson.databind.defaulttyping.polymorphism.TypeIdRewritingParserTest.Rewrites;
+import learn.jackson.databind.defaulttyping.polymorphism.TypeIdRewritingParserTest.RewritingJsonFactory;
+import learn.jackson.databind.defaulttyping.polymorphism.TypeIdRewritingParserTest.TreeMigration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 이전 버전 Garage JSON을 현재 모델로 읽는 처리량. streamingRewrite는 RewritingParser로 한 번에 바인딩하고,
+ * treeMigration은 readTree() → 트리 수정 → treeToValue()로 바인딩한다. currentFormat은 재작성이 필요 없는 현재 형식 JSON을 그냥 읽는 기준값이다.
+ * 할당량 차이는 -prof gc로 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class TypeIdRewritingBenchmark {
+
+    @Param({"10", "1000"})
+    int vehicles;
+
+    ObjectMapper streaming;
+
+    ObjectMapper plain;
+
+    Rewrites rewrites;
+
+    String legacyJson;
+
+    String currentJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        rewrites = TypeIdRewritingParserTest.legacyRewrites();
+        streaming = TypeIdRewritingParserTest.typedMapper(new ObjectMapper(new RewritingJsonFactory(rewrites)));
+        plain = TypeIdRewritingParserTest.typedMapper(new ObjectMapper());
+        legacyJson = TypeIdRewritingParserTest.legacyGarageJson(vehicles);
+        currentJson = plain.writeValueAsString(streaming.readValue(legacyJson, Garage.class));
+    }
+
+    @Benchmark
+    public Garage streamingRewrite() throws IOException {
+        return streaming.readValue(legacyJson, Garage.class);
+    }
+
+    @Benchmark
+    public Garage treeMigration() throws IOException {
+        return TreeMigration.readValue(plain, legacyJson, Garage.class, rewrites);
+    }
+
+    @Benchmark
+    public Garage currentFormat() throws IOException {
+        return plain.readValue(currentJson, Garage.class);
+    }
+}
@@ -0,0 +1,90 @@
+package learn.jackson.databind.defaulttyping.polymorphism.intermediate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Aeroplane;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Car;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.DynamicTypeIdResolver;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.ListMixIn;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.RichUser;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Vehicle;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.PluginTypeIdResolverTest.PluginTypeIdResolver;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.PluginTypeIdResolverTest.PluginTypeRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 정적 맵(DynamicTypeIdResolver)과 핫스왑 가능한 레지스트리(PluginTypeIdResolver)의 읽기 경로 비교.
+ * typeFromId는 리졸버 자체의 조회 비용이고, deserialize는 Jackson이 식별자별 역직렬화기를 캐시한 뒤의 전체 비용이다.
+ * 두 리졸버의 차이가 오차 범위 안에 있어야 한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PluginTypeIdResolverBenchmark {
+
+    private static final String[] IDS = {"car", "aeroplane", "richUser", "car"};
+
+    @Param({"static", "plugin"})
+    String resolverType;
+
+    ObjectMapper mapper;
+
+    TypeIdResolverBase resolver;
+
+    DatabindContext context;
+
+    String json;
+
+    int next;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        mapper = new ObjectMapper();
+        if (resolverType.equals("static")) {
+            resolver = new DynamicTypeIdResolver(List.of(PluginTypeIdResolverTest.BASE_PACKAGE));
+        } else {
+            PluginTypeRegistry registry = new PluginTypeRegistry();
+            registry.register(getClass().getClassLoader(), List.of(PluginTypeIdResolverTest.BASE_PACKAGE));
+            resolver = new PluginTypeIdResolver(registry);
+        }
+        mapper.setDefaultTyping(PluginTypeIdResolverTest.typer(mapper, resolver));
+        mapper.addMixIn(List.class, ListMixIn.class);
+        context = mapper.getSerializerProviderInstance();
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            vehicles.add(i % 2 == 0 ? new Car("X" + i) : new Aeroplane(i));
+        }
+        json = mapper.writeValueAsString(new RichUser(vehicles));
+    }
+
+    @Benchmark
+    public JavaType typeFromId() throws IOException {
+        return resolver.typeFromId(context, IDS[next++ & (IDS.length - 1)]);
+    }
+
+    @Benchmark
+    public RichUser deserialize() throws JsonProcessingException {
+        return mapper.readValue(json, RichUser.class);
+    }
+}
@@ -0,0 +1,78 @@
+package learn.jackson.databind.defaulttyping.polymorphism.intermediate;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.DynamicTypeIdResolver;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.ListMixIn;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 100,000개의 Vehicle 목록을 직렬화하는 비용. dynamic은 DynamicTypeIdResolver(값마다 @JsonTypeName 조회와 인코딩),
+ * preEncoded는 ClassValueTypeIdResolver + PreEncodedTypeSerializer(ClassValue 조회와 바이트 복사)다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PreEncodedTypeIdBenchmark {
+
+    @Param({"dynamic", "preEncoded"})
+    String resolver;
+
+    @Param({"bytes", "string"})
+    String output;
+
+    ObjectWriter writer;
+
+    List<Vehicle> vehicles = PreEncodedTypeIdTest.vehicles(100_000);
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper;
+        if (resolver.equals("dynamic")) {
+            mapper = new ObjectMapper();
+            TypeResolverBuilder<StdTypeResolverBuilder> typer =
+                new DefaultTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator());
+            typer = typer.init(Id.NAME, new DynamicTypeIdResolver(PreEncodedTypeIdTest.BASE_PACKAGES));
+            mapper.setDefaultTyping(typer.inclusion(As.PROPERTY));
+            mapper.addMixIn(List.class, ListMixIn.class);
+        } else {
+            mapper = PreEncodedTypeIdTest.preEncodedMapper();
+        }
+        writer = mapper.writerFor(new TypeReference<List<Vehicle>>() {
+        });
+    }
+
+    @Benchmark
+    public Object serialize() throws IOException {
+        if (output.equals("string")) {
+            return writer.writeValueAsString(vehicles);
+        }
+        writer.writeValue(OutputStream.nullOutputStream(), vehicles);
+        return writer;
+    }
+}
@@ -0,0 +1,104 @@
+package learn.jackson.databind.defaulttyping.programmatic;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.BeanContainer;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.CustomTypeIdResolver;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.FirstBean;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.LastBean;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.ListMixIn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CustomTypeIdResolverTest 시나리오의 첫 호출 비용.
+ * newTypeIdResolver는 @JsonTypeName 클래스를 클래스패스에서 찾는 비용(Spring 스캐너), firstSetDefaultTyping은 기본 타이핑과 List 믹스인 설정,
+ * firstSerialize/firstDeserialize는 기본 타이핑이 켜진 매퍼로 BeanContainer를 처음 쓰고 읽는 비용이다
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(30)
+public class CustomTypeIdResolverColdPathBenchmark {
+
+    private static final String BASE_PACKAGE = "learn.jackson.databind.defaulttyping.programmatic";
+
+    private static final String CONTAINER_JSON = """
+                                                 {"@type":"BeanContainer","beans":["java.util.ArrayList",[\
+                                                 {"@type":"FirstBean","id":1,"firstName":"Bean 1"},\
+                                                 {"@type":"LastBean","id":2,"lastName":"Bean 2"}]]}""";
+
+    @State(Scope.Thread)
+    public static class ResolverState {
+
+        ObjectMapper mapper;
+
+        CustomTypeIdResolver resolver;
+
+        @Setup
+        public void setUp() {
+            mapper = new ObjectMapper();
+            resolver = new CustomTypeIdResolver(List.of(BASE_PACKAGE));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TypedMapperState {
+
+        ObjectMapper mapper;
+
+        BeanContainer container;
+
+        @Setup
+        public void setUp() {
+            mapper = setDefaultTyping(new ObjectMapper(), new CustomTypeIdResolver(List.of(BASE_PACKAGE)));
+            container = new BeanContainer(new ArrayList<>(List.of(new FirstBean(1, "Bean 1"), new LastBean(2, "Bean 2"))));
+        }
+    }
+
+    @Benchmark
+    public CustomTypeIdResolver newTypeIdResolver() {
+        return new CustomTypeIdResolver(List.of(BASE_PACKAGE));
+    }
+
+    @Benchmark
+    public ObjectMapper firstSetDefaultTyping(ResolverState state) {
+        return setDefaultTyping(state.mapper, state.resolver);
+    }
+
+    @Benchmark
+    public String firstSerialize(TypedMapperState state) throws IOException {
+        return state.mapper.writeValueAsString(state.container);
+    }
+
+    @Benchmark
+    public BeanContainer firstDeserialize(TypedMapperState state) throws IOException {
+        return state.mapper.readValue(CONTAINER_JSON, BeanContainer.class);
+    }
+
+    private static ObjectMapper setDefaultTyping(ObjectMapper mapper, CustomTypeIdResolver resolver) {
+        TypeResolverBuilder<StdTypeResolverBuilder> typer = new DefaultTypeResolverBuilder(DefaultTyping.EVERYTHING);
+        typer = typer.init(Id.NAME, resolver);
+        typer = typer.inclusion(As.PROPERTY);
+        mapper.setDefaultTyping(typer);
+        return mapper.addMixIn(List.class, ListMixIn.class);
+    }
+}
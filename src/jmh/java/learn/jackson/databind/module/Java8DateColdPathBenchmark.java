@@ -0,0 +1,82 @@
+package learn.jackson.databind.module;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import learn.jackson.databind.module.Java8DateTest.Time;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Java8DateTest 시나리오의 첫 호출 비용. firstRegisterModule은 JavaTimeModule 생성(클래스 로딩 포함)과 등록을,
+ * firstSerialize/firstDeserialize는 모듈을 등록한 매퍼로 LocalDate/LocalDateTime 속성을 처음 쓰고 읽는 비용을 잰다
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(30)
+public class Java8DateColdPathBenchmark {
+
+    private static final String TIME_JSON = "{\"localDate\":[2023,11,10],\"localDateTime\":[2023,11,10,0,0]}";
+
+    @State(Scope.Thread)
+    public static class MapperState {
+
+        ObjectMapper mapper;
+
+        @Setup
+        public void setUp() {
+            mapper = new ObjectMapper();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ModuleState {
+
+        ObjectMapper mapper;
+
+        Time time;
+
+        @Setup
+        public void setUp() throws ReflectiveOperationException {
+            mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+            // Time의 필드는 테스트 클래스 안에서만 접근할 수 있다
+            time = new Time();
+            set(time, "localDate", LocalDate.of(2023, 11, 10));
+            set(time, "localDateTime", LocalDate.of(2023, 11, 10).atStartOfDay());
+        }
+
+        private static void set(Time time, String name, Object value) throws ReflectiveOperationException {
+            Field field = Time.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(time, value);
+        }
+    }
+
+    @Benchmark
+    public ObjectMapper firstRegisterModule(MapperState state) {
+        return state.mapper.registerModule(new JavaTimeModule());
+    }
+
+    @Benchmark
+    public String firstSerialize(ModuleState state) throws IOException {
+        return state.mapper.writeValueAsString(state.time);
+    }
+
+    @Benchmark
+    public Time firstDeserialize(ModuleState state) throws IOException {
+        return state.mapper.readValue(TIME_JSON, Time.class);
+    }
+}
@@ -0,0 +1,599 @@
+package learn.jackson.codegen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * 모델 클래스 하나를 애너테이션 처리 시점에 분석한 결과. 생성 코드가 무엇을 어떤 순서로 읽고 쓸지를 담는다.
+ * <p>
+ * Jackson의 기본 규칙 중 리플렉션 없이 옮길 수 있는 부분을 따른다. 직렬화 속성은 public getter(Lombok @Getter 포함)나 public 필드, @JsonProperty가 붙은 필드이며,
+ * 상위 클래스 필드부터 선언 순서대로 쓰고 @JsonCreator 파라미터인 속성을 앞에 둔다(SORT_CREATOR_PROPERTIES_FIRST).
+ * 역직렬화는 @JsonCreator(프로퍼티 기반)나 private이 아닌 기본 생성자로 만들고, 나머지 속성은 setter나 private이 아닌 필드로 채운다.
+ * Jackson이 리플렉션으로 private 필드에 직접 쓰는 경우(setter 없는 속성)는 생성할 수 없으므로 컴파일 오류로 알린다
+ */
+final class BeanModel {
+
+    static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+
+    static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+
+    static final String JSON_IGNORE_PROPERTIES = "com.fasterxml.jackson.annotation.JsonIgnoreProperties";
+
+    static final String JSON_CREATOR = "com.fasterxml.jackson.annotation.JsonCreator";
+
+    static final String JSON_TYPE_INFO = "com.fasterxml.jackson.annotation.JsonTypeInfo";
+
+    static final String JSON_SUB_TYPES = "com.fasterxml.jackson.annotation.JsonSubTypes";
+
+    static final String JSON_TYPE_NAME = "com.fasterxml.jackson.annotation.JsonTypeName";
+
+    private static final String LOMBOK = "lombok.";
+
+    final TypeElement type;
+
+    final TypeElement mixIn;
+
+    final String packageName;
+
+    final String flatName;
+
+    final String typeProperty;
+
+    final List<SubType> subTypes = new ArrayList<>();
+
+    final List<Property> serialized = new ArrayList<>();
+
+    final List<Property> settable = new ArrayList<>();
+
+    final Set<String> skipped = new LinkedHashSet<>();
+
+    Creator creator;
+
+    boolean ignoreUnknown;
+
+    private final Elements elements;
+
+    private final Types types;
+
+    private BeanModel(ProcessingEnvironment env, TypeElement type, TypeElement mixIn) {
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.type = type;
+        this.mixIn = mixIn;
+        // 믹스인으로 생성하면 대상이 외부 라이브러리일 수 있으므로 믹스인의 패키지에 생성한다
+        this.packageName = elements.getPackageOf(mixIn != null ? mixIn : type).getQualifiedName().toString();
+        this.flatName = flatName(type);
+        this.typeProperty = typeProperty();
+    }
+
+    static BeanModel of(ProcessingEnvironment env, TypeElement type, TypeElement mixIn) {
+        BeanModel model = new BeanModel(env, type, mixIn);
+        model.checkAccessible();
+        AnnotationMirror ignoreProperties = model.classAnnotation(JSON_IGNORE_PROPERTIES);
+        if (ignoreProperties != null) {
+            model.skipped.addAll(model.strings(ignoreProperties, "value"));
+            model.ignoreUnknown = (Boolean) model.value(ignoreProperties, "ignoreUnknown");
+        }
+        if (model.isAbstract()) {
+            model.collectSubTypes();
+        } else {
+            model.collectCreator();
+            model.collectProperties();
+        }
+        return model;
+    }
+
+    String typeName() {
+        return type.getQualifiedName().toString();
+    }
+
+    boolean isAbstract() {
+        return type.getModifiers().contains(Modifier.ABSTRACT) || type.getKind() == ElementKind.INTERFACE;
+    }
+
+    String serializerName() {
+        return flatName + "JsonSerializer";
+    }
+
+    String deserializerName() {
+        return flatName + "JsonDeserializer";
+    }
+
+    /**
+     * 직렬화/역직렬화할 속성. accessor는 직렬화에서는 getter 호출("getX()")이나 필드 이름, 역직렬화에서는 setter 이름이나 필드 이름이다
+     */
+    record Property(String name, TypeMirror type, String accessor, boolean method) {
+
+    }
+
+    /**
+     * @JsonCreator 생성자(invocation이 "new 타입") 또는 정적 팩터리 메서드("타입.메서드")
+     */
+    record Creator(String invocation, List<Property> parameters) {
+
+    }
+
+    record SubType(String id, String deserializer) {
+
+    }
+
+    private void checkAccessible() {
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new CodegenException(type, "@JsonCodegen does not support generic classes");
+        }
+        for (Element element = type; element instanceof TypeElement nested; element = element.getEnclosingElement()) {
+            if (nested.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new CodegenException(type, "%s must not be private to be used from generated code", nested.getSimpleName());
+            }
+            if (nested.getNestingKind() == NestingKind.MEMBER && nested.getKind() == ElementKind.CLASS && !nested.getModifiers().contains(Modifier.STATIC)) {
+                throw new CodegenException(type, "%s must be a static nested class", nested.getSimpleName());
+            }
+        }
+    }
+
+    // 타입 정보
+
+    private String typeProperty() {
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            AnnotationMirror typeInfo = annotation(current == type ? mixIn : null, current, JSON_TYPE_INFO);
+            if (typeInfo == null) {
+                continue;
+            }
+            String use = enumName(value(typeInfo, "use"));
+            String include = enumName(value(typeInfo, "include"));
+            if (!use.equals("NAME") || !include.equals("PROPERTY")) {
+                throw new CodegenException(current, "@JsonCodegen supports only @JsonTypeInfo(use = NAME, include = PROPERTY)");
+            }
+            String property = (String) value(typeInfo, "property");
+            return property.isEmpty() ? "@type" : property;
+        }
+        return null;
+    }
+
+    private void collectSubTypes() {
+        AnnotationMirror subTypesAnnotation = classAnnotation(JSON_SUB_TYPES);
+        if (typeProperty == null || subTypesAnnotation == null) {
+            throw new CodegenException(type, "abstract type needs @JsonTypeInfo and @JsonSubTypes to be deserialized");
+        }
+        for (AnnotationValue subTypeValue : list(subTypesAnnotation, "value")) {
+            AnnotationMirror subType = (AnnotationMirror) subTypeValue.getValue();
+            TypeElement subTypeElement = (TypeElement) types.asElement((TypeMirror) value(subType, "value"));
+            if (subTypeElement.getAnnotation(JsonCodegen.class) == null) {
+                throw new CodegenException(type, "subtype %s must be annotated with @JsonCodegen", subTypeElement.getSimpleName());
+            }
+            String id = (String) value(subType, "name");
+            if (id.isEmpty()) {
+                AnnotationMirror typeName = annotation(null, subTypeElement, JSON_TYPE_NAME);
+                id = (typeName == null || ((String) value(typeName, "value")).isEmpty()) ? subTypeElement.getSimpleName().toString() : (String) value(typeName, "value");
+            }
+            String subTypePackage = elements.getPackageOf(subTypeElement).getQualifiedName().toString();
+            subTypes.add(new SubType(id, (subTypePackage.isEmpty() ? "" : subTypePackage + ".") + flatName(subTypeElement) + "JsonDeserializer"));
+        }
+    }
+
+    // 생성자
+
+    private void collectCreator() {
+        List<ExecutableElement> constructors = new ArrayList<>();
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (annotation(mixInMember(constructor), constructor, JSON_CREATOR) != null) {
+                constructors.add(constructor);
+            }
+        }
+        List<ExecutableElement> factories = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.STATIC) && annotation(mixInMember(method), method, JSON_CREATOR) != null) {
+                factories.add(method);
+            }
+        }
+        // Jackson(CreatorCollector.verifyNonDup)은 같은 종류의 @JsonCreator가 둘이면 거부하고,
+        // 생성자와 정적 팩터리 메서드가 하나씩이면 나중에 등록되는 팩터리 메서드를 쓴다
+        rejectDuplicateCreators(constructors, "constructors");
+        rejectDuplicateCreators(factories, "factory methods");
+        if (!factories.isEmpty()) {
+            ExecutableElement factory = factories.get(0);
+            creator = creator(factory, mixInMember(factory), typeName() + "." + factory.getSimpleName());
+            return;
+        }
+        if (!constructors.isEmpty()) {
+            ExecutableElement constructor = constructors.get(0);
+            creator = creator(constructor, mixInMember(constructor), "new " + typeName());
+            return;
+        }
+        if (!hasNoArgsConstructor()) {
+            throw new CodegenException(type, "needs a @JsonCreator or a non-private no-args constructor");
+        }
+    }
+
+    private void rejectDuplicateCreators(List<ExecutableElement> creators, String kind) {
+        if (creators.size() > 1) {
+            throw new CodegenException(creators.get(1), "@JsonCodegen supports only one @JsonCreator among %s, but %s has %d: %s",
+                                       kind, type.getSimpleName(), creators.size(), creators);
+        }
+    }
+
+    private Creator creator(ExecutableElement executable, ExecutableElement mixInExecutable, String invocation) {
+        if (executable.getModifiers().contains(Modifier.PRIVATE)) {
+            throw new CodegenException(executable, "@JsonCreator must not be private to be called from generated code");
+        }
+        AnnotationMirror jsonCreator = annotation(mixInExecutable, executable, JSON_CREATOR);
+        if (enumName(value(jsonCreator, "mode")).equals("DELEGATING")) {
+            throw new CodegenException(executable, "@JsonCodegen supports only properties-based creators");
+        }
+        List<Property> parameters = new ArrayList<>();
+        List<? extends VariableElement> params = executable.getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            VariableElement param = params.get(i);
+            String name = jsonPropertyName(mixInExecutable == null ? null : mixInExecutable.getParameters().get(i), param);
+            if (name == null) {
+                throw new CodegenException(param, "@JsonCreator parameter needs @JsonProperty");
+            }
+            checkSupported(param, param.asType());
+            parameters.add(new Property(name, param.asType(), null, false));
+        }
+        return new Creator(invocation, parameters);
+    }
+
+    private boolean hasNoArgsConstructor() {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!constructor.getParameters().isEmpty() || constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            // Lombok보다 먼저 실행되면 javac의 기본 생성자가 보인다. Lombok이 생성자를 만들면 기본 생성자는 사라지므로 Lombok 애너테이션을 본다
+            if (elements.getOrigin(constructor) != Elements.Origin.MANDATED || !hasLombokConstructor()) {
+                return true;
+            }
+        }
+        AnnotationMirror noArgs = lombok(type, "NoArgsConstructor");
+        if (noArgs != null) {
+            return !enumName(value(noArgs, "access")).equals("PRIVATE");
+        }
+        boolean noRequiredFields = ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+                                               .noneMatch(field -> !field.getModifiers().contains(Modifier.STATIC) && field.getModifiers().contains(Modifier.FINAL));
+        return noRequiredFields && (lombok(type, "Data") != null || lombok(type, "RequiredArgsConstructor") != null);
+    }
+
+    private boolean hasLombokConstructor() {
+        return lombok(type, "NoArgsConstructor") != null || lombok(type, "RequiredArgsConstructor") != null
+               || lombok(type, "AllArgsConstructor") != null || lombok(type, "Data") != null || lombok(type, "Value") != null;
+    }
+
+    // 속성
+
+    private void collectProperties() {
+        Set<String> creatorNames = new LinkedHashSet<>();
+        if (creator != null) {
+            creator.parameters().forEach(parameter -> creatorNames.add(parameter.name()));
+        }
+        List<Property> creatorProperties = new ArrayList<>();
+        List<Property> otherProperties = new ArrayList<>();
+        List<Property> renamedProperties = new ArrayList<>();
+        Set<String> fieldNames = new LinkedHashSet<>();
+        for (TypeElement current : hierarchy()) {
+            TypeElement currentMixIn = (current == type) ? mixIn : null;
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                String fieldName = field.getSimpleName().toString();
+                fieldNames.add(fieldName);
+                VariableElement mixInField = (currentMixIn == null) ? null : member(ElementFilter.fieldsIn(currentMixIn.getEnclosedElements()), fieldName, 0);
+                String getterName = getterName(field);
+                ExecutableElement getter = method(getterName, 0);
+                ExecutableElement mixInGetter = (currentMixIn == null) ? null : member(ElementFilter.methodsIn(currentMixIn.getEnclosedElements()), getterName, 0);
+                String setterName = "set" + capitalize(fieldName);
+                ExecutableElement setter = method(setterName, 1);
+                ExecutableElement mixInSetter = (currentMixIn == null) ? null : member(ElementFilter.methodsIn(currentMixIn.getEnclosedElements()), setterName, 1);
+
+                if (annotation(mixInField, field, JSON_IGNORE) != null || annotation(mixInGetter, getter, JSON_IGNORE) != null) {
+                    skipped.add(fieldName);
+                    continue;
+                }
+                String explicitName = firstNonNull(jsonPropertyName(mixInField, field), jsonPropertyName(mixInGetter, getter), jsonPropertyName(mixInSetter, setter));
+                String name = (explicitName == null) ? fieldName : explicitName;
+                if (skipped.contains(name)) {
+                    continue;
+                }
+                boolean lombokGetter = hasLombokAccessor(current, field, "Getter");
+                boolean visible = explicitName != null || modifiers.contains(Modifier.PUBLIC) || lombokGetter
+                                  || (getter != null && getter.getModifiers().contains(Modifier.PUBLIC));
+                if (!visible) {
+                    continue;
+                }
+                checkSupported(field, field.asType());
+
+                String readAccessor = (getter != null && !getter.getModifiers().contains(Modifier.PRIVATE)) || lombokGetter ? getterName + "()"
+                                      : modifiers.contains(Modifier.PRIVATE) ? null : fieldName;
+                if (readAccessor == null) {
+                    throw new CodegenException(field, "property '%s' needs a getter or a non-private field", name);
+                }
+                Property property = new Property(name, field.asType(), readAccessor, readAccessor.endsWith("()"));
+                (creatorNames.contains(name) ? creatorProperties : name.equals(fieldName) ? otherProperties : renamedProperties).add(property);
+
+                if (creatorNames.contains(name)) {
+                    continue;
+                }
+                if ((setter != null && !setter.getModifiers().contains(Modifier.PRIVATE))
+                    || (!modifiers.contains(Modifier.FINAL) && hasLombokAccessor(current, field, "Setter"))) {
+                    settable.add(new Property(name, field.asType(), setterName, true));
+                } else if (!modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.FINAL)) {
+                    settable.add(new Property(name, field.asType(), fieldName, false));
+                } else {
+                    throw new CodegenException(field, "property '%s' needs a setter, a non-private field or a @JsonCreator parameter (or @JsonIgnore)", name);
+                }
+            }
+        }
+        collectGetterOnlyProperties(fieldNames, otherProperties, renamedProperties);
+        // Jackson은 이름을 바꾼 속성을 뒤로 옮긴다
+        otherProperties.addAll(renamedProperties);
+
+        // 생성자 파라미터인 속성을 파라미터 순서대로 앞에 둔다
+        for (Property parameter : creator == null ? List.<Property>of() : creator.parameters()) {
+            creatorProperties.stream().filter(property -> property.name().equals(parameter.name())).findFirst().ifPresent(serialized::add);
+        }
+        serialized.addAll(otherProperties);
+    }
+
+    /**
+     * 필드 없이 public getter만 있는 속성(계산된 값)도 직렬화한다
+     */
+    private void collectGetterOnlyProperties(Set<String> fieldNames, List<Property> properties, List<Property> renamedProperties) {
+        for (TypeElement current : hierarchy()) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                String methodName = method.getSimpleName().toString();
+                String propertyName = propertyName(method);
+                if (propertyName == null || fieldNames.contains(propertyName) || !method.getModifiers().contains(Modifier.PUBLIC)) {
+                    continue;
+                }
+                ExecutableElement mixInMethod = (current == type && mixIn != null) ? member(ElementFilter.methodsIn(mixIn.getEnclosedElements()), methodName, 0) : null;
+                if (annotation(mixInMethod, method, JSON_IGNORE) != null) {
+                    continue;
+                }
+                String explicitName = jsonPropertyName(mixInMethod, method);
+                String name = (explicitName == null) ? propertyName : explicitName;
+                if (skipped.contains(name)) {
+                    continue;
+                }
+                checkSupported(method, method.getReturnType());
+                fieldNames.add(propertyName);
+                (name.equals(propertyName) ? properties : renamedProperties).add(new Property(name, method.getReturnType(), methodName + "()", true));
+                // 읽기 전용 속성은 입력에 있어도 무시한다
+                skipped.add(name);
+            }
+        }
+    }
+
+    private String propertyName(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        if (method.getModifiers().contains(Modifier.STATIC) || !method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID) {
+            return null;
+        }
+        if (name.startsWith("get") && name.length() > 3 && !name.equals("getClass")) {
+            return decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2 && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+            return decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    // 애너테이션 조회
+
+    private AnnotationMirror classAnnotation(String annotation) {
+        return annotation(mixIn, type, annotation);
+    }
+
+    /**
+     * 믹스인 멤버의 애너테이션이 있으면 그것을, 없으면 대상 멤버의 애너테이션을 돌려준다
+     */
+    static AnnotationMirror annotation(Element mixInElement, Element element, String annotation) {
+        AnnotationMirror mirror = find(mixInElement, annotation);
+        return (mirror != null) ? mirror : find(element, annotation);
+    }
+
+    private static AnnotationMirror find(Element element, String annotation) {
+        if (element == null) {
+            return null;
+        }
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private String jsonPropertyName(Element mixInElement, Element element) {
+        AnnotationMirror jsonProperty = annotation(mixInElement, element, JSON_PROPERTY);
+        if (jsonProperty == null) {
+            return null;
+        }
+        String value = (String) value(jsonProperty, "value");
+        return value.isEmpty() ? null : value;
+    }
+
+    private Object value(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalArgumentException("No attribute " + name + " in " + mirror);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<? extends AnnotationValue> list(AnnotationMirror mirror, String name) {
+        return (List<? extends AnnotationValue>) value(mirror, name);
+    }
+
+    private List<String> strings(AnnotationMirror mirror, String name) {
+        return list(mirror, name).stream().map(value -> (String) value.getValue()).toList();
+    }
+
+    private static String enumName(Object value) {
+        return ((VariableElement) value).getSimpleName().toString();
+    }
+
+    // Lombok
+
+    private AnnotationMirror lombok(Element element, String annotation) {
+        return find(element, LOMBOK + annotation);
+    }
+
+    /**
+     * Lombok이 만들 getter/setter를 애너테이션으로 판단한다. 애너테이션 처리 순서에 따라 Lombok이 만든 메서드가 아직 보이지 않을 수 있기 때문이다
+     */
+    private boolean hasLombokAccessor(TypeElement owner, VariableElement field, String kind) {
+        AnnotationMirror onField = lombok(field, kind);
+        if (onField != null) {
+            return !enumName(value(onField, "value")).matches("NONE|PRIVATE");
+        }
+        AnnotationMirror onType = lombok(owner, kind);
+        if (onType != null) {
+            return !enumName(value(onType, "value")).matches("NONE|PRIVATE");
+        }
+        return lombok(owner, "Data") != null || (kind.equals("Getter") && lombok(owner, "Value") != null);
+    }
+
+    // 멤버 조회
+
+    private List<TypeElement> hierarchy() {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            hierarchy.add(0, current);
+        }
+        return hierarchy;
+    }
+
+    private TypeElement superclass(TypeElement element) {
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superElement = (TypeElement) types.asElement(superclass);
+        return superElement.getQualifiedName().contentEquals("java.lang.Object") ? null : superElement;
+    }
+
+    private ExecutableElement method(String name, int parameterCount) {
+        for (TypeElement current : hierarchy()) {
+            ExecutableElement method = member(ElementFilter.methodsIn(current.getEnclosedElements()), name, parameterCount);
+            if (method != null && !method.getModifiers().contains(Modifier.STATIC)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static <T extends Element> T member(List<T> members, String name, int parameterCount) {
+        for (T member : members) {
+            if (member.getSimpleName().contentEquals(name)
+                && (!(member instanceof ExecutableElement executable) || executable.getParameters().size() == parameterCount)) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 파라미터 타입이 같은 믹스인 생성자/메서드
+     */
+    private ExecutableElement mixInMember(ExecutableElement executable) {
+        if (mixIn == null) {
+            return null;
+        }
+        List<ExecutableElement> candidates = (executable.getKind() == ElementKind.CONSTRUCTOR)
+                                             ? ElementFilter.constructorsIn(mixIn.getEnclosedElements())
+                                             : ElementFilter.methodsIn(mixIn.getEnclosedElements());
+        for (ExecutableElement candidate : candidates) {
+            if (candidate.getKind() == ElementKind.METHOD && !candidate.getSimpleName().contentEquals(executable.getSimpleName())) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = candidate.getParameters();
+            if (parameters.size() != executable.getParameters().size()) {
+                continue;
+            }
+            boolean same = true;
+            for (int i = 0; i < parameters.size() && same; i++) {
+                same = types.isSameType(types.erasure(parameters.get(i).asType()), types.erasure(executable.getParameters().get(i).asType()));
+            }
+            if (same) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private String getterName(VariableElement field) {
+        String prefix = (field.asType().getKind() == TypeKind.BOOLEAN) ? "is" : "get";
+        return prefix + capitalize(field.getSimpleName().toString());
+    }
+
+    private void checkSupported(Element element, TypeMirror type) {
+        if (containsTypeVariable(type)) {
+            throw new CodegenException(element, "@JsonCodegen does not support type variables in properties");
+        }
+    }
+
+    private static boolean containsTypeVariable(TypeMirror type) {
+        return switch (type.getKind()) {
+            case TYPEVAR, WILDCARD -> true;
+            case ARRAY -> containsTypeVariable(((ArrayType) type).getComponentType());
+            case DECLARED -> ((DeclaredType) type).getTypeArguments().stream().anyMatch(BeanModel::containsTypeVariable);
+            default -> false;
+        };
+    }
+
+    static String flatName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement outer; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, outer.getSimpleName() + "_");
+        }
+        return name.toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Jackson의 기본 이름 규칙. 앞쪽의 대문자를 모두 소문자로 바꾼다(getURL -> url)
+     */
+    private static String decapitalize(String name) {
+        StringBuilder result = new StringBuilder(name);
+        for (int i = 0; i < result.length() && Character.isUpperCase(result.charAt(i)); i++) {
+            result.setCharAt(i, Character.toLowerCase(result.charAt(i)));
+        }
+        return result.toString();
+    }
+
+    @SafeVarargs
+    private static <T> T firstNonNull(T... values) {
+        for (T value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,577 @@
+package learn.jackson.codegen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import learn.jackson.codegen.BeanModel.Property;
+import learn.jackson.codegen.BeanModel.SubType;
+
+/**
+ * BeanModel로 직렬화기/역직렬화기/모듈 소스를 쓴다.
+ * <p>
+ * 속성마다 getter/setter를 직접 호출하는 직선 코드를 만든다. 기본형, 박싱 타입, String은 생성기/파서 메서드를 바로 부르고,
+ * 그 밖의 타입(컬렉션, 다른 모델)은 처음 쓸 때 찾은 직렬화기/역직렬화기에 맡긴다
+ */
+final class CodecWriter {
+
+    private static final String GENERATED = "@Generated(\"" + JsonCodegenProcessor.class.getName() + "\")";
+
+    private final Types types;
+
+    CodecWriter(Types types) {
+        this.types = types;
+    }
+
+    // 직렬화기
+
+    String serializer(BeanModel model) {
+        String type = model.typeName();
+        Source source = new Source(model.packageName,
+                                   "com.fasterxml.jackson.core.JsonGenerator",
+                                   "com.fasterxml.jackson.core.JsonToken",
+                                   "com.fasterxml.jackson.core.io.SerializedString",
+                                   "com.fasterxml.jackson.core.type.TypeReference",
+                                   "com.fasterxml.jackson.core.type.WritableTypeId",
+                                   "com.fasterxml.jackson.databind.JsonSerializer",
+                                   "com.fasterxml.jackson.databind.SerializerProvider",
+                                   "com.fasterxml.jackson.databind.jsontype.TypeSerializer",
+                                   "com.fasterxml.jackson.databind.ser.impl.PropertySerializerMap",
+                                   "com.fasterxml.jackson.databind.ser.std.StdSerializer",
+                                   "java.io.IOException",
+                                   "javax.annotation.processing.Generated");
+        source.line(GENERATED);
+        source.open("public final class %s extends StdSerializer<%s>", model.serializerName(), type);
+        source.line("");
+        List<Property> properties = model.serialized;
+        for (int i = 0; i < properties.size(); i++) {
+            source.line("private static final SerializedString NAME_%d = new SerializedString(%s);", i, quote(properties.get(i).name()));
+            source.line("");
+        }
+        for (int i = 0; i < properties.size(); i++) {
+            TypeMirror propertyType = properties.get(i).type();
+            if (isPolymorphic(propertyType)) {
+                source.line("private TypeSerializer typeSerializer%d;", i);
+                source.line("");
+            } else if (isGeneric(propertyType)) {
+                source.line("private static final TypeReference<%s> TYPE_%d = new TypeReference<>() {", propertyType, i);
+                source.line("};");
+                source.line("");
+                source.line("private PropertySerializerMap serializers%d = PropertySerializerMap.emptyForProperties();", i);
+                source.line("");
+            }
+        }
+        source.open("public %s()", model.serializerName());
+        source.line("super(%s.class);", type);
+        source.close();
+        source.line("");
+        source.line("@Override");
+        source.open("public void serialize(%s value, JsonGenerator g, SerializerProvider provider) throws IOException", type);
+        source.line("g.writeStartObject(value);");
+        source.line("serializeFields(value, g, provider);");
+        source.line("g.writeEndObject();");
+        source.close();
+        source.line("");
+        source.line("@Override");
+        source.open("public void serializeWithType(%s value, JsonGenerator g, SerializerProvider provider, TypeSerializer typeSer) throws IOException", type);
+        source.line("WritableTypeId typeId = typeSer.writeTypePrefix(g, typeSer.typeId(value, JsonToken.START_OBJECT));");
+        source.line("serializeFields(value, g, provider);");
+        source.line("typeSer.writeTypeSuffix(g, typeId);");
+        source.close();
+        source.line("");
+        source.open("private void serializeFields(%s value, JsonGenerator g, SerializerProvider provider) throws IOException", type);
+        for (int i = 0; i < properties.size(); i++) {
+            source.line("g.writeFieldName(NAME_%d);", i);
+            writeValue(source, properties.get(i), i);
+        }
+        source.close();
+        source.close();
+        return source.toString();
+    }
+
+    private void writeValue(Source source, Property property, int index) {
+        String value = "value." + property.accessor();
+        TypeMirror type = property.type();
+        switch (type.getKind()) {
+            case BOOLEAN -> source.line("g.writeBoolean(%s);", value);
+            case CHAR -> source.line("g.writeString(String.valueOf(%s));", value);
+            case BYTE, SHORT, INT, LONG, FLOAT, DOUBLE -> source.line("g.writeNumber(%s);", value);
+            default -> {
+                String writer = switch (type.toString()) {
+                    case "java.lang.String" -> "g.writeString(v%d);";
+                    case "java.lang.Boolean" -> "g.writeBoolean(v%d);";
+                    case "java.lang.Integer", "java.lang.Long", "java.lang.Double", "java.lang.Float", "java.lang.Short" -> "g.writeNumber(v%d);";
+                    default -> null;
+                };
+                if (writer != null) {
+                    source.line("%s v%d = %s;", type, index, value);
+                    source.open("if (v%d == null)", index);
+                    source.line("g.writeNull();");
+                    source.reopen("else");
+                    source.line(writer, index);
+                    source.close();
+                } else if (isPolymorphic(type)) {
+                    // 선언 타입의 타입 정보로 하위 타입 id를 쓴다. 값의 직렬화기는 실제 클래스로 찾는다
+                    source.line("Object v%d = %s;", index, value);
+                    source.open("if (v%d == null)", index);
+                    source.line("provider.defaultSerializeNull(g);");
+                    source.reopen("else");
+                    source.line("TypeSerializer typeSerializer = typeSerializer%d;", index);
+                    source.open("if (typeSerializer == null)");
+                    source.line("typeSerializer = typeSerializer%d = provider.findTypeSerializer(provider.constructType(%s.class));", index, types.erasure(type));
+                    source.close();
+                    source.line("provider.findValueSerializer(v%1$d.getClass()).serializeWithType(v%1$d, g, provider, typeSerializer);", index);
+                    source.close();
+                } else if (isGeneric(type)) {
+                    // 제네릭 선언 타입(List<Vehicle> 등)으로 직렬화기를 찾아야 원소의 타입 정보까지 반영된다. 실제 클래스별로 찾은 직렬화기를 둔다
+                    source.line("Object v%d = %s;", index, value);
+                    source.open("if (v%d == null)", index);
+                    source.line("provider.defaultSerializeNull(g);");
+                    source.reopen("else");
+                    source.line("JsonSerializer<Object> serializer = serializers%d.serializerFor(v%d.getClass());", index, index);
+                    source.open("if (serializer == null)");
+                    source.line("PropertySerializerMap.SerializerAndMapResult result = serializers%1$d.findAndAddSecondarySerializer(", index);
+                    source.line("    provider.constructSpecializedType(provider.getTypeFactory().constructType(TYPE_%1$d), v%1$d.getClass()), provider, null);", index);
+                    source.line("serializers%d = result.map;", index);
+                    source.line("serializer = result.serializer;");
+                    source.close();
+                    source.line("serializer.serialize(v%d, g, provider);", index);
+                    source.close();
+                } else {
+                    source.line("provider.defaultSerializeValue(%s, g);", value);
+                }
+            }
+        }
+    }
+
+    // 역직렬화기
+
+    String deserializer(BeanModel model) {
+        String type = model.typeName();
+        Source source = deserializerSource(model.packageName);
+        source.line(GENERATED);
+        source.open("public final class %s extends StdDeserializer<%s>", model.deserializerName(), type);
+        source.line("");
+
+        List<Property> read = new ArrayList<>();
+        if (model.creator != null) {
+            read.addAll(model.creator.parameters());
+        }
+        read.addAll(model.settable);
+        List<String> knownNames = new ArrayList<>();
+        read.forEach(property -> knownNames.add(property.name()));
+        knownNames.addAll(model.skipped);
+        if (model.typeProperty != null) {
+            knownNames.add(model.typeProperty);
+        }
+        source.line("private static final List<Object> KNOWN_PROPERTY_NAMES = List.of(%s);",
+                    knownNames.stream().distinct().map(CodecWriter::quote).collect(Collectors.joining(", ")));
+        source.line("");
+        Source readMethods = new Source(1);
+        List<String> readers = new ArrayList<>();
+        for (int i = 0; i < read.size(); i++) {
+            readers.add(reader(source, readMethods, read.get(i).type(), i));
+        }
+
+        source.open("public %s()", model.deserializerName());
+        source.line("super(%s.class);", type);
+        source.close();
+        source.line("");
+        writeDeserialize(source, type);
+        source.line("@Override");
+        source.open("public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException");
+        source.line("// 타입 id는 상위 타입의 생성된 역직렬화기가 이미 읽었거나, 남아 있으면 deserializeFields가 건너뛴다");
+        source.line("return deserialize(p, ctxt);");
+        source.close();
+        source.line("");
+        source.line("@Override");
+        source.open("public Collection<Object> getKnownPropertyNames()");
+        source.line("return KNOWN_PROPERTY_NAMES;");
+        source.close();
+        source.line("");
+
+        source.line("/**");
+        source.line(" * 현재 FIELD_NAME부터 END_OBJECT까지 읽는다. 다형 타입의 역직렬화기가 타입 id를 읽은 뒤 호출한다");
+        source.line(" */");
+        source.open("public %s deserializeFields(JsonParser p, DeserializationContext ctxt) throws IOException", type);
+        Map<String, String> cases = new LinkedHashMap<>();
+        String unknownTarget;
+        if (model.creator == null) {
+            source.line("%1$s bean = new %1$s();", type);
+            for (int i = 0; i < read.size(); i++) {
+                Property property = read.get(i);
+                cases.putIfAbsent(property.name(), property.method()
+                                                   ? String.format("bean.%s(%s);", property.accessor(), readers.get(i))
+                                                   : String.format("bean.%s = %s;", property.accessor(), readers.get(i)));
+            }
+            unknownTarget = "bean";
+        } else {
+            int parameters = model.creator.parameters().size();
+            for (int i = 0; i < read.size(); i++) {
+                Property property = read.get(i);
+                source.line("%s v%d = %s;", property.type(), i, defaultValue(property.type()));
+                if (i >= parameters) {
+                    source.line("boolean has%d = false;", i);
+                }
+                cases.putIfAbsent(property.name(), (i < parameters)
+                                                   ? String.format("v%d = %s;", i, readers.get(i))
+                                                   : String.format("{ v%1$d = %2$s; has%1$d = true; }", i, readers.get(i)));
+            }
+            unknownTarget = "handledType()";
+        }
+        List<String> skippedNames = new ArrayList<>(model.skipped);
+        if (model.typeProperty != null) {
+            skippedNames.add(model.typeProperty);
+        }
+        String skippedLabels = skippedNames.stream().distinct().filter(name -> !cases.containsKey(name)).map(CodecWriter::quote).collect(Collectors.joining(", "));
+
+        source.open("for (String name = p.hasToken(JsonToken.FIELD_NAME) ? p.currentName() : null; name != null; name = p.nextFieldName())");
+        source.line("p.nextToken();");
+        source.open("switch (name)");
+        cases.forEach((name, statement) -> source.line("case %s -> %s", quote(name), statement));
+        if (!skippedLabels.isEmpty()) {
+            source.line("case %s -> p.skipChildren();", skippedLabels);
+        }
+        source.line(model.ignoreUnknown ? "default -> p.skipChildren();" : "default -> handleUnknownProperty(p, ctxt, %s, name);", unknownTarget);
+        source.close();
+        source.close();
+        if (model.creator != null) {
+            int parameters = model.creator.parameters().size();
+            List<String> arguments = new ArrayList<>();
+            for (int i = 0; i < parameters; i++) {
+                arguments.add("v" + i);
+            }
+            source.line("%s bean = %s(%s);", type, model.creator.invocation(), String.join(", ", arguments));
+            for (int i = parameters; i < read.size(); i++) {
+                Property property = read.get(i);
+                source.open("if (has%d)", i);
+                source.line(property.method() ? "bean.%s(v%d);" : "bean.%s = v%d;", property.accessor(), i);
+                source.close();
+            }
+        }
+        source.line("return bean;");
+        source.close();
+        source.append(readMethods);
+        source.close();
+        return source.toString();
+    }
+
+    /**
+     * 다형 상위 타입의 역직렬화기. 타입 id 속성으로 하위 타입의 생성된 역직렬화기를 고른다.
+     * 타입 id가 첫 속성이면 바로 넘기고, 뒤에 나오면 그 앞의 속성을 TokenBuffer에 담았다가 다시 읽힌다
+     */
+    String polymorphicDeserializer(BeanModel model) {
+        String type = model.typeName();
+        Source source = deserializerSource(model.packageName,
+                                           "com.fasterxml.jackson.core.util.JsonParserSequence",
+                                           "com.fasterxml.jackson.databind.util.TokenBuffer");
+        source.line(GENERATED);
+        source.open("public final class %s extends StdDeserializer<%s>", model.deserializerName(), type);
+        source.line("");
+        source.line("private static final String TYPE_PROPERTY = %s;", quote(model.typeProperty));
+        source.line("");
+        source.line("private static final List<Object> KNOWN_PROPERTY_NAMES = List.of(TYPE_PROPERTY);");
+        source.line("");
+        List<SubType> subTypes = model.subTypes;
+        for (int i = 0; i < subTypes.size(); i++) {
+            source.line("private final %1$s subType%2$d = new %1$s();", subTypes.get(i).deserializer(), i);
+            source.line("");
+        }
+        source.open("public %s()", model.deserializerName());
+        source.line("super(%s.class);", type);
+        source.close();
+        source.line("");
+        source.line("@Override");
+        source.open("public %s deserialize(JsonParser p, DeserializationContext ctxt) throws IOException", type);
+        source.open("if (p.hasToken(JsonToken.START_OBJECT))");
+        source.line("p.nextToken();");
+        source.close();
+        source.open("if (!p.hasToken(JsonToken.FIELD_NAME) && !p.hasToken(JsonToken.END_OBJECT))");
+        source.line("return (%s) ctxt.handleUnexpectedToken(handledType(), p);", type);
+        source.close();
+        source.open("if (p.hasToken(JsonToken.FIELD_NAME) && TYPE_PROPERTY.equals(p.currentName()))");
+        source.line("p.nextToken();");
+        source.line("String id = p.getValueAsString();");
+        source.line("p.nextToken();");
+        source.line("return deserializeFields(id, p, ctxt);");
+        source.close();
+        source.line("TokenBuffer buffer = ctxt.bufferForInputBuffering(p);");
+        source.open("for (String name = p.hasToken(JsonToken.FIELD_NAME) ? p.currentName() : null; name != null; name = p.nextFieldName())");
+        source.open("if (TYPE_PROPERTY.equals(name))");
+        source.line("p.nextToken();");
+        source.line("String id = p.getValueAsString();");
+        source.line("// 버퍼를 다 읽으면 타입 id 다음 토큰부터 원래 파서를 이어 읽는다");
+        source.line("p.clearCurrentToken();");
+        source.line("JsonParser replay = JsonParserSequence.createFlattened(false, buffer.asParser(p), p);");
+        source.line("replay.nextToken();");
+        source.line("return deserializeFields(id, replay, ctxt);");
+        source.close();
+        source.line("buffer.writeFieldName(name);");
+        source.line("p.nextToken();");
+        source.line("buffer.copyCurrentStructure(p);");
+        source.close();
+        source.line("throw ctxt.missingTypeIdException(ctxt.constructType(%s.class), null);", type);
+        source.close();
+        source.line("");
+        source.line("@Override");
+        source.open("public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException");
+        source.line("return deserialize(p, ctxt);");
+        source.close();
+        source.line("");
+        source.line("@Override");
+        source.open("public Collection<Object> getKnownPropertyNames()");
+        source.line("return KNOWN_PROPERTY_NAMES;");
+        source.close();
+        source.line("");
+        source.open("private %s deserializeFields(String id, JsonParser p, DeserializationContext ctxt) throws IOException", type);
+        source.open("if (id == null)");
+        source.line("throw ctxt.missingTypeIdException(ctxt.constructType(%s.class), null);", type);
+        source.close();
+        source.open("return switch (id)");
+        for (int i = 0; i < subTypes.size(); i++) {
+            source.line("case %s -> subType%d.deserializeFields(p, ctxt);", quote(subTypes.get(i).id()), i);
+        }
+        source.line("default -> throw ctxt.invalidTypeIdException(ctxt.constructType(%s.class), id, %s);", type,
+                    quote("known type ids = " + subTypes.stream().map(SubType::id).toList()));
+        source.close(";");
+        source.close();
+        source.close();
+        return source.toString();
+    }
+
+    private Source deserializerSource(String packageName, String... extraImports) {
+        List<String> imports = new ArrayList<>(List.of("com.fasterxml.jackson.core.JsonParser",
+                                                       "com.fasterxml.jackson.core.JsonToken",
+                                                       "com.fasterxml.jackson.core.type.TypeReference",
+                                                       "com.fasterxml.jackson.databind.DeserializationContext",
+                                                       "com.fasterxml.jackson.databind.JsonDeserializer",
+                                                       "com.fasterxml.jackson.databind.deser.impl.NullsConstantProvider",
+                                                       "com.fasterxml.jackson.databind.deser.std.StdDeserializer",
+                                                       "com.fasterxml.jackson.databind.jsontype.TypeDeserializer",
+                                                       "java.io.IOException",
+                                                       "java.util.Collection",
+                                                       "java.util.List",
+                                                       "javax.annotation.processing.Generated"));
+        imports.addAll(List.of(extraImports));
+        return new Source(packageName, imports.stream().sorted().toArray(String[]::new));
+    }
+
+    private void writeDeserialize(Source source, String type) {
+        source.line("@Override");
+        source.open("public %s deserialize(JsonParser p, DeserializationContext ctxt) throws IOException", type);
+        source.open("if (p.hasToken(JsonToken.START_OBJECT))");
+        source.line("p.nextToken();");
+        source.close();
+        source.open("if (!p.hasToken(JsonToken.FIELD_NAME) && !p.hasToken(JsonToken.END_OBJECT))");
+        source.line("return (%s) ctxt.handleUnexpectedToken(handledType(), p);", type);
+        source.close();
+        source.line("return deserializeFields(p, ctxt);");
+        source.close();
+        source.line("");
+    }
+
+    /**
+     * 현재 값 토큰을 읽는 식. 바로 읽을 수 없는 타입은 역직렬화기를 처음 쓸 때 찾아 두는 readN 메서드를 만든다
+     */
+    private String reader(Source fields, Source methods, TypeMirror type, int index) {
+        switch (type.getKind()) {
+            case INT:
+                return "_parseIntPrimitive(p, ctxt)";
+            case LONG:
+                return "_parseLongPrimitive(p, ctxt)";
+            case DOUBLE:
+                return "_parseDoublePrimitive(p, ctxt)";
+            case BOOLEAN:
+                return "_parseBooleanPrimitive(p, ctxt)";
+            default:
+                break;
+        }
+        switch (type.toString()) {
+            case "java.lang.String":
+                return "p.hasToken(JsonToken.VALUE_STRING) ? p.getText() : p.hasToken(JsonToken.VALUE_NULL) ? null : _parseString(p, ctxt, NullsConstantProvider.nuller())";
+            case "java.lang.Integer":
+                return "_parseInteger(p, ctxt, Integer.class)";
+            case "java.lang.Long":
+                return "_parseLong(p, ctxt, Long.class)";
+            case "java.lang.Boolean":
+                return "_parseBoolean(p, ctxt, Boolean.class)";
+            default:
+                break;
+        }
+        String boxed = boxed(type);
+        boolean generic = isGeneric(type);
+        String javaType;
+        if (generic) {
+            fields.line("private static final TypeReference<%s> TYPE_%d = new TypeReference<>() {", type, index);
+            fields.line("};");
+            fields.line("");
+            javaType = String.format("ctxt.getTypeFactory().constructType(TYPE_%d)", index);
+        } else {
+            javaType = String.format("ctxt.constructType(%s.class)", types.erasure(type));
+        }
+        fields.line("private JsonDeserializer<Object> deserializer%d;", index);
+        fields.line("");
+        methods.line("");
+        if (generic) {
+            methods.line("@SuppressWarnings(\"unchecked\")");
+        }
+        methods.open("private %s read%d(JsonParser p, DeserializationContext ctxt) throws IOException", boxed, index);
+        methods.line("JsonDeserializer<Object> deserializer = deserializer%d;", index);
+        methods.open("if (deserializer == null)");
+        methods.line("deserializer = deserializer%d = ctxt.findRootValueDeserializer(%s);", index, javaType);
+        methods.close();
+        methods.line("return (%s) (p.hasToken(JsonToken.VALUE_NULL) ? deserializer.getNullValue(ctxt) : deserializer.deserialize(p, ctxt));", boxed);
+        methods.close();
+        return String.format("read%d(p, ctxt)", index);
+    }
+
+    private String boxed(TypeMirror type) {
+        return type.getKind().isPrimitive() ? types.boxedClass((PrimitiveType) type).getQualifiedName().toString() : type.toString();
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "false";
+            case CHAR -> "'\\0'";
+            case BYTE, SHORT, INT, LONG, FLOAT, DOUBLE -> "0";
+            default -> "null";
+        };
+    }
+
+    private static boolean isGeneric(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty();
+    }
+
+    /**
+     * 선언 타입(또는 상위 클래스)에 @JsonTypeInfo가 있으면 값마다 타입 id를 써야 한다
+     */
+    private boolean isPolymorphic(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        for (TypeMirror current = type; current.getKind() == TypeKind.DECLARED; current = ((TypeElement) types.asElement(current)).getSuperclass()) {
+            if (BeanModel.annotation(null, types.asElement(current), BeanModel.JSON_TYPE_INFO) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 모듈
+
+    String module(String packageName, List<BeanModel> models) {
+        Source source = new Source(packageName,
+                                   "com.fasterxml.jackson.core.Version",
+                                   "com.fasterxml.jackson.databind.module.SimpleModule",
+                                   "javax.annotation.processing.Generated");
+        source.line("/**");
+        source.line(" * 이 패키지의 @JsonCodegen 모델에 생성된 직렬화기/역직렬화기와 믹스인을 등록한다.");
+        source.line(" * 역직렬화기는 처음 찾은 역직렬화기를 인스턴스에 캐시하므로 ObjectMapper마다 새 모듈을 등록한다");
+        source.line(" */");
+        source.line(GENERATED);
+        source.open("public final class JsonCodegenModule extends SimpleModule");
+        source.line("");
+        source.open("public JsonCodegenModule()");
+        source.line("super(%s, Version.unknownVersion());", quote("JsonCodegenModule(" + packageName + ")"));
+        for (BeanModel model : models) {
+            if (!model.isAbstract()) {
+                source.line("addSerializer(%s.class, new %s());", model.typeName(), model.serializerName());
+            }
+            source.line("addDeserializer(%s.class, new %s());", model.typeName(), model.deserializerName());
+            if (model.mixIn != null) {
+                source.line("setMixInAnnotation(%s.class, %s.class);", model.typeName(), model.mixIn.getQualifiedName());
+            }
+        }
+        source.close();
+        source.close();
+        return source.toString();
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * 들여쓰기를 맞춰 소스 줄을 쌓는다. 인자는 형식 문자열이 아니라 String.format 인자로만 넘겨 속성 이름의 %가 섞이지 않게 한다
+     */
+    private static final class Source {
+
+        private final StringBuilder text = new StringBuilder();
+
+        private int indent;
+
+        Source(int indent) {
+            this.indent = indent;
+        }
+
+        Source(String packageName, String... imports) {
+            if (!packageName.isEmpty()) {
+                line("package %s;", packageName);
+                line("");
+            }
+            for (String name : imports) {
+                line("import %s;", name);
+            }
+            line("");
+        }
+
+        void line(String format, Object... args) {
+            String line = String.format(format, args);
+            if (!line.isEmpty()) {
+                text.append("    ".repeat(indent)).append(line);
+            }
+            text.append('\n');
+        }
+
+        void open(String format, Object... args) {
+            line(format + " {", args);
+            indent++;
+        }
+
+        void reopen(String format, Object... args) {
+            indent--;
+            line("} " + format + " {", args);
+            indent++;
+        }
+
+        void close() {
+            close("");
+        }
+
+        void close(String suffix) {
+            indent--;
+            line("}" + suffix);
+        }
+
+        void append(Source fragment) {
+            text.append(fragment.text);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package learn.jackson.codegen;
+
+import javax.lang.model.element.Element;
+
+/**
+ * 생성할 수 없는 모델을 만났을 때 던진다. JsonCodegenProcessor가 element 위치의 컴파일 오류로 바꾼다
+ */
+class CodegenException extends RuntimeException {
+
+    final Element element;
+
+    CodegenException(Element element, String format, Object... args) {
+        super(String.format(format, args));
+        this.element = element;
+    }
+}
@@ -0,0 +1,33 @@
+package learn.jackson.codegen;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 컴파일 시점에 직렬화기/역직렬화기를 생성할 모델 클래스에 붙인다.
+ * <p>
+ * JsonCodegenProcessor가 클래스의 @JsonProperty, @JsonIgnore, @JsonIgnoreProperties, @JsonCreator, @JsonTypeInfo/@JsonSubTypes/@JsonTypeName을 읽어
+ * 리플렉션 없이 getter/setter/생성자를 직접 호출하는 {@code <클래스>JsonSerializer}, {@code <클래스>JsonDeserializer}를 같은 패키지에 만들고,
+ * 패키지마다 이들을 등록하는 {@code JsonCodegenModule}을 만든다. 생성된 코드가 멤버에 접근하므로 모델과 그 멤버는 private이 아니어야 한다
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JsonCodegen {
+
+    /**
+     * 직접 고칠 수 없는 클래스(value)에 믹스인으로 Jackson 애너테이션을 더한다.
+     * 믹스인의 필드, 메서드, 생성자 중 대상 클래스와 이름(생성자는 파라미터 타입)이 같은 것의 애너테이션이 대상 멤버의 애너테이션보다 우선한다.
+     * 생성된 모듈은 믹스인도 함께 등록하므로 Jackson이 읽는 타입 정보 애너테이션에도 적용된다
+     */
+    @Documented
+    @Retention(RetentionPolicy.CLASS)
+    @Target(ElementType.TYPE)
+    @interface MixIn {
+
+        Class<?> value();
+    }
+}
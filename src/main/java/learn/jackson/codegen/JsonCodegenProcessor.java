@@ -0,0 +1,99 @@
+package learn.jackson.codegen;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.MirroredTypeException;
+import javax.tools.Diagnostic;
+
+/**
+ * {@link JsonCodegen}, {@link JsonCodegen.MixIn}이 붙은 클래스마다 직렬화기/역직렬화기를, 패키지마다 이들을 등록하는 JsonCodegenModule을 생성한다.
+ * <p>
+ * Jackson 애너테이션은 클래스가 아니라 AnnotationMirror의 이름으로 읽으므로 프로세서 자체는 Jackson에 의존하지 않는다.
+ * 생성할 수 없는 모델(private 멤버만 있는 속성, 위임 생성자, NAME/PROPERTY 이외의 타입 정보 등)은 해당 위치의 컴파일 오류로 알린다
+ */
+@SupportedAnnotationTypes({"learn.jackson.codegen.JsonCodegen", "learn.jackson.codegen.JsonCodegen.MixIn"})
+public class JsonCodegenProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Map<String, List<BeanModel>> packages = new TreeMap<>();
+        for (Element element : round.getElementsAnnotatedWith(JsonCodegen.class)) {
+            analyze(element, null, packages);
+        }
+        for (Element element : round.getElementsAnnotatedWith(JsonCodegen.MixIn.class)) {
+            analyze(element, element, packages);
+        }
+        CodecWriter writer = new CodecWriter(processingEnv.getTypeUtils());
+        packages.forEach((packageName, models) -> {
+            for (BeanModel model : models) {
+                if (!model.isAbstract()) {
+                    write(packageName, model.serializerName(), writer.serializer(model), model);
+                }
+                write(packageName, model.deserializerName(), model.isAbstract() ? writer.polymorphicDeserializer(model) : writer.deserializer(model), model);
+            }
+            write(packageName, "JsonCodegenModule", writer.module(packageName, models), models.toArray(BeanModel[]::new));
+        });
+        return true;
+    }
+
+    private void analyze(Element element, Element mixIn, Map<String, List<BeanModel>> packages) {
+        if (element.getKind() != ElementKind.CLASS && (mixIn == null || element.getKind() != ElementKind.INTERFACE)) {
+            error(element, "@JsonCodegen applies only to classes");
+            return;
+        }
+        try {
+            TypeElement type = (mixIn == null) ? (TypeElement) element : mixInTarget(mixIn);
+            BeanModel model = BeanModel.of(processingEnv, type, (TypeElement) mixIn);
+            packages.computeIfAbsent(model.packageName, packageName -> new ArrayList<>()).add(model);
+        } catch (CodegenException e) {
+            error(e.element, e.getMessage());
+        }
+    }
+
+    /**
+     * Class 값은 컴파일 중에 아직 클래스로 로드할 수 없으므로 MirroredTypeException으로 TypeMirror를 얻는다
+     */
+    private TypeElement mixInTarget(Element mixIn) {
+        try {
+            mixIn.getAnnotation(JsonCodegen.MixIn.class).value();
+            throw new IllegalStateException("Class value of @JsonCodegen.MixIn should not be loadable during compilation");
+        } catch (MirroredTypeException e) {
+            return (TypeElement) processingEnv.getTypeUtils().asElement(e.getTypeMirror());
+        }
+    }
+
+    private void write(String packageName, String simpleName, String source, BeanModel... models) {
+        String name = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        Element[] originatingElements = new Element[models.length];
+        for (int i = 0; i < models.length; i++) {
+            originatingElements[i] = (models[i].mixIn != null) ? models[i].mixIn : models[i].type;
+        }
+        try (Writer out = processingEnv.getFiler().createSourceFile(name, originatingElements).openWriter()) {
+            out.write(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
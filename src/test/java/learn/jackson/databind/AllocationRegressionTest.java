@@ -0,0 +1,185 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import learn.jackson.databind.SimpleTest.User;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 시나리오별 호출 1회당 할당 바이트가 기록해 둔 예산을 넘지 않는지 검사한다.
+ * 예산은 JDK 17 + Jackson 2.16에서 측정한 값에 약 25%의 여유를 더한 값이며, 의도적으로 할당이 늘어나는 변경이라면 측정값과 함께 예산도 갱신한다
+ */
+class AllocationRegressionTest {
+
+    ObjectMapper mapper = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Test
+    void simpleUsers() {
+        ImmutableUser immutableUser = new ImmutableUser("John", 100);
+        String json = """
+            {
+              "name" : "John",
+              "age" : 100
+            }""";
+
+        // 측정값: 576 B/op
+        assertThat(AllocationMeter.bytesPerOperation(() -> mapper.writeValueAsString(immutableUser))).isLessThanOrEqualTo(720L);
+        // 측정값: 689 B/op
+        assertThat(AllocationMeter.bytesPerOperation(() -> mapper.readValue(json, User.class))).isLessThanOrEqualTo(860L);
+    }
+
+    @Test
+    void genericCollections() throws IOException {
+        String scores = """
+            {
+              "Bob" : 100,
+              "John" : 97
+            }""";
+        String users = resource("/user-map.json");
+
+        // 측정값: 1,032 B/op (TypeReference 익명 클래스 인스턴스 포함)
+        assertThat(AllocationMeter.bytesPerOperation(() -> mapper.readValue(scores, new TypeReference<Map<String, Integer>>() {
+        }))).isLessThanOrEqualTo(1_290L);
+        // 측정값: 1,120 B/op
+        assertThat(AllocationMeter.bytesPerOperation(() -> mapper.readValue(users, new TypeReference<Map<String, GenericCollectionsTest.User>>() {
+        }))).isLessThanOrEqualTo(1_400L);
+    }
+
+    @Test
+    void treeModel() {
+        String json = """
+            {
+              "name" : "Joe",
+              "age" : 13
+            }""";
+
+        // 측정값: 2,064 B/op
+        assertThat(AllocationMeter.bytesPerOperation(() -> {
+            JsonNode root = mapper.readTree(json);
+            root.withObject("/other").put("type", "student");
+            return mapper.writeValueAsString(root);
+        })).isLessThanOrEqualTo(2_580L);
+    }
+
+    @Test
+    void polymorphicVehicles() {
+        List<Vehicle> vehicles = List.of(new Car("X12345"), new Aeroplane(13));
+        ObjectWriter writer = mapper.writerFor(new TypeReference<List<Vehicle>>() {
+        });
+        String carJson = """
+            {
+              "@type" : "car",
+              "licensePlate" : "X12345"
+            }""";
+
+        // 측정값: 816 B/op
+        assertThat(AllocationMeter.bytesPerOperation(() -> writer.writeValueAsString(vehicles))).isLessThanOrEqualTo(1_020L);
+        // 측정값: 728 B/op
+        assertThat(AllocationMeter.bytesPerOperation(() -> mapper.readValue(carJson, Vehicle.class))).isLessThanOrEqualTo(910L);
+    }
+
+    private String resource(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 현재 스레드가 할당한 바이트(com.sun.management.ThreadMXBean)로 호출 1회당 할당량을 잰다.
+     * JIT 컴파일과 Jackson 내부 캐시(직렬화기, 타입 등)가 채워진 뒤의 값을 보기 위해 먼저 워밍업한다
+     */
+    static class AllocationMeter {
+
+        private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        private static final int WARMUP_ITERATIONS = 20_000;
+
+        private static final int MEASURED_ITERATIONS = 10_000;
+
+        private static volatile Object sink;
+
+        static long bytesPerOperation(Operation operation) {
+            return bytesPerOperation(operation, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+        }
+
+        // 호출 1회가 무거운(큰 문서를 다루는) 시나리오는 반복 횟수를 줄여서 잰다
+        static long bytesPerOperation(Operation operation, int warmupIterations, int measuredIterations) {
+            try {
+                for (int i = 0; i < warmupIterations; i++) {
+                    sink = operation.run();
+                }
+                long before = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+                for (int i = 0; i < measuredIterations; i++) {
+                    sink = operation.run();
+                }
+                return (THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - before) / measuredIterations;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * GC를 몇 번 돌린 뒤의 힙 사용량. 결과가 GC 설정에 따라 흔들리므로 이 값을 쓰는 테스트는 @Tag("heap")을 붙여 heapTest로 돌린다
+         */
+        static long usedHeapAfterGc() {
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+
+        @FunctionalInterface
+        interface Operation {
+
+            Object run() throws Exception;
+        }
+    }
+
+    @JsonTypeInfo(use = Id.NAME)
+    @JsonSubTypes({@Type(value = Car.class, name = "car"), @Type(value = Aeroplane.class, name = "aeroplane")})
+    static abstract class Vehicle {
+
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Car extends Vehicle {
+
+        private String licensePlate;
+
+        public Car(String licensePlate) {
+            this.licensePlate = licensePlate;
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Aeroplane extends Vehicle {
+
+        private int wingSpan;
+
+        public Aeroplane(int wingSpan) {
+            this.wingSpan = wingSpan;
+        }
+    }
+}
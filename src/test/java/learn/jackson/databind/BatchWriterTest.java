@@ -0,0 +1,189 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import learn.jackson.databind.AllocationRegressionTest.Aeroplane;
+import learn.jackson.databind.AllocationRegressionTest.AllocationMeter;
+import learn.jackson.databind.AllocationRegressionTest.Car;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.junit.jupiter.api.Test;
+
+class BatchWriterTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void sameOutputAsWriteValueAsBytes() throws IOException {
+        BatchWriter batchWriter = new BatchWriter(mapper);
+        List<Object> values = values(1_000);
+
+        // 값마다 writeValueAsBytes로 쓴 결과를 배열, NDJSON, 조각으로 이어 붙인 것과 같다
+        List<String> expected = values.stream().map(this::json).toList();
+        assertThat(new String(batchWriter.writeArray(values), StandardCharsets.UTF_8)).isEqualTo(expected.stream().collect(Collectors.joining(",", "[", "]")));
+        assertThat(new String(batchWriter.writeNdjson(values), StandardCharsets.UTF_8)).isEqualTo(expected.stream().collect(Collectors.joining("\n", "", "\n")));
+
+        Slices slices = batchWriter.writeSlices(values);
+        assertThat(slices.size()).isEqualTo(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertThat(slices.get(i)).isEqualTo(mapper.writeValueAsBytes(values.get(i)));
+        }
+        // 다형 타입은 타입 id도 값마다 쓴다
+        assertThat(new String(slices.get(1), StandardCharsets.UTF_8)).isEqualTo("{\"@type\":\"car\",\"licensePlate\":\"car1\"}");
+
+        // 버퍼는 배치 사이에 재사용하지만 결과는 복사본이므로 앞선 결과가 바뀌지 않는다
+        batchWriter.writeSlices(values(10));
+        assertThat(slices.get(values.size() - 1)).isEqualTo(mapper.writeValueAsBytes(values.get(values.size() - 1)));
+    }
+
+    @Test
+    void emptyBatch() throws IOException {
+        BatchWriter batchWriter = new BatchWriter(mapper);
+
+        assertThat(new String(batchWriter.writeArray(List.of()), StandardCharsets.UTF_8)).isEqualTo("[]");
+        assertThat(batchWriter.writeNdjson(List.of())).isEmpty();
+        assertThat(batchWriter.writeSlices(List.of()).size()).isZero();
+    }
+
+    @Test
+    void perObjectAllocation() {
+        BatchWriter batchWriter = new BatchWriter(mapper);
+        List<Object> values = values(1_000);
+
+        long loop = AllocationMeter.bytesPerOperation(() -> {
+            List<byte[]> results = new ArrayList<>(values.size());
+            for (Object value : values) {
+                results.add(mapper.writeValueAsBytes(value));
+            }
+            return results;
+        }, 200, 100) / values.size();
+        long slices = AllocationMeter.bytesPerOperation(() -> batchWriter.writeSlices(values), 200, 100) / values.size();
+        long array = AllocationMeter.bytesPerOperation(() -> batchWriter.writeArray(values), 200, 100) / values.size();
+
+        // 측정값: 값 하나당 loop 493 B, slices 65 B, array 62 B
+        // 호출마다 만드는 생성기, SerializerProvider, 결과 배열이 배치 단위로 줄어든다
+        assertThat(slices).isLessThan(loop / 2);
+        assertThat(array).isLessThan(loop / 2);
+    }
+
+    static List<Object> values(int count) {
+        List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(switch (i % 4) {
+                case 0 -> new ImmutableUser("user" + i, i % 100);
+                case 1 -> new Car("car" + i);
+                case 2 -> new Aeroplane(i);
+                default -> Map.of("id", i);
+            });
+        }
+        return values;
+    }
+
+    private String json(Object value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 한 버퍼에 이어 쓴 값들과 값마다의 시작 위치. 값 i는 bytes[offsets[i], offsets[i + 1])이다
+     */
+    record Slices(byte[] bytes, int[] offsets) {
+
+        int size() {
+            return offsets.length - 1;
+        }
+
+        byte[] get(int index) {
+            return Arrays.copyOfRange(bytes, offsets[index], offsets[index + 1]);
+        }
+
+        ByteBuffer slice(int index) {
+            return ByteBuffer.wrap(bytes, offsets[index], offsets[index + 1] - offsets[index]).slice();
+        }
+    }
+
+    /**
+     * 여러 루트 값을 한 번에 직렬화하는 도구.
+     * <p>
+     * writeValueAsBytes는 호출마다 생성기와 SerializerProvider를 새로 만들고 루트 직렬화기(다형 타입이면 타입 직렬화기까지)를 찾는다.
+     * BatchWriter는 배치마다 SequenceWriter 하나를 열어 생성기 하나로 모든 값을 쓰며, SequenceWriter가 값의 클래스별로 찾은 직렬화기를 배치 안에서 캐시한다.
+     * 값마다 flush하지 않도록 FLUSH_AFTER_WRITE_VALUE를 끈다.
+     * <p>
+     * 출력 버퍼(ByteArrayBuilder)는 배치 사이에도 재사용하고 결과만 복사해 돌려주므로, 인스턴스는 한 스레드에서만 쓴다
+     */
+    static class BatchWriter {
+
+        private final ObjectWriter arrayWriter;
+
+        private final ObjectWriter ndjsonWriter;
+
+        private final ObjectWriter sliceWriter;
+
+        private final ByteArrayBuilder buffer = new ByteArrayBuilder();
+
+        public BatchWriter(ObjectMapper mapper) {
+            ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            this.arrayWriter = writer;
+            this.ndjsonWriter = writer.withRootValueSeparator("\n");
+            // 조각은 값 사이에 구분자 없이 이어 쓴다
+            this.sliceWriter = writer.withRootValueSeparator("");
+        }
+
+        public byte[] writeArray(Collection<?> values) throws IOException {
+            buffer.reset();
+            try (SequenceWriter sequence = arrayWriter.writeValuesAsArray(buffer)) {
+                for (Object value : values) {
+                    sequence.write(value);
+                }
+            }
+            return buffer.toByteArray();
+        }
+
+        public byte[] writeNdjson(Collection<?> values) throws IOException {
+            buffer.reset();
+            try (SequenceWriter sequence = ndjsonWriter.writeValues(buffer)) {
+                for (Object value : values) {
+                    sequence.write(value);
+                }
+            }
+            // 루트 값 구분자는 값 사이에만 들어가므로 마지막 줄바꿈은 직접 쓴다
+            if (!values.isEmpty()) {
+                buffer.write('\n');
+            }
+            return buffer.toByteArray();
+        }
+
+        public Slices writeSlices(Collection<?> values) throws IOException {
+            buffer.reset();
+            int[] offsets = new int[values.size() + 1];
+            try (JsonGenerator generator = sliceWriter.createGenerator(buffer);
+                 SequenceWriter sequence = sliceWriter.writeValues(generator)) {
+                int index = 0;
+                for (Object value : values) {
+                    sequence.write(value);
+                    // flush하지 않고 버퍼에 넘어간 길이와 생성기에 남은 길이로 값의 끝을 구한다
+                    offsets[++index] = buffer.size() + generator.getOutputBuffered();
+                }
+            }
+            return new Slices(buffer.toByteArray(), offsets);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.core.util.RecyclerPool;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import learn.jackson.databind.SimpleTest.User;
+import org.junit.jupiter.api.Test;
+
+class BufferRecyclerPoolTest {
+
+    @Test
+    void sharedAcrossThreads() throws Exception {
+        BoundedLockFreeRecyclerPool pool = new BoundedLockFreeRecyclerPool(16);
+        ObjectMapper mapper = new PooledObjectMapper(pool);
+
+        // 작업마다 새 스레드를 쓰면 기본 ThreadLocal 풀은 매번 BufferRecycler(와 버퍼)를 새로 만든다
+        // 공유 풀에서는 앞선 스레드가 반납한 BufferRecycler를 다음 스레드가 그대로 재사용한다
+        for (int i = 0; i < 1_000; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    String json = mapper.writeValueAsString(new ImmutableUser("John", 100));
+                    mapper.readValue(json, User.class);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+
+        // writeValueAsString()은 출력 버퍼용과 JsonGenerator용으로 동시에 2개를 사용한다
+        assertThat(pool.getCreated()).isEqualTo(2L);
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test
+    void bounded() {
+        BoundedLockFreeRecyclerPool pool = new BoundedLockFreeRecyclerPool(4);
+
+        List<BufferRecycler> recyclers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            recyclers.add(pool.acquireAndLinkPooled());
+        }
+        assertThat(pool.getCreated()).isEqualTo(10L);
+
+        // 용량을 넘는 반납분은 풀에 남기지 않고 버려서 GC가 회수하도록 한다
+        recyclers.forEach(BufferRecycler::releaseToPool);
+        assertThat(pool.size()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            pool.acquireAndLinkPooled();
+        }
+        assertThat(pool.getCreated()).isEqualTo(10L);
+        assertThat(pool.size()).isZero();
+    }
+
+    @Test
+    void concurrentRoundTrips() throws Exception {
+        BoundedLockFreeRecyclerPool pool = new BoundedLockFreeRecyclerPool(16);
+        ObjectMapper mapper = new PooledObjectMapper(pool);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+
+        // 버퍼를 잘못 공유하면 다른 스레드의 출력이 섞이므로, 스레드마다 서로 다른 값으로 왕복을 검증한다
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String name = "user-" + t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    try {
+                        String json = mapper.writeValueAsString(new ImmutableUser(name, i));
+                        User user = mapper.readValue(json, User.class);
+                        if (!user.getName().equals(name) || user.getAge() != i) {
+                            failures.add(json);
+                        }
+                    } catch (Exception e) {
+                        failures.add(e.toString());
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failures).isEmpty();
+        // 동시에 사용 중인 BufferRecycler 수 이상으로는 거의 만들어지지 않는다
+        assertThat(pool.getCreated()).isLessThanOrEqualTo(16L);
+    }
+
+    @Test
+    void copyKeepsPool() throws Exception {
+        BoundedLockFreeRecyclerPool pool = new BoundedLockFreeRecyclerPool(16);
+        ObjectMapper copy = new PooledObjectMapper(pool).copy();
+
+        assertThat(copy).isInstanceOf(PooledObjectMapper.class);
+        assertThat(copy.getFactory()._getRecyclerPool()).isSameAs(pool);
+
+        for (int i = 0; i < 100; i++) {
+            copy.readValue(copy.writeValueAsString(new ImmutableUser("John", i)), User.class);
+        }
+        assertThat(pool.getCreated()).isEqualTo(2L);
+    }
+
+    /**
+     * 주어진 BufferRecycler 풀을 쓰는 ObjectMapper.
+     * <p>
+     * Jackson 2.16.1의 writeValueAsString()/writeValueAsBytes()는 출력 버퍼(SegmentedStringWriter/ByteArrayBuilder)용으로 꺼낸 BufferRecycler를
+     * 풀에 반납하지 않는다. ThreadLocal 풀에서는 드러나지 않지만 공유 풀에서는 호출마다 BufferRecycler가 새로 만들어지므로, 두 메서드에서 직접 반납한다.
+     * 같은 이유로 writer().writeValueAsString() 대신 이 매퍼의 메서드를 사용한다
+     */
+    static class PooledObjectMapper extends ObjectMapper {
+
+        public PooledObjectMapper(RecyclerPool<BufferRecycler> pool) {
+            super(JsonFactory.builder().recyclerPool(pool).build());
+        }
+
+        // ObjectMapper(ObjectMapper)는 JsonFactory.copy()로 팩토리를 복사하며, 복사한 팩토리도 같은 풀을 쓴다
+        protected PooledObjectMapper(PooledObjectMapper src) {
+            super(src);
+        }
+
+        // 하위 클래스가 copy()를 재정의하지 않으면 ObjectMapper.copy()는 _checkInvalidCopy()에서 예외를 던진다
+        @Override
+        public PooledObjectMapper copy() {
+            _checkInvalidCopy(PooledObjectMapper.class);
+            return new PooledObjectMapper(this);
+        }
+
+        @Override
+        public String writeValueAsString(Object value) throws JsonProcessingException {
+            BufferRecycler recycler = _jsonFactory._getBufferRecycler();
+            try (SegmentedStringWriter writer = new SegmentedStringWriter(recycler)) {
+                writeValue(writer, value);
+                return writer.getAndClear();
+            } catch (JsonProcessingException e) {
+                throw e;
+            } catch (IOException e) {
+                throw JsonMappingException.fromUnexpectedIOE(e);
+            } finally {
+                recycler.releaseToPool();
+            }
+        }
+
+        @Override
+        public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+            BufferRecycler recycler = _jsonFactory._getBufferRecycler();
+            try (ByteArrayBuilder builder = new ByteArrayBuilder(recycler)) {
+                writeValue(builder, value);
+                byte[] json = builder.toByteArray();
+                builder.release();
+                return json;
+            } catch (JsonProcessingException e) {
+                throw e;
+            } catch (IOException e) {
+                throw JsonMappingException.fromUnexpectedIOE(e);
+            } finally {
+                recycler.releaseToPool();
+            }
+        }
+    }
+
+    /**
+     * 스레드(캐리어 스레드를 포함해)에 묶이지 않고 모든 스레드가 공유하는 BufferRecycler 풀.
+     * <p>
+     * 기본 풀(JsonRecyclerPools.threadLocalPool())은 ThreadLocal에 BufferRecycler를 두므로, 수명이 짧은 스레드(가상 스레드, 요청마다 만드는 스레드)는
+     * 매번 수 KB ~ 수십 KB의 char[]/byte[] 버퍼를 새로 할당한다.
+     * Jackson의 newLockFreePool()은 상한이 없고, newBoundedPool()은 ArrayBlockingQueue(락) 기반이라,
+     * 여기서는 고정 크기 AtomicReferenceArray 슬롯을 CAS로 비우고 채우는 방식으로 락 없이 상한을 둔다
+     */
+    static class BoundedLockFreeRecyclerPool implements RecyclerPool<BufferRecycler> {
+
+        private final int capacity;
+
+        private final transient AtomicReferenceArray<BufferRecycler> slots;
+
+        private final transient LongAdder created = new LongAdder();
+
+        public BoundedLockFreeRecyclerPool() {
+            this(Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+        }
+
+        public BoundedLockFreeRecyclerPool(int capacity) {
+            this.capacity = capacity;
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        /**
+         * 임의의 슬롯부터 한 바퀴 돌며 처음 찾은 BufferRecycler를 꺼낸다. 비어 있으면 새로 만든다
+         */
+        @Override
+        public BufferRecycler acquirePooled() {
+            int start = ThreadLocalRandom.current().nextInt(capacity);
+            for (int i = 0; i < capacity; i++) {
+                int index = (start + i) % capacity;
+                BufferRecycler recycler = slots.get(index);
+                if (recycler != null && slots.compareAndSet(index, recycler, null)) {
+                    return recycler;
+                }
+            }
+            created.increment();
+            return new BufferRecycler();
+        }
+
+        /**
+         * 빈 슬롯에 되돌려 놓는다. 빈 슬롯이 없으면 버린다
+         */
+        @Override
+        public void releasePooled(BufferRecycler recycler) {
+            int start = ThreadLocalRandom.current().nextInt(capacity);
+            for (int i = 0; i < capacity; i++) {
+                int index = (start + i) % capacity;
+                if (slots.get(index) == null && slots.compareAndSet(index, null, recycler)) {
+                    return;
+                }
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (int i = 0; i < capacity; i++) {
+                if (slots.get(i) != null) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        long getCreated() {
+            return created.sum();
+        }
+
+        // JsonFactory가 직렬화될 때 풀의 내용은 옮기지 않고 같은 용량의 빈 풀로 복원한다
+        private Object readResolve() {
+            return new BoundedLockFreeRecyclerPool(capacity);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.junit.jupiter.api.Test;
+
+class ByteBufferOutputTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void intoCallerBuffer() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        DirectByteBufferPool pool = new DirectByteBufferPool(128, 4);
+
+        ByteBufferChainOutputStream out = new ByteBufferChainOutputStream(buffer, pool);
+        mapper.writeValue(out, new ImmutableUser("John", 100));
+
+        // 호출자가 준 버퍼에 다 들어가면 풀의 버퍼는 쓰지 않는다
+        ByteBuffer[] buffers = out.toBuffers();
+        assertThat(buffers).hasSize(1);
+        assertThat(buffers[0].isDirect()).isTrue();
+        assertThat(buffers[0].remaining()).isEqualTo(25);
+        assertThat(out.size()).isEqualTo(25L);
+        assertThat(contentOf(buffers)).isEqualTo(mapper.writeValueAsBytes(new ImmutableUser("John", 100)));
+    }
+
+    @Test
+    void spillsIntoPooledBuffers() throws IOException {
+        Map<String, ImmutableUser> users = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            users.put("user" + i, new ImmutableUser("name" + i, i));
+        }
+        byte[] expected = mapper.writeValueAsBytes(users);
+
+        DirectByteBufferPool pool = new DirectByteBufferPool(512, 4);
+        ByteBufferChainOutputStream out = new ByteBufferChainOutputStream(ByteBuffer.allocateDirect(100), pool);
+        mapper.writeValue(out, users);
+
+        // 호출자의 버퍼(100 bytes)가 차면 풀에서 꺼낸 512 bytes 버퍼로 이어서 쓴다
+        ByteBuffer[] buffers = out.toBuffers();
+        assertThat(buffers.length).isEqualTo(1 + (int) Math.ceil((expected.length - 100) / 512.0));
+        assertThat(buffers[0].remaining()).isEqualTo(100);
+
+        // 그대로 GatheringByteChannel.write(ByteBuffer[])에 넘긴다
+        Path file = Files.createTempFile("users", ".json");
+        try (GatheringByteChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (written < out.size()) {
+                written += channel.write(buffers);
+            }
+            assertThat(Files.readAllBytes(file)).isEqualTo(expected);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // 다 쓴 뒤 풀의 버퍼를 반납한다. 풀이 보관하는 개수는 상한(4개)을 넘지 않는다
+        out.release();
+        assertThat(pool.size()).isEqualTo(Math.min(4, buffers.length - 1));
+        assertThat(pool.getAllocated()).isEqualTo(buffers.length - 1);
+
+        // 반납한 버퍼는 다음 출력에서 재사용된다
+        ByteBufferChainOutputStream next = new ByteBufferChainOutputStream(ByteBuffer.allocateDirect(100), pool);
+        mapper.writeValue(next, users);
+        assertThat(contentOf(next.toBuffers())).isEqualTo(expected);
+        assertThat(pool.getAllocated()).isEqualTo(buffers.length - 1 + Math.max(0, buffers.length - 1 - 4));
+    }
+
+    private static byte[] contentOf(ByteBuffer[] buffers) {
+        int size = 0;
+        for (ByteBuffer buffer : buffers) {
+            size += buffer.remaining();
+        }
+        ByteBuffer content = ByteBuffer.allocate(size);
+        for (ByteBuffer buffer : buffers) {
+            content.put(buffer.duplicate());
+        }
+        return content.array();
+    }
+
+    /**
+     * 호출자가 준 (다이렉트) ByteBuffer에 바로 쓰고, 가득 차면 풀에서 꺼낸 버퍼로 이어서 쓰는 OutputStream.
+     * <p>
+     * writeValueAsBytes()는 ByteArrayBuilder의 세그먼트를 하나의 byte[]로 합치고, 힙 버퍼를 채널에 쓰면 JDK가 임시 다이렉트 버퍼로 한 번 더 복사한다.
+     * 여기서는 JsonGenerator의 출력 버퍼(재사용되는 byte[])에서 다이렉트 버퍼로 한 번만 복사한다.
+     * 한 번의 출력에만 사용하며(스레드 안전하지 않음), toBuffers()로 꺼낸 버퍼를 다 쓴 뒤 release()로 풀의 버퍼를 반납한다
+     */
+    static class ByteBufferChainOutputStream extends OutputStream {
+
+        private final DirectByteBufferPool pool;
+
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+
+        private ByteBuffer current;
+
+        private long size;
+
+        public ByteBufferChainOutputStream(ByteBuffer first, DirectByteBufferPool pool) {
+            this.pool = pool;
+            this.current = first;
+            buffers.add(first);
+        }
+
+        @Override
+        public void write(int b) {
+            if (!current.hasRemaining()) {
+                next();
+            }
+            current.put((byte) b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            size += len;
+            while (len > 0) {
+                if (!current.hasRemaining()) {
+                    next();
+                }
+                int count = Math.min(len, current.remaining());
+                current.put(b, off, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        private void next() {
+            current = pool.acquire();
+            buffers.add(current);
+        }
+
+        public long size() {
+            return size;
+        }
+
+        /**
+         * 쓰인 내용을 읽을 수 있도록 뒤집은(flip) 버퍼들. GatheringByteChannel.write(ByteBuffer[])에 그대로 넘길 수 있다
+         */
+        public ByteBuffer[] toBuffers() {
+            ByteBuffer[] result = new ByteBuffer[buffers.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = buffers.get(i).duplicate().flip();
+            }
+            return result;
+        }
+
+        /**
+         * 첫 번째(호출자의) 버퍼를 제외한 나머지를 풀에 반납한다
+         */
+        public void release() {
+            for (int i = 1; i < buffers.size(); i++) {
+                pool.release(buffers.get(i));
+            }
+            buffers.subList(1, buffers.size()).clear();
+            current = buffers.get(0);
+        }
+
+        // ObjectMapper.writeValue()는 출력 후 스트림을 닫으므로(AUTO_CLOSE_TARGET), 닫아도 버퍼는 그대로 둔다
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 같은 크기의 다이렉트 ByteBuffer 풀. 다이렉트 버퍼는 할당/해제 비용이 크므로 재사용한다.
+     * 보관 개수가 maximumPooled를 넘는 반납분은 버린다
+     */
+    static class DirectByteBufferPool {
+
+        private final int bufferSize;
+
+        private final int maximumPooled;
+
+        private final ConcurrentLinkedQueue<ByteBuffer> pooled = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger pooledCount = new AtomicInteger();
+
+        private final AtomicInteger allocated = new AtomicInteger();
+
+        public DirectByteBufferPool(int bufferSize, int maximumPooled) {
+            this.bufferSize = bufferSize;
+            this.maximumPooled = maximumPooled;
+        }
+
+        ByteBuffer acquire() {
+            ByteBuffer buffer = pooled.poll();
+            if (buffer != null) {
+                pooledCount.decrementAndGet();
+                return buffer.clear();
+            }
+            allocated.incrementAndGet();
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        void release(ByteBuffer buffer) {
+            if (pooledCount.incrementAndGet() <= maximumPooled) {
+                pooled.offer(buffer);
+            } else {
+                pooledCount.decrementAndGet();
+            }
+        }
+
+        int size() {
+            return pooledCount.get();
+        }
+
+        int getAllocated() {
+            return allocated.get();
+        }
+    }
+}
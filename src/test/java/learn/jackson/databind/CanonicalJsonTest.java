@@ -0,0 +1,368 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+import learn.jackson.databind.ContentHashCacheTest.XxHash64;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.junit.jupiter.api.Test;
+
+class CanonicalJsonTest {
+
+    CanonicalJsonWriter writer = new CanonicalJsonWriter(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT));
+
+    @Test
+    void canonicalForm() throws IOException {
+        // SerializationFeaturesTest.t2처럼 HashMap을 쓰더라도 키 순서, 공백과 관계없이 같은 바이트가 나온다
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add("key" + i);
+        }
+        Map<String, Object> first = new HashMap<>();
+        keys.forEach(key -> first.put(key, key.length()));
+        Collections.shuffle(keys);
+        Map<String, Object> second = new LinkedHashMap<>();
+        keys.forEach(key -> second.put(key, key.length()));
+
+        ByteArrayOutputStream firstOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream secondOut = new ByteArrayOutputStream();
+        long firstHash = writer.writeValue(firstOut, first);
+        long secondHash = writer.writeValue(secondOut, second);
+        assertThat(firstOut.toByteArray()).isEqualTo(secondOut.toByteArray());
+        assertThat(firstHash).isEqualTo(secondHash);
+        assertThat(firstOut.toString(StandardCharsets.UTF_8)).startsWith("{\"key0\":4,\"key1\":4,\"key10\":5,");
+
+        // 프로퍼티도 이름 순으로 정렬한다
+        assertThat(writer.writeValueAsString(new ImmutableUser("John", 100))).isEqualTo("""
+                                                                                            {"age":100,"name":"John"}""");
+    }
+
+    @Test
+    void treeOrder() throws IOException {
+        // ObjectNode도 삽입 순서와 관계없이 프로퍼티 이름 순으로 쓰므로, 같은 트리의 해시(ETag)는 입력 순서에 따라 바뀌지 않는다
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode first = mapper.createObjectNode();
+        first.put("name", "John").put("age", 100);
+        first.putObject("address").put("zip", "12345").put("city", "Seoul");
+        ObjectNode second = mapper.createObjectNode();
+        second.putObject("address").put("city", "Seoul").put("zip", "12345");
+        second.put("age", 100).put("name", "John");
+
+        assertThat(writer.writeValueAsString(first)).isEqualTo(writer.writeValueAsString(second))
+                                                    .isEqualTo("""
+                                                                   {"address":{"city":"Seoul","zip":"12345"},"age":100,"name":"John"}""");
+        assertThat(writer.hash(first)).isEqualTo(writer.hash(second));
+
+        // 파싱한 트리와 같은 내용의 Map도 같은 해시가 나온다
+        JsonNode parsed = mapper.readTree("{\"name\":\"John\",\"address\":{\"zip\":\"12345\",\"city\":\"Seoul\"},\"age\":100}");
+        assertThat(writer.hash(parsed)).isEqualTo(writer.hash(first))
+                                       .isEqualTo(writer.hash(Map.of("age", 100, "name", "John", "address", Map.of("zip", "12345", "city", "Seoul"))));
+    }
+
+    @Test
+    void normalizedNumbers() throws IOException {
+        Map<String, Object> numbers = new LinkedHashMap<>();
+        numbers.put("a", 1.0);
+        numbers.put("b", new BigDecimal("1.50"));
+        numbers.put("c", 1.5f);
+        numbers.put("d", 1e25);
+        numbers.put("e", 0.000001);
+        numbers.put("f", 1e-7);
+        numbers.put("g", new BigDecimal("100E-2"));
+        numbers.put("h", BigInteger.TEN.pow(30));
+        numbers.put("i", -0.0);
+        numbers.put("j", Long.MIN_VALUE);
+        numbers.put("k", new BigDecimal("1.23E+22"));
+
+        // 값이 같은 수는 타입과 관계없이 표현도 같다: 뒤의 0을 뺀 십진수로(지수가 -7 이하 또는 21 이상이면 지수 표기)
+        assertThat(writer.writeValueAsString(numbers)).isEqualTo("""
+                                                                     {"a":1,"b":1.5,"c":1.5,"d":1e+25,"e":0.000001,"f":1e-7,"g":1,"h":1e+30,"i":0,"j":-9223372036854775808,"k":1.23e+22}""");
+
+        // 10^25를 어떤 타입으로 쓰더라도 같은 바이트가 나온다
+        assertThat(writer.writeValueAsString(List.of(1e25, BigInteger.TEN.pow(25), new BigDecimal("1E+25"), new BigDecimal("10000000000000000000000000.00"))))
+            .isEqualTo("[1e+25,1e+25,1e+25,1e+25]");
+        assertThat(writer.writeValueAsString(List.of(100, 100L, BigInteger.valueOf(100), new BigDecimal("1E+2"), 100.0)))
+            .isEqualTo("[100,100,100,100,100]");
+    }
+
+    @Test
+    void hashWhileWriting() throws IOException {
+        Map<String, ImmutableUser> users = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            users.put("user" + i, new ImmutableUser("name" + i, i));
+        }
+
+        // 출력을 버려도 해시는 나온다. 출력을 다시 해시한 값과 같다
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long hash = writer.writeValue(out, users);
+        assertThat(writer.hash(users)).isEqualTo(hash);
+        assertThat(XxHash64.hash(out.toByteArray())).isEqualTo(hash);
+        assertThat(XxHash64.hash(writer.writeValueAsBytes(users))).isEqualTo(hash);
+        assertThat(writer.hash(Map.of("user0", new ImmutableUser("name0", 1)))).isNotEqualTo(hash);
+    }
+
+    @Test
+    void hash128() throws IOException, NoSuchAlgorithmException {
+        byte[] json = writer.writeValueAsBytes(Map.of("b", 2, "a", 1));
+        assertThat(writer.hash128(Map.of("a", 1, "b", 2))).isEqualTo(MessageDigest.getInstance("MD5").digest(json));
+    }
+
+    @Test
+    void streamingXxHash64() {
+        byte[] input = new byte[1_000];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (i * 31);
+        }
+
+        // 어떻게 나눠서 넣더라도 한 번에 계산한 값과 같다
+        for (int length : new int[]{0, 1, 3, 4, 8, 31, 32, 33, 64, 100, 1_000}) {
+            byte[] prefix = Arrays.copyOf(input, length);
+            for (int chunk : new int[]{1, 5, 16, 32, 1_000}) {
+                StreamingXxHash64 checksum = new StreamingXxHash64();
+                for (int offset = 0; offset < length; offset += chunk) {
+                    checksum.update(prefix, offset, Math.min(chunk, length - offset));
+                }
+                assertThat(checksum.getValue()).isEqualTo(XxHash64.hash(prefix));
+            }
+        }
+    }
+
+    /**
+     * 정렬된 키, 정규화된 수, 공백 없는 JSON을 쓰면서 같은 패스에서 64비트 해시(xxHash64)나 128비트 다이제스트(MD5)를 계산한다.
+     * 출력을 버퍼링하거나 다시 읽지 않으므로, 출력 없이 해시만 필요할 때(ETag, 캐시 키)는 OutputStream.nullOutputStream()에 쓴다.
+     * <p>
+     * Map 키는 ORDER_MAP_ENTRIES_BY_KEYS로, POJO 프로퍼티는 SORT_PROPERTIES_ALPHABETICALLY로, ObjectNode(트리)의 프로퍼티는
+     * JsonNodeFeature.WRITE_PROPERTIES_SORTED로 정렬한다. 단, {@code @JsonPropertyOrder}가 붙은 클래스는 지정한 순서를 따르고,
+     * 문자열이 아닌 Map 키는 직렬화된 문자열이 아니라 키 자체의 순서로 정렬된다
+     */
+    static class CanonicalJsonWriter {
+
+        private final ObjectMapper mapper;
+
+        private final ObjectWriter writer;
+
+        @SuppressWarnings("deprecation")
+        public CanonicalJsonWriter(ObjectMapper mapper) {
+            this.mapper = mapper.copy()
+                                .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                                .configure(JsonNodeFeature.WRITE_PROPERTIES_SORTED, true)
+                                .disable(SerializationFeature.INDENT_OUTPUT);
+            this.writer = this.mapper.writer();
+        }
+
+        /**
+         * 정규 형태로 쓰고, 쓴 바이트의 xxHash64를 돌려준다
+         */
+        public long writeValue(OutputStream out, Object value) throws IOException {
+            StreamingXxHash64 checksum = new StreamingXxHash64();
+            write(new CheckedOutputStream(out, checksum), value);
+            return checksum.getValue();
+        }
+
+        public long hash(Object value) throws IOException {
+            return writeValue(OutputStream.nullOutputStream(), value);
+        }
+
+        public byte[] hash128(Object value) throws IOException {
+            try {
+                DigestOutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), MessageDigest.getInstance("MD5"));
+                write(out, value);
+                return out.getMessageDigest().digest();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public byte[] writeValueAsBytes(Object value) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            write(out, value);
+            return out.toByteArray();
+        }
+
+        public String writeValueAsString(Object value) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            write(out, value);
+            return out.toString(StandardCharsets.UTF_8);
+        }
+
+        private void write(OutputStream out, Object value) throws IOException {
+            // writeValue(JsonGenerator, ...)는 생성기를 닫지 않으므로, 닫아서 버퍼에 남은 바이트까지 해시에 반영한다
+            try (JsonGenerator generator = new CanonicalJsonGenerator(mapper.createGenerator(out))) {
+                writer.writeValue(generator, value);
+            }
+        }
+    }
+
+    /**
+     * 수를 타입과 관계없이 같은 규칙으로 정규화해서 쓰는 생성기. 뒤의 0을 뺀 십진수로 쓰고(정수인 값은 정수로),
+     * 소수점 위치(지수)가 -7 이하이거나 21 이상이면 ECMAScript의 Number#toString()처럼 지수 표기(1e+25, 1e-7)를 쓴다.
+     * 따라서 double 1e25, BigInteger 10^25, BigDecimal 1E+25는 모두 1e+25가 된다.
+     * short/int/long은 많아야 19자리라 지수가 21보다 작으므로, 규칙을 적용한 결과가 원래 표기와 같아 그대로 쓴다
+     */
+    static class CanonicalJsonGenerator extends JsonGeneratorDelegate {
+
+        CanonicalJsonGenerator(JsonGenerator delegate) {
+            super(delegate, false);
+        }
+
+        @Override
+        public void writeNumber(double v) throws IOException {
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                super.writeNumber(v);
+            } else {
+                writeNumber(new BigDecimal(Double.toString(v)));
+            }
+        }
+
+        @Override
+        public void writeNumber(float v) throws IOException {
+            if (Float.isNaN(v) || Float.isInfinite(v)) {
+                super.writeNumber(v);
+            } else {
+                writeNumber(new BigDecimal(Float.toString(v)));
+            }
+        }
+
+        @Override
+        public void writeNumber(BigInteger v) throws IOException {
+            if (v == null) {
+                writeNull();
+            } else {
+                writeNumber(new BigDecimal(v));
+            }
+        }
+
+        @Override
+        public void writeNumber(BigDecimal v) throws IOException {
+            if (v == null) {
+                writeNull();
+                return;
+            }
+            BigDecimal stripped = v.signum() == 0 ? BigDecimal.ZERO : v.stripTrailingZeros();
+            // 소수점 위의 자릿수 - 1 (1.5 -> 0, 1e25 -> 25, 1e-7 -> -7)
+            int exponent = stripped.precision() - stripped.scale() - 1;
+            if (exponent >= -6 && exponent < 21) {
+                delegate.writeNumber(stripped.toPlainString());
+                return;
+            }
+            String unscaled = stripped.unscaledValue().abs().toString();
+            StringBuilder number = new StringBuilder();
+            if (stripped.signum() < 0) {
+                number.append('-');
+            }
+            number.append(unscaled.charAt(0));
+            if (unscaled.length() > 1) {
+                number.append('.').append(unscaled, 1, unscaled.length());
+            }
+            number.append('e').append(exponent > 0 ? "+" : "").append(exponent);
+            delegate.writeNumber(number.toString());
+        }
+    }
+
+    /**
+     * 조각으로 나눠 넣을 수 있는 xxHash64 (시드 0). 계산 단계는 ContentHashCacheTest.XxHash64의 것을 그대로 쓰므로 같은 값을 낸다.
+     * 32바이트 단위로 네 누산기를 갱신하고, 남은 바이트는 getValue()에서 마무리한다
+     */
+    static class StreamingXxHash64 implements Checksum {
+
+        private final byte[] buffer = new byte[32];
+
+        private int buffered;
+
+        private long length;
+
+        private long v1;
+
+        private long v2;
+
+        private long v3;
+
+        private long v4;
+
+        StreamingXxHash64() {
+            reset();
+        }
+
+        @Override
+        public void update(int b) {
+            buffer[buffered++] = (byte) b;
+            length++;
+            if (buffered == 32) {
+                consume(buffer, 0);
+                buffered = 0;
+            }
+        }
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            length += len;
+            if (buffered > 0) {
+                int count = Math.min(len, 32 - buffered);
+                System.arraycopy(b, off, buffer, buffered, count);
+                buffered += count;
+                off += count;
+                len -= count;
+                if (buffered < 32) {
+                    return;
+                }
+                consume(buffer, 0);
+                buffered = 0;
+            }
+            for (; len >= 32; off += 32, len -= 32) {
+                consume(b, off);
+            }
+            System.arraycopy(b, off, buffer, 0, len);
+            buffered = len;
+        }
+
+        private void consume(byte[] b, int off) {
+            v1 = XxHash64.round(v1, b, off);
+            v2 = XxHash64.round(v2, b, off + 8);
+            v3 = XxHash64.round(v3, b, off + 16);
+            v4 = XxHash64.round(v4, b, off + 24);
+        }
+
+        @Override
+        public long getValue() {
+            long hash = length >= 32 ? XxHash64.converge(v1, v2, v3, v4) : XxHash64.shortInputSeed();
+            return XxHash64.finish(hash, length, buffer, 0, buffered);
+        }
+
+        @Override
+        public void reset() {
+            v1 = XxHash64.V1;
+            v2 = XxHash64.V2;
+            v3 = XxHash64.V3;
+            v4 = XxHash64.V4;
+            buffered = 0;
+            length = 0;
+        }
+    }
+}
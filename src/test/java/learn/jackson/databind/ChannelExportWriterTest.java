@@ -0,0 +1,366 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import learn.jackson.databind.AllocationRegressionTest.AllocationMeter;
+import learn.jackson.databind.ByteBufferOutputTest.DirectByteBufferPool;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class ChannelExportWriterTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void jsonArray() throws IOException {
+        List<ImmutableUser> users = users(100_000).toList();
+        Path file = Files.createTempFile("users", ".json");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ChannelExportWriter<ImmutableUser> writer = new ChannelExportWriter<>(mapper, ImmutableUser.class, new DirectByteBufferPool(64 * 1024, 1), null);
+            ExportStats stats = writer.writeArray(channel, users.iterator());
+
+            // writeValue(File, List)와 같은 결과를 목록 없이 만든다
+            byte[] expected = mapper.writeValueAsBytes(users);
+            assertThat(Files.readAllBytes(file)).isEqualTo(expected);
+            assertThat(stats.rows()).isEqualTo(100_000);
+            assertThat(stats.bytes()).isEqualTo(expected.length);
+            assertThat(stats.chunks()).isEqualTo((expected.length + 64 * 1024 - 1) / (64 * 1024));
+            assertThat(stats.forces()).isZero();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void ndjson() throws IOException {
+        Path file = Files.createTempFile("users", ".ndjson");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ChannelExportWriter<ImmutableUser> writer = new ChannelExportWriter<>(mapper, ImmutableUser.class, new DirectByteBufferPool(64 * 1024, 1), null);
+            ExportStats stats = writer.writeNdjson(channel, users(1_000));
+
+            // 한 줄에 한 행이며 마지막 줄도 줄바꿈으로 끝난다
+            String expected = users(1_000).map(this::json).collect(Collectors.joining("\n", "", "\n"));
+            assertThat(Files.readString(file)).isEqualTo(expected);
+            assertThat(stats.rows()).isEqualTo(1_000);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void emptyInput() throws IOException {
+        Path file = Files.createTempFile("users", ".json");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ChannelExportWriter<ImmutableUser> writer = new ChannelExportWriter<>(mapper, ImmutableUser.class, new DirectByteBufferPool(1024, 1), null);
+            writer.writeArray(channel, Stream.empty());
+            assertThat(Files.readString(file)).isEqualTo("[]");
+
+            channel.truncate(0);
+            writer.writeNdjson(channel, Stream.empty());
+            assertThat(Files.size(file)).isZero();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void scheduledForce() throws IOException {
+        Path file = Files.createTempFile("users", ".json");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // 간격이 0이면 청크를 쓸 때마다 force()한다
+            ExportStats everyChunk = new ChannelExportWriter<>(mapper, ImmutableUser.class, new DirectByteBufferPool(64 * 1024, 1), Duration.ZERO)
+                .writeArray(channel, users(100_000).iterator());
+            assertThat(everyChunk.chunks()).isGreaterThan(1);
+            assertThat(everyChunk.forces()).isEqualTo(everyChunk.chunks());
+
+            // 간격이 길면 끝날 때 한 번만 force()해서 내보낸 파일이 디스크에 남도록 한다
+            channel.truncate(0);
+            ExportStats hourly = new ChannelExportWriter<>(mapper, ImmutableUser.class, new DirectByteBufferPool(64 * 1024, 1), Duration.ofHours(1))
+                .writeArray(channel, users(100_000).iterator());
+            assertThat(hourly.forces()).isEqualTo(1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void failedCursorLeavesIncompleteFile() throws IOException {
+        Path file = Files.createTempFile("users", ".json");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            DirectByteBufferPool pool = new DirectByteBufferPool(1024, 1);
+            ChannelExportWriter<ImmutableUser> writer = new ChannelExportWriter<>(mapper, ImmutableUser.class, pool, Duration.ZERO);
+            // 10,000행을 내보낸 뒤 커서가 실패한다
+            Iterator<ImmutableUser> cursor = IntStream.range(0, 20_000)
+                                                      .mapToObj(i -> {
+                                                          if (i == 10_000) {
+                                                              throw new IllegalStateException("cursor closed");
+                                                          }
+                                                          return new ImmutableUser("user" + i, i % 100);
+                                                      })
+                                                      .iterator();
+
+            assertThatThrownBy(() -> writer.writeArray(channel, cursor)).isInstanceOf(IllegalStateException.class)
+                                                                       .hasMessage("cursor closed");
+
+            // 이미 쓴 청크만 남고 닫는 ']'는 쓰지 않으므로, 짧지만 올바른 배열로 읽히지 않는다
+            assertThat(Files.size(file)).isPositive();
+            assertThatThrownBy(() -> mapper.readTree(file.toFile())).isInstanceOf(JsonProcessingException.class);
+            // 버퍼는 반납된다
+            assertThat(pool.size()).isEqualTo(1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * GC 후 힙 사용량을 재므로 StreamingMapReaderTest.constantHeapPerEntry와 같이 기본 test 태스크에서는 빼고 heapTest 태스크로 실행한다
+     */
+    @Test
+    @Tag("heap")
+    void constantHeap() throws IOException {
+        int rows = 2_000_000;
+        Path file = Files.createTempFile("users", ".ndjson");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            long base = AllocationMeter.usedHeapAfterGc();
+            List<Long> samples = new ArrayList<>();
+            // 커서처럼 한 행씩 만들어 내는 반복자. 500,000행마다 힙 사용량을 잰다
+            Iterator<ImmutableUser> cursor = IntStream.range(0, rows)
+                                                      .peek(i -> {
+                                                          if (i > 0 && i % 500_000 == 0) {
+                                                              samples.add(AllocationMeter.usedHeapAfterGc() - base);
+                                                          }
+                                                      })
+                                                      .mapToObj(i -> new ImmutableUser("user" + i, i % 100))
+                                                      .iterator();
+            ExportStats stats = new ChannelExportWriter<>(mapper, ImmutableUser.class, new DirectByteBufferPool(1024 * 1024, 1), null).writeNdjson(channel, cursor);
+
+            assertThat(stats.rows()).isEqualTo(rows);
+            assertThat(Files.size(file)).isEqualTo(stats.bytes());
+            // 힙 사용량은 내보낸 행 수에 따라 늘지 않는다
+            assertThat(samples).hasSize(3);
+            assertThat(samples.get(2) - samples.get(0)).isLessThan(2L * 1024 * 1024);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    static Stream<ImmutableUser> users(int rows) {
+        return IntStream.range(0, rows).mapToObj(i -> new ImmutableUser("user" + i, i % 100));
+    }
+
+    private String json(ImmutableUser user) {
+        try {
+            return mapper.writeValueAsString(user);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record ExportStats(long rows, long bytes, int chunks, int forces) {
+
+    }
+
+    /**
+     * Iterator/Stream의 행을 하나씩 직렬화해 FileChannel에 JSON 배열이나 NDJSON으로 쓰는 내보내기 도구.
+     * <p>
+     * 행은 SequenceWriter로 쓰므로 직렬화기는 한 번만 찾고, 행마다 flush하지 않도록 FLUSH_AFTER_WRITE_VALUE를 끈다.
+     * JsonGenerator의 출력은 DirectByteBufferPool에서 빌린 다이렉트 버퍼(청크)에 모았다가 가득 차면 채널에 한 번에 쓰고, 내보내기가 끝나면 버퍼를 반납한다.
+     * 따라서 메모리는 행 수와 상관없이 한 행 + 청크 버퍼로 일정하다.
+     * <p>
+     * forceInterval을 주면 청크를 쓸 때 마지막 force() 이후 그만큼 지났는지 보고 FileChannel.force(false)를 부르며, 끝날 때도 한 번 부른다.
+     * 별도 스레드를 두지 않으므로 간격은 청크를 쓰는 시점에만 확인된다. 채널은 호출자가 닫는다
+     */
+    static class ChannelExportWriter<T> {
+
+        private final ObjectWriter writer;
+
+        private final DirectByteBufferPool chunks;
+
+        private final Duration forceInterval;
+
+        public ChannelExportWriter(ObjectMapper mapper, Class<T> rowType, DirectByteBufferPool chunks, Duration forceInterval) {
+            this.writer = mapper.writerFor(rowType).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            this.chunks = chunks;
+            this.forceInterval = forceInterval;
+        }
+
+        public ExportStats writeArray(FileChannel channel, Stream<? extends T> rows) throws IOException {
+            return writeArray(channel, rows.iterator());
+        }
+
+        public ExportStats writeArray(FileChannel channel, Iterator<? extends T> rows) throws IOException {
+            ChunkedChannelOutputStream out = new ChunkedChannelOutputStream(channel);
+            long count = 0;
+            try (SequenceWriter sequence = writer.writeValuesAsArray(out)) {
+                try {
+                    while (rows.hasNext()) {
+                        sequence.write(rows.next());
+                        count++;
+                    }
+                } catch (Throwable e) {
+                    out.abort();
+                    throw e;
+                }
+            }
+            return out.stats(count);
+        }
+
+        public ExportStats writeNdjson(FileChannel channel, Stream<? extends T> rows) throws IOException {
+            return writeNdjson(channel, rows.iterator());
+        }
+
+        public ExportStats writeNdjson(FileChannel channel, Iterator<? extends T> rows) throws IOException {
+            ChunkedChannelOutputStream out = new ChunkedChannelOutputStream(channel);
+            long count = 0;
+            try (SequenceWriter sequence = writer.withRootValueSeparator("\n").writeValues(out)) {
+                try {
+                    while (rows.hasNext()) {
+                        sequence.write(rows.next());
+                        count++;
+                    }
+                } catch (Throwable e) {
+                    out.abort();
+                    throw e;
+                }
+                // 루트 값 구분자는 값 사이에만 들어가므로 마지막 줄바꿈은 직접 쓴다
+                if (count > 0) {
+                    sequence.flush();
+                    out.write('\n');
+                }
+            }
+            return out.stats(count);
+        }
+
+        /**
+         * 재사용하는 다이렉트 버퍼에 모았다가 가득 차면 채널에 쓰는 OutputStream. flush()는 무시하고, close()에서 남은 내용을 쓴다.
+         * <p>
+         * 행을 읽거나 직렬화하다 실패하면 abort()한다. 그 뒤의 쓰기(SequenceWriter를 닫을 때 쓰는 닫는 ']' 등)와 남은 청크는 버리고 버퍼만 반납하므로,
+         * 중간에 끊긴 내보내기가 더 짧지만 올바른 JSON 배열로 보이지 않는다 (ObjectMapper.writeValue가 실패하면 AUTO_CLOSE_JSON_CONTENT를 끄는 것과 같은 이유)
+         */
+        private class ChunkedChannelOutputStream extends OutputStream {
+
+            private final FileChannel channel;
+
+            private final ByteBuffer chunk;
+
+            private long bytes;
+
+            private int chunkCount;
+
+            private int forces;
+
+            private long lastForce = System.nanoTime();
+
+            private boolean unforced;
+
+            private boolean closed;
+
+            private boolean aborted;
+
+            ChunkedChannelOutputStream(FileChannel channel) {
+                this.channel = channel;
+                this.chunk = chunks.acquire();
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                if (aborted) {
+                    return;
+                }
+                if (!chunk.hasRemaining()) {
+                    writeChunk();
+                }
+                chunk.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (aborted) {
+                    return;
+                }
+                while (len > 0) {
+                    if (!chunk.hasRemaining()) {
+                        writeChunk();
+                    }
+                    int count = Math.min(len, chunk.remaining());
+                    chunk.put(b, off, count);
+                    off += count;
+                    len -= count;
+                }
+            }
+
+            private void writeChunk() throws IOException {
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    bytes += channel.write(chunk);
+                }
+                chunk.clear();
+                chunkCount++;
+                unforced = true;
+                if (forceInterval != null && System.nanoTime() - lastForce >= forceInterval.toNanos()) {
+                    force();
+                }
+            }
+
+            private void force() throws IOException {
+                channel.force(false);
+                unforced = false;
+                forces++;
+                lastForce = System.nanoTime();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    if (chunk.position() > 0) {
+                        writeChunk();
+                    }
+                    // 마지막 force() 이후에 쓴 내용이 있으면 끝날 때 한 번 더 한다
+                    if (forceInterval != null && unforced) {
+                        force();
+                    }
+                } finally {
+                    chunks.release(chunk);
+                }
+            }
+
+            void abort() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                aborted = true;
+                chunks.release(chunk);
+            }
+
+            ExportStats stats(long rows) {
+                return new ExportStats(rows, bytes, chunkCount, forces);
+            }
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+import learn.jackson.databind.GenericCollectionsTest.User;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.junit.jupiter.api.Test;
+
+class ContentHashCacheTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void sameInputSameResult() throws IOException {
+        ContentHashCachingReader reader = new ContentHashCachingReader(mapper, 100, 1024 * 1024, true);
+        TypeReference<Map<String, User>> type = new TypeReference<>() {
+        };
+        byte[] input = resource("/user-map.json");
+
+        Map<String, User> first = reader.readValue(input, type, Map::copyOf);
+        assertThat(first.get("Bob").getAge()).isEqualTo(100);
+        assertThat(first.get("John").getAge()).isEqualTo(97);
+
+        // 내용이 같은 입력(다른 배열)이면 파싱하지 않고 앞서 만든 결과를 그대로 돌려준다
+        Map<String, User> second = reader.readValue(input.clone(), type, Map::copyOf);
+        assertThat(second).isSameAs(first);
+
+        // 타입이 다르면 같은 입력이라도 따로 캐시한다
+        Map<String, Object> untyped = reader.readValue(input, new TypeReference<Map<String, Object>>() {
+        }, Map::copyOf);
+        assertThat(untyped.get("Bob")).isEqualTo(Map.of("age", 100));
+
+        // 내용이 한 바이트라도 다르면 새로 파싱한다
+        byte[] changed = new String(input, StandardCharsets.UTF_8).replace("97", "98").getBytes(StandardCharsets.UTF_8);
+        assertThat(reader.readValue(changed, type, Map::copyOf).get("John").getAge()).isEqualTo(98);
+
+        CacheStats stats = reader.stats();
+        assertThat(stats.getHitCount()).isEqualTo(1L);
+        assertThat(stats.getMissCount()).isEqualTo(3L);
+        assertThat(stats.getSize()).isEqualTo(3);
+    }
+
+    @Test
+    void boundedBySizeAndBytes() throws IOException {
+        ContentHashCachingReader byCount = new ContentHashCachingReader(mapper, 10, 1024 * 1024, false);
+        for (int i = 0; i < 100; i++) {
+            byCount.readValue(("[" + i + "]").getBytes(StandardCharsets.UTF_8), new TypeReference<int[]>() {
+            }, UnaryOperator.identity());
+        }
+        assertThat(byCount.stats().getSize()).isEqualTo(10);
+        assertThat(byCount.stats().getEvictionCount()).isEqualTo(90L);
+
+        // 최근에 쓴 항목이 남는다(LRU)
+        byCount.readValue("[99]".getBytes(StandardCharsets.UTF_8), new TypeReference<int[]>() {
+        }, UnaryOperator.identity());
+        assertThat(byCount.stats().getHitCount()).isEqualTo(1L);
+
+        // 입력 바이트 합계로도 제한한다. 상한보다 큰 입력은 캐시하지 않는다
+        ContentHashCachingReader byBytes = new ContentHashCachingReader(mapper, 1_000, 100, false);
+        for (int i = 0; i < 100; i++) {
+            byBytes.readValue(("[" + (1000 + i) + "]").getBytes(StandardCharsets.UTF_8), new TypeReference<int[]>() {
+            }, UnaryOperator.identity());
+        }
+        assertThat(byBytes.stats().getWeight()).isLessThanOrEqualTo(100L);
+        byBytes.readValue(("[" + "1,".repeat(100) + "1]").getBytes(StandardCharsets.UTF_8), new TypeReference<int[]>() {
+        }, UnaryOperator.identity());
+        assertThat(byBytes.stats().getWeight()).isLessThanOrEqualTo(100L);
+    }
+
+    @Test
+    void verificationGuardsAgainstCollisions() throws IOException {
+        // 모든 입력이 충돌하는 해시로 확인한다(키에는 길이도 들어가므로 길이가 같은 입력을 쓴다)
+        ToLongFunction<byte[]> collidingHash = input -> 42L;
+        byte[] john = "\"John\"".getBytes(StandardCharsets.UTF_8);
+        byte[] jane = "\"Jane\"".getBytes(StandardCharsets.UTF_8);
+
+        ContentHashCachingReader verifying = new ContentHashCachingReader(mapper, 100, 1024, true, collidingHash);
+        assertThat(verifying.readValue(john, String.class)).isEqualTo("John");
+        assertThat(verifying.readValue(jane, String.class)).isEqualTo("Jane");
+        assertThat(verifying.stats().getCollisionCount()).isEqualTo(1L);
+
+        // 검증하지 않으면 충돌한 입력에 다른 결과가 돌아온다. 64비트 해시의 우연한 충돌은 드물지만, 입력을 외부에서 만들 수 있다면 검증을 켠다
+        ContentHashCachingReader unverified = new ContentHashCachingReader(mapper, 100, 1024, false, collidingHash);
+        assertThat(unverified.readValue(john, String.class)).isEqualTo("John");
+        assertThat(unverified.readValue(jane, String.class)).isEqualTo("John");
+    }
+
+    @Test
+    void onlyImmutableTypesShared() throws IOException {
+        ContentHashCachingReader reader = new ContentHashCachingReader(mapper, 100, 1024 * 1024, true).immutableType(UserRecord.class);
+        byte[] input = "{\"name\":\"John\",\"age\":100}".getBytes(StandardCharsets.UTF_8);
+
+        // 가변 타입은 캐시하지 않으므로, 한 호출자가 결과를 바꿔도 다음 호출자는 입력 그대로의 값을 받는다
+        MutableUser first = reader.readValue(input, MutableUser.class);
+        first.setAge(1);
+        MutableUser second = reader.readValue(input, MutableUser.class);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getAge()).isEqualTo(100);
+        assertThat(reader.stats().getSize()).isZero();
+
+        // 불변으로 등록한 타입은 같은 인스턴스를 공유한다
+        UserRecord john = reader.readValue(input, UserRecord.class);
+        assertThat(john.age()).isEqualTo(100);
+        assertThat(reader.readValue(input.clone(), UserRecord.class)).isSameAs(john);
+        assertThat(reader.stats().getHitCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void xxHash64() {
+        // 참조 구현(xxhsum)의 시드 0 결과
+        assertThat(XxHash64.hash(new byte[0])).isEqualTo(0xEF46DB3751D8E999L);
+        assertThat(XxHash64.hash("a".getBytes(StandardCharsets.UTF_8))).isEqualTo(0xD24EC4F1A98C6E5BL);
+        assertThat(XxHash64.hash("abc".getBytes(StandardCharsets.UTF_8))).isEqualTo(0x44BC2CF5AD770999L);
+        assertThat(XxHash64.hash("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8))).isEqualTo(0x0B242D361FDA71BCL);
+
+        // 32 bytes 이상이면 4개의 누산기로 32 bytes씩 처리하고, 남은 바이트를 8/4/1 bytes 단위로 처리한다
+        assertThat(XxHash64.hash(sequence(32))).isEqualTo(0xCBF59C5116FF32B4L);
+        assertThat(XxHash64.hash(sequence(33))).isEqualTo(0x0C535D1ACAFB8EADL);
+        assertThat(XxHash64.hash(sequence(36))).isEqualTo(0xDDE0EF85E3AEF05CL);
+        assertThat(XxHash64.hash(sequence(63))).isEqualTo(0xE26AA9E2A95F8E4FL);
+        assertThat(XxHash64.hash(sequence(64))).isEqualTo(0xF7C67301DB6713F0L);
+        assertThat(XxHash64.hash(sequence(100))).isEqualTo(0x6AC1E58032166597L);
+        assertThat(XxHash64.hash(sequence(1000))).isEqualTo(0x6EF436B00EBA4078L);
+    }
+
+    // 0, 1, 2, ... 255, 0, 1, ...
+    private static byte[] sequence(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    private byte[] resource(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * 입력 바이트의 64비트 해시(xxHash64)와 결과 타입을 키로, 앞서 만든 불변 결과를 재사용하는 reader.
+     * <p>
+     * 같은 설정/참조 데이터를 반복해서 읽을 때 해시 한 번(수 GB/s)으로 파싱과 객체 생성을 건너뛴다.
+     * 결과는 여러 호출자가 공유하므로 불변이어야 한다. 가변 컬렉션으로 읽히는 타입은 freeze(예: Map::copyOf)로 불변 사본을 만들어 캐시한다.
+     * readValue(byte[], Class)는 String, 박싱 타입, 열거형과 immutableType으로 등록한 타입만 캐시하고, 나머지는 매번 파싱한다.
+     * <p>
+     * 항목 수와 입력 바이트 합계로 크기를 제한하고, 넘치면 가장 오래 쓰이지 않은 항목부터 쫓아낸다(LRU).
+     * verify를 켜면 입력 사본을 함께 보관했다가 적중할 때 바이트를 비교해 해시 충돌을 걸러낸다(비교는 파싱보다 훨씬 싸다)
+     */
+    static class ContentHashCachingReader {
+
+        private static final Set<Class<?>> IMMUTABLE_JDK_TYPES = Set.of(String.class, Boolean.class, Character.class, Byte.class, Short.class,
+                                                                       Integer.class, Long.class, Float.class, Double.class,
+                                                                       BigInteger.class, BigDecimal.class);
+
+        private final ObjectMapper mapper;
+
+        private final int maximumSize;
+
+        private final long maximumWeight;
+
+        private final boolean verify;
+
+        private final ToLongFunction<byte[]> hashFunction;
+
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final Set<Class<?>> immutableTypes = new HashSet<>(IMMUTABLE_JDK_TYPES);
+
+        private long weight;
+
+        private long hitCount;
+
+        private long missCount;
+
+        private long collisionCount;
+
+        private long evictionCount;
+
+        public ContentHashCachingReader(ObjectMapper mapper, int maximumSize, long maximumWeight, boolean verify) {
+            this(mapper, maximumSize, maximumWeight, verify, XxHash64::hash);
+        }
+
+        ContentHashCachingReader(ObjectMapper mapper, int maximumSize, long maximumWeight, boolean verify, ToLongFunction<byte[]> hashFunction) {
+            this.mapper = mapper;
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+            this.verify = verify;
+            this.hashFunction = hashFunction;
+        }
+
+        /**
+         * 인스턴스를 만든 뒤 바꾸지 않는 타입으로 등록해 readValue(byte[], Class)에서 캐시하게 한다. 사용하기 전에 설정한다
+         */
+        public ContentHashCachingReader immutableType(Class<?> type) {
+            immutableTypes.add(type);
+            return this;
+        }
+
+        // 가변 객체를 캐시하면 한 호출자가 바꾼 값이 이후의 모든 호출자에게 보이므로, 불변으로 알려진 타입만 캐시한다
+        public <T> T readValue(byte[] input, Class<T> type) throws IOException {
+            if (!type.isPrimitive() && !type.isEnum() && !immutableTypes.contains(type)) {
+                return mapper.readValue(input, type);
+            }
+            return readValue(input, mapper.constructType(type), UnaryOperator.identity());
+        }
+
+        public <T> T readValue(byte[] input, TypeReference<T> type, UnaryOperator<T> freeze) throws IOException {
+            return readValue(input, mapper.constructType(type), freeze);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T readValue(byte[] input, JavaType type, UnaryOperator<T> freeze) throws IOException {
+            Key key = new Key(type, hashFunction.applyAsLong(input), input.length);
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    if (!verify || Arrays.equals(entry.input, input)) {
+                        hitCount++;
+                        return (T) entry.value;
+                    }
+                    collisionCount++;
+                }
+                missCount++;
+            }
+
+            // 파싱은 락 밖에서 한다. 같은 입력을 동시에 처음 읽으면 각자 파싱하고 나중 결과가 남는다
+            T value = freeze.apply(mapper.readValue(input, type));
+            if (input.length <= maximumWeight) {
+                put(key, new Entry(value, verify ? input.clone() : null, input.length));
+            }
+            return value;
+        }
+
+        private synchronized void put(Key key, Entry entry) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entry.weight;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while ((entries.size() > maximumSize || weight > maximumWeight) && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                iterator.remove();
+                weight -= eldest.weight;
+                evictionCount++;
+            }
+        }
+
+        public synchronized CacheStats stats() {
+            return new CacheStats(hitCount, missCount, collisionCount, evictionCount, entries.size(), weight);
+        }
+
+        // 같은 해시라도 길이가 다르면 다른 키로 본다
+        private record Key(JavaType type, long hash, int length) {
+
+        }
+
+        @RequiredArgsConstructor
+        private static class Entry {
+
+            private final Object value;
+
+            private final byte[] input;
+
+            private final int weight;
+        }
+    }
+
+    @Getter
+    @Setter
+    static class MutableUser {
+
+        private String name;
+
+        private int age;
+    }
+
+    record UserRecord(String name, int age) {
+
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    static class CacheStats {
+
+        private final long hitCount;
+
+        private final long missCount;
+
+        private final long collisionCount;
+
+        private final long evictionCount;
+
+        private final int size;
+
+        private final long weight;
+
+        public double hitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+    }
+
+    /**
+     * xxHash64 (시드 0). 8바이트씩 VarHandle로 리틀 엔디언 long을 읽는다.
+     * 조각으로 나눠 넣는 CanonicalJsonTest.StreamingXxHash64도 같은 누산기 초기값, 라운드, 마무리 단계를 쓴다
+     */
+    static final class XxHash64 {
+
+        private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private static final long P1 = 0x9E3779B185EBCA87L;
+
+        private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+
+        private static final long P3 = 0x165667B19E3779F9L;
+
+        private static final long P4 = 0x85EBCA77C2B2AE63L;
+
+        private static final long P5 = 0x27D4EB2F165667C5L;
+
+        // 네 누산기(v1 ~ v4)의 초기값
+        static final long V1 = P1 + P2;
+
+        static final long V2 = P2;
+
+        static final long V3 = 0;
+
+        static final long V4 = -P1;
+
+        private XxHash64() {
+        }
+
+        static long hash(byte[] input) {
+            Objects.requireNonNull(input, "input");
+            int length = input.length;
+            int offset = 0;
+            long hash;
+            if (length >= 32) {
+                long v1 = V1;
+                long v2 = V2;
+                long v3 = V3;
+                long v4 = V4;
+                for (int limit = length - 32; offset <= limit; offset += 32) {
+                    v1 = round(v1, input, offset);
+                    v2 = round(v2, input, offset + 8);
+                    v3 = round(v3, input, offset + 16);
+                    v4 = round(v4, input, offset + 24);
+                }
+                hash = converge(v1, v2, v3, v4);
+            } else {
+                hash = P5;
+            }
+            return finish(hash, length, input, offset, length);
+        }
+
+        /**
+         * 누산기 하나에 input[offset]부터 8바이트를 반영한다
+         */
+        static long round(long acc, byte[] input, int offset) {
+            return round(acc, (long) LONG.get(input, offset));
+        }
+
+        /**
+         * 32바이트 이상 입력의 네 누산기를 하나로 합친다. 32바이트보다 짧은 입력은 합치지 않고 {@link #shortInputSeed()}에서 시작한다
+         */
+        static long converge(long v1, long v2, long v3, long v4) {
+            long hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            return mergeRound(hash, v4);
+        }
+
+        static long shortInputSeed() {
+            return P5;
+        }
+
+        /**
+         * 전체 길이와 32바이트 단위로 처리하고 남은 input[offset, end)를 반영하고 비트를 섞어 최종 값을 낸다
+         */
+        static long finish(long hash, long length, byte[] input, int offset, int end) {
+            hash += length;
+            for (; offset + 8 <= end; offset += 8) {
+                hash ^= round(0, (long) LONG.get(input, offset));
+                hash = Long.rotateLeft(hash, 27) * P1 + P4;
+            }
+            if (offset + 4 <= end) {
+                hash ^= ((int) INT.get(input, offset) & 0xFFFFFFFFL) * P1;
+                hash = Long.rotateLeft(hash, 23) * P2 + P3;
+                offset += 4;
+            }
+            for (; offset < end; offset++) {
+                hash ^= (input[offset] & 0xFFL) * P5;
+                hash = Long.rotateLeft(hash, 11) * P1;
+            }
+
+            hash ^= hash >>> 33;
+            hash *= P2;
+            hash ^= hash >>> 29;
+            hash *= P3;
+            hash ^= hash >>> 32;
+            return hash;
+        }
+
+        private static long round(long acc, long lane) {
+            acc += lane * P2;
+            acc = Long.rotateLeft(acc, 31);
+            return acc * P1;
+        }
+
+        private static long mergeRound(long hash, long v) {
+            hash ^= round(0, v);
+            return hash * P1 + P4;
+        }
+    }
+}
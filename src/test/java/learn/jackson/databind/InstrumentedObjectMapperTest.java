@@ -0,0 +1,988 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.fasterxml.jackson.core.FormatSchema;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.DataFormatReaders;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import learn.jackson.databind.SimpleTest.User;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+class InstrumentedObjectMapperTest {
+
+    InstrumentedObjectMapper mapper = new InstrumentedObjectMapper(new ObjectMapper());
+
+    @Test
+    void recordsPerRootType() throws IOException {
+        String json = mapper.writeValueAsString(new ImmutableUser("John", 100));
+        mapper.writeValueAsBytes(new ImmutableUser("Jane", 20));
+        mapper.readValue(json, User.class);
+
+        ObjectReader reader = mapper.readerFor(User.class);
+        User user = reader.readValue(json);
+        assertThat(user.getName()).isEqualTo("John");
+
+        ObjectWriter writer = mapper.writerFor(ImmutableUser.class);
+        assertThat(writer.writeValueAsString(new ImmutableUser("John", 100))).isEqualTo(json);
+
+        SerializationMetrics metrics = mapper.getMetrics();
+        String immutableUser = ImmutableUser.class.getName();
+        String userClass = User.class.getName();
+
+        // 루트 타입별로 따로 집계된다
+        assertThat(metrics.getWriteLatencies()).containsOnlyKeys(immutableUser);
+        assertThat(metrics.getReadLatencies()).containsOnlyKeys(userClass);
+        assertThat(metrics.getWriteLatencies().get(immutableUser).getCount()).isEqualTo(3L);
+        assertThat(metrics.getReadLatencies().get(userClass).getCount()).isEqualTo(2L);
+
+        // {"name":"John","age":100} = 25 bytes, {"name":"Jane","age":20} = 24 bytes
+        HistogramSnapshot writeSizes = metrics.getWriteSizes().get(immutableUser);
+        assertThat(writeSizes.getMin()).isEqualTo(24L);
+        assertThat(writeSizes.getMax()).isEqualTo(25L);
+        assertThat(metrics.getReadSizes().get(userClass).getP50()).isEqualTo(25L);
+    }
+
+    @Test
+    void nullRootValueAndUtf8Sizes() throws IOException {
+        // ObjectMapper와 마찬가지로 null도 쓸 수 있고, 루트 타입 Void로 집계된다
+        assertThat(mapper.writeValueAsString(null)).isEqualTo("null");
+        assertThat(mapper.writeValueAsBytes(null)).isEqualTo("null".getBytes(StandardCharsets.UTF_8));
+
+        // String 경로와 byte[] 경로의 크기는 같은 값의 UTF-8 바이트 수로 같다
+        ImmutableUser user = new ImmutableUser("홍길동😀", 100);
+        String json = mapper.writeValueAsString(user);
+        byte[] bytes = mapper.writeValueAsBytes(user);
+        mapper.readValue(json, User.class);
+        mapper.readValue(bytes, User.class);
+
+        SerializationMetrics metrics = mapper.getMetrics();
+        HistogramSnapshot nullSizes = metrics.getWriteSizes().get(Void.class.getName());
+        assertThat(nullSizes.getCount()).isEqualTo(2L);
+        assertThat(nullSizes.getMax()).isEqualTo(4L);
+
+        HistogramSnapshot writeSizes = metrics.getWriteSizes().get(ImmutableUser.class.getName());
+        assertThat(writeSizes.getMin()).isEqualTo(bytes.length).isEqualTo(writeSizes.getMax());
+        HistogramSnapshot readSizes = metrics.getReadSizes().get(User.class.getName());
+        assertThat(readSizes.getMin()).isEqualTo(bytes.length).isEqualTo(readSizes.getMax());
+        assertThat(SerializationMetrics.utf8Length(json)).isEqualTo(bytes.length);
+    }
+
+    @Test
+    void genericTypesAndStreams() throws IOException {
+        // GenericCollectionsTest와 같은 Map<String, User>는 원시 클래스(Map)로 합치지 않고 타입 인자까지 포함한 이름으로 집계된다
+        String json = "{\"john\":{\"name\":\"John\",\"age\":100}}";
+        Map<String, User> users = mapper.readValue(json, new TypeReference<>() {
+        });
+        assertThat(users.get("john").getName()).isEqualTo("John");
+        mapper.readerFor(new TypeReference<Map<String, User>>() {
+        }).readValue(json.getBytes(StandardCharsets.UTF_8));
+
+        // 파일, OutputStream, Writer 경로도 같은 단위(UTF-8 바이트 수)로 집계된다
+        ImmutableUser john = new ImmutableUser("John", 100);
+        File file = Files.createTempFile("user", ".json").toFile();
+        mapper.writeValue(file, john);
+        mapper.writeValue(new ByteArrayOutputStream(), john);
+        mapper.writeValue(new StringWriter(), john);
+        ObjectWriter writer = mapper.writerFor(ImmutableUser.class);
+        writer.writeValue(new ByteArrayOutputStream(), john);
+        writer.writeValue(new StringWriter(), john);
+        writer.writeValue(file, john);
+
+        ObjectReader reader = mapper.readerFor(User.class);
+        reader.readValue(file);
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            reader.readValue(in);
+        }
+        reader.readValue(new StringReader("{\"name\":\"John\",\"age\":100}"));
+
+        SerializationMetrics metrics = mapper.getMetrics();
+        String mapOfUsers = "java.util.Map<java.lang.String," + User.class.getName() + ">";
+        assertThat(metrics.getReadSizes().get(mapOfUsers).getCount()).isEqualTo(2L);
+        assertThat(metrics.getReadSizes().get(mapOfUsers).getMax()).isEqualTo(json.length());
+
+        // {"name":"John","age":100} = 25 bytes
+        HistogramSnapshot writeSizes = metrics.getWriteSizes().get(ImmutableUser.class.getName());
+        assertThat(writeSizes.getCount()).isEqualTo(6L);
+        assertThat(writeSizes.getMin()).isEqualTo(25L).isEqualTo(writeSizes.getMax());
+        HistogramSnapshot readSizes = metrics.getReadSizes().get(User.class.getName());
+        assertThat(readSizes.getCount()).isEqualTo(3L);
+        assertThat(readSizes.getMin()).isEqualTo(25L).isEqualTo(readSizes.getMax());
+    }
+
+    @Test
+    void derivedReadersAndWriters() throws IOException {
+        String json = "{\"name\":\"John\",\"age\":100}";
+        ObjectReader reader = mapper.readerFor(User.class);
+        ObjectWriter writer = mapper.writerFor(ImmutableUser.class);
+
+        // with(...), forType(...)으로 만든 인스턴스도 계측된다
+        reader.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(json);
+        reader.forType(new TypeReference<Map<String, Object>>() {
+        }).readValue(json);
+        writer.withDefaultPrettyPrinter().writeValueAsString(new ImmutableUser("John", 100));
+        writer.forType(Object.class).writeValueAsString(List.of("John"));
+
+        SerializationMetrics metrics = mapper.getMetrics();
+        assertThat(metrics.getReadLatencies()).containsOnlyKeys(User.class.getName(), "java.util.Map<java.lang.String,java.lang.Object>");
+        assertThat(metrics.getWriteLatencies()).containsOnlyKeys(ImmutableUser.class.getName(), Object.class.getName());
+
+        // 크기를 알 수 없거나 값마다 기록할 수 없는 경로는 조용히 빠뜨리지 않고 실패한다
+        JsonNode tree = new ObjectMapper().readTree(json);
+        assertThatThrownBy(() -> reader.readValue(tree)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> reader.readValues(json)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> writer.writeValues(new StringWriter())).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void logHistogram() {
+        LogHistogram histogram = new LogHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+
+        // 값의 크기와 관계없이 상대 오차는 1 / 32 이내
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(1_000_000L);
+        assertThat(snapshot.getMin()).isEqualTo(1L);
+        assertThat((double) snapshot.getMax()).isCloseTo(1_000_000, within(1_000_000 / 32.0));
+        assertThat((double) snapshot.getP50()).isCloseTo(500_000, within(500_000 / 32.0));
+        assertThat((double) snapshot.getP99()).isCloseTo(990_000, within(990_000 / 32.0));
+        assertThat((double) snapshot.getP999()).isCloseTo(999_000, within(999_000 / 32.0));
+        assertThat(snapshot.getMean()).isCloseTo(500_000.5, within(500_000 / 32.0));
+
+        // 작은 값(< 32)은 정확하게 기록된다
+        LogHistogram small = new LogHistogram();
+        small.record(0);
+        small.record(7);
+        small.record(31);
+        assertThat(small.snapshot().getMin()).isEqualTo(0L);
+        assertThat(small.snapshot().getP50()).isEqualTo(7L);
+        assertThat(small.snapshot().getMax()).isEqualTo(31L);
+
+        // 음수와 아주 큰 값도 범위 안으로 보정되어 기록된다
+        small.record(-1);
+        small.record(Long.MAX_VALUE);
+        assertThat(small.snapshot().getCount()).isEqualTo(5L);
+        assertThat(small.snapshot().getMax()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void recordingDoesNotAllocate() throws JsonProcessingException {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SerializationMetrics metrics = new SerializationMetrics();
+
+        // 워밍업: 루트 타입 등록과 JIT 컴파일
+        for (int i = 0; i < 100_000; i++) {
+            metrics.recordWrite(User.class, i, i);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            metrics.recordWrite(User.class, i, i);
+            metrics.recordRead(User.class, i, i);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        // 측정 호출 자체가 할당하는 몇십 바이트 외에는 할당이 없어야 한다
+        assertThat(allocated).isLessThan(1_024L);
+    }
+
+    @Test
+    void jmx() throws JMException, JsonProcessingException {
+        mapper.writeValueAsString(new ImmutableUser("John", 100));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = mapper.getMetrics().register(server, "users");
+        try {
+            // Map<String, HistogramSnapshot> 속성은 MXBean 규칙에 따라 루트 타입별 CompositeData를 담은 TabularData로 노출된다
+            TabularData latencies = (TabularData) server.getAttribute(name, "WriteLatencies");
+            CompositeData row = latencies.get(new Object[]{ImmutableUser.class.getName()});
+            CompositeData snapshot = (CompositeData) row.get("value");
+            assertThat(snapshot.get("count")).isEqualTo(1L);
+            assertThat((Long) snapshot.get("p99")).isPositive();
+
+            server.invoke(name, "reset", null, null);
+            assertThat(mapper.getMetrics().getWriteLatencies()).isEmpty();
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    /**
+     * ObjectMapper의 읽기/쓰기 호출을 감싸 루트 타입별 소요 시간과 입출력 크기를 SerializationMetrics에 기록하는 퍼사드.
+     * 루트 타입은 쓰기 시 값의 런타임 클래스(null이면 Void), 읽기 시 요청한 타입이다.
+     * 크기는 모든 경로에서 UTF-8 바이트 수로 기록한다
+     */
+    static class InstrumentedObjectMapper {
+
+        private final ObjectMapper mapper;
+
+        @Getter
+        private final SerializationMetrics metrics;
+
+        public InstrumentedObjectMapper(ObjectMapper mapper) {
+            this(mapper, new SerializationMetrics());
+        }
+
+        public InstrumentedObjectMapper(ObjectMapper mapper, SerializationMetrics metrics) {
+            this.mapper = mapper;
+            this.metrics = metrics;
+        }
+
+        public String writeValueAsString(Object value) throws JsonProcessingException {
+            long start = System.nanoTime();
+            String json = mapper.writeValueAsString(value);
+            metrics.recordWrite(SerializationMetrics.rootTypeOf(value), System.nanoTime() - start, SerializationMetrics.utf8Length(json));
+            return json;
+        }
+
+        public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+            long start = System.nanoTime();
+            byte[] json = mapper.writeValueAsBytes(value);
+            metrics.recordWrite(SerializationMetrics.rootTypeOf(value), System.nanoTime() - start, json.length);
+            return json;
+        }
+
+        public void writeValue(File resultFile, Object value) throws IOException {
+            long start = System.nanoTime();
+            mapper.writeValue(resultFile, value);
+            metrics.recordWrite(SerializationMetrics.rootTypeOf(value), System.nanoTime() - start, resultFile.length());
+        }
+
+        public void writeValue(OutputStream out, Object value) throws IOException {
+            CountingOutputStream counting = new CountingOutputStream(out);
+            long start = System.nanoTime();
+            mapper.writeValue(counting, value);
+            metrics.recordWrite(SerializationMetrics.rootTypeOf(value), System.nanoTime() - start, counting.getCount());
+        }
+
+        public void writeValue(Writer w, Object value) throws IOException {
+            CountingWriter counting = new CountingWriter(w);
+            long start = System.nanoTime();
+            mapper.writeValue(counting, value);
+            metrics.recordWrite(SerializationMetrics.rootTypeOf(value), System.nanoTime() - start, counting.getCount());
+        }
+
+        public <T> T readValue(String content, Class<T> valueType) throws JsonProcessingException {
+            long start = System.nanoTime();
+            T value = mapper.readValue(content, valueType);
+            metrics.recordRead(valueType, System.nanoTime() - start, SerializationMetrics.utf8Length(content));
+            return value;
+        }
+
+        public <T> T readValue(String content, TypeReference<T> valueTypeRef) throws JsonProcessingException {
+            return readValue(content, mapper.getTypeFactory().constructType(valueTypeRef));
+        }
+
+        public <T> T readValue(String content, JavaType valueType) throws JsonProcessingException {
+            long start = System.nanoTime();
+            T value = mapper.readValue(content, valueType);
+            metrics.of(valueType).recordRead(System.nanoTime() - start, SerializationMetrics.utf8Length(content));
+            return value;
+        }
+
+        public <T> T readValue(byte[] content, Class<T> valueType) throws IOException {
+            long start = System.nanoTime();
+            T value = mapper.readValue(content, valueType);
+            metrics.recordRead(valueType, System.nanoTime() - start, content.length);
+            return value;
+        }
+
+        public <T> T readValue(byte[] content, TypeReference<T> valueTypeRef) throws IOException {
+            return readValue(content, mapper.getTypeFactory().constructType(valueTypeRef));
+        }
+
+        public <T> T readValue(byte[] content, JavaType valueType) throws IOException {
+            long start = System.nanoTime();
+            T value = mapper.readValue(content, valueType);
+            metrics.of(valueType).recordRead(System.nanoTime() - start, content.length);
+            return value;
+        }
+
+        /**
+         * 반환된 ObjectReader에서 with(...), forType(...) 등으로 만든 인스턴스도 계측된다
+         */
+        public ObjectReader readerFor(Class<?> valueType) {
+            return new InstrumentedObjectReader(mapper.readerFor(valueType), metrics);
+        }
+
+        public ObjectReader readerFor(TypeReference<?> valueTypeRef) {
+            return new InstrumentedObjectReader(mapper.readerFor(valueTypeRef), metrics);
+        }
+
+        public ObjectReader readerFor(JavaType valueType) {
+            return new InstrumentedObjectReader(mapper.readerFor(valueType), metrics);
+        }
+
+        public ObjectWriter writerFor(Class<?> rootType) {
+            return writerFor(mapper.constructType(rootType));
+        }
+
+        public ObjectWriter writerFor(TypeReference<?> rootTypeRef) {
+            return writerFor(mapper.getTypeFactory().constructType(rootTypeRef));
+        }
+
+        public ObjectWriter writerFor(JavaType rootType) {
+            return new InstrumentedObjectWriter(mapper.writerFor(rootType), metrics, rootType);
+        }
+    }
+
+    /**
+     * 루트 타입이 고정되어 있으므로 RootTypeMetrics를 미리 찾아두고, 호출마다 조회하지 않는다.
+     * Jackson은 with(...), forType(...) 등의 파생 인스턴스를 모두 _new(...)로 만들므로, 이를 재정의해 파생 인스턴스도 계측한다.
+     * 크기를 알 수 없는 JsonParser, JsonNode, DataInput 입력과 값마다 기록할 수 없는 readValues(...)는 조용히 빠뜨리지 않도록 예외를 던진다
+     */
+    static class InstrumentedObjectReader extends ObjectReader {
+
+        private final SerializationMetrics metrics;
+
+        private final RootTypeMetrics rootTypeMetrics;
+
+        InstrumentedObjectReader(ObjectReader reader, SerializationMetrics metrics) {
+            super(reader, reader.getConfig());
+            if (reader.getValueType() == null) {
+                throw new UnsupportedOperationException("value type is required to record metrics");
+            }
+            this.metrics = metrics;
+            this.rootTypeMetrics = metrics.of(reader.getValueType());
+        }
+
+        @Override
+        protected ObjectReader _new(ObjectReader base, JsonFactory f) {
+            return new InstrumentedObjectReader(super._new(base, f), metrics);
+        }
+
+        @Override
+        protected ObjectReader _new(ObjectReader base, DeserializationConfig config) {
+            return new InstrumentedObjectReader(super._new(base, config), metrics);
+        }
+
+        @Override
+        protected ObjectReader _new(ObjectReader base, DeserializationConfig config, JavaType valueType, JsonDeserializer<Object> rootDeser,
+                                    Object valueToUpdate, FormatSchema schema, InjectableValues injectableValues,
+                                    DataFormatReaders dataFormatReaders) {
+            return new InstrumentedObjectReader(super._new(base, config, valueType, rootDeser, valueToUpdate, schema, injectableValues, dataFormatReaders),
+                                                metrics);
+        }
+
+        @Override
+        public <T> T readValue(String content) throws JsonProcessingException {
+            long start = System.nanoTime();
+            T value = super.readValue(content);
+            rootTypeMetrics.recordRead(System.nanoTime() - start, SerializationMetrics.utf8Length(content));
+            return value;
+        }
+
+        @Override
+        public <T> T readValue(byte[] content) throws IOException {
+            long start = System.nanoTime();
+            T value = super.readValue(content);
+            rootTypeMetrics.recordRead(System.nanoTime() - start, content.length);
+            return value;
+        }
+
+        @Override
+        public <T> T readValue(byte[] content, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            T value = super.readValue(content, offset, length);
+            rootTypeMetrics.recordRead(System.nanoTime() - start, length);
+            return value;
+        }
+
+        @Override
+        public <T> T readValue(File src) throws IOException {
+            long start = System.nanoTime();
+            T value = super.readValue(src);
+            rootTypeMetrics.recordRead(System.nanoTime() - start, src.length());
+            return value;
+        }
+
+        @Override
+        public <T> T readValue(URL src) throws IOException {
+            try (InputStream in = src.openStream()) {
+                return readValue(in);
+            }
+        }
+
+        // 스트림 입력의 크기는 파서가 스트림에서 실제로 읽은 바이트 수이다
+        @Override
+        public <T> T readValue(InputStream src) throws IOException {
+            CountingInputStream counting = new CountingInputStream(src);
+            long start = System.nanoTime();
+            T value = super.readValue(counting);
+            rootTypeMetrics.recordRead(System.nanoTime() - start, counting.getCount());
+            return value;
+        }
+
+        @Override
+        public <T> T readValue(Reader src) throws IOException {
+            CountingReader counting = new CountingReader(src);
+            long start = System.nanoTime();
+            T value = super.readValue(counting);
+            rootTypeMetrics.recordRead(System.nanoTime() - start, counting.getCount());
+            return value;
+        }
+
+        @Override
+        public <T> T readValue(JsonParser p) {
+            throw new UnsupportedOperationException("cannot record the size of JsonParser input");
+        }
+
+        @Override
+        public <T> T readValue(JsonNode content) {
+            throw new UnsupportedOperationException("cannot record the size of JsonNode input");
+        }
+
+        @Override
+        public <T> T readValue(DataInput content) {
+            throw new UnsupportedOperationException("cannot record the size of DataInput input");
+        }
+
+        @Override
+        protected <T> MappingIterator<T> _newIterator(JsonParser p, DeserializationContext ctxt, JsonDeserializer<?> deser, boolean parserManaged) {
+            throw new UnsupportedOperationException("readValues(...) is not recorded");
+        }
+    }
+
+    /**
+     * 루트 타입을 지정하지 않은 파생 인스턴스(forType(null))는 ObjectMapper와 같이 값의 런타임 클래스로 집계한다.
+     * 크기를 알 수 없는 JsonGenerator, DataOutput 출력과 값마다 기록할 수 없는 writeValues(...)는 예외를 던진다
+     */
+    static class InstrumentedObjectWriter extends ObjectWriter {
+
+        private final SerializationMetrics metrics;
+
+        private final JavaType rootType;
+
+        private final RootTypeMetrics rootTypeMetrics;
+
+        InstrumentedObjectWriter(ObjectWriter writer, SerializationMetrics metrics, JavaType rootType) {
+            super(writer, writer.getConfig());
+            this.metrics = metrics;
+            this.rootType = rootType;
+            this.rootTypeMetrics = rootType == null ? null : metrics.of(rootType);
+        }
+
+        @Override
+        protected ObjectWriter _new(ObjectWriter base, JsonFactory f) {
+            return new InstrumentedObjectWriter(super._new(base, f), metrics, rootType);
+        }
+
+        @Override
+        protected ObjectWriter _new(ObjectWriter base, SerializationConfig config) {
+            return new InstrumentedObjectWriter(super._new(base, config), metrics, rootType);
+        }
+
+        @Override
+        protected ObjectWriter _new(GeneratorSettings genSettings, Prefetch prefetch) {
+            return new InstrumentedObjectWriter(super._new(genSettings, prefetch), metrics, rootType);
+        }
+
+        // Prefetch의 루트 타입은 밖에서 읽을 수 없으므로, 루트 타입을 바꾸는 forType에서 새 루트 타입으로 다시 감싼다.
+        // forType(Class)와 forType(TypeReference)도 이 메서드를 거친다
+        @Override
+        public ObjectWriter forType(JavaType rootType) {
+            return new InstrumentedObjectWriter(super.forType(rootType), metrics, rootType);
+        }
+
+        @Override
+        public String writeValueAsString(Object value) throws JsonProcessingException {
+            long start = System.nanoTime();
+            String json = super.writeValueAsString(value);
+            record(value, System.nanoTime() - start, SerializationMetrics.utf8Length(json));
+            return json;
+        }
+
+        @Override
+        public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+            long start = System.nanoTime();
+            byte[] json = super.writeValueAsBytes(value);
+            record(value, System.nanoTime() - start, json.length);
+            return json;
+        }
+
+        @Override
+        public void writeValue(File resultFile, Object value) throws IOException {
+            long start = System.nanoTime();
+            super.writeValue(resultFile, value);
+            record(value, System.nanoTime() - start, resultFile.length());
+        }
+
+        @Override
+        public void writeValue(OutputStream out, Object value) throws IOException {
+            CountingOutputStream counting = new CountingOutputStream(out);
+            long start = System.nanoTime();
+            super.writeValue(counting, value);
+            record(value, System.nanoTime() - start, counting.getCount());
+        }
+
+        @Override
+        public void writeValue(Writer w, Object value) throws IOException {
+            CountingWriter counting = new CountingWriter(w);
+            long start = System.nanoTime();
+            super.writeValue(counting, value);
+            record(value, System.nanoTime() - start, counting.getCount());
+        }
+
+        @Override
+        public void writeValue(JsonGenerator g, Object value) {
+            throw new UnsupportedOperationException("cannot record the size of JsonGenerator output");
+        }
+
+        @Override
+        public void writeValue(DataOutput out, Object value) {
+            throw new UnsupportedOperationException("cannot record the size of DataOutput output");
+        }
+
+        @Override
+        protected SequenceWriter _newSequenceWriter(boolean wrapInArray, JsonGenerator gen, boolean managedInput) {
+            throw new UnsupportedOperationException("writeValues(...) is not recorded");
+        }
+
+        private void record(Object value, long nanos, long size) {
+            RootTypeMetrics target = rootTypeMetrics != null ? rootTypeMetrics : metrics.of(SerializationMetrics.rootTypeOf(value));
+            target.recordWrite(nanos, size);
+        }
+    }
+
+    /**
+     * 스트림/파일 경로의 크기를 재기 위해 지나가는 바이트 수를 센다
+     */
+    static class CountingOutputStream extends FilterOutputStream {
+
+        @Getter
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        // FilterOutputStream의 기본 구현은 한 바이트씩 쓰므로 그대로 넘긴다
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    static class CountingInputStream extends FilterInputStream {
+
+        @Getter
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * 문자 경로는 String 경로와 같은 단위가 되도록 지나가는 문자의 UTF-8 바이트 수를 센다
+     */
+    static class CountingWriter extends FilterWriter {
+
+        @Getter
+        private long count;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count += SerializationMetrics.utf8Length((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            for (int i = off; i < off + len; i++) {
+                count += SerializationMetrics.utf8Length(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            for (int i = off; i < off + len; i++) {
+                count += SerializationMetrics.utf8Length(str.charAt(i));
+            }
+        }
+    }
+
+    static class CountingReader extends FilterReader {
+
+        @Getter
+        private long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = in.read();
+            if (c >= 0) {
+                count += SerializationMetrics.utf8Length((char) c);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int n = in.read(cbuf, off, len);
+            for (int i = off; i < off + n; i++) {
+                count += SerializationMetrics.utf8Length(cbuf[i]);
+            }
+            return n;
+        }
+    }
+
+    /**
+     * JMX(MXBean)로 노출하는 속성. 키는 루트 타입의 클래스 이름이며, 타입 인자가 있으면 JavaType.toCanonical() 형식이다
+     */
+    public interface SerializationMetricsMXBean {
+
+        Map<String, HistogramSnapshot> getReadLatencies();
+
+        Map<String, HistogramSnapshot> getWriteLatencies();
+
+        Map<String, HistogramSnapshot> getReadSizes();
+
+        Map<String, HistogramSnapshot> getWriteSizes();
+
+        void reset();
+    }
+
+    /**
+     * 루트 타입별 히스토그램 모음.
+     * 기록 경로(ClassValue 조회 + AtomicLongArray 증가)는 할당하지 않으며, 스냅샷을 만들 때만 할당한다
+     */
+    static class SerializationMetrics implements SerializationMetricsMXBean {
+
+        private final Map<Class<?>, RootTypeMetrics> metricsByRootType = new ConcurrentHashMap<>();
+
+        // Map<String, User>처럼 타입 인자가 있는 루트 타입은 원시 클래스로 합치지 않고 JavaType별로 따로 집계한다
+        private final Map<JavaType, RootTypeMetrics> metricsByGenericType = new ConcurrentHashMap<>();
+
+        private final ClassValue<RootTypeMetrics> rootTypeMetrics = new ClassValue<>() {
+            @Override
+            protected RootTypeMetrics computeValue(Class<?> rootType) {
+                return metricsByRootType.computeIfAbsent(rootType, key -> new RootTypeMetrics());
+            }
+        };
+
+        RootTypeMetrics of(Class<?> rootType) {
+            return rootTypeMetrics.get(rootType);
+        }
+
+        RootTypeMetrics of(JavaType rootType) {
+            if (rootType.containedTypeCount() == 0) {
+                return of(rootType.getRawClass());
+            }
+            return metricsByGenericType.computeIfAbsent(rootType, key -> new RootTypeMetrics());
+        }
+
+        // mapper.writeValueAsString(null)은 "null"을 쓰므로 값이 null인 쓰기는 Void로 집계한다
+        static Class<?> rootTypeOf(Object value) {
+            return value == null ? Void.class : value.getClass();
+        }
+
+        // String 경로도 byte[] 경로와 같은 단위가 되도록, 인코딩하지 않고 UTF-8 바이트 수만 센다
+        static long utf8Length(String content) {
+            long length = 0;
+            for (int i = 0; i < content.length(); i++) {
+                length += utf8Length(content.charAt(i));
+            }
+            return length;
+        }
+
+        // 서로게이트 쌍(4바이트)은 두 char가 각각 2바이트씩이다
+        static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            }
+            if (c < 0x800) {
+                return 2;
+            }
+            return Character.isSurrogate(c) ? 2 : 3;
+        }
+
+        void recordRead(Class<?> rootType, long nanos, long size) {
+            of(rootType).recordRead(nanos, size);
+        }
+
+        void recordWrite(Class<?> rootType, long nanos, long size) {
+            of(rootType).recordWrite(nanos, size);
+        }
+
+        public ObjectName register(MBeanServer server, String name) throws JMException {
+            ObjectName objectName = new ObjectName("learn.jackson.databind:type=SerializationMetrics,name=" + name);
+            server.registerMBean(new StandardMBean(this, SerializationMetricsMXBean.class, true), objectName);
+            return objectName;
+        }
+
+        @Override
+        public Map<String, HistogramSnapshot> getReadLatencies() {
+            return snapshot(RootTypeMetrics::getReadNanos);
+        }
+
+        @Override
+        public Map<String, HistogramSnapshot> getWriteLatencies() {
+            return snapshot(RootTypeMetrics::getWriteNanos);
+        }
+
+        @Override
+        public Map<String, HistogramSnapshot> getReadSizes() {
+            return snapshot(RootTypeMetrics::getReadSizes);
+        }
+
+        @Override
+        public Map<String, HistogramSnapshot> getWriteSizes() {
+            return snapshot(RootTypeMetrics::getWriteSizes);
+        }
+
+        @Override
+        public void reset() {
+            metricsByRootType.values().forEach(RootTypeMetrics::reset);
+            metricsByGenericType.values().forEach(RootTypeMetrics::reset);
+        }
+
+        // 기록이 없는 히스토그램(예: 읽기만 한 타입의 쓰기 히스토그램)은 제외한다
+        private Map<String, HistogramSnapshot> snapshot(Function<RootTypeMetrics, LogHistogram> histogram) {
+            Map<String, HistogramSnapshot> snapshots = new TreeMap<>();
+            metricsByRootType.forEach((rootType, metrics) -> putIfRecorded(snapshots, rootType.getName(), histogram.apply(metrics)));
+            metricsByGenericType.forEach((rootType, metrics) -> putIfRecorded(snapshots, rootType.toCanonical(), histogram.apply(metrics)));
+            return snapshots;
+        }
+
+        private static void putIfRecorded(Map<String, HistogramSnapshot> snapshots, String rootType, LogHistogram histogram) {
+            HistogramSnapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() > 0) {
+                snapshots.put(rootType, snapshot);
+            }
+        }
+    }
+
+    @Getter
+    static class RootTypeMetrics {
+
+        private final LogHistogram readNanos = new LogHistogram();
+
+        private final LogHistogram writeNanos = new LogHistogram();
+
+        private final LogHistogram readSizes = new LogHistogram();
+
+        private final LogHistogram writeSizes = new LogHistogram();
+
+        void recordRead(long nanos, long size) {
+            readNanos.record(nanos);
+            readSizes.record(size);
+        }
+
+        void recordWrite(long nanos, long size) {
+            writeNanos.record(nanos);
+            writeSizes.record(size);
+        }
+
+        void reset() {
+            readNanos.reset();
+            writeNanos.reset();
+            readSizes.reset();
+            writeSizes.reset();
+        }
+    }
+
+    /**
+     * HdrHistogram과 같은 방식의 로그 버킷 히스토그램.
+     * 2의 거듭제곱 구간마다 32개의 하위 버킷을 두어, 값의 크기와 관계없이 상대 오차가 1/32 이내이다.
+     * 0 ~ Long.MAX_VALUE 전체를 1,888개의 카운터로 표현하며, 기록은 락 없이 AtomicLongArray 증가 한 번으로 끝난다
+     */
+    static class LogHistogram {
+
+        private static final int SUB_BUCKET_BITS = 5;
+
+        private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+        private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+        void record(long value) {
+            counts.incrementAndGet(indexOf(Math.max(value, 0L)));
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts.set(i, 0L);
+            }
+        }
+
+        static int indexOf(long value) {
+            if (value < SUB_BUCKET_COUNT) {
+                return (int) value;
+            }
+            int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+            int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+            return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+        }
+
+        static long lowestValueAt(int index) {
+            if (index < SUB_BUCKET_COUNT) {
+                return index;
+            }
+            int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+            int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+            return (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+        }
+
+        static long highestValueAt(int index) {
+            return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowestValueAt(index + 1) - 1;
+        }
+
+        /**
+         * 기록과 동시에 호출될 수 있으므로, 버킷을 한 번 복사한 뒤 그 복사본으로 모든 통계를 계산한다
+         */
+        HistogramSnapshot snapshot() {
+            long[] copy = new long[BUCKET_COUNT];
+            long count = 0;
+            double sum = 0;
+            int lowest = -1;
+            int highest = -1;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                copy[i] = counts.get(i);
+                if (copy[i] > 0) {
+                    count += copy[i];
+                    sum += copy[i] * ((lowestValueAt(i) / 2.0) + (highestValueAt(i) / 2.0));
+                    lowest = lowest < 0 ? i : lowest;
+                    highest = i;
+                }
+            }
+            if (count == 0) {
+                return new HistogramSnapshot(0, 0, 0, 0.0, 0, 0, 0, 0);
+            }
+            return new HistogramSnapshot(count,
+                                         lowestValueAt(lowest),
+                                         highestValueAt(highest),
+                                         sum / count,
+                                         percentile(copy, count, 50.0),
+                                         percentile(copy, count, 90.0),
+                                         percentile(copy, count, 99.0),
+                                         percentile(copy, count, 99.9));
+        }
+
+        private static long percentile(long[] counts, long total, double percentile) {
+            long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return highestValueAt(i);
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 백분위 값은 해당 버킷에 들어갈 수 있는 가장 큰 값이다 (HdrHistogram의 highestEquivalentValue)
+     */
+    @RequiredArgsConstructor
+    @Getter
+    public static class HistogramSnapshot {
+
+        private final long count;
+
+        private final long min;
+
+        private final long max;
+
+        private final double mean;
+
+        private final long p50;
+
+        private final long p90;
+
+        private final long p99;
+
+        private final long p999;
+    }
+}
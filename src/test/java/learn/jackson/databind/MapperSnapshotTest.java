@@ -0,0 +1,310 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import learn.jackson.databind.SimpleTest.User;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+class MapperSnapshotTest {
+
+    private static final String PLAIN_RECTANGLE = """
+        {"w":10,"h":20,"size":200}""";
+
+    private static final String MIXIN_RECTANGLE = """
+        {"width":10,"height":20}""";
+
+    @Test
+    void publishesWarmedUpSnapshot() throws Exception {
+        try (MapperSnapshotHolder holder = MapperSnapshotHolder.builder(new ObjectMapper())
+                                                               .writes(Rectangle.class, new Rectangle(1, 1))
+                                                               .reads(User.class, "{\"name\":\"John\",\"age\":100}")
+                                                               .build()) {
+            MapperSnapshot first = holder.current();
+            assertThat(first.getVersion()).isZero();
+            assertThat(first.writer(Rectangle.class).writeValueAsString(new Rectangle(10, 20))).isEqualTo(PLAIN_RECTANGLE);
+
+            // 새 스냅숏은 현재 설정의 사본에 변경을 적용해 만들고, 워밍업까지 마친 뒤에 한 번에 교체한다
+            MapperSnapshot second = holder.update(mapper -> mapper.addMixIn(Rectangle.class, MixIn.class)).get();
+            assertThat(holder.current()).isSameAs(second);
+            assertThat(second.getVersion()).isEqualTo(1L);
+            assertThat(second.getSerializersWarmedUp()).isGreaterThan(0);
+            assertThat(second.writer(Rectangle.class).writeValueAsString(new Rectangle(10, 20))).isEqualTo(MIXIN_RECTANGLE);
+            assertThat(second.reader(User.class).<User>readValue("{\"name\":\"Jane\",\"age\":20}").getName()).isEqualTo("Jane");
+
+            // 이전 스냅숏을 잡고 있는 호출은 이전 설정 그대로 끝난다
+            assertThat(first.writer(Rectangle.class).writeValueAsString(new Rectangle(10, 20))).isEqualTo(PLAIN_RECTANGLE);
+
+            // 변경이나 워밍업이 실패하면 교체하지 않는다
+            CompletableFuture<MapperSnapshot> failed = holder.update(mapper -> {
+                throw new IllegalArgumentException("broken");
+            });
+            assertThatThrownBy(failed::get).isInstanceOf(ExecutionException.class).hasRootCauseInstanceOf(IllegalArgumentException.class);
+            assertThat(holder.current()).isSameAs(second);
+        }
+    }
+
+    /**
+     * 여러 스레드가 계속 직렬화하는 동안 믹스인과 기본 타이핑을 켰다 껐다 한다.
+     * 모든 출력은 그 호출이 잡은 스냅숏의 설정과 정확히 일치해야 하고(반쯤 적용된 설정이 보이지 않아야 하고), 요청 스레드는 교체를 기다리지 않는다
+     */
+    @Test
+    void stress() throws Exception {
+        ObjectMapper typing = new ObjectMapper()
+            .activateDefaultTyping(BasicPolymorphicTypeValidator.builder().allowIfSubType(ImmutableUser.class).build(), DefaultTyping.NON_FINAL, As.PROPERTY);
+        String typedUser = typing.writeValueAsString(new ImmutableUser("John", 100));
+        String plainUser = new ObjectMapper().writeValueAsString(new ImmutableUser("John", 100));
+
+        try (MapperSnapshotHolder holder = MapperSnapshotHolder.builder(new ObjectMapper())
+                                                               .writes(Rectangle.class, new Rectangle(1, 1))
+                                                               .writes(ImmutableUser.class, new ImmutableUser("John", 100))
+                                                               .build()) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong calls = new AtomicLong();
+            ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                threads.add(new Thread(() -> {
+                    while (running.get()) {
+                        MapperSnapshot snapshot = holder.current();
+                        // 짝수 버전은 기본 설정, 홀수 버전은 믹스인 + 기본 타이핑
+                        boolean changed = snapshot.getVersion() % 2 == 1;
+                        try {
+                            String rectangle = snapshot.writer(Rectangle.class).writeValueAsString(new Rectangle(10, 20));
+                            String user = snapshot.writer(ImmutableUser.class).writeValueAsString(new ImmutableUser("John", 100));
+                            if (!rectangle.equals(changed ? MIXIN_RECTANGLE : PLAIN_RECTANGLE) || !user.equals(changed ? typedUser : plainUser)) {
+                                failures.add(snapshot.getVersion() + ": " + rectangle + " " + user);
+                            }
+                        } catch (IOException e) {
+                            failures.add(e.toString());
+                        }
+                        calls.incrementAndGet();
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+
+            for (int i = 0; i < 200; i++) {
+                boolean enable = i % 2 == 0;
+                holder.update(mapper -> {
+                    if (enable) {
+                        mapper.addMixIn(Rectangle.class, MixIn.class);
+                        mapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder().allowIfSubType(ImmutableUser.class).build(),
+                                                     DefaultTyping.NON_FINAL, As.PROPERTY);
+                    } else {
+                        mapper.setMixIns(Map.of());
+                        mapper.deactivateDefaultTyping();
+                    }
+                }).get();
+            }
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertThat(failures).isEmpty();
+            assertThat(holder.current().getVersion()).isEqualTo(200L);
+            assertThat(calls.get()).isGreaterThan(200L);
+        }
+    }
+
+    /**
+     * 불변 설정 스냅숏(MapperSnapshot)을 AtomicReference로 공개하는 홀더.
+     * <p>
+     * 살아 있는 ObjectMapper의 설정을 바꾸는 것(addMixIn, activateDefaultTyping, enable/disable)은 이미 캐시된 (역)직렬화기와 섞일 수 있어 안전하지 않다.
+     * 여기서는 변경마다 현재 매퍼의 사본(copy())에 변경을 적용하고, 등록한 타입의 ObjectReader/ObjectWriter를 만들어 샘플로 워밍업한 뒤 참조를 교체한다.
+     * 매퍼는 공개된 뒤에는 바뀌지 않으므로, 요청 스레드는 current()로 스냅숏을 한 번 읽어 그 설정으로 끝까지 처리하고, 락을 잡거나 교체를 기다리지 않는다.
+     * <p>
+     * 변경은 전용 스레드 하나에서 차례로 처리하므로, 동시에 요청된 변경도 각자 직전 스냅숏 위에 쌓인다
+     */
+    static class MapperSnapshotHolder implements AutoCloseable {
+
+        private final Map<Class<?>, Object> writeSamples;
+
+        private final Map<Class<?>, String> readSamples;
+
+        private final AtomicReference<MapperSnapshot> current = new AtomicReference<>();
+
+        private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mapper-snapshot-updater");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private MapperSnapshotHolder(Builder builder) {
+            this.writeSamples = Map.copyOf(builder.writeSamples);
+            this.readSamples = Map.copyOf(builder.readSamples);
+            current.set(MapperSnapshot.build(0, builder.mapper.copy(), writeSamples, readSamples));
+        }
+
+        public static Builder builder(ObjectMapper mapper) {
+            return new Builder(mapper);
+        }
+
+        public MapperSnapshot current() {
+            return current.get();
+        }
+
+        /**
+         * 현재 설정의 사본에 change를 적용한 스냅숏을 요청 경로 밖(전용 스레드)에서 만들고 워밍업한 뒤 교체한다.
+         * change나 워밍업이 실패하면 현재 스냅숏을 그대로 두고 실패한 future를 돌려준다
+         */
+        public CompletableFuture<MapperSnapshot> update(Consumer<ObjectMapper> change) {
+            return CompletableFuture.supplyAsync(() -> {
+                MapperSnapshot previous = current.get();
+                ObjectMapper next = previous.mapper.copy();
+                change.accept(next);
+                MapperSnapshot snapshot = MapperSnapshot.build(previous.getVersion() + 1, next, writeSamples, readSamples);
+                current.set(snapshot);
+                return snapshot;
+            }, updater);
+        }
+
+        @Override
+        public void close() {
+            updater.shutdown();
+        }
+
+        static class Builder {
+
+            private final ObjectMapper mapper;
+
+            private final Map<Class<?>, Object> writeSamples = new LinkedHashMap<>();
+
+            private final Map<Class<?>, String> readSamples = new LinkedHashMap<>();
+
+            private Builder(ObjectMapper mapper) {
+                this.mapper = mapper;
+            }
+
+            /**
+             * type의 ObjectWriter를 미리 만들고 sample을 직렬화해 워밍업한다
+             */
+            public <T> Builder writes(Class<T> type, T sample) {
+                writeSamples.put(type, sample);
+                return this;
+            }
+
+            /**
+             * type의 ObjectReader를 미리 만들고 json을 역직렬화해 워밍업한다
+             */
+            public Builder reads(Class<?> type, String json) {
+                readSamples.put(type, json);
+                return this;
+            }
+
+            public MapperSnapshotHolder build() {
+                return new MapperSnapshotHolder(this);
+            }
+        }
+    }
+
+    /**
+     * 한 시점의 매퍼 설정과, 그 설정으로 미리 만들어 워밍업한 ObjectReader/ObjectWriter 묶음. 공개된 뒤에는 바뀌지 않는다.
+     * 등록하지 않은 타입은 같은 매퍼에서 그때그때 만든다(ObjectReader/ObjectWriter 생성은 가볍고, 매퍼 자체는 바뀌지 않으므로 안전하다)
+     */
+    @RequiredArgsConstructor
+    static final class MapperSnapshot {
+
+        @Getter
+        private final long version;
+
+        private final ObjectMapper mapper;
+
+        private final Map<Class<?>, ObjectReader> readers;
+
+        private final Map<Class<?>, ObjectWriter> writers;
+
+        @Getter
+        private final int serializersWarmedUp;
+
+        static MapperSnapshot build(long version, ObjectMapper mapper, Map<Class<?>, Object> writeSamples, Map<Class<?>, String> readSamples) {
+            Map<Class<?>, ObjectWriter> writers = new LinkedHashMap<>();
+            Map<Class<?>, ObjectReader> readers = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<Class<?>, Object> sample : writeSamples.entrySet()) {
+                    ObjectWriter writer = mapper.writerFor(sample.getKey());
+                    writer.writeValueAsBytes(sample.getValue());
+                    writers.put(sample.getKey(), writer);
+                }
+                for (Map.Entry<Class<?>, String> sample : readSamples.entrySet()) {
+                    ObjectReader reader = mapper.readerFor(sample.getKey());
+                    reader.readValue(sample.getValue());
+                    readers.put(sample.getKey(), reader);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Warm-up failed for snapshot " + version, e);
+            }
+            return new MapperSnapshot(version, mapper, Map.copyOf(readers), Map.copyOf(writers),
+                                      ((DefaultSerializerProvider) mapper.getSerializerProvider()).cachedSerializersCount());
+        }
+
+        public ObjectReader reader(Class<?> type) {
+            ObjectReader reader = readers.get(type);
+            return reader != null ? reader : mapper.readerFor(type);
+        }
+
+        public ObjectWriter writer(Class<?> type) {
+            ObjectWriter writer = writers.get(type);
+            return writer != null ? writer : mapper.writerFor(type);
+        }
+    }
+
+    // MixInClassTest.Rectangle, MixIn과 같다
+    @RequiredArgsConstructor
+    @Getter
+    static final class Rectangle {
+
+        private final int w;
+
+        private final int h;
+
+        @SuppressWarnings("UnusedDeclaration")
+        public int getSize() {
+            return w * h;
+        }
+    }
+
+    static abstract class MixIn {
+
+        @SuppressWarnings("UnusedDeclaration")
+        public MixIn(@JsonProperty("width") int w, @JsonProperty("height") int h) {
+        }
+
+        @JsonProperty("width")
+        abstract int getW();
+
+        @JsonProperty("height")
+        abstract int getH();
+
+        @JsonIgnore
+        abstract int getSize();
+    }
+}
@@ -0,0 +1,268 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Set;
+import learn.jackson.databind.AllocationRegressionTest.AllocationMeter;
+import org.junit.jupiter.api.Test;
+
+class MergePatchTest {
+
+    ObjectMapper mapper = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    StreamingMergePatch mergePatch = new StreamingMergePatch(mapper);
+
+    @Test
+    void mergePatch() throws IOException {
+        // TreeModelTest의 withObject("/other").put("type", "student")를 패치로 표현한다
+        String patched = mergePatch.apply("""
+                                              {
+                                                "name" : "Joe",
+                                                "age" : 13
+                                              }""", """
+                                              {"other" : {"type" : "student"}}""");
+        assertThat(patched).isEqualTo("""
+                                          {
+                                            "name" : "Joe",
+                                            "age" : 13,
+                                            "other" : {
+                                              "type" : "student"
+                                            }
+                                          }""");
+
+        // null은 멤버 삭제, 객체는 재귀 병합, 그 밖의 값(배열 포함)은 통째로 교체한다
+        patched = mergePatch.apply("""
+                                       {
+                                         "name" : "Joe",
+                                         "age" : 13,
+                                         "other" : {
+                                           "type" : "student",
+                                           "tags" : [ "a", "b" ]
+                                         }
+                                       }""", """
+                                       {"age" : null, "other" : {"type" : "teacher", "tags" : ["c"], "school" : {"name" : "X", "closed" : null}}}""");
+        assertThat(patched).isEqualTo("""
+                                          {
+                                            "name" : "Joe",
+                                            "other" : {
+                                              "type" : "teacher",
+                                              "tags" : [ "c" ],
+                                              "school" : {
+                                                "name" : "X"
+                                              }
+                                            }
+                                          }""");
+    }
+
+    /**
+     * RFC 7386 Appendix A의 예제를 모두 트리 기반 구현(TreeMergePatch)과 같은 결과로 적용하는지 확인한다
+     */
+    @Test
+    void rfc7386Examples() throws IOException {
+        String[][] examples = {
+            {"{\"a\":\"b\"}", "{\"a\":\"c\"}", "{\"a\":\"c\"}"},
+            {"{\"a\":\"b\"}", "{\"b\":\"c\"}", "{\"a\":\"b\",\"b\":\"c\"}"},
+            {"{\"a\":\"b\"}", "{\"a\":null}", "{}"},
+            {"{\"a\":\"b\",\"b\":\"c\"}", "{\"a\":null}", "{\"b\":\"c\"}"},
+            {"{\"a\":[\"b\"]}", "{\"a\":\"c\"}", "{\"a\":\"c\"}"},
+            {"{\"a\":\"c\"}", "{\"a\":[\"b\"]}", "{\"a\":[\"b\"]}"},
+            {"{\"a\":{\"b\":\"c\"}}", "{\"a\":{\"b\":\"d\",\"c\":null}}", "{\"a\":{\"b\":\"d\"}}"},
+            {"{\"a\":[{\"b\":\"c\"}]}", "{\"a\":[1]}", "{\"a\":[1]}"},
+            {"[\"a\",\"b\"]", "[\"c\",\"d\"]", "[\"c\",\"d\"]"},
+            {"{\"a\":\"b\"}", "[\"c\"]", "[\"c\"]"},
+            {"{\"a\":\"foo\"}", "null", "null"},
+            {"{\"a\":\"foo\"}", "\"bar\"", "\"bar\""},
+            {"{\"e\":null}", "{\"a\":1}", "{\"e\":null,\"a\":1}"},
+            {"[1,2]", "{\"a\":\"b\",\"c\":null}", "{\"a\":\"b\"}"},
+            {"{}", "{\"a\":{\"bb\":{\"ccc\":null}}}", "{\"a\":{\"bb\":{}}}"},
+        };
+
+        StreamingMergePatch compact = new StreamingMergePatch(new ObjectMapper());
+        for (String[] example : examples) {
+            JsonNode expected = mapper.readTree(example[2]);
+            assertThat(mapper.readTree(compact.apply(example[0], example[1]))).isEqualTo(expected);
+            assertThat(TreeMergePatch.apply(mapper.readTree(example[0]), mapper.readTree(example[1]))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void memoryProportionalToPatch() throws IOException {
+        ObjectMapper compactMapper = new ObjectMapper();
+        StreamingMergePatch compact = new StreamingMergePatch(compactMapper);
+        byte[] document = largeDocument(compactMapper, 5_000);
+        JsonNode patch = compactMapper.readTree("""
+                                                    {"user5000" : {"age" : 1}, "user4999" : null}""");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compact.apply(document, patch, out);
+        assertThat(compactMapper.readTree(out.toByteArray())).isEqualTo(TreeMergePatch.apply(compactMapper.readTree(document), patch));
+
+        // 문서(약 290 KB)를 트리로 읽으면 문서 크기의 10배 이상을 할당하지만, 스트리밍 적용은 문서 크기와 무관하게 2 KB 정도만 할당한다
+        assertThat(document.length).isGreaterThan(250_000);
+        long streaming = AllocationMeter.bytesPerOperation(() -> {
+            compact.apply(document, patch, OutputStream.nullOutputStream());
+            return null;
+        }, 200, 100);
+        assertThat(streaming).isLessThan(16 * 1024L);
+    }
+
+    static byte[] largeDocument(ObjectMapper mapper, int users) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        for (int i = 0; i < users; i++) {
+            ObjectNode user = root.putObject("user" + i);
+            user.put("name", "name" + i);
+            user.put("age", i);
+            user.putArray("tags").add("a").add("b");
+        }
+        return mapper.writeValueAsBytes(root);
+    }
+
+    /**
+     * 원본 문서를 트리로 만들지 않고, 원본의 토큰을 읽으면서 RFC 7386 JSON Merge Patch를 적용해 바로 출력한다.
+     * <p>
+     * 패치만 JsonNode로 읽어 두고(패치는 작다), 원본 객체의 멤버마다 패치에 같은 이름이 있으면 삭제(null)/재귀 병합(객체)/교체(그 밖의 값)를,
+     * 없으면 copyCurrentStructure()로 그대로 복사한다. 객체의 끝에서 원본에 없던 패치 멤버를 덧붙인다.
+     * 따라서 메모리는 패치 크기와 (패치가 닿는 객체 깊이만큼의) 적용된 이름 집합에 비례하고, 원본 문서의 크기와는 무관하다.
+     * 원본 객체에 같은 이름의 멤버가 중복되면 각각에 패치를 적용한다.
+     * <p>
+     * 단, 필드 이름은 JsonFactory의 심볼 테이블(ByteQuadsCanonicalizer)에 캐시되는데, 서로 다른 이름이 약 6,000개를 넘으면 테이블이 다음 파서로
+     * 이어지지 않아 파싱할 때마다 이름 문자열을 새로 만든다. 사용자 ID를 키로 쓰는 큰 맵처럼 키가 모두 다른 문서라면 이 부분은 문서 크기에 비례한다
+     */
+    static class StreamingMergePatch {
+
+        private final ObjectMapper mapper;
+
+        private final ObjectWriter writer;
+
+        public StreamingMergePatch(ObjectMapper mapper) {
+            this.mapper = mapper;
+            this.writer = mapper.writer();
+        }
+
+        public String apply(String source, String patch) throws IOException {
+            StringWriter out = new StringWriter();
+            try (JsonParser parser = mapper.createParser(source);
+                 JsonGenerator generator = writer.createGenerator((Writer) out)) {
+                apply(parser, mapper.readTree(patch), generator);
+            }
+            return out.toString();
+        }
+
+        public void apply(byte[] source, JsonNode patch, OutputStream out) throws IOException {
+            try (JsonParser parser = mapper.createParser(source);
+                 JsonGenerator generator = writer.createGenerator(out)) {
+                apply(parser, patch, generator);
+            }
+        }
+
+        /**
+         * parser의 다음 값(루트 값)에 patch를 적용해 generator에 쓴다
+         */
+        public void apply(JsonParser parser, JsonNode patch, JsonGenerator generator) throws IOException {
+            if (parser.nextToken() == null) {
+                throw new IOException("Empty source document");
+            }
+            applyValue(parser, patch, generator);
+        }
+
+        // parser는 원본 값의 첫 토큰에 있다. 끝나면 원본 값의 마지막 토큰에 있다
+        private void applyValue(JsonParser parser, JsonNode patch, JsonGenerator generator) throws IOException {
+            if (!patch.isObject()) {
+                parser.skipChildren();
+                generator.writeTree(patch);
+                return;
+            }
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                // 원본이 객체가 아니면 빈 객체에 병합한 것과 같다
+                parser.skipChildren();
+                writeWithoutNulls(patch, generator);
+                return;
+            }
+
+            Set<String> applied = new HashSet<>();
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                JsonNode value = patch.get(name);
+                if (value == null) {
+                    generator.writeFieldName(name);
+                    generator.copyCurrentStructure(parser);
+                    continue;
+                }
+                applied.add(name);
+                if (value.isNull()) {
+                    parser.skipChildren();
+                } else {
+                    generator.writeFieldName(name);
+                    applyValue(parser, value, generator);
+                }
+            }
+            for (Iterator<Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext(); ) {
+                Entry<String, JsonNode> field = fields.next();
+                if (!field.getValue().isNull() && !applied.contains(field.getKey())) {
+                    generator.writeFieldName(field.getKey());
+                    writeWithoutNulls(field.getValue(), generator);
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        // 빈 객체에 패치를 병합한 결과: 객체 안의 null 멤버는 (재귀적으로) 빠진다. 배열은 그대로 쓴다
+        private void writeWithoutNulls(JsonNode patch, JsonGenerator generator) throws IOException {
+            if (!patch.isObject()) {
+                generator.writeTree(patch);
+                return;
+            }
+            generator.writeStartObject();
+            for (Iterator<Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext(); ) {
+                Entry<String, JsonNode> field = fields.next();
+                if (!field.getValue().isNull()) {
+                    generator.writeFieldName(field.getKey());
+                    writeWithoutNulls(field.getValue(), generator);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * RFC 7386의 MergePatch(Target, Patch) 의사 코드를 그대로 옮긴 트리 기반 구현. 스트리밍 구현의 기준값과 벤치마크 비교 대상으로 쓴다
+     */
+    static class TreeMergePatch {
+
+        static JsonNode apply(JsonNode target, JsonNode patch) {
+            if (!patch.isObject()) {
+                return patch;
+            }
+            ObjectNode result = target.isObject() ? (ObjectNode) target : ((ObjectNode) patch).objectNode();
+            for (Iterator<Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext(); ) {
+                Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isNull()) {
+                    result.remove(field.getKey());
+                } else {
+                    JsonNode current = result.get(field.getKey());
+                    result.set(field.getKey(), apply(current == null ? result.objectNode() : current, field.getValue()));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,587 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelGzipTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void validGzipFile() throws IOException {
+        List<ImmutableUser> users = users(100_000);
+        byte[] json = mapper.writeValueAsBytes(users);
+        Path file = Files.createTempFile("users", ".json.gz");
+        try {
+            // writeValue는 끝나면 스트림을 닫고, close()가 남은 블록을 압축해 쓴다
+            mapper.writeValue(new ParallelGzipOutputStream(Files.newOutputStream(file), executor, 256 * 1024, Deflater.DEFAULT_COMPRESSION, 8), users);
+
+            // 블록마다 독립된 gzip 멤버이므로 JDK GZIPInputStream(gunzip)으로 그대로 읽힌다
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                assertThat(in.readAllBytes()).isEqualTo(json);
+            }
+            assertThat(memberCount(Files.readAllBytes(file))).isEqualTo((json.length + 256 * 1024 - 1) / (256 * 1024));
+
+            // readValue(URL)처럼 스트림으로 읽어도 블록 인덱스로 병렬 해제한다
+            URL url = file.toUri().toURL();
+            JsonNode read = mapper.readTree(new ParallelGzipInputStream(url.openStream(), executor, 8));
+            assertThat(read.size()).isEqualTo(100_000);
+            assertThat(read.get(123).get("name").asText()).isEqualTo("user123");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void compressionRatio() throws IOException {
+        byte[] json = mapper.writeValueAsBytes(users(100_000));
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(single)) {
+            out.write(json);
+        }
+        byte[] parallel = compress(json, 256 * 1024);
+
+        // 블록마다 사전(32KB 창)이 초기화되므로 조금 커지지만, 블록이 충분히 크면 차이는 작다
+        assertThat(parallel.length).isLessThan(single.size() * 105 / 100);
+    }
+
+    @Test
+    void plainGzipFallsBackToSequential() throws IOException {
+        byte[] json = mapper.writeValueAsBytes(users(1_000));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(plain)) {
+            out.write(json);
+        }
+
+        // 블록 인덱스가 없는 gzip 파일은 순차적으로 읽는다
+        try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(plain.toByteArray()), executor, 4)) {
+            assertThat(in.readAllBytes()).isEqualTo(json);
+        }
+
+        // 인덱스가 있는 파일 뒤에 일반 gzip 파일을 이어 붙여도(cat a.gz b.gz) 끝까지 읽는다
+        byte[] concatenated = concat(compress(json, 4096), plain.toByteArray());
+        try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(concatenated), executor, 4)) {
+            assertThat(in.readAllBytes()).isEqualTo(concat(json, json));
+        }
+    }
+
+    @Test
+    void emptyAndFlushedOutput() throws IOException {
+        // 아무것도 쓰지 않아도 빈 멤버 하나를 써서 올바른 gzip 파일이 된다
+        byte[] empty = compress(new byte[0], 1024);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(empty))) {
+            assertThat(in.readAllBytes()).isEmpty();
+        }
+        try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(empty), executor, 4)) {
+            assertThat(in.readAllBytes()).isEmpty();
+        }
+
+        // flush()는 채우던 블록을 멤버로 끝내고 앞선 블록과 함께 내보낸다
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ParallelGzipOutputStream out = new ParallelGzipOutputStream(bytes, executor, 1024, Deflater.DEFAULT_COMPRESSION, 4);
+        out.write("{\"a\":".getBytes());
+        out.flush();
+        assertThat(memberCount(bytes.toByteArray())).isEqualTo(1);
+        out.write("1}".getBytes());
+        out.close();
+        try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(bytes.toByteArray()), executor, 4)) {
+            assertThat(new String(in.readAllBytes())).isEqualTo("{\"a\":1}");
+        }
+    }
+
+    @Test
+    void corruptedBlock() throws IOException {
+        byte[] compressed = compress(mapper.writeValueAsBytes(users(1_000)), 4096);
+        // 첫 블록 트레일러의 CRC를 망가뜨린다
+        int firstMemberSize = memberSize(compressed, 0);
+        compressed[firstMemberSize - 8] ^= 0xFF;
+
+        assertThatThrownBy(() -> {
+            try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(compressed), executor, 4)) {
+                in.readAllBytes();
+            }
+        }).isInstanceOf(ZipException.class).hasMessageContaining("CRC");
+
+        // 멤버가 중간에 잘리면 EOFException
+        byte[] truncated = Arrays.copyOf(compress(mapper.writeValueAsBytes(users(1_000)), 4096), firstMemberSize + 30);
+        assertThatThrownBy(() -> {
+            try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(truncated), executor, 4)) {
+                in.readAllBytes();
+            }
+        }).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void untrustedSizes() throws IOException {
+        byte[] compressed = compress(mapper.writeValueAsBytes(users(1_000)), 4096);
+        int firstMemberSize = memberSize(compressed, 0);
+
+        // 음수이거나 블록 최대 크기, 압축률 상한을 넘는 ISIZE는 배열을 만들기 전에 거부한다
+        for (int size : new int[]{-1, BlockGzip.MAX_BLOCK_SIZE + 1, firstMemberSize * BlockGzip.MAX_DEFLATE_RATIO + 1}) {
+            byte[] corrupted = compressed.clone();
+            BlockGzip.writeInt(corrupted, firstMemberSize - 4, size);
+            assertThatThrownBy(() -> {
+                try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(corrupted), executor, 4)) {
+                    in.readAllBytes();
+                }
+            }).isInstanceOf(ZipException.class).hasMessageContaining("ISIZE");
+        }
+
+        // 멤버 크기도 쓰는 쪽의 최대 멤버 크기를 넘으면 읽기 전에 거부한다
+        for (int size : new int[]{Integer.MAX_VALUE, -1, BlockGzip.maxMemberSize(4096) + 1}) {
+            byte[] corrupted = compressed.clone();
+            BlockGzip.writeInt(corrupted, 16, size);
+            assertThatThrownBy(() -> {
+                try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(corrupted), executor, 4, 4096)) {
+                    in.readAllBytes();
+                }
+            }).isInstanceOf(ZipException.class).hasMessageContaining("block size");
+        }
+    }
+
+    static List<ImmutableUser> users(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new ImmutableUser("user" + i, i % 100)).toList();
+    }
+
+    private byte[] compress(byte[] content, int blockSize) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new ParallelGzipOutputStream(bytes, executor, blockSize, Deflater.DEFAULT_COMPRESSION, 4)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int memberCount(byte[] compressed) {
+        int members = 0;
+        for (int offset = 0; offset < compressed.length; offset += memberSize(compressed, offset)) {
+            members++;
+        }
+        return members;
+    }
+
+    private static int memberSize(byte[] compressed, int offset) {
+        return (compressed[offset + 16] & 0xFF) | (compressed[offset + 17] & 0xFF) << 8
+               | (compressed[offset + 18] & 0xFF) << 16 | (compressed[offset + 19] & 0xFF) << 24;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * 블록 gzip 형식. pigz/BGZF처럼 블록마다 독립된 gzip 멤버를 만들고, 멤버 헤더의 FEXTRA에 멤버 전체 크기를 적어 둔다.
+     * <pre>
+     * 1f 8b 08 04 | MTIME(0) | XFL | OS(255) | XLEN=8 | 'J' 'B' | LEN=4 | 멤버 크기(u32) | deflate ... | CRC32 | ISIZE
+     * </pre>
+     * 여러 멤버를 이어 붙인 파일은 RFC 1952상 올바른 gzip이라 gunzip, GZIPInputStream으로 그대로 읽힌다.
+     * 멤버 크기가 곧 블록 인덱스이므로, 읽는 쪽은 헤더만 보고 다음 멤버로 건너뛰며 블록을 나눠 병렬로 해제할 수 있다
+     */
+    static final class BlockGzip {
+
+        static final int HEADER_SIZE = 20;
+
+        static final int TRAILER_SIZE = 8;
+
+        // 쓰는 쪽이 허용하는 가장 큰 블록. 읽는 쪽은 이 값으로 헤더의 멤버 크기와 ISIZE를 검증해 메모리를 제한한다
+        static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+
+        // deflate의 최대 압축률(약 1032:1). 멤버 크기에 비해 ISIZE가 이보다 크면 조작된 값이다
+        static final int MAX_DEFLATE_RATIO = 1032;
+
+        private static final byte[] HEADER_PREFIX = {
+            0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 255, 8, 0, 'J', 'B', 4, 0
+        };
+
+        private BlockGzip() {
+        }
+
+        static boolean isBlockHeader(byte[] header, int length) {
+            if (length < HEADER_SIZE) {
+                return false;
+            }
+            for (int i = 0; i < HEADER_PREFIX.length; i++) {
+                // MTIME(4~7)과 XFL(8)은 값에 상관없이 받는다
+                if ((i < 4 || i > 8) && header[i] != HEADER_PREFIX[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * blockSize 바이트를 압축한 멤버의 최대 크기. 압축이 안 되는 입력의 저장 블록 오버헤드를 포함한다
+         */
+        static int maxMemberSize(int blockSize) {
+            return HEADER_SIZE + blockSize + blockSize / 16000 * 5 + 64 + TRAILER_SIZE;
+        }
+
+        static void writeHeader(byte[] member, int memberSize) {
+            System.arraycopy(HEADER_PREFIX, 0, member, 0, HEADER_PREFIX.length);
+            writeInt(member, 16, memberSize);
+        }
+
+        static void writeInt(byte[] bytes, int offset, int value) {
+            bytes[offset] = (byte) value;
+            bytes[offset + 1] = (byte) (value >>> 8);
+            bytes[offset + 2] = (byte) (value >>> 16);
+            bytes[offset + 3] = (byte) (value >>> 24);
+        }
+
+        static int readInt(byte[] bytes, int offset) {
+            return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+        }
+    }
+
+    /**
+     * 출력을 blockSize 단위 블록으로 나눠 executor에서 병렬로 deflate하고, 원래 순서대로 out에 쓰는 OutputStream.
+     * <p>
+     * 블록마다 Deflater(nowrap)로 압축해 BlockGzip 멤버를 만든다. Deflater는 네이티브 메모리를 쓰므로 풀에 모아 재사용하고 close()에서 해제한다.
+     * 압축 중인 블록이 maxInFlight개면 가장 오래된 블록이 끝나기를 기다려 쓰므로 메모리는 blockSize * maxInFlight 정도로 제한된다.
+     * 쓰기는 한 스레드에서만 한다. executor는 호출자가 관리한다
+     */
+    static class ParallelGzipOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        private final ExecutorService executor;
+
+        private final int blockSize;
+
+        private final int level;
+
+        private final int maxInFlight;
+
+        private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+        private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+
+        private byte[] block;
+
+        private int count;
+
+        private long members;
+
+        private boolean closed;
+
+        public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int blockSize, int level, int maxInFlight) {
+            if (blockSize <= 0 || blockSize > BlockGzip.MAX_BLOCK_SIZE) {
+                throw new IllegalArgumentException("blockSize must be between 1 and " + BlockGzip.MAX_BLOCK_SIZE + ": " + blockSize);
+            }
+            this.out = out;
+            this.executor = executor;
+            this.blockSize = blockSize;
+            this.level = level;
+            this.maxInFlight = maxInFlight;
+            this.block = new byte[blockSize];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == blockSize) {
+                submitBlock();
+            }
+            block[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == blockSize) {
+                    submitBlock();
+                }
+                int copied = Math.min(len, blockSize - count);
+                System.arraycopy(b, off, block, count, copied);
+                count += copied;
+                off += copied;
+                len -= copied;
+            }
+        }
+
+        private void submitBlock() throws IOException {
+            byte[] content = block;
+            int length = count;
+            block = new byte[blockSize];
+            count = 0;
+            while (pending.size() >= maxInFlight) {
+                writeOldest();
+            }
+            pending.add(executor.submit(() -> compress(content, length)));
+        }
+
+        private byte[] compress(byte[] content, int length) {
+            Deflater deflater = deflaters.poll();
+            if (deflater == null) {
+                deflater = new Deflater(level, true);
+            }
+            try {
+                deflater.setInput(content, 0, length);
+                deflater.finish();
+                // 압축이 안 되는 입력도 담을 수 있는 크기(저장 블록 오버헤드 포함)
+                byte[] member = new byte[BlockGzip.maxMemberSize(length)];
+                int size = BlockGzip.HEADER_SIZE;
+                while (!deflater.finished()) {
+                    if (size == member.length - BlockGzip.TRAILER_SIZE) {
+                        member = Arrays.copyOf(member, member.length * 2);
+                    }
+                    size += deflater.deflate(member, size, member.length - BlockGzip.TRAILER_SIZE - size);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(content, 0, length);
+                BlockGzip.writeInt(member, size, (int) crc.getValue());
+                BlockGzip.writeInt(member, size + 4, length);
+                size += BlockGzip.TRAILER_SIZE;
+                BlockGzip.writeHeader(member, size);
+                return size == member.length ? member : Arrays.copyOf(member, size);
+            } finally {
+                deflater.reset();
+                deflaters.offer(deflater);
+            }
+        }
+
+        private void writeOldest() throws IOException {
+            byte[] member = await(pending.poll());
+            out.write(member);
+            members++;
+        }
+
+        /**
+         * 채우던 블록을 멤버로 끝내고, 압축 중인 블록을 모두 쓴 뒤 out을 flush한다
+         */
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeOldest();
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // 아무것도 쓰지 않았어도 빈 멤버 하나는 있어야 올바른 gzip 파일이다
+                if (count > 0 || members + pending.size() == 0) {
+                    submitBlock();
+                }
+                while (!pending.isEmpty()) {
+                    writeOldest();
+                }
+            } finally {
+                pending.forEach(future -> future.cancel(false));
+                out.close();
+                // 작업이 모두 끝났으므로 풀에 돌아온 Deflater를 해제한다
+                Deflater deflater;
+                while ((deflater = deflaters.poll()) != null) {
+                    deflater.end();
+                }
+            }
+        }
+    }
+
+    /**
+     * BlockGzip 형식을 병렬로 해제하는 InputStream.
+     * <p>
+     * 입력에서 멤버 헤더의 크기만큼 멤버를 통째로 읽어 executor에 넘기고(최대 maxInFlight개 앞서 읽는다), 해제된 블록을 순서대로 내준다.
+     * 트레일러의 ISIZE로 출력 크기를 미리 알 수 있으므로 블록마다 딱 맞는 배열 하나에 해제하고, CRC32와 크기를 검증한다.
+     * 블록 인덱스가 없는 멤버를 만나면 그 지점부터는 GZIPInputStream으로 순차적으로 읽는다.
+     * 헤더의 멤버 크기와 ISIZE는 신뢰할 수 없는 입력이므로, 배열을 만들기 전에 maxBlockSize 기준으로 검증해 메모리를 제한한다
+     */
+    static class ParallelGzipInputStream extends InputStream {
+
+        private final PushbackInputStream in;
+
+        private final ExecutorService executor;
+
+        private final int maxInFlight;
+
+        private final int maxBlockSize;
+
+        private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+        private final byte[] header = new byte[BlockGzip.HEADER_SIZE];
+
+        private InputStream sequential;
+
+        private boolean endOfInput;
+
+        private byte[] current;
+
+        private int position;
+
+        public ParallelGzipInputStream(InputStream in, ExecutorService executor, int maxInFlight) {
+            this(in, executor, maxInFlight, BlockGzip.MAX_BLOCK_SIZE);
+        }
+
+        public ParallelGzipInputStream(InputStream in, ExecutorService executor, int maxInFlight, int maxBlockSize) {
+            if (maxBlockSize <= 0 || maxBlockSize > BlockGzip.MAX_BLOCK_SIZE) {
+                throw new IllegalArgumentException("maxBlockSize must be between 1 and " + BlockGzip.MAX_BLOCK_SIZE + ": " + maxBlockSize);
+            }
+            this.in = new PushbackInputStream(in, BlockGzip.HEADER_SIZE);
+            this.executor = executor;
+            this.maxInFlight = maxInFlight;
+            this.maxBlockSize = maxBlockSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (current == null || position == current.length) {
+                readAhead();
+                Future<byte[]> next = pending.poll();
+                if (next == null) {
+                    return (sequential == null) ? -1 : sequential.read(b, off, len);
+                }
+                current = await(next);
+                position = 0;
+            }
+            int count = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        private void readAhead() throws IOException {
+            while (!endOfInput && sequential == null && pending.size() < maxInFlight) {
+                int length = in.readNBytes(header, 0, BlockGzip.HEADER_SIZE);
+                if (length == 0) {
+                    endOfInput = true;
+                } else if (!BlockGzip.isBlockHeader(header, length)) {
+                    in.unread(header, 0, length);
+                    sequential = new GZIPInputStream(in);
+                } else {
+                    int memberSize = BlockGzip.readInt(header, 16);
+                    if (memberSize < BlockGzip.HEADER_SIZE + BlockGzip.TRAILER_SIZE || memberSize > BlockGzip.maxMemberSize(maxBlockSize)) {
+                        throw new ZipException("Invalid block size " + memberSize);
+                    }
+                    byte[] member = new byte[memberSize];
+                    System.arraycopy(header, 0, member, 0, BlockGzip.HEADER_SIZE);
+                    if (in.readNBytes(member, BlockGzip.HEADER_SIZE, memberSize - BlockGzip.HEADER_SIZE) != memberSize - BlockGzip.HEADER_SIZE) {
+                        throw new EOFException("Unexpected end of gzip block");
+                    }
+                    pending.add(executor.submit(() -> inflate(member, maxBlockSize)));
+                }
+            }
+        }
+
+        private static byte[] inflate(byte[] member, int maxBlockSize) throws ZipException {
+            int trailer = member.length - BlockGzip.TRAILER_SIZE;
+            int size = BlockGzip.readInt(member, trailer + 4);
+            if (size < 0 || size > maxBlockSize || size > (long) member.length * BlockGzip.MAX_DEFLATE_RATIO) {
+                throw new ZipException("Invalid ISIZE " + Integer.toUnsignedString(size));
+            }
+            byte[] content = new byte[size];
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(member, BlockGzip.HEADER_SIZE, trailer - BlockGzip.HEADER_SIZE);
+                int length = 0;
+                while (!inflater.finished()) {
+                    // ISIZE만큼 채운 뒤에도 끝나지 않았으면 마지막 블록 끝 표시만 남았는지 한 바이트 자리로 확인한다
+                    int inflated = (length < content.length) ? inflater.inflate(content, length, content.length - length) : inflater.inflate(new byte[1]);
+                    if (length == content.length && inflated > 0) {
+                        throw new ZipException("Block larger than ISIZE");
+                    }
+                    if (inflated == 0 && inflater.needsInput() && !inflater.finished()) {
+                        throw new ZipException("Truncated deflate data");
+                    }
+                    length += inflated;
+                }
+                if (length != content.length) {
+                    throw new ZipException("Block smaller than ISIZE");
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            } finally {
+                inflater.end();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            if ((int) crc.getValue() != BlockGzip.readInt(member, trailer)) {
+                throw new ZipException("Corrupt gzip block (CRC mismatch)");
+            }
+            return content;
+        }
+
+        @Override
+        public void close() throws IOException {
+            pending.forEach(future -> future.cancel(false));
+            pending.clear();
+            if (sequential != null) {
+                sequential.close();
+            }
+            in.close();
+        }
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,575 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import learn.jackson.databind.SimpleTest.ImmutableUser;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+class SerializedFormCacheTest {
+
+    @Test
+    void splicesCachedForm() throws IOException {
+        SerializedFormCache cache = new SerializedFormCache(64 * 1024);
+        ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new SerializedFormCacheModule(cache).cacheByIdentity(ImmutableUser.class));
+
+        ImmutableUser john = new ImmutableUser("John", 100);
+        ImmutableUser jane = new ImmutableUser("Jane", 20);
+        List<ImmutableUser> users = List.of(john, jane, john);
+
+        // 캐시된 바이트를 그대로 끼워 넣은 결과는 캐시 없이 직렬화한 결과와 같다
+        String expected = new ObjectMapper().writeValueAsString(users);
+        assertThat(mapper.writeValueAsString(users)).isEqualTo(expected);
+        assertThat(new String(mapper.writeValueAsBytes(users), StandardCharsets.UTF_8)).isEqualTo(expected);
+
+        // 처음 본 john, jane만 직렬화하고 나머지는 모두 캐시에서 꺼낸다
+        CacheStats stats = cache.stats();
+        assertThat(stats.getMissCount()).isEqualTo(2L);
+        assertThat(stats.getHitCount()).isEqualTo(4L);
+        assertThat(stats.hitRate()).isCloseTo(4 / 6.0, within(1e-9));
+        // {"name":"John","age":100} = 25 bytes, {"name":"Jane","age":20} = 24 bytes
+        assertThat(stats.getWeight()).isEqualTo(49L);
+
+        // 값이 같아도 다른 인스턴스는 다른 키다
+        mapper.writeValueAsString(new ImmutableUser("John", 100));
+        assertThat(cache.stats().getMissCount()).isEqualTo(3L);
+    }
+
+    @Test
+    void versionKey() throws IOException {
+        SerializedFormCache cache = new SerializedFormCache(64 * 1024);
+        ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new SerializedFormCacheModule(cache).cacheByKey(Rectangle.class, rectangle -> rectangle.getW() + "x" + rectangle.getH()));
+
+        // 키가 같으면 인스턴스가 달라도 같은 직렬화 형태를 쓴다
+        assertThat(mapper.writeValueAsString(new Rectangle(10, 10))).isEqualTo("""
+                                                                                   {"w":10,"h":10,"size":100}""");
+        assertThat(mapper.writeValueAsString(new Rectangle(10, 10))).isEqualTo("""
+                                                                                   {"w":10,"h":10,"size":100}""");
+        assertThat(mapper.writeValueAsString(new Rectangle(10, 20))).isEqualTo("""
+                                                                                   {"w":10,"h":20,"size":200}""");
+        assertThat(cache.stats().getHitCount()).isEqualTo(1L);
+        assertThat(cache.stats().getMissCount()).isEqualTo(2L);
+    }
+
+    @Test
+    void boundedByBytes() {
+        SerializedFormCache cache = new SerializedFormCache(10_000);
+
+        // 항목마다 100 bytes. 전체 바이트 수가 상한을 넘지 않도록 쫓아낸다
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("key" + i, form(100));
+        }
+        CacheStats stats = cache.stats();
+        assertThat(stats.getWeight()).isLessThanOrEqualTo(10_000L);
+        assertThat(stats.getEvictionCount()).isGreaterThanOrEqualTo(900L);
+
+        // 상한보다 큰 항목은 캐시하지 않는다
+        cache.put("huge", form(20_000));
+        assertThat(cache.get("huge")).isNull();
+    }
+
+    @Test
+    void rejectsEntryLargerThanMainArea() {
+        SerializedFormCache cache = new SerializedFormCache(10_000);
+
+        // 창 100 bytes, 주 영역 9,900 bytes. 주 영역보다 1 byte 큰 항목은 빈 캐시에서도 들어갈 자리가 없다
+        cache.put("large", form(9_901));
+        assertThat(cache.get("large")).isNull();
+        assertThat(cache.stats().getWeight()).isZero();
+
+        // 주 영역에 꼭 맞는 항목은 창을 거쳐 주 영역에 들어간다
+        cache.put("fits", form(9_900));
+        assertThat(cache.get("fits")).isNotNull();
+        assertThat(cache.stats().getWeight()).isEqualTo(9_900L);
+    }
+
+    @Test
+    void usesMapperFactory() throws IOException {
+        JsonFactory factory = JsonFactory.builder().enable(JsonWriteFeature.ESCAPE_NON_ASCII).build();
+        ObjectMapper mapper = new ObjectMapper(factory)
+            .registerModule(new SerializedFormCacheModule(new SerializedFormCache(64 * 1024)).cacheByIdentity(ImmutableUser.class));
+        ImmutableUser user = new ImmutableUser("Zoë", 20);
+
+        // 캐시한 형태도 감싸는 문서와 같이 ASCII가 아닌 문자를 이스케이프한다
+        String expected = new ObjectMapper(factory.copy()).writeValueAsString(List.of(user, user));
+        assertThat(expected).contains("\\u00EB");
+        assertThat(mapper.writeValueAsString(List.of(user, user))).isEqualTo(expected);
+    }
+
+    @Test
+    void frequentEntriesSurviveScan() {
+        SerializedFormCache cache = new SerializedFormCache(10_000);
+
+        // 자주 쓰는 50개(5,000 bytes)를 먼저 여러 번 조회한다
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (cache.get("hot" + i) == null) {
+                    cache.put("hot" + i, form(100));
+                }
+            }
+        }
+
+        // 한 번씩만 쓰이는 항목 10,000개가 지나가도(LRU라면 모두 밀려난다) 빈도가 낮은 새 항목은 입장하지 못한다
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("scan" + i, form(100));
+        }
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot" + i) != null) {
+                retained++;
+            }
+        }
+        assertThat(retained).isGreaterThanOrEqualTo(45);
+    }
+
+    private static SerializableString form(int length) {
+        return new SerializedString("x".repeat(length));
+    }
+
+    /**
+     * 지정한 불변 타입의 직렬화기를 SerializedFormCache를 거치는 직렬화기로 감싸는 모듈.
+     * 캐시된 형태는 이 매퍼의 설정으로 만든 것이므로 캐시는 매퍼마다 따로 두고, 들여쓰기(INDENT_OUTPUT) 없이 쓰는 매퍼에만 사용한다
+     * (끼워 넣는 바이트는 감싸는 문서의 들여쓰기를 따르지 않는다)
+     */
+    static class SerializedFormCacheModule extends SimpleModule {
+
+        private final SerializedFormCache cache;
+
+        private final Map<Class<?>, Function<Object, Object>> keyFunctions = new HashMap<>();
+
+        public SerializedFormCacheModule(SerializedFormCache cache) {
+            super("SerializedFormCacheModule");
+            this.cache = cache;
+        }
+
+        /**
+         * 인스턴스 자체(동일성)를 키로 쓴다. 키는 약한 참조로 잡으므로 인스턴스가 수거되면 항목도 사라진다
+         */
+        public SerializedFormCacheModule cacheByIdentity(Class<?> type) {
+            keyFunctions.put(type, IdentityKey::new);
+            return this;
+        }
+
+        /**
+         * keyFunction이 돌려주는 값(버전, ID 등)을 키로 쓴다. 키가 같으면 직렬화 형태도 같아야 한다
+         */
+        @SuppressWarnings("unchecked")
+        public <T> SerializedFormCacheModule cacheByKey(Class<T> type, Function<? super T, ?> keyFunction) {
+            keyFunctions.put(type, value -> new VersionKey(type, ((Function<Object, Object>) keyFunction).apply(value)));
+            return this;
+        }
+
+        @Override
+        public void setupModule(SetupContext context) {
+            super.setupModule(context);
+            // 캐시할 형태는 이 매퍼의 팩토리로 만들어야 문자열 이스케이프 등 생성기 설정이 감싸는 문서와 같다
+            JsonFactory factory = context.<ObjectMapper>getOwner().getFactory();
+            context.addBeanSerializerModifier(new BeanSerializerModifier() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc, JsonSerializer<?> serializer) {
+                    Function<Object, Object> keyFunction = keyFunctions.get(beanDesc.getBeanClass());
+                    return keyFunction == null ? serializer : new CachingSerializer(factory, (JsonSerializer<Object>) serializer, cache, keyFunction);
+                }
+            });
+        }
+    }
+
+    /**
+     * 캐시에 직렬화 형태가 있으면 JsonGenerator.writeRawValue(SerializableString)로 감싸는 문서에 그대로 쓰고,
+     * 없으면 원래 직렬화기로 한 번 직렬화해 캐시에 넣는다.
+     * UTF-8 출력에서는 SerializedString이 들고 있는 바이트를 복사만 한다
+     */
+    static class CachingSerializer extends StdSerializer<Object> implements ContextualSerializer, ResolvableSerializer {
+
+        private final JsonFactory factory;
+
+        private final JsonSerializer<Object> delegate;
+
+        private final SerializedFormCache cache;
+
+        private final Function<Object, Object> keyFunction;
+
+        CachingSerializer(JsonFactory factory, JsonSerializer<Object> delegate, SerializedFormCache cache, Function<Object, Object> keyFunction) {
+            super(Object.class);
+            this.factory = factory;
+            this.delegate = delegate;
+            this.cache = cache;
+            this.keyFunction = keyFunction;
+        }
+
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            Object key = keyFunction.apply(value);
+            SerializableString form = cache.get(key);
+            if (form == null) {
+                StringWriter out = new StringWriter();
+                try (JsonGenerator formGen = factory.createGenerator(out)) {
+                    delegate.serialize(value, formGen, provider);
+                }
+                form = new SerializedString(out.toString());
+                cache.put(key, form);
+            }
+            gen.writeRawValue(form);
+        }
+
+        // 타입 정보가 붙는 경우(다형성)는 캐시하지 않는다
+        @Override
+        public void serializeWithType(Object value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+            delegate.serializeWithType(value, gen, provider, typeSer);
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (delegate instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+            JsonSerializer<?> contextual = provider.handleSecondaryContextualization(delegate, property);
+            return contextual == delegate ? this : new CachingSerializer(factory, (JsonSerializer<Object>) contextual, cache, keyFunction);
+        }
+    }
+
+    /**
+     * 전체 바이트 수로 크기를 제한하는, W-TinyLFU 방식의 직렬화 형태 캐시.
+     * <p>
+     * 새 항목은 먼저 작은 LRU 창(window, 전체의 1%)에 들어가고, 창에서 밀려나면 주 영역(SLRU: probation 20% + protected 80%)에 들어가기 위해
+     * 주 영역에서 쫓겨날 후보(probation의 가장 오래된 항목)와 최근 접근 빈도(FrequencySketch)를 비교한다.
+     * 빈도가 더 높을 때만 입장하므로, 한 번씩만 쓰이는 항목이 대량으로 지나가도 자주 쓰는 항목이 밀려나지 않는다.
+     * <p>
+     * 조회와 갱신은 하나의 락으로 보호한다. 직렬화(미스)는 락 밖에서 하므로 락을 잡는 구간은 짧다
+     */
+    static class SerializedFormCache {
+
+        private static final double WINDOW_RATIO = 0.01;
+
+        private static final double PROTECTED_RATIO = 0.8;
+
+        private final long maximumWeight;
+
+        private final long windowMaximum;
+
+        private final long protectedMaximum;
+
+        private final LinkedHashMap<Object, Node> window = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Object, Node> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Object, Node> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final FrequencySketch sketch;
+
+        private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+        private long windowWeight;
+
+        private long probationWeight;
+
+        private long protectedWeight;
+
+        private long hitCount;
+
+        private long missCount;
+
+        private long evictionCount;
+
+        public SerializedFormCache(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            this.windowMaximum = (long) (maximumWeight * WINDOW_RATIO);
+            this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_RATIO);
+            // 항목당 평균 64 bytes로 가정해 카운터 수를 정한다
+            this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(1024, maximumWeight / 64)));
+        }
+
+        public synchronized SerializableString get(Object key) {
+            purgeCollected();
+            sketch.increment(key);
+            Node node = window.get(key);
+            if (node == null) {
+                node = probation.remove(key);
+                if (node != null) {
+                    // 두 번째 접근이면 protected로 올린다
+                    probationWeight -= node.weight;
+                    addProtected(key, node);
+                } else {
+                    node = protectedSegment.get(key);
+                }
+            }
+            if (node == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return node.form;
+        }
+
+        public synchronized void put(Object key, SerializableString form) {
+            purgeCollected();
+            int weight = form.asUnquotedUTF8().length;
+            // 창에서 밀려난 항목은 주 영역에 들어가야 하므로, 주 영역보다 큰 항목은 받지 않는다
+            if (weight > maximumWeight - windowMaximum || window.containsKey(key) || probation.containsKey(key) || protectedSegment.containsKey(key)) {
+                return;
+            }
+            if (key instanceof IdentityKey identityKey) {
+                // 조회용 키 대신 ReferenceQueue에 등록한 키를 넣는다. 인스턴스가 이미 수거됐다면 넣지 않는다
+                key = identityKey.queued(collected);
+                if (key == null) {
+                    return;
+                }
+            }
+            window.put(key, new Node(form, weight));
+            windowWeight += weight;
+
+            // 창이 넘치면 오래된 항목부터 주 영역 입장을 시도한다
+            Iterator<Map.Entry<Object, Node>> iterator = window.entrySet().iterator();
+            while (windowWeight > windowMaximum && iterator.hasNext()) {
+                Map.Entry<Object, Node> candidate = iterator.next();
+                iterator.remove();
+                windowWeight -= candidate.getValue().weight;
+                admit(candidate.getKey(), candidate.getValue());
+            }
+        }
+
+        private void admit(Object key, Node node) {
+            long mainMaximum = maximumWeight - windowMaximum;
+            int candidateFrequency = sketch.frequency(key);
+            while (probationWeight + protectedWeight + node.weight > mainMaximum) {
+                LinkedHashMap<Object, Node> segment = probation.isEmpty() ? protectedSegment : probation;
+                Map.Entry<Object, Node> victim = segment.entrySet().iterator().next();
+                if (candidateFrequency <= sketch.frequency(victim.getKey())) {
+                    evictionCount++;
+                    return;
+                }
+                segment.remove(victim.getKey());
+                if (segment == probation) {
+                    probationWeight -= victim.getValue().weight;
+                } else {
+                    protectedWeight -= victim.getValue().weight;
+                }
+                evictionCount++;
+            }
+            probation.put(key, node);
+            probationWeight += node.weight;
+        }
+
+        private void addProtected(Object key, Node node) {
+            protectedSegment.put(key, node);
+            protectedWeight += node.weight;
+            // protected가 넘치면 오래된 항목을 probation으로 내린다
+            Iterator<Map.Entry<Object, Node>> iterator = protectedSegment.entrySet().iterator();
+            while (protectedWeight > protectedMaximum && iterator.hasNext()) {
+                Map.Entry<Object, Node> demoted = iterator.next();
+                iterator.remove();
+                protectedWeight -= demoted.getValue().weight;
+                probation.put(demoted.getKey(), demoted.getValue());
+                probationWeight += demoted.getValue().weight;
+            }
+        }
+
+        // 수거된 인스턴스의 항목을 지운다
+        private void purgeCollected() {
+            Object key;
+            while ((key = collected.poll()) != null) {
+                Node node;
+                if ((node = window.remove(key)) != null) {
+                    windowWeight -= node.weight;
+                } else if ((node = probation.remove(key)) != null) {
+                    probationWeight -= node.weight;
+                } else if ((node = protectedSegment.remove(key)) != null) {
+                    protectedWeight -= node.weight;
+                }
+            }
+        }
+
+        public synchronized CacheStats stats() {
+            return new CacheStats(hitCount, missCount, evictionCount, window.size() + probation.size() + protectedSegment.size(),
+                                  windowWeight + probationWeight + protectedWeight);
+        }
+
+        @RequiredArgsConstructor
+        private static class Node {
+
+            private final SerializableString form;
+
+            private final int weight;
+        }
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    static class CacheStats {
+
+        private final long hitCount;
+
+        private final long missCount;
+
+        private final long evictionCount;
+
+        private final int size;
+
+        private final long weight;
+
+        public double hitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+    }
+
+    /**
+     * 최근 접근 빈도를 근사하는 4비트 count-min sketch. 증가 횟수가 표본 크기(카운터 수의 10배)에 이르면 모든 카운터를 반으로 줄여 오래된 빈도를 잊는다
+     */
+    static class FrequencySketch {
+
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] counters;
+
+        private final int mask;
+
+        private final int sampleSize;
+
+        private int additions;
+
+        FrequencySketch(int width) {
+            int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+            this.counters = new byte[SEEDS.length][size];
+            this.mask = size - 1;
+            this.sampleSize = size * 10;
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = index(hash, i);
+                if (counters[i][index] < 15) {
+                    counters[i][index]++;
+                }
+            }
+            if (++additions == sampleSize) {
+                for (byte[] row : counters) {
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                frequency = Math.min(frequency, counters[i][index(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+
+    /**
+     * 인스턴스 동일성으로 비교하는 약한 참조 키
+     */
+    static class IdentityKey extends WeakReference<Object> {
+
+        private final int hash;
+
+        IdentityKey(Object referent) {
+            super(referent);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        private IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        IdentityKey queued(ReferenceQueue<Object> queue) {
+            Object referent = get();
+            return referent == null ? null : new IdentityKey(referent, queue);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IdentityKey other)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == other.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 타입과 사용자 지정 키(버전, ID 등)의 조합
+     */
+    record VersionKey(Class<?> type, Object key) {
+
+        VersionKey {
+            Objects.requireNonNull(key, "key");
+        }
+    }
+
+    // MixInClassTest.Rectangle과 같은 불변 클래스
+    @RequiredArgsConstructor
+    @Getter
+    static final class Rectangle {
+
+        private final int w;
+
+        private final int h;
+
+        @SuppressWarnings("UnusedDeclaration")
+        public int getSize() {
+            return w * h;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import learn.jackson.databind.AllocationRegressionTest.AllocationMeter;
+import learn.jackson.databind.GenericCollectionsTest.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class StreamingMapReaderTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    StreamingMapReader<User> reader = new StreamingMapReader<>(mapper, User.class);
+
+    @Test
+    void forEachEntry() throws IOException {
+        Map<String, Integer> ageByName = new LinkedHashMap<>();
+        long entries = reader.forEach(getClass().getResourceAsStream("/user-map.json"),
+                                      (name, user) -> ageByName.put(name, user.getAge()));
+
+        // GenericCollectionsTest와 같은 결과를 Map 없이 얻는다
+        assertThat(entries).isEqualTo(2);
+        assertThat(ageByName).containsEntry("Bob", 100)
+                             .containsEntry("John", 97);
+    }
+
+    @Test
+    void stopEarly() throws IOException {
+        // 2천만 개짜리 문서라도 필요한 만큼만 읽는다
+        UserMapInputStream in = new UserMapInputStream(20_000_000);
+        List<String> names = new ArrayList<>();
+        long entries = reader.forEachWhile(in, (name, user) -> {
+            names.add(name);
+            return names.size() < 10;
+        });
+
+        assertThat(entries).isEqualTo(10);
+        assertThat(names).startsWith("user0", "user1").hasSize(10);
+        assertThat(in.produced).isLessThan(100_000);
+        assertThat(in.closed).isTrue();
+    }
+
+    @Test
+    void iterator() throws IOException {
+        UserMapInputStream in = new UserMapInputStream(20_000_000);
+        try (StreamingMapReader.EntryIterator<User> entries = reader.iterator(in)) {
+            Map.Entry<String, User> first = entries.next();
+            assertThat(first.getKey()).isEqualTo("user0");
+            assertThat(first.getValue().getAge()).isEqualTo(0);
+            assertThat(entries.next().getValue().getAge()).isEqualTo(1);
+            assertThat(entries.hasNext()).isTrue();
+        }
+        assertThat(in.closed).isTrue();
+
+        try (StreamingMapReader.EntryIterator<User> entries = reader.iterator(bytes("{}"))) {
+            assertThat(entries.hasNext()).isFalse();
+            assertThatThrownBy(entries::next).isInstanceOf(NoSuchElementException.class);
+        }
+    }
+
+    @Test
+    void nullValuesAndNonObjectRoot() throws IOException {
+        List<String> names = new ArrayList<>();
+        reader.forEach(bytes("{\"Bob\":null,\"John\":{\"age\":97}}"), (name, user) -> names.add(name + "=" + (user == null ? null : user.getAge())));
+        assertThat(names).containsExactly("Bob=null", "John=97");
+
+        assertThatThrownBy(() -> reader.forEach(bytes("[1, 2]"), (name, user) -> {
+        })).isInstanceOf(MismatchedInputException.class);
+    }
+
+    @Test
+    void batchesOnWorkerPool() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AtomicLong ageSum = new AtomicLong();
+            AtomicInteger batches = new AtomicInteger();
+            long entries = reader.forEachBatch(new UserMapInputStream(100_000), 1_000, 8, executor, batch -> {
+                batches.incrementAndGet();
+                batch.forEach(entry -> ageSum.addAndGet(entry.getValue().getAge()));
+            });
+
+            assertThat(entries).isEqualTo(100_000);
+            assertThat(batches.get()).isEqualTo(100);
+            assertThat(ageSum.get()).isEqualTo(100_000L * 99_999 / 2);
+
+            // 작업자에서 난 예외는 호출자에게 전달되고, 파싱도 멈춘다
+            UserMapInputStream in = new UserMapInputStream(20_000_000);
+            assertThatThrownBy(() -> reader.forEachBatch(in, 1_000, 8, executor, batch -> {
+                throw new IllegalArgumentException("rejected");
+            })).isInstanceOf(IllegalArgumentException.class).hasMessage("rejected");
+            assertThat(in.produced).isLessThan(1_000_000);
+            assertThat(in.closed).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void checkedFailureOnWorker() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 작업자에서 몰래 던진 검사 예외도 사라지지 않고 호출자에게 전달된다
+            assertThatThrownBy(() -> reader.forEachBatch(new UserMapInputStream(10_000), 1_000, 4, executor, batch -> {
+                throw StreamingMapReaderTest.<RuntimeException>sneaky(new Exception("checked"));
+            })).isInstanceOf(CompletionException.class).hasRootCauseMessage("checked");
+
+            assertThatThrownBy(() -> reader.forEachBatch(new UserMapInputStream(10_000), 1_000, 4, executor, batch -> {
+                throw StreamingMapReaderTest.<RuntimeException>sneaky(new IOException("disk full"));
+            })).isInstanceOf(IOException.class).hasMessage("disk full");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void largeDocument() throws IOException {
+        int users = 100_000;
+        AtomicLong sum = new AtomicLong();
+        long entries = reader.forEach(new UserMapInputStream(users), (name, user) -> sum.addAndGet(user.getAge()));
+
+        assertThat(entries).isEqualTo(users);
+        assertThat(sum.get()).isEqualTo((long) users * (users - 1) / 2);
+    }
+
+    @Test
+    void parseErrorIsIOException() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            String json = "{\"Bob\":{\"age\":100},\"John\":{\"age\":97,}";
+
+            // forEach와 forEachBatch는 잘못된 입력에 같은 예외(JsonParseException, IOException)를 던진다
+            assertThatThrownBy(() -> reader.forEach(bytes(json), (name, user) -> {
+            })).isInstanceOf(JsonParseException.class);
+            assertThatThrownBy(() -> reader.forEachBatch(bytes(json), 1, 2, executor, batch -> {
+            })).isInstanceOf(JsonParseException.class);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * GC 후 힙 사용량을 여러 번 재므로 느리고 JVM/GC 설정에 따라 달라질 수 있어, 기본 test 태스크에서는 빼고 heapTest 태스크로 실행한다
+     */
+    @Test
+    @Tag("heap")
+    void constantHeapPerEntry() throws IOException {
+        int users = 1_000_000;
+        long streamingBase = AllocationMeter.usedHeapAfterGc();
+
+        // 콜백 안에서 250,000개마다 힙 사용량을 잰다
+        List<Long> samples = new ArrayList<>();
+        AtomicLong sum = new AtomicLong();
+        AtomicLong count = new AtomicLong();
+        reader.forEach(new UserMapInputStream(users), (name, user) -> {
+            sum.addAndGet(user.getAge());
+            if (count.incrementAndGet() % 250_000 == 0) {
+                samples.add(AllocationMeter.usedHeapAfterGc() - streamingBase);
+            }
+        });
+        assertThat(sum.get()).isEqualTo((long) users * (users - 1) / 2);
+
+        // 같은 입력을 Map으로 읽으면 항목 수에 비례해 힙을 쓴다
+        long base = AllocationMeter.usedHeapAfterGc();
+        Map<String, User> map = mapper.readValue(new UserMapInputStream(users), new TypeReference<>() {
+        });
+        long mapHeap = AllocationMeter.usedHeapAfterGc() - base;
+        assertThat(map).hasSize(users);
+
+        // JDK 17 측정값: Map 113~118 MB, 스트리밍 3.4~4.7 MB(역직렬화기 생성 등 처음 한 번 드는 비용)이고 읽은 항목 수에 따라 늘지 않는다
+        assertThat(samples).hasSize(4);
+        assertThat(samples.get(3) - samples.get(0)).isLessThan(2L * 1024 * 1024);
+        assertThat(samples.stream().mapToLong(Long::longValue).max().getAsLong()).isLessThan(16L * 1024 * 1024);
+        assertThat(mapHeap).isGreaterThan(50L * 1024 * 1024);
+    }
+
+    private static InputStream bytes(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E sneaky(Throwable e) throws E {
+        throw (E) e;
+    }
+
+    /**
+     * {"user0":{"age":0},"user1":{"age":1},...} 문서를 메모리에 만들지 않고 필요한 만큼 생성하는 입력 스트림
+     */
+    static class UserMapInputStream extends InputStream {
+
+        private final int users;
+
+        private byte[] chunk = "{".getBytes(StandardCharsets.UTF_8);
+
+        private int position;
+
+        private int next;
+
+        long produced;
+
+        boolean closed;
+
+        UserMapInputStream(int users) {
+            this.users = users;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position == chunk.length && !nextChunk()) {
+                return -1;
+            }
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean nextChunk() {
+            if (next > users) {
+                return false;
+            }
+            StringBuilder builder = new StringBuilder(4096);
+            while (next < users && builder.length() < 4000) {
+                if (next > 0) {
+                    builder.append(',');
+                }
+                builder.append("\"user").append(next).append("\":{\"age\":").append(next).append('}');
+                next++;
+                produced++;
+            }
+            if (next == users) {
+                builder.append('}');
+                next++;
+            }
+            chunk = builder.toString().getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * 최상위가 JSON 객체인 큰 문서를 Map으로 만들지 않고 항목 단위로 읽는 리더.
+     * <p>
+     * 파서로 프로퍼티 이름을 읽고, 값은 ObjectReader.readValue(JsonParser)로 하나씩 바인딩한다.
+     * 한 번에 하나의 항목만 메모리에 있으므로 항목당 메모리는 문서 크기와 상관없이 일정하다.
+     * 모든 메서드는 끝나거나 멈출 때 입력을 닫는다
+     */
+    static class StreamingMapReader<T> {
+
+        private final ObjectMapper mapper;
+
+        private final ObjectReader valueReader;
+
+        public StreamingMapReader(ObjectMapper mapper, Class<T> valueType) {
+            this(mapper, mapper.constructType(valueType));
+        }
+
+        public StreamingMapReader(ObjectMapper mapper, JavaType valueType) {
+            this.mapper = mapper;
+            this.valueReader = mapper.readerFor(valueType);
+        }
+
+        /**
+         * 항목을 당겨 읽는 반복자를 연다. 다 읽기 전에 멈추려면 close()를 부른다
+         */
+        public EntryIterator<T> iterator(InputStream in) throws IOException {
+            JsonParser parser = mapper.createParser(in);
+            try {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw MismatchedInputException.from(parser, Map.class, "Expected a JSON object, got " + parser.currentToken());
+                }
+            } catch (IOException e) {
+                parser.close();
+                throw e;
+            }
+            return new EntryIterator<>(parser, valueReader);
+        }
+
+        public long forEach(InputStream in, BiConsumer<String, ? super T> action) throws IOException {
+            return forEachWhile(in, (name, value) -> {
+                action.accept(name, value);
+                return true;
+            });
+        }
+
+        /**
+         * action이 false를 돌려주면 나머지 입력을 읽지 않고 멈춘다. 처리한 항목 수를 돌려준다
+         */
+        public long forEachWhile(InputStream in, BiPredicate<String, ? super T> action) throws IOException {
+            long entries = 0;
+            try (EntryIterator<T> iterator = iterator(in)) {
+                while (iterator.advance()) {
+                    entries++;
+                    if (!action.test(iterator.name, iterator.value)) {
+                        break;
+                    }
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * 호출 스레드에서 파싱하고 batchSize개씩 묶어 executor에 넘긴다.
+         * 실행 중인 묶음이 maxInFlight개면 파싱을 멈추고 기다리므로, 메모리는 batchSize * maxInFlight개 항목으로 제한된다.
+         * 모든 묶음이 끝난 뒤 돌아오고, handler에서 난 첫 예외는 파싱을 멈추고 호출자에게 다시 던진다
+         * (IOException이 아닌 검사 예외는 CompletionException으로 감싼다)
+         */
+        public long forEachBatch(InputStream in, int batchSize, int maxInFlight, Executor executor,
+                                 Consumer<List<Map.Entry<String, T>>> handler) throws IOException {
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            long entries = 0;
+
+            // hasNext()/next()는 IOException을 UncheckedIOException으로 감싸므로, forEach와 같은 예외를 던지도록 advance()로 읽는다
+            try (EntryIterator<T> iterator = iterator(in)) {
+                List<Map.Entry<String, T>> batch = new ArrayList<>(batchSize);
+                while (failure.get() == null && iterator.advance()) {
+                    batch.add(new SimpleImmutableEntry<>(iterator.name, iterator.value));
+                    entries++;
+                    if (batch.size() == batchSize) {
+                        submit(batch, inFlight, failure, executor, handler);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty() && failure.get() == null) {
+                    submit(batch, inFlight, failure, executor, handler);
+                }
+            } finally {
+                inFlight.acquireUninterruptibly(maxInFlight);
+            }
+
+            Throwable cause = failure.get();
+            if (cause instanceof RuntimeException e) {
+                throw e;
+            }
+            if (cause instanceof Error e) {
+                throw e;
+            }
+            // Consumer는 검사 예외를 선언하지 않지만 몰래 던질 수 있으므로(sneaky throw), 삼키지 않고 감싸서 던진다
+            if (cause instanceof IOException e) {
+                throw e;
+            }
+            if (cause != null) {
+                throw new CompletionException(cause);
+            }
+            return entries;
+        }
+
+        private void submit(List<Map.Entry<String, T>> batch, Semaphore inFlight, AtomicReference<Throwable> failure,
+                            Executor executor, Consumer<List<Map.Entry<String, T>>> handler) {
+            inFlight.acquireUninterruptibly();
+            try {
+                executor.execute(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            handler.accept(batch);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        /**
+         * 항목을 하나씩 읽는 반복자. 항목마다 Map.Entry를 만들지 않으려면 advance()와 name/value를 쓴다
+         */
+        static class EntryIterator<T> implements Iterator<Map.Entry<String, T>>, Closeable {
+
+            private final JsonParser parser;
+
+            private final ObjectReader valueReader;
+
+            private String name;
+
+            private T value;
+
+            private Boolean hasNext;
+
+            EntryIterator(JsonParser parser, ObjectReader valueReader) {
+                this.parser = parser;
+                this.valueReader = valueReader;
+            }
+
+            boolean advance() throws IOException {
+                if (hasNext != null) {
+                    boolean result = hasNext;
+                    hasNext = null;
+                    return result;
+                }
+                if (parser.isClosed() || parser.nextToken() != JsonToken.FIELD_NAME) {
+                    return false;
+                }
+                name = parser.currentName();
+                parser.nextToken();
+                value = valueReader.readValue(parser);
+                return true;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    try {
+                        hasNext = advance();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Map.Entry<String, T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                // JSON null 값도 담을 수 있도록 Map.entry() 대신 SimpleImmutableEntry를 쓴다
+                return new SimpleImmutableEntry<>(name, value);
+            }
+
+            @Override
+            public void close() throws IOException {
+                parser.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package learn.jackson.databind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import learn.jackson.databind.AllocationRegressionTest.AllocationMeter;
+import learn.jackson.databind.SimpleTest.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class StringDeduplicationTest {
+
+    private static final List<String> NAMES = List.of("John", "Bob", "Jane", "Alice", "Tom");
+
+    @Test
+    void deduplicatesStringValues() throws IOException {
+        byte[] json = userMap(100_000);
+        TypeReference<Map<String, User>> type = new TypeReference<>() {
+        };
+
+        Map<String, User> plain = new ObjectMapper().readValue(json, type);
+        StringDeduplicationPool pool = new StringDeduplicationPool(1024, 32);
+        Map<String, User> deduplicated = new ObjectMapper()
+            .registerModule(new StringDeduplicationModule(pool))
+            .readValue(json, type);
+
+        // 결과는 같다
+        assertThat(deduplicated.size()).isEqualTo(plain.size());
+        assertThat(deduplicated.get("user123").getName()).isEqualTo(plain.get("user123").getName());
+
+        // 기본 역직렬화는 값마다 String을 새로 만들지만, 풀을 거치면 이름마다 인스턴스가 하나뿐이다
+        assertThat(distinctInstances(plain)).isEqualTo(100_000);
+        assertThat(distinctInstances(deduplicated)).isEqualTo(NAMES.size());
+        assertThat(pool.missCount()).isEqualTo(NAMES.size());
+        assertThat(pool.hitCount()).isEqualTo(100_000L - NAMES.size());
+    }
+
+    @Test
+    @Tag("heap")
+    void retainedHeap() throws IOException {
+        byte[] json = userMap(200_000);
+        TypeReference<Map<String, User>> type = new TypeReference<>() {
+        };
+
+        long base = AllocationMeter.usedHeapAfterGc();
+        Map<String, User> plain = new ObjectMapper().readValue(json, type);
+        long plainHeap = AllocationMeter.usedHeapAfterGc() - base;
+        Reference.reachabilityFence(plain);
+        plain = null;
+
+        base = AllocationMeter.usedHeapAfterGc();
+        Map<String, User> deduplicated = new ObjectMapper()
+            .registerModule(new StringDeduplicationModule(new StringDeduplicationPool(1024, 32)))
+            .readValue(json, type);
+        long deduplicatedHeap = AllocationMeter.usedHeapAfterGc() - base;
+        Reference.reachabilityFence(deduplicated);
+
+        // 이름 하나가 String(24 bytes) + byte[](16 bytes + 길이, 8 bytes 정렬)이므로 사용자당 약 48 bytes를 덜 쓴다
+        // JDK 17 측정값: 500,000명 기준 88.8 MB -> 62.6 MB (사용자당 53 bytes)
+        assertThat((plainHeap - deduplicatedHeap) / 200_000).isGreaterThanOrEqualTo(30L);
+    }
+
+    @Test
+    void noAllocationOnHit() {
+        StringDeduplicationPool pool = new StringDeduplicationPool(1024, 32);
+        char[] buffer = "{\"name\":\"John\"}".toCharArray();
+        String john = pool.intern(buffer, 9, 4);
+        assertThat(john).isEqualTo("John");
+
+        assertThat(AllocationMeter.bytesPerOperation(() -> pool.intern(buffer, 9, 4))).isZero();
+        assertThat(pool.intern(buffer, 9, 4)).isSameAs(john);
+    }
+
+    @Test
+    void bounded() {
+        StringDeduplicationPool pool = new StringDeduplicationPool(64, 8);
+
+        // 상한을 넘으면 기존 항목을 덮어쓴다. 결과 값은 언제나 올바르다
+        for (int i = 0; i < 10_000; i++) {
+            char[] chars = ("v" + i).toCharArray();
+            assertThat(pool.intern(chars, 0, chars.length)).isEqualTo("v" + i);
+        }
+        assertThat(pool.size()).isLessThanOrEqualTo(64);
+
+        // 최대 길이를 넘는 문자열은 풀에 넣지 않는다
+        char[] longValue = "a-long-value-over-8".toCharArray();
+        assertThat(pool.intern(longValue, 0, longValue.length)).isNotSameAs(pool.intern(longValue, 0, longValue.length));
+    }
+
+    private static byte[] userMap(int users) throws IOException {
+        Map<String, Map<String, Object>> userMap = new LinkedHashMap<>();
+        for (int i = 0; i < users; i++) {
+            userMap.put("user" + i, Map.of("name", NAMES.get(i % NAMES.size()), "age", i % 100));
+        }
+        return new ObjectMapper().writeValueAsBytes(userMap);
+    }
+
+    private static int distinctInstances(Map<String, User> users) {
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        users.values().forEach(user -> instances.add(user.getName()));
+        return instances.size();
+    }
+
+    /**
+     * 모든 짧은 문자열 값을 StringDeduplicationPool을 거쳐 역직렬화하는 모듈.
+     * 프로퍼티 이름과 Map 키는 이미 파서의 심볼 테이블이 정규화(INTERN_FIELD_NAMES)하므로, 여기서는 값만 다룬다
+     */
+    static class StringDeduplicationModule extends SimpleModule {
+
+        public StringDeduplicationModule(StringDeduplicationPool pool) {
+            super("StringDeduplicationModule");
+            addDeserializer(String.class, new DeduplicatingStringDeserializer(pool));
+        }
+    }
+
+    /**
+     * VALUE_STRING 토큰의 문자 버퍼(getTextCharacters())를 그대로 풀에 넘겨, 풀에 있는 문자열이면 String을 만들지 않는다.
+     * 그 밖의 토큰(숫자, 배열 등의 강제 변환)은 기본 StringDeserializer에 맡긴다
+     */
+    static class DeduplicatingStringDeserializer extends StdScalarDeserializer<String> {
+
+        private final StringDeduplicationPool pool;
+
+        DeduplicatingStringDeserializer(StringDeduplicationPool pool) {
+            super(String.class);
+            this.pool = pool;
+        }
+
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING)) {
+                return pool.intern(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            }
+            return StringDeserializer.instance.deserialize(p, ctxt);
+        }
+
+        @Override
+        public boolean isCachable() {
+            return true;
+        }
+    }
+
+    /**
+     * 문자 배열의 구간을 키로 String 인스턴스를 재사용하는, 크기가 고정된 중복 제거 풀.
+     * <p>
+     * 전체 슬롯을 스트라이프로 나누고 스트라이프마다 락을 따로 둔다. 스트라이프 안에서는 4칸까지 선형 탐사하고, 빈칸이 없으면 첫 칸을 덮어쓴다.
+     * 따라서 크기는 capacity를 넘지 않고, 적중하면 문자를 비교만 하고 아무것도 할당하지 않는다.
+     * maximumLength보다 긴 문자열은 반복될 가능성이 낮으므로 풀에 넣지 않는다
+     */
+    static class StringDeduplicationPool {
+
+        private static final int STRIPES = 16;
+
+        private static final int PROBES = 4;
+
+        private final int maximumLength;
+
+        private final Stripe[] stripes = new Stripe[STRIPES];
+
+        private final int stripeMask;
+
+        public StringDeduplicationPool(int capacity, int maximumLength) {
+            this.maximumLength = maximumLength;
+            int slotsPerStripe = Integer.highestOneBit(Math.max(PROBES, capacity / STRIPES));
+            this.stripeMask = slotsPerStripe - 1;
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe(slotsPerStripe);
+            }
+        }
+
+        public String intern(char[] chars, int offset, int length) {
+            if (length > maximumLength) {
+                return new String(chars, offset, length);
+            }
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + chars[offset + i];
+            }
+            hash ^= hash >>> 16;
+            Stripe stripe = stripes[hash & (STRIPES - 1)];
+            int index = (hash >>> 4) & stripeMask;
+
+            synchronized (stripe) {
+                for (int probe = 0; probe < PROBES; probe++) {
+                    int slot = (index + probe) & stripeMask;
+                    String value = stripe.values[slot];
+                    if (value == null) {
+                        stripe.misses++;
+                        stripe.hashes[slot] = hash;
+                        return stripe.values[slot] = new String(chars, offset, length);
+                    }
+                    if (stripe.hashes[slot] == hash && matches(value, chars, offset, length)) {
+                        stripe.hits++;
+                        return value;
+                    }
+                }
+                stripe.misses++;
+                stripe.hashes[index] = hash;
+                return stripe.values[index] = new String(chars, offset, length);
+            }
+        }
+
+        private static boolean matches(String value, char[] chars, int offset, int length) {
+            if (value.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int size() {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    for (String value : stripe.values) {
+                        if (value != null) {
+                            size++;
+                        }
+                    }
+                }
+            }
+            return size;
+        }
+
+        public long hitCount() {
+            long hits = 0;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    hits += stripe.hits;
+                }
+            }
+            return hits;
+        }
+
+        public long missCount() {
+            long misses = 0;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    misses += stripe.misses;
+                }
+            }
+            return misses;
+        }
+
+        private static class Stripe {
+
+            private final String[] values;
+
+            private final int[] hashes;
+
+            private long hits;
+
+            private long misses;
+
+            Stripe(int slots) {
+                this.values = new String[slots];
+                this.hashes = new int[slots];
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package learn.jackson.databind.codegen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import learn.jackson.codegen.JsonCodegen;
+import learn.jackson.codegen.JsonCodegenProcessor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JsonCodegenProcessor가 이 클래스의 모델마다 JsonCodegenTest_XxxJsonSerializer/JsonDeserializer와 이 패키지의 JsonCodegenModule을 생성한다.
+ * <p>
+ * 다른 테스트의 모델(SimpleTest.User, Car/Aeroplane, BeanContainer)은 리플렉션으로만 다룰 수 있는 형태라 그대로 쓰지 않고,
+ * 같은 모양으로 생성할 수 있는 모델을 여기에 둔다. setter 없는 private 필드와 private 기본 생성자는 생성 코드에서 호출할 수 없고,
+ * BeanContainer와 LogicalTypeIdWithCustomTypeIdResolverTest의 Car/Aeroplane은 컴파일 시점에 알 수 없는 사용자 정의 TypeIdResolver(매퍼의 기본 타입 지정)로
+ * 타입 id를 정한다. Point2는 DeserializationTest.Point2와 같이 @JsonCreator 생성자와 정적 팩터리 메서드를 함께 두고, 직렬화를 위한 getter만 더했다
+ */
+class JsonCodegenTest {
+
+    ObjectMapper reflectiveMapper = new ObjectMapper().addMixIn(Money.class, MoneyMixIn.class);
+
+    ObjectMapper codegenMapper = new ObjectMapper().registerModule(new JsonCodegenModule());
+
+    @Test
+    void sameOutputAsReflection() throws IOException {
+        for (Object value : List.of(user(), garage(), new Point2(1, 2), new Money(new BigDecimal("12.50"), "KRW"), new Car("12가3456"))) {
+            assertThat(codegenMapper.writeValueAsString(value)).isEqualTo(reflectiveMapper.writeValueAsString(value));
+        }
+        // @JsonProperty 이름(이름을 바꾼 속성은 뒤로), @JsonIgnore/@JsonIgnoreProperties, 생성자 속성 우선 순서, 믹스인 이름을 따른다
+        assertThat(codegenMapper.writeValueAsString(user()))
+            .isEqualTo("{\"age\":20,\"active\":true,\"score\":null,\"tags\":[\"a\",\"b\"],\"location\":{\"x\":1,\"y\":2},\"user_name\":\"kim\"}");
+        assertThat(codegenMapper.writeValueAsString(new Money(new BigDecimal("12.50"), "KRW"))).isEqualTo("{\"amount\":12.50,\"currencyCode\":\"KRW\"}");
+        assertThat(codegenMapper.writeValueAsString(garage()))
+            .isEqualTo("{\"vehicle\":{\"@type\":\"car\",\"licensePlate\":\"12가3456\"},\"vehicles\":[{\"@type\":\"aeroplane\",\"wingSpan\":30},null]}");
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        for (Object value : List.of(user(), garage(), new Point2(1, 2), new Money(new BigDecimal("12.50"), "KRW"))) {
+            String json = reflectiveMapper.writeValueAsString(value);
+            assertThat(codegenMapper.readValue(json, value.getClass())).usingRecursiveComparison().isEqualTo(reflectiveMapper.readValue(json, value.getClass()));
+        }
+        // 읽기 전용/무시 속성, 알 수 없는 속성(ignoreUnknown)은 건너뛴다
+        User user = codegenMapper.readValue("{\"user_name\":\"lee\",\"password\":\"secret\",\"memo\":{\"a\":[1]},\"unknown\":1,\"age\":3}", User.class);
+        assertThat(user.getName()).isEqualTo("lee");
+        assertThat(user.getAge()).isEqualTo(3);
+        assertThat(user.getPassword()).isNull();
+        assertThat(user.getMemo()).isNull();
+        assertThat(codegenMapper.readValue("{}", User.class)).usingRecursiveComparison().isEqualTo(new User());
+        assertThat(codegenMapper.readValue("null", User.class)).isNull();
+    }
+
+    @Test
+    void typeIdAnywhere() throws IOException {
+        String json = "{\"vehicles\":[{\"wingSpan\":3,\"@type\":\"aeroplane\"},{\"@type\":\"car\",\"licensePlate\":\"b\"}],\"vehicle\":{\"licensePlate\":\"a\",\"@type\":\"car\"}}";
+        Garage garage = codegenMapper.readValue(json, Garage.class);
+
+        // 타입 id가 뒤에 나오면 앞의 속성을 버퍼에 담았다가 하위 타입 역직렬화기로 다시 읽는다
+        assertThat(garage).usingRecursiveComparison().isEqualTo(reflectiveMapper.readValue(json, Garage.class));
+        assertThat(garage.getVehicle()).isInstanceOf(Car.class);
+        assertThat(((Car) garage.getVehicle()).getLicensePlate()).isEqualTo("a");
+        assertThat(((Aeroplane) garage.getVehicles().get(0)).getWingSpan()).isEqualTo(3);
+        assertThat(codegenMapper.readValue("{\"wingSpan\":5,\"@type\":\"aeroplane\"}", Vehicle.class)).isInstanceOf(Aeroplane.class);
+        // 버퍼를 다시 읽은 뒤 원래 파서의 나머지 속성을 이어 읽는다. 중복된 속성은 리플렉션 경로처럼 나중 값이 남는다
+        Vehicle[] vehicles = codegenMapper.readValue("[{\"wingSpan\":1,\"@type\":\"aeroplane\",\"wingSpan\":2},{\"@type\":\"car\"}]", Vehicle[].class);
+        assertThat(((Aeroplane) vehicles[0]).getWingSpan()).isEqualTo(2);
+        assertThat(vehicles[1]).isInstanceOf(Car.class);
+
+        assertThatThrownBy(() -> codegenMapper.readValue("{\"@type\":\"boat\"}", Vehicle.class)).isInstanceOf(InvalidTypeIdException.class);
+        assertThatThrownBy(() -> codegenMapper.readValue("{\"wingSpan\":5}", Vehicle.class)).isInstanceOf(InvalidTypeIdException.class);
+    }
+
+    @Test
+    void unknownProperty() {
+        // ignoreUnknown이 없으면 리플렉션 경로처럼 실패한다
+        assertThatThrownBy(() -> codegenMapper.readValue("{\"vehicle\":null,\"parkingLot\":1}", Garage.class))
+            .isInstanceOf(UnrecognizedPropertyException.class)
+            .hasMessageContaining("parkingLot")
+            .hasMessageContaining("2 known properties: \"vehicle\", \"vehicles\"");
+    }
+
+    @Test
+    void generatedCodecsInUse() throws IOException {
+        assertThat(codegenMapper.getSerializerProviderInstance().findValueSerializer(User.class)).isInstanceOf(JsonCodegenTest_UserJsonSerializer.class);
+        assertThat(codegenMapper.getSerializerProviderInstance().findValueSerializer(Money.class)).isInstanceOf(JsonCodegenTest_MoneyJsonSerializer.class);
+
+        DefaultDeserializationContext ctxt = ((DefaultDeserializationContext) codegenMapper.getDeserializationContext())
+            .createInstance(codegenMapper.getDeserializationConfig(), null, null);
+        JsonDeserializer<Object> deserializer = ctxt.findRootValueDeserializer(ctxt.constructType(Point2.class));
+        assertThat(deserializer).isInstanceOf(JsonCodegenTest_Point2JsonDeserializer.class);
+    }
+
+    @Test
+    void constructorAndFactoryCreators() throws IOException {
+        // DeserializationTest.Point2처럼 생성자와 정적 팩터리 메서드에 @JsonCreator가 있으면 Jackson과 같이 팩터리 메서드를 쓴다
+        Path directory = Files.createTempDirectory("codegen");
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(directory, "Point3", """
+                                                                                             import com.fasterxml.jackson.annotation.JsonCreator;
+                                                                                             import com.fasterxml.jackson.annotation.JsonProperty;
+
+                                                                                             @learn.jackson.codegen.JsonCodegen
+                                                                                             public class Point3 {
+
+                                                                                                 @JsonCreator
+                                                                                                 public Point3(@JsonProperty("x") int x) {
+                                                                                                 }
+
+                                                                                                 @JsonCreator
+                                                                                                 public static Point3 create(@JsonProperty("x") int x) {
+                                                                                                     return new Point3(x);
+                                                                                                 }
+                                                                                             }
+                                                                                             """);
+        assertThat(errors).isEmpty();
+        assertThat(Files.readString(directory.resolve("Point3JsonDeserializer.java"))).contains("= Point3.create(");
+    }
+
+    @Test
+    void multipleCreators() throws IOException {
+        // 같은 종류의 @JsonCreator가 둘이면 Jackson도 거부하므로, 하나를 골라 쓰지 않고 두 번째 위치의 컴파일 오류로 알린다
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(Files.createTempDirectory("codegen"), "Point3", """
+                                                                                                                    import com.fasterxml.jackson.annotation.JsonCreator;
+                                                                                                                    import com.fasterxml.jackson.annotation.JsonProperty;
+
+                                                                                                                    @learn.jackson.codegen.JsonCodegen
+                                                                                                                    public class Point3 {
+
+                                                                                                                        @JsonCreator
+                                                                                                                        public Point3(@JsonProperty("x") int x) {
+                                                                                                                        }
+
+                                                                                                                        @JsonCreator
+                                                                                                                        public Point3(@JsonProperty("x") int x, @JsonProperty("y") int y) {
+                                                                                                                        }
+                                                                                                                    }
+                                                                                                                    """);
+        assertThat(errors).hasSize(1);
+        assertThat(errors.get(0).getLineNumber()).isEqualTo(12L);
+        assertThat(errors.get(0).getMessage(Locale.ROOT)).contains("only one @JsonCreator among constructors", "Point3(int)", "Point3(int,int)");
+    }
+
+    /**
+     * JsonCodegenProcessor만 실행(-proc:only)하고 오류를 돌려준다. 생성된 소스는 directory에 쓴다.
+     * 테스트 클래스 경로를 그대로 클래스 경로와 프로세서 경로로 쓴다
+     */
+    static List<Diagnostic<? extends JavaFileObject>> compile(Path directory, String className, String source) throws IOException {
+        Path file = directory.resolve(className + ".java");
+        Files.writeString(file, source);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            compiler.getTask(null, fileManager, diagnostics,
+                             List.of("-proc:only", "-processor", JsonCodegenProcessor.class.getName(),
+                                     "-classpath", System.getProperty("java.class.path"),
+                                     "-s", directory.toString()),
+                             null, fileManager.getJavaFileObjects(file)).call();
+        }
+        return diagnostics.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR).toList();
+    }
+
+    static User user() {
+        User user = new User();
+        user.setName("kim");
+        user.setAge(20);
+        user.setActive(true);
+        user.setTags(List.of("a", "b"));
+        user.setLocation(new Point2(1, 2));
+        user.setMemo("memo");
+        user.setPassword("secret");
+        return user;
+    }
+
+    static Garage garage() {
+        Garage garage = new Garage();
+        garage.setVehicle(new Car("12가3456"));
+        garage.setVehicles(Arrays.asList(new Aeroplane(30), null));
+        return garage;
+    }
+
+    @JsonCodegen
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @JsonIgnoreProperties(value = {"password"}, ignoreUnknown = true)
+    static class User {
+
+        @JsonProperty("user_name")
+        private String name;
+
+        private int age;
+
+        private boolean active;
+
+        private Long score;
+
+        private List<String> tags;
+
+        private Point2 location;
+
+        @JsonIgnore
+        private String memo;
+
+        private String password;
+    }
+
+    @JsonCodegen
+    @Getter
+    static class Point2 {
+
+        private final int x;
+
+        private final int y;
+
+        @JsonCreator
+        public Point2(@JsonProperty("x") int x, @JsonProperty("y") int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @JsonCreator
+        public static Point2 create(@JsonProperty("x") int x, @JsonProperty("y") int y) {
+            return new Point2(x, y);
+        }
+    }
+
+    @JsonCodegen
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME)
+    @JsonSubTypes({@JsonSubTypes.Type(value = Car.class, name = "car"), @JsonSubTypes.Type(Aeroplane.class)})
+    abstract static class Vehicle {
+
+    }
+
+    @JsonCodegen
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Car extends Vehicle {
+
+        private String licensePlate;
+    }
+
+    @JsonCodegen
+    @JsonTypeName("aeroplane")
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Aeroplane extends Vehicle {
+
+        private int wingSpan;
+    }
+
+    @JsonCodegen
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    static class Garage {
+
+        private Vehicle vehicle;
+
+        private List<Vehicle> vehicles;
+    }
+
+    /**
+     * 고칠 수 없는 외부 라이브러리의 클래스라고 가정한다
+     */
+    static class Money {
+
+        private final BigDecimal amount;
+
+        private final String currency;
+
+        Money(BigDecimal amount, String currency) {
+            this.amount = amount;
+            this.currency = currency;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+    }
+
+    @JsonCodegen.MixIn(Money.class)
+    abstract static class MoneyMixIn {
+
+        @JsonCreator
+        MoneyMixIn(@JsonProperty("amount") BigDecimal amount, @JsonProperty("currencyCode") String currency) {
+        }
+
+        @JsonProperty("currencyCode")
+        abstract String getCurrency();
+    }
+}
@@ -0,0 +1,547 @@
+package learn.jackson.databind.defaulttyping;
+
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+class ParallelTypeNameScannerTest {
+
+    @Test
+    void sameResultAsComponentScan() {
+        ParallelTypeNameScanner scanner = new ParallelTypeNameScanner(getClass().getClassLoader(), 4);
+
+        // DynamicTypeIdResolver, CustomTypeIdResolver가 Spring 컴포넌트 스캔으로 만드는 맵과 같다
+        for (List<String> packages : List.of(List.of("learn.jackson.databind.defaulttyping.polymorphism.intermediate"),
+                                             List.of("learn.jackson.databind.defaulttyping.programmatic"),
+                                             List.of("learn.jackson.databind.defaulttyping.polymorphism.intermediate",
+                                                     "learn.jackson.databind.defaulttyping.programmatic"))) {
+            Map<String, Class<?>> expected = componentScan(packages);
+            assertThat(expected).isNotEmpty();
+            assertThat(scanner.scan(packages)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void loadsOnlyMatchingClassesFromJar() throws IOException {
+        Path jar = Files.createTempFile("classes", ".jar");
+        writeJar(jar, 4, 500, 10);
+
+        try (CountingClassLoader classLoader = new CountingClassLoader(jar)) {
+            List<String> packages = List.of("generated.p0", "generated.p1", "generated.p2", "generated.p3");
+            Map<String, Class<?>> classById = new ParallelTypeNameScanner(classLoader, 4).scan(packages);
+
+            // 2,000개 중 10개마다 하나씩 @JsonTypeName이 달려 있다
+            assertThat(classById).hasSize(200);
+            Class<?> type = classById.get("type-p2-C130");
+            assertThat(type.getName()).isEqualTo("generated.p2.C130");
+            assertThat(type.getClassLoader()).isSameAs(classLoader);
+            assertThat(type.getDeclaredAnnotation(JsonTypeName.class).value()).isEqualTo("type-p2-C130");
+
+            // 애너테이션은 클래스 파일에서 읽으므로, 일치하는 클래스만 로드된다
+            assertThat(classLoader.loaded).isEqualTo(classById.values().stream().map(Class::getName).collect(toSet()));
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    void duplicateTypeId() throws IOException {
+        Path jar = Files.createTempFile("classes", ".jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            writeEntry(out, "generated/", null);
+            writeEntry(out, "generated/A.class", typeNameClass("generated.A", "same"));
+            writeEntry(out, "generated/B.class", typeNameClass("generated.B", "same"));
+        }
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, getClass().getClassLoader())) {
+            assertThatThrownBy(() -> new ParallelTypeNameScanner(classLoader, 2).scan(List.of("generated")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("'same'");
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    // CustomTypeIdResolver와 같은 방법으로 만든 식별자 -> 클래스 맵
+    private static Map<String, Class<?>> componentScan(List<String> basePackages) {
+        ClassPathScanningCandidateComponentProvider componentProvider = new ClassPathScanningCandidateComponentProvider(false);
+        componentProvider.addIncludeFilter(new AnnotationTypeFilter(JsonTypeName.class));
+
+        return basePackages.stream()
+                           .map(componentProvider::findCandidateComponents)
+                           .flatMap(Collection::stream)
+                           .map(BeanDefinition::getBeanClassName)
+                           .map(className -> {
+                               try {
+                                   return Class.forName(className);
+                               } catch (ClassNotFoundException e) {
+                                   throw new RuntimeException(e);
+                               }
+                           })
+                           .collect(toMap(type -> type.getDeclaredAnnotation(JsonTypeName.class).value(), type -> type));
+    }
+
+    /**
+     * packages개의 패키지(generated.p0, generated.p1, ...)에 클래스를 classesPerPackage개씩 만들고, annotatedEvery개마다 하나씩 @JsonTypeName을 단다
+     */
+    static void writeJar(Path jar, int packages, int classesPerPackage, int annotatedEvery) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            writeEntry(out, "generated/", null);
+            for (int p = 0; p < packages; p++) {
+                String directory = "generated/p" + p + "/";
+                writeEntry(out, directory, null);
+                for (int c = 0; c < classesPerPackage; c++) {
+                    String className = "generated.p" + p + ".C" + c;
+                    String typeName = (c % annotatedEvery == 0) ? "type-p" + p + "-C" + c : null;
+                    writeEntry(out, directory + "C" + c + ".class", typeNameClass(className, typeName));
+                }
+            }
+        }
+    }
+
+    private static void writeEntry(JarOutputStream out, String name, byte[] content) throws IOException {
+        out.putNextEntry(new JarEntry(name));
+        if (content != null) {
+            out.write(content);
+        }
+        out.closeEntry();
+    }
+
+    /**
+     * 메서드도 필드도 없는 최소한의 클래스 파일을 만든다. typeName이 null이 아니면 @JsonTypeName(typeName)을 단다
+     */
+    static byte[] typeNameClass(String className, String typeName) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+
+            // 1: this 이름, 2: this, 3: super 이름, 4: super, 5: 속성 이름, 6: 애너테이션 타입, 7: "value", 8: 타입 식별자
+            out.writeShort(typeName == null ? 5 : 9);
+            out.writeByte(1);
+            out.writeUTF(className.replace('.', '/'));
+            out.writeByte(7);
+            out.writeShort(1);
+            out.writeByte(1);
+            out.writeUTF("java/lang/Object");
+            out.writeByte(7);
+            out.writeShort(3);
+            if (typeName != null) {
+                out.writeByte(1);
+                out.writeUTF("RuntimeVisibleAnnotations");
+                out.writeByte(1);
+                out.writeUTF(ParallelTypeNameScanner.JSON_TYPE_NAME_DESCRIPTOR);
+                out.writeByte(1);
+                out.writeUTF("value");
+                out.writeByte(1);
+                out.writeUTF(typeName);
+            }
+
+            out.writeShort(0x0021); // ACC_PUBLIC | ACC_SUPER
+            out.writeShort(2);
+            out.writeShort(4);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(0); // methods
+            if (typeName == null) {
+                out.writeShort(0);
+            } else {
+                out.writeShort(1);
+                out.writeShort(5);
+                out.writeInt(2 + 2 + 2 + 2 + 1 + 2);
+                out.writeShort(1); // num_annotations
+                out.writeShort(6);
+                out.writeShort(1); // num_element_value_pairs
+                out.writeShort(7);
+                out.writeByte('s');
+                out.writeShort(8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static class CountingClassLoader extends URLClassLoader {
+
+        final Set<String> loaded = ConcurrentHashMap.newKeySet();
+
+        CountingClassLoader(Path jar) throws IOException {
+            super(new URL[]{jar.toUri().toURL()}, CountingClassLoader.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            loaded.add(name);
+            return super.findClass(name);
+        }
+    }
+
+    /**
+     * basePackages 아래의 @JsonTypeName 클래스를 병렬로 찾는 스캐너.
+     * <p>
+     * ClassPathScanningCandidateComponentProvider로 패키지를 하나씩 스캔하고 찾은 클래스마다 Class.forName()을 부르면 한 스레드에서 모든 I/O와 클래스 로딩이 일어난다.
+     * 이 스캐너는 디렉터리와 JAR의 .class 항목을 나눠 스레드 풀에서 읽고, 클래스 파일의 상수 풀과 RuntimeVisibleAnnotations 속성만 파싱해 애너테이션을 확인한다.
+     * Class.forName()은 일치한 클래스에만 부른다.
+     * <p>
+     * 컴포넌트 스캔과 같이 인터페이스, 추상 클래스, static이 아닌 내부 클래스는 제외하고, 직접 달린 애너테이션만 본다(메타 애너테이션은 보지 않는다).
+     * 프로젝트가 Java 17을 대상으로 하므로 가상 스레드 대신 프로세서 수만큼의 플랫폼 스레드를 쓴다. 작업은 대부분 파일 읽기와 파싱이라 차이가 크지 않다
+     */
+    static class ParallelTypeNameScanner {
+
+        static final String JSON_TYPE_NAME_DESCRIPTOR = "L" + JsonTypeName.class.getName().replace('.', '/') + ";";
+
+        private static final int BATCH_SIZE = 256;
+
+        private static final int ACC_STATIC = 0x0008;
+
+        private static final int ACC_INTERFACE = 0x0200;
+
+        private static final int ACC_ABSTRACT = 0x0400;
+
+        private final ClassLoader classLoader;
+
+        private final int parallelism;
+
+        public ParallelTypeNameScanner(ClassLoader classLoader, int parallelism) {
+            this.classLoader = classLoader;
+            this.parallelism = parallelism;
+        }
+
+        public ParallelTypeNameScanner(ClassLoader classLoader) {
+            this(classLoader, Runtime.getRuntime().availableProcessors());
+        }
+
+        /**
+         * 타입 식별자와 클래스의 맵을 돌려준다. 서로 다른 클래스가 같은 식별자를 쓰면 IllegalStateException을 던진다
+         */
+        public Map<String, Class<?>> scan(List<String> basePackages) {
+            Set<Path> directories = new LinkedHashSet<>();
+            Map<Path, Set<String>> jarPrefixes = new LinkedHashMap<>();
+            for (String basePackage : basePackages) {
+                String path = basePackage.replace('.', '/');
+                try {
+                    Enumeration<URL> roots = classLoader.getResources(path);
+                    while (roots.hasMoreElements()) {
+                        URL root = roots.nextElement();
+                        if (root.getProtocol().equals("jar")) {
+                            URLConnection connection = root.openConnection();
+                            Path jar = Paths.get(((JarURLConnection) connection).getJarFileURL().toURI());
+                            jarPrefixes.computeIfAbsent(jar, key -> new LinkedHashSet<>()).add(path + "/");
+                        } else {
+                            directories.add(Paths.get(root.toURI()));
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (URISyntaxException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            List<JarFile> jars = new ArrayList<>();
+            try {
+                List<Future<List<Match>>> futures = new ArrayList<>();
+                for (Path directory : directories) {
+                    List<Path> classFiles;
+                    try (Stream<Path> files = Files.walk(directory)) {
+                        classFiles = files.filter(file -> file.toString().endsWith(".class")).toList();
+                    }
+                    for (List<Path> batch : batches(classFiles)) {
+                        futures.add(executor.submit(() -> {
+                            List<Match> matches = new ArrayList<>();
+                            for (Path classFile : batch) {
+                                match(Files.readAllBytes(classFile), matches);
+                            }
+                            return load(matches);
+                        }));
+                    }
+                }
+                for (Map.Entry<Path, Set<String>> entry : jarPrefixes.entrySet()) {
+                    // ZipFile은 여러 스레드에서 동시에 읽어도 안전하다
+                    JarFile jar = new JarFile(entry.getKey().toFile());
+                    jars.add(jar);
+                    List<JarEntry> classEntries = jar.stream()
+                                                     .filter(jarEntry -> jarEntry.getName().endsWith(".class"))
+                                                     .filter(jarEntry -> entry.getValue().stream().anyMatch(jarEntry.getName()::startsWith))
+                                                     .toList();
+                    for (List<JarEntry> batch : batches(classEntries)) {
+                        futures.add(executor.submit(() -> {
+                            List<Match> matches = new ArrayList<>();
+                            for (JarEntry classEntry : batch) {
+                                try (InputStream in = jar.getInputStream(classEntry)) {
+                                    match(in.readAllBytes(), matches);
+                                }
+                            }
+                            return load(matches);
+                        }));
+                    }
+                }
+
+                Map<String, Class<?>> classById = new HashMap<>();
+                for (Future<List<Match>> future : futures) {
+                    for (Match match : future.get()) {
+                        Class<?> existing = classById.putIfAbsent(match.typeName(), match.type());
+                        if (existing != null && existing != match.type()) {
+                            throw new IllegalStateException("Duplicate type id '" + match.typeName() + "': "
+                                                            + existing.getName() + ", " + match.type().getName());
+                        }
+                    }
+                }
+                return Collections.unmodifiableMap(classById);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+                for (JarFile jar : jars) {
+                    try {
+                        jar.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+
+        private static <T> List<List<T>> batches(List<T> items) {
+            List<List<T>> batches = new ArrayList<>();
+            for (int from = 0; from < items.size(); from += BATCH_SIZE) {
+                batches.add(items.subList(from, Math.min(items.size(), from + BATCH_SIZE)));
+            }
+            return batches;
+        }
+
+        private List<Match> load(List<Match> matches) throws ClassNotFoundException {
+            List<Match> loaded = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                loaded.add(new Match(match.className(), match.typeName(), Class.forName(match.className(), false, classLoader)));
+            }
+            return loaded;
+        }
+
+        /**
+         * 클래스 파일이 독립적인 구체 클래스이고 @JsonTypeName이 직접 달려 있으면 matches에 추가한다
+         */
+        static void match(byte[] classFile, List<Match> matches) {
+            ClassFileReader reader = new ClassFileReader(classFile);
+            int accessFlags = reader.u2();
+            if ((accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) != 0) {
+                return;
+            }
+            int thisClass = reader.u2();
+            reader.skip(2); // super_class
+            reader.skip(2 * reader.u2()); // interfaces
+            reader.skipMembers(); // fields
+            reader.skipMembers(); // methods
+
+            String typeName = null;
+            boolean independent = true;
+            int attributes = reader.u2();
+            for (int i = 0; i < attributes; i++) {
+                String attributeName = reader.utf8(reader.u2());
+                int length = reader.u4();
+                int end = reader.position + length;
+                if (attributeName.equals("RuntimeVisibleAnnotations")) {
+                    typeName = reader.findTypeName();
+                } else if (attributeName.equals("InnerClasses")) {
+                    int classes = reader.u2();
+                    for (int c = 0; c < classes; c++) {
+                        int innerClass = reader.u2();
+                        int outerClass = reader.u2();
+                        reader.skip(2);
+                        int innerFlags = reader.u2();
+                        if (innerClass == thisClass && outerClass != 0 && (innerFlags & ACC_STATIC) == 0) {
+                            independent = false;
+                        }
+                    }
+                }
+                reader.position = end;
+            }
+
+            if (typeName != null && independent) {
+                String className = reader.utf8(reader.u2At(reader.constantOffsets[thisClass])).replace('/', '.');
+                matches.add(new Match(className, typeName, null));
+            }
+        }
+
+        record Match(String className, String typeName, Class<?> type) {
+
+        }
+
+        /**
+         * 클래스 파일에서 필요한 부분만 읽는 리더. 상수 풀은 항목의 오프셋만 기록하고, UTF-8 상수는 필요할 때만 디코딩한다
+         */
+        static class ClassFileReader {
+
+            private final byte[] bytes;
+
+            private final int[] constantOffsets;
+
+            private int position;
+
+            ClassFileReader(byte[] bytes) {
+                this.bytes = bytes;
+                if (u4At(0) != 0xCAFEBABE) {
+                    throw new IllegalArgumentException("Not a class file");
+                }
+                position = 8;
+                int constantCount = u2();
+                constantOffsets = new int[constantCount];
+                for (int index = 1; index < constantCount; index++) {
+                    constantOffsets[index] = position + 1;
+                    int tag = bytes[position++];
+                    switch (tag) {
+                        case 1 -> position += 2 + u2At(position); // Utf8
+                        case 7, 8, 16, 19, 20 -> position += 2; // Class, String, MethodType, Module, Package
+                        case 15 -> position += 3; // MethodHandle
+                        case 3, 4, 9, 10, 11, 12, 17, 18 -> position += 4;
+                        case 5, 6 -> { // Long, Double는 두 칸을 차지한다
+                            position += 8;
+                            index++;
+                        }
+                        default -> throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                    }
+                }
+            }
+
+            String findTypeName() {
+                int annotations = u2();
+                String typeName = null;
+                for (int i = 0; i < annotations; i++) {
+                    String descriptor = utf8(u2());
+                    int pairs = u2();
+                    boolean jsonTypeName = descriptor.equals(JSON_TYPE_NAME_DESCRIPTOR);
+                    if (jsonTypeName) {
+                        // value를 생략하면 기본값 ""이다
+                        typeName = "";
+                    }
+                    for (int p = 0; p < pairs; p++) {
+                        String elementName = utf8(u2());
+                        if (jsonTypeName && elementName.equals("value") && bytes[position] == 's') {
+                            position++;
+                            typeName = utf8(u2());
+                        } else {
+                            skipElementValue();
+                        }
+                    }
+                }
+                return typeName;
+            }
+
+            private void skipElementValue() {
+                int tag = bytes[position++];
+                switch (tag) {
+                    case 'e' -> position += 4;
+                    case '@' -> {
+                        position += 2;
+                        int pairs = u2();
+                        for (int p = 0; p < pairs; p++) {
+                            position += 2;
+                            skipElementValue();
+                        }
+                    }
+                    case '[' -> {
+                        int values = u2();
+                        for (int v = 0; v < values; v++) {
+                            skipElementValue();
+                        }
+                    }
+                    default -> position += 2;
+                }
+            }
+
+            void skipMembers() {
+                int members = u2();
+                for (int i = 0; i < members; i++) {
+                    position += 6;
+                    int attributes = u2();
+                    for (int a = 0; a < attributes; a++) {
+                        position += 2;
+                        int length = u4();
+                        position += length;
+                    }
+                }
+            }
+
+            String utf8(int index) {
+                int offset = constantOffsets[index];
+                int length = u2At(offset);
+                // 상수 풀은 수정된 UTF-8이지만, 식별자와 클래스 이름에 쓰이는 문자는 표준 UTF-8과 같다
+                return new String(bytes, offset + 2, length, StandardCharsets.UTF_8);
+            }
+
+            void skip(int count) {
+                position += count;
+            }
+
+            int u2() {
+                int value = u2At(position);
+                position += 2;
+                return value;
+            }
+
+            int u4() {
+                int value = u4At(position);
+                position += 4;
+                return value;
+            }
+
+            int u2At(int offset) {
+                return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+            }
+
+            private int u4At(int offset) {
+                return (u2At(offset) << 16) | u2At(offset + 2);
+            }
+        }
+    }
+}
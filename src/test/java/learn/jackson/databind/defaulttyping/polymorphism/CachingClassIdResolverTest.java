@@ -0,0 +1,346 @@
+package learn.jackson.databind.defaulttyping.polymorphism;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CachingClassIdResolverTest {
+
+    static final Duration NEGATIVE_TTL = Duration.ofMinutes(1);
+
+    ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Test
+    @DisplayName("같은 기반 타입에 대한 타입 식별자는 프로퍼티가 달라도 한 번만 클래스로 해석한다")
+    void positiveCache() throws JsonProcessingException {
+        CachingClassIdTypeResolverBuilder typer =
+            new CachingClassIdTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator(), 100, 100, NEGATIVE_TTL);
+        mapper.setDefaultTyping(typer);
+
+        String json = mapper.writeValueAsString(new Car("X12345"));
+        assertThat(json).isEqualTo("""
+                                       {
+                                         "@class" : "learn.jackson.databind.defaulttyping.polymorphism.CachingClassIdResolverTest$Car",
+                                         "licensePlate" : "X12345"
+                                       }""");
+
+        Vehicle vehicle = mapper.readValue(json, Vehicle.class);
+        assertThat(((Car) vehicle).getLicensePlate()).isEqualTo("X12345");
+        assertThat(typer.stats().misses()).isEqualTo(1);
+
+        // 루트 값과 Garage.vehicle 프로퍼티는 서로 다른 TypeDeserializer를 쓰지만 기반 타입(Vehicle)이 같아 캐시를 공유한다
+        Garage garage = mapper.readValue(mapper.writeValueAsString(new Garage(new Car("Y67890"))), Garage.class);
+        assertThat(((Car) garage.getVehicle()).getLicensePlate()).isEqualTo("Y67890");
+        assertThat(typer.stats().misses()).isEqualTo(2); // Garage 자체
+        assertThat(typer.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("존재하지 않는 클래스(이름이 바뀐 클래스)에 대한 타입 식별자는 실패 결과를 캐시한다")
+    void negativeCache() {
+        CachingClassIdTypeResolverBuilder typer =
+            new CachingClassIdTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator(), 100, 100, NEGATIVE_TTL);
+        mapper.setDefaultTyping(typer);
+
+        String json = """
+            {
+              "@class" : "learn.jackson.databind.defaulttyping.polymorphism.CachingClassIdResolverTest$RenamedCar",
+              "licensePlate" : "X12345"
+            }""";
+
+        assertThatThrownBy(() -> mapper.readValue(json, Vehicle.class)).isInstanceOf(InvalidTypeIdException.class);
+        assertThatThrownBy(() -> mapper.readValue(json, Vehicle.class)).isInstanceOf(InvalidTypeIdException.class);
+        // 실패한 타입 식별자는 TypeDeserializer가 캐시하지 않아 매번 클래스 로더를 뒤지고 ClassNotFoundException을 만든다
+        // 두 번째부터는 네거티브 캐시에서 바로 실패를 돌려준다 (예외 메시지는 기존과 같음)
+        assertThat(typer.stats().misses()).isEqualTo(1);
+        assertThat(typer.stats().negativeHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("엉터리 타입 식별자가 대량으로 들어와도 캐시 크기는 상한을 넘지 않는다")
+    void bounded() throws JsonProcessingException {
+        CachingClassIdTypeResolverBuilder typer =
+            new CachingClassIdTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator(), 100, 16, NEGATIVE_TTL);
+        mapper.setDefaultTyping(typer);
+
+        Vehicle vehicle = mapper.readValue(mapper.writeValueAsString(new Car("X12345")), Vehicle.class);
+        assertThat(vehicle).isInstanceOf(Car.class);
+
+        for (int i = 0; i < 200; i++) {
+            String json = "{\"@class\" : \"bogus.Vehicle" + i + "\"}";
+            assertThatThrownBy(() -> mapper.readValue(json, Vehicle.class)).isInstanceOf(InvalidTypeIdException.class);
+        }
+
+        CacheStats stats = typer.stats();
+        assertThat(stats.negativeSize()).isLessThanOrEqualTo(2 * 16);
+        assertThat(stats.negativeEvictions()).isPositive();
+        // 네거티브 캐시는 따로 관리되기 때문에 정상 타입 식별자는 밀려나지 않는다
+        assertThat(stats.size()).isEqualTo(1);
+        assertThat(stats.evictions()).isZero();
+    }
+
+    @Test
+    @DisplayName("실패 결과는 유효 기간이 지나면 다시 클래스를 찾는다 (나중에 클래스가 추가되는 경우)")
+    void negativeCacheExpires() {
+        AtomicLong nanoTime = new AtomicLong();
+        CachingClassIdTypeResolverBuilder typer =
+            new CachingClassIdTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator(), 100, 100, NEGATIVE_TTL,
+                                                  nanoTime::get);
+        mapper.setDefaultTyping(typer);
+
+        String json = "{\"@class\" : \"bogus.Vehicle\"}";
+        assertThatThrownBy(() -> mapper.readValue(json, Vehicle.class)).isInstanceOf(InvalidTypeIdException.class);
+        nanoTime.addAndGet(NEGATIVE_TTL.toNanos() - 1);
+        assertThatThrownBy(() -> mapper.readValue(json, Vehicle.class)).isInstanceOf(InvalidTypeIdException.class);
+        assertThat(typer.stats().negativeHits()).isEqualTo(1);
+
+        nanoTime.addAndGet(1);
+        assertThatThrownBy(() -> mapper.readValue(json, Vehicle.class)).isInstanceOf(InvalidTypeIdException.class);
+        assertThat(typer.stats().negativeHits()).isEqualTo(1);
+        assertThat(typer.stats().misses()).isEqualTo(2);
+        assertThat(typer.stats().negativeSize()).isEqualTo(1);
+    }
+
+    /**
+     * Id.CLASS 타입 식별자를 해석하는 ClassNameIdResolver 대신 CachingClassNameIdResolver를 사용하는 TypeResolverBuilder
+     */
+    static class CachingClassIdTypeResolverBuilder extends DefaultTypeResolverBuilder {
+
+        private final int maximumSize;
+
+        private final int maximumNegativeSize;
+
+        private final long negativeTtlNanos;
+
+        private final LongSupplier nanoTime;
+
+        // 기반 타입마다 캐시를 하나씩 두고, 그 기반 타입에 대해 만들어지는 모든 리졸버가 공유한다
+        private final ConcurrentHashMap<JavaType, GenerationalCache<JavaType>> cacheByBaseType = new ConcurrentHashMap<>();
+
+        // 값은 실패 결과가 만료되는 시각(System.nanoTime() 기준)
+        private final ConcurrentHashMap<JavaType, GenerationalCache<Long>> negativeCacheByBaseType = new ConcurrentHashMap<>();
+
+        private final Counters counters = new Counters();
+
+        public CachingClassIdTypeResolverBuilder(DefaultTyping typing, PolymorphicTypeValidator ptv, int maximumSize, int maximumNegativeSize,
+                                                 Duration negativeTtl) {
+            this(typing, ptv, maximumSize, maximumNegativeSize, negativeTtl, System::nanoTime);
+        }
+
+        CachingClassIdTypeResolverBuilder(DefaultTyping typing, PolymorphicTypeValidator ptv, int maximumSize, int maximumNegativeSize,
+                                          Duration negativeTtl, LongSupplier nanoTime) {
+            super(typing, ptv);
+            this.maximumSize = maximumSize;
+            this.maximumNegativeSize = maximumNegativeSize;
+            this.negativeTtlNanos = negativeTtl.toNanos();
+            this.nanoTime = nanoTime;
+            init(Id.CLASS, null);
+            inclusion(As.PROPERTY);
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType, PolymorphicTypeValidator subtypeValidator,
+                                            Collection<NamedType> subtypes, boolean forSer, boolean forDeser) {
+            if (_idType != Id.CLASS || _customIdResolver != null) {
+                return super.idResolver(config, baseType, subtypeValidator, subtypes, forSer, forDeser);
+            }
+            return new CachingClassNameIdResolver(baseType, config, subtypeValidator,
+                                                  cacheByBaseType.computeIfAbsent(baseType, key -> new GenerationalCache<>(maximumSize, counters.evictions)),
+                                                  negativeCacheByBaseType.computeIfAbsent(baseType, key -> new GenerationalCache<>(maximumNegativeSize, counters.negativeEvictions)),
+                                                  negativeTtlNanos, nanoTime, counters);
+        }
+
+        public CacheStats stats() {
+            return new CacheStats(counters.hits.sum(), counters.negativeHits.sum(), counters.misses.sum(), counters.evictions.sum(),
+                                  counters.negativeEvictions.sum(),
+                                  cacheByBaseType.values().stream().mapToInt(GenerationalCache::size).sum(),
+                                  negativeCacheByBaseType.values().stream().mapToInt(GenerationalCache::size).sum());
+        }
+    }
+
+    static class CachingClassNameIdResolver extends ClassNameIdResolver {
+
+        private final GenerationalCache<JavaType> cache;
+
+        private final GenerationalCache<Long> negativeCache;
+
+        private final long negativeTtlNanos;
+
+        private final LongSupplier nanoTime;
+
+        private final Counters counters;
+
+        CachingClassNameIdResolver(JavaType baseType, MapperConfig<?> config, PolymorphicTypeValidator ptv,
+                                   GenerationalCache<JavaType> cache, GenerationalCache<Long> negativeCache,
+                                   long negativeTtlNanos, LongSupplier nanoTime, Counters counters) {
+            super(baseType, config.getTypeFactory(), ptv);
+            this.cache = cache;
+            this.negativeCache = negativeCache;
+            this.negativeTtlNanos = negativeTtlNanos;
+            this.nanoTime = nanoTime;
+            this.counters = counters;
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+            JavaType type = cache.get(id);
+            if (type != null) {
+                counters.hits.increment();
+                return type;
+            }
+            Long expiresAt = negativeCache.get(id);
+            if (expiresAt != null) {
+                if (nanoTime.getAsLong() - expiresAt < 0) {
+                    counters.negativeHits.increment();
+                    return handleUnknownTypeId(context, id);
+                }
+                // 만료된 실패 결과는 버리고 다시 찾는다. 그 사이 클래스가 추가되었을 수 있다
+                negativeCache.remove(id);
+            }
+
+            counters.misses.increment();
+            // PolymorphicTypeValidator 검증은 여기서 한 번만 수행되고, 검증에 실패하면 예외가 발생하므로 캐시되지 않는다
+            type = context.resolveAndValidateSubType(_baseType, id, _subTypeValidator);
+            if (type == null) {
+                negativeCache.put(id, nanoTime.getAsLong() + negativeTtlNanos);
+                return handleUnknownTypeId(context, id);
+            }
+            cache.put(id, type);
+            return type;
+        }
+
+        // ClassNameIdResolver._typeFromId()와 같은 방식으로 실패를 알린다
+        private JavaType handleUnknownTypeId(DatabindContext context, String id) throws IOException {
+            if (context instanceof DeserializationContext) {
+                return ((DeserializationContext) context).handleUnknownTypeId(_baseType, id, this, "no such class found");
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 두 세대로 나눈 캐시. 새 항목은 young 세대에 들어가고, young이 상한에 닿으면 old 세대를 통째로 버리고 young을 old로 넘긴다.
+     * 읽기는 잠금이 없고, 퇴출은 항목 수와 상관없이 O(1)이며, 전체 크기는 상한의 두 배를 넘지 않는다.
+     * old 세대에서 찾은 항목은 young으로 옮겨 자주 쓰이는 항목이 살아남게 한다
+     */
+    static class GenerationalCache<V> {
+
+        private final int maximumSize;
+
+        private final LongAdder evictions;
+
+        private volatile ConcurrentHashMap<String, V> young = new ConcurrentHashMap<>();
+
+        private volatile ConcurrentHashMap<String, V> old = new ConcurrentHashMap<>();
+
+        GenerationalCache(int maximumSize, LongAdder evictions) {
+            this.maximumSize = maximumSize;
+            this.evictions = evictions;
+        }
+
+        V get(String key) {
+            V value = young.get(key);
+            if (value == null && (value = old.remove(key)) != null) {
+                put(key, value);
+            }
+            return value;
+        }
+
+        void put(String key, V value) {
+            ConcurrentHashMap<String, V> current = young;
+            current.put(key, value);
+            if (current.size() >= maximumSize) {
+                rotate(current);
+            }
+        }
+
+        private synchronized void rotate(ConcurrentHashMap<String, V> full) {
+            if (young != full) {
+                return; // 다른 스레드가 이미 세대를 넘겼음
+            }
+            evictions.add(old.size());
+            old = full;
+            young = new ConcurrentHashMap<>();
+        }
+
+        void remove(String key) {
+            young.remove(key);
+            old.remove(key);
+        }
+
+        int size() {
+            return young.size() + old.size();
+        }
+    }
+
+    static class Counters {
+
+        final LongAdder hits = new LongAdder();
+
+        final LongAdder negativeHits = new LongAdder();
+
+        final LongAdder misses = new LongAdder();
+
+        final LongAdder evictions = new LongAdder();
+
+        final LongAdder negativeEvictions = new LongAdder();
+    }
+
+    record CacheStats(long hits, long negativeHits, long misses, long evictions, long negativeEvictions, int size, int negativeSize) {
+
+    }
+
+    static abstract class Vehicle {
+
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Car extends Vehicle {
+
+        private String licensePlate;
+
+        public Car(String licensePlate) {
+            this.licensePlate = licensePlate;
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Garage {
+
+        private Vehicle vehicle;
+
+        public Garage(Vehicle vehicle) {
+            this.vehicle = vehicle;
+        }
+    }
+}
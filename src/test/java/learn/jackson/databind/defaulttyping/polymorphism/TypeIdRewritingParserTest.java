@@ -0,0 +1,572 @@
+package learn.jackson.databind.defaulttyping.polymorphism;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.io.NumberInput;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TypeIdRewritingParserTest {
+
+    static final String LEGACY_PACKAGE = "learn.jackson.legacy.model.";
+
+    static final String CURRENT_PREFIX = TypeIdRewritingParserTest.class.getName() + "$";
+
+    static final String LEGACY_JSON = """
+                                      {
+                                        "@class" : "learn.jackson.legacy.model.Garage",
+                                        "cars" : [ "java.util.ImmutableCollections$List12", [ {
+                                          "@class" : "learn.jackson.legacy.model.Car",
+                                          "plate" : "X12345"
+                                        }, {
+                                          "@class" : "learn.jackson.legacy.model.Plane",
+                                          "wingSpan" : "13m"
+                                        } ] ]
+                                      }""";
+
+    @Test
+    @DisplayName("이전 클래스명, JDK 내부 컬렉션 클래스명으로 저장된 데이터는 현재 모델로 읽을 수 없다")
+    void legacyPayloadFails() {
+        ObjectMapper mapper = typedMapper(new ObjectMapper());
+
+        // LogicalTypeIdTest.t1과 같은 문제: Id.CLASS 타입 식별자는 클래스를 옮기거나 이름을 바꾸면 깨진다
+        assertThatThrownBy(() -> mapper.readValue(LEGACY_JSON, Garage.class)).isInstanceOf(InvalidTypeIdException.class);
+    }
+
+    @Test
+    @DisplayName("토큰을 흘려보내면서 타입 식별자, 프로퍼티명, 값을 바꾸면 중간 트리 없이 한 번에 현재 모델로 읽는다")
+    void rewriteWhileStreaming() throws JsonProcessingException {
+        ObjectMapper mapper = typedMapper(new ObjectMapper(new RewritingJsonFactory(legacyRewrites())));
+
+        Garage garage = mapper.readValue(LEGACY_JSON, Garage.class);
+        assertThat(((Car) garage.getVehicles().get(0)).getLicensePlate()).isEqualTo("X12345");
+        assertThat(((Aeroplane) garage.getVehicles().get(1)).getWingSpan()).isEqualTo(13);
+        // ImmutableCollections$List12는 검증기가 허용하는 ArrayList로 바뀌었다
+        assertThat(garage.getVehicles()).isInstanceOf(ArrayList.class);
+    }
+
+    @Test
+    @DisplayName("타입 식별자가 다른 프로퍼티 뒤에 있어 토큰을 버퍼링했다가 다시 읽는 경우에도 바뀐 토큰이 쓰인다")
+    void rewriteTypeIdAfterProperties() throws JsonProcessingException {
+        ObjectMapper mapper = typedMapper(new ObjectMapper(new RewritingJsonFactory(legacyRewrites())));
+
+        // AsPropertyTypeDeserializer는 타입 식별자 앞의 토큰을 TokenBuffer에 복사하는데, 복사도 재작성 파서의 접근자를 거친다
+        Vehicle vehicle = mapper.readValue("""
+                                               {
+                                                 "wingSpan" : "13m",
+                                                 "@class" : "learn.jackson.legacy.model.Plane"
+                                               }""", Vehicle.class);
+        assertThat(((Aeroplane) vehicle).getWingSpan()).isEqualTo(13);
+    }
+
+    @Test
+    @DisplayName("트리를 만들어 고친 뒤 다시 바인딩하는 기존 마이그레이션과 결과가 같다")
+    void sameAsTreeMigration() throws IOException {
+        ObjectMapper streaming = typedMapper(new ObjectMapper(new RewritingJsonFactory(legacyRewrites())));
+        ObjectMapper plain = typedMapper(new ObjectMapper());
+
+        Garage rewritten = streaming.readValue(legacyGarageJson(100), Garage.class);
+        Garage migrated = TreeMigration.readValue(plain, legacyGarageJson(100), Garage.class, legacyRewrites());
+        assertThat(rewritten.getVehicles()).hasSize(100);
+        assertThat(rewritten).usingRecursiveComparison().isEqualTo(migrated);
+    }
+
+    @Test
+    @DisplayName("현재 형식의 데이터는 재작성 파서를 거쳐도 그대로 읽힌다")
+    void currentPayloadUnchanged() throws JsonProcessingException {
+        ObjectMapper streaming = typedMapper(new ObjectMapper(new RewritingJsonFactory(legacyRewrites())));
+        ObjectMapper plain = typedMapper(new ObjectMapper());
+
+        String json = plain.writeValueAsString(new Garage(new ArrayList<>(List.of(new Car("X12345"), new Aeroplane(13)))));
+        assertThat(streaming.readValue(json, Garage.class)).usingRecursiveComparison().isEqualTo(plain.readValue(json, Garage.class));
+    }
+
+    @Test
+    @DisplayName("매퍼를 복사해도 재작성 팩토리와 그 설정이 유지된다")
+    void copyKeepsFactoryFeatures() throws JsonProcessingException {
+        RewritingJsonFactory factory = new RewritingJsonFactory(legacyRewrites());
+        factory.enable(JsonParser.Feature.ALLOW_COMMENTS);
+        ObjectMapper copy = typedMapper(new ObjectMapper(factory)).copy();
+
+        assertThat(copy.getFactory()).isInstanceOf(RewritingJsonFactory.class).isNotSameAs(factory);
+        assertThat(copy.getFactory().isEnabled(JsonParser.Feature.ALLOW_COMMENTS)).isTrue();
+        Garage garage = copy.readValue("/* 이전 버전에서 내보낸 데이터 */\n" + LEGACY_JSON, Garage.class);
+        assertThat(((Car) garage.getVehicles().get(0)).getLicensePlate()).isEqualTo("X12345");
+    }
+
+    @Test
+    @DisplayName("getValueAsInt() 등 값을 변환하는 접근자도 바뀐 문자열 값을 변환한다")
+    void coercedValueAccessors() throws IOException {
+        RewritingJsonFactory factory = new RewritingJsonFactory(legacyRewrites());
+
+        try (JsonParser parser = factory.createParser("{\"wingSpan\":\"13m\",\"plate\":\"X12345\"}")) {
+            assertThat(parser.nextToken()).isEqualTo(JsonToken.START_OBJECT);
+            assertThat(parser.nextFieldName()).isEqualTo("wingSpan");
+            assertThat(parser.nextToken()).isEqualTo(JsonToken.VALUE_STRING);
+            // 원본 "13m"을 변환했다면 기본값이 나온다
+            assertThat(parser.getValueAsInt(-1)).isEqualTo(13);
+            assertThat(parser.getValueAsLong()).isEqualTo(13L);
+            assertThat(parser.getValueAsDouble()).isEqualTo(13.0);
+
+            // 규칙이 없는 값은 원본 파서가 변환한다
+            assertThat(parser.nextFieldName()).isEqualTo("licensePlate");
+            assertThat(parser.nextToken()).isEqualTo(JsonToken.VALUE_STRING);
+            assertThat(parser.getValueAsInt(-1)).isEqualTo(-1);
+        }
+    }
+
+    /**
+     * 현재 모델과 ArrayList만 허용하는 검증기로 Id.CLASS 기본 타이핑을 켠다
+     */
+    static ObjectMapper typedMapper(ObjectMapper mapper) {
+        PolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder()
+                                                                          .allowIfSubType(CURRENT_PREFIX)
+                                                                          .allowIfSubType(ArrayList.class)
+                                                                          .build();
+        TypeResolverBuilder<StdTypeResolverBuilder> typer = new DefaultTypeResolverBuilder(DefaultTyping.NON_FINAL, validator);
+        typer = typer.init(Id.CLASS, null);
+        typer = typer.inclusion(As.PROPERTY);
+        mapper.setDefaultTyping(typer);
+        return mapper.addMixIn(List.class, ListMixIn.class);
+    }
+
+    /**
+     * 이전 버전 모델(learn.jackson.legacy.model)로 저장된 데이터를 현재 모델로 옮기는 규칙
+     */
+    static Rewrites legacyRewrites() {
+        return new Rewrites()
+            .typeProperty("@class")
+            .typeId(LEGACY_PACKAGE + "Garage", CURRENT_PREFIX + "Garage")
+            .typeId(LEGACY_PACKAGE + "Car", CURRENT_PREFIX + "Car")
+            .typeId(LEGACY_PACKAGE + "Plane", CURRENT_PREFIX + "Aeroplane")
+            // JDK 내부 클래스명은 JDK마다 다르고 검증기에서 허용하기도 어렵다
+            .typeId("java.util.ImmutableCollections$List12", ArrayList.class.getName())
+            .typeId("java.util.ImmutableCollections$ListN", ArrayList.class.getName())
+            .property("cars", "vehicles")
+            .property("plate", "licensePlate")
+            // 이전 버전은 날개 길이를 "13m" 같은 문자열로 저장했다. 숫자 문자열은 잭슨이 int로 강제 변환한다
+            .coerce("wingSpan", value -> value.endsWith("m") ? value.substring(0, value.length() - 1) : value);
+    }
+
+    /**
+     * Car와 Plane이 번갈아 있는 차량 count개짜리 이전 버전 Garage JSON
+     */
+    static String legacyGarageJson(int count) {
+        StringBuilder json = new StringBuilder("{\"@class\":\"" + LEGACY_PACKAGE + "Garage\",\"cars\":[\"java.util.ImmutableCollections$ListN\",[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (i % 2 == 0) {
+                json.append("{\"@class\":\"" + LEGACY_PACKAGE + "Car\",\"plate\":\"X").append(10000 + i).append("\"}");
+            } else {
+                json.append("{\"@class\":\"" + LEGACY_PACKAGE + "Plane\",\"wingSpan\":\"").append(i % 50).append("m\"}");
+            }
+        }
+        return json.append("]]}").toString();
+    }
+
+    /**
+     * 재작성 규칙. 타입 식별자는 타입 프로퍼티의 값과 배열의 첫 번째 문자열(WRAPPER_ARRAY 방식의 타입 식별자)에서만 바꾸고,
+     * 값 변환은 현재 모델의 프로퍼티명(이름을 바꾼 뒤)을 기준으로 문자열 값에 적용한다. 규칙이 없는 토큰은 그대로 둔다
+     */
+    static class Rewrites {
+
+        private final Set<String> typeProperties = new HashSet<>();
+
+        private final Map<String, String> typeIds = new HashMap<>();
+
+        private final Map<String, String> propertyNames = new HashMap<>();
+
+        private final Map<String, UnaryOperator<String>> coercions = new HashMap<>();
+
+        Rewrites typeProperty(String name) {
+            typeProperties.add(name);
+            return this;
+        }
+
+        Rewrites typeId(String legacyId, String id) {
+            typeIds.put(legacyId, id);
+            return this;
+        }
+
+        Rewrites property(String legacyName, String name) {
+            propertyNames.put(legacyName, name);
+            return this;
+        }
+
+        Rewrites coerce(String name, UnaryOperator<String> coercion) {
+            coercions.put(name, coercion);
+            return this;
+        }
+
+        String propertyName(String name) {
+            return propertyNames.getOrDefault(name, name);
+        }
+
+        /**
+         * 프로퍼티 name(현재 모델 기준)의 문자열 값을 바꾼다. 바꿀 규칙이 없으면 null
+         */
+        String propertyValue(String name, String value) {
+            if (typeProperties.contains(name)) {
+                return typeIds.get(value);
+            }
+            UnaryOperator<String> coercion = coercions.get(name);
+            return (coercion == null) ? null : coercion.apply(value);
+        }
+
+        /**
+         * 배열의 첫 번째 문자열이 타입 식별자라면 바꾼다. 바꿀 규칙이 없으면 null
+         */
+        String wrapperTypeId(String value) {
+            return typeIds.get(value);
+        }
+    }
+
+    /**
+     * 토큰을 읽으면서 Rewrites를 적용하는 파서. 토큰의 종류와 순서는 바꾸지 않고 프로퍼티명과 문자열 값만 바꾼다.
+     * JsonParser의 nextFieldName(), nextTextValue() 등은 nextToken()과 currentName(), getText()를 거치므로 따로 재정의하지 않는다
+     */
+    static class RewritingParser extends JsonParserDelegate {
+
+        private final Rewrites rewrites;
+
+        // 현재 토큰(FIELD_NAME, VALUE_STRING)의 바뀐 텍스트. 바꾸지 않았으면 null
+        private String text;
+
+        RewritingParser(JsonParser parser, Rewrites rewrites) {
+            super(parser);
+            this.rewrites = rewrites;
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            text = null;
+            JsonToken token = delegate.nextToken();
+            if (token == JsonToken.FIELD_NAME) {
+                String name = delegate.currentName();
+                String renamed = rewrites.propertyName(name);
+                if (!renamed.equals(name)) {
+                    text = renamed;
+                }
+            } else if (token == JsonToken.VALUE_STRING) {
+                text = rewriteValue();
+            }
+            return token;
+        }
+
+        // JsonParserDelegate.nextValue()는 원본 파서로 바로 넘어가므로 nextToken()을 거치게 한다
+        @Override
+        public JsonToken nextValue() throws IOException {
+            JsonToken token = nextToken();
+            return (token == JsonToken.FIELD_NAME) ? nextToken() : token;
+        }
+
+        private String rewriteValue() throws IOException {
+            JsonStreamContext context = delegate.getParsingContext();
+            if (context.inArray()) {
+                return (context.getCurrentIndex() == 0) ? rewrites.wrapperTypeId(delegate.getText()) : null;
+            }
+            String name = context.getCurrentName();
+            return (name == null) ? null : rewrites.propertyValue(rewrites.propertyName(name), delegate.getText());
+        }
+
+        @Override
+        public void clearCurrentToken() {
+            text = null;
+            super.clearCurrentToken();
+        }
+
+        @Override
+        public String currentName() throws IOException {
+            String name = delegate.currentName();
+            return (name == null) ? null : rewrites.propertyName(name);
+        }
+
+        @Override
+        public String getCurrentName() throws IOException {
+            return currentName();
+        }
+
+        @Override
+        public String getText() throws IOException {
+            return (text != null) ? text : delegate.getText();
+        }
+
+        @Override
+        public int getText(Writer writer) throws IOException {
+            if (text == null) {
+                return delegate.getText(writer);
+            }
+            writer.write(text);
+            return text.length();
+        }
+
+        @Override
+        public boolean hasTextCharacters() {
+            return (text == null) && delegate.hasTextCharacters();
+        }
+
+        @Override
+        public char[] getTextCharacters() throws IOException {
+            return (text != null) ? text.toCharArray() : delegate.getTextCharacters();
+        }
+
+        @Override
+        public int getTextLength() throws IOException {
+            return (text != null) ? text.length() : delegate.getTextLength();
+        }
+
+        @Override
+        public int getTextOffset() throws IOException {
+            return (text != null) ? 0 : delegate.getTextOffset();
+        }
+
+        @Override
+        public String getValueAsString() throws IOException {
+            return (text != null) ? text : delegate.getValueAsString();
+        }
+
+        @Override
+        public String getValueAsString(String defaultValue) throws IOException {
+            return (text != null) ? text : delegate.getValueAsString(defaultValue);
+        }
+
+        // 원본 파서의 getValueAsInt() 등은 원본 텍스트를 변환하므로, 바뀐 문자열 값은 ParserMinimalBase와 같은 규칙으로 여기서 변환한다
+
+        @Override
+        public int getValueAsInt() throws IOException {
+            return (rewrittenValue() != null) ? getValueAsInt(0) : delegate.getValueAsInt();
+        }
+
+        @Override
+        public int getValueAsInt(int defaultValue) throws IOException {
+            String value = rewrittenValue();
+            if (value == null) {
+                return delegate.getValueAsInt(defaultValue);
+            }
+            return value.equals("null") ? 0 : NumberInput.parseAsInt(value, defaultValue);
+        }
+
+        @Override
+        public long getValueAsLong() throws IOException {
+            return (rewrittenValue() != null) ? getValueAsLong(0L) : delegate.getValueAsLong();
+        }
+
+        @Override
+        public long getValueAsLong(long defaultValue) throws IOException {
+            String value = rewrittenValue();
+            if (value == null) {
+                return delegate.getValueAsLong(defaultValue);
+            }
+            return value.equals("null") ? 0L : NumberInput.parseAsLong(value, defaultValue);
+        }
+
+        @Override
+        public double getValueAsDouble() throws IOException {
+            return (rewrittenValue() != null) ? getValueAsDouble(0.0) : delegate.getValueAsDouble();
+        }
+
+        @Override
+        public double getValueAsDouble(double defaultValue) throws IOException {
+            String value = rewrittenValue();
+            if (value == null) {
+                return delegate.getValueAsDouble(defaultValue);
+            }
+            if (value.equals("null")) {
+                return 0.0;
+            }
+            streamReadConstraints().validateFPLength(value.length());
+            return NumberInput.parseAsDouble(value, defaultValue);
+        }
+
+        @Override
+        public boolean getValueAsBoolean() throws IOException {
+            return (rewrittenValue() != null) ? getValueAsBoolean(false) : delegate.getValueAsBoolean();
+        }
+
+        @Override
+        public boolean getValueAsBoolean(boolean defaultValue) throws IOException {
+            String value = rewrittenValue();
+            if (value == null) {
+                return delegate.getValueAsBoolean(defaultValue);
+            }
+            return switch (value.trim()) {
+                case "true" -> true;
+                case "false", "null" -> false;
+                default -> defaultValue;
+            };
+        }
+
+        // 바뀐 프로퍼티명(FIELD_NAME)은 값이 아니므로 원본 파서에 맡긴다
+        private String rewrittenValue() {
+            return (text != null && delegate.currentToken() == JsonToken.VALUE_STRING) ? text : null;
+        }
+    }
+
+    /**
+     * 만드는 모든 파서를 RewritingParser로 감싸는 팩토리. ObjectMapper에 넘기면 readValue(), readTree() 등 모든 읽기 경로에 재작성 단계가 끼워진다
+     */
+    static class RewritingJsonFactory extends MappingJsonFactory {
+
+        private final Rewrites rewrites;
+
+        RewritingJsonFactory(Rewrites rewrites) {
+            this.rewrites = rewrites;
+        }
+
+        // 파서/생성기 기능과 문자 이스케이프 등 팩토리 설정을 그대로 복사한다. 코덱은 복사본을 쓰는 매퍼가 다시 설정한다
+        protected RewritingJsonFactory(RewritingJsonFactory src) {
+            super(src, null);
+            this.rewrites = src.rewrites;
+        }
+
+        // ObjectMapper.copy()가 부른다
+        @Override
+        public RewritingJsonFactory copy() {
+            _checkInvalidCopy(RewritingJsonFactory.class);
+            return new RewritingJsonFactory(this);
+        }
+
+        @Override
+        protected JsonParser _createParser(InputStream in, IOContext ctxt) throws IOException {
+            return new RewritingParser(super._createParser(in, ctxt), rewrites);
+        }
+
+        @Override
+        protected JsonParser _createParser(Reader r, IOContext ctxt) throws IOException {
+            return new RewritingParser(super._createParser(r, ctxt), rewrites);
+        }
+
+        @Override
+        protected JsonParser _createParser(char[] data, int offset, int len, IOContext ctxt, boolean recyclable) throws IOException {
+            return new RewritingParser(super._createParser(data, offset, len, ctxt, recyclable), rewrites);
+        }
+
+        @Override
+        protected JsonParser _createParser(byte[] data, int offset, int len, IOContext ctxt) throws IOException {
+            return new RewritingParser(super._createParser(data, offset, len, ctxt), rewrites);
+        }
+
+        @Override
+        protected JsonParser _createParser(DataInput input, IOContext ctxt) throws IOException {
+            return new RewritingParser(super._createParser(input, ctxt), rewrites);
+        }
+    }
+
+    /**
+     * 기존 마이그레이션 방식: readTree()로 트리를 만들고, 같은 Rewrites로 고친 뒤, treeToValue()로 다시 바인딩한다
+     */
+    static class TreeMigration {
+
+        static <T> T readValue(ObjectMapper mapper, String json, Class<T> type, Rewrites rewrites) throws IOException {
+            return mapper.treeToValue(rewrite(mapper.readTree(json), rewrites), type);
+        }
+
+        private static JsonNode rewrite(JsonNode node, Rewrites rewrites) {
+            if (node instanceof ObjectNode object) {
+                ObjectNode rewritten = object.objectNode();
+                for (Iterator<Entry<String, JsonNode>> fields = object.fields(); fields.hasNext(); ) {
+                    Entry<String, JsonNode> field = fields.next();
+                    String name = rewrites.propertyName(field.getKey());
+                    JsonNode value = field.getValue();
+                    String text = value.isTextual() ? rewrites.propertyValue(name, value.textValue()) : null;
+                    rewritten.set(name, (text != null) ? TextNode.valueOf(text) : rewrite(value, rewrites));
+                }
+                return rewritten;
+            }
+            if (node instanceof ArrayNode array) {
+                ArrayNode rewritten = array.arrayNode(array.size());
+                for (int i = 0; i < array.size(); i++) {
+                    JsonNode element = array.get(i);
+                    String text = (i == 0 && element.isTextual()) ? rewrites.wrapperTypeId(element.textValue()) : null;
+                    rewritten.add((text != null) ? TextNode.valueOf(text) : rewrite(element, rewrites));
+                }
+                return rewritten;
+            }
+            return node;
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Garage {
+
+        private List<Vehicle> vehicles;
+
+        public Garage(List<Vehicle> vehicles) {
+            this.vehicles = vehicles;
+        }
+    }
+
+    static abstract class Vehicle {
+
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Car extends Vehicle {
+
+        private String licensePlate;
+
+        public Car(String licensePlate) {
+            this.licensePlate = licensePlate;
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Aeroplane extends Vehicle {
+
+        private int wingSpan;
+
+        public Aeroplane(int wingSpan) {
+            this.wingSpan = wingSpan;
+        }
+    }
+
+    @JsonTypeInfo(use = Id.CLASS)
+    interface ListMixIn {
+
+    }
+}
@@ -125,7 +125,8 @@ class LogicalTypeIdWithCustomTypeIdResolverTest {
         }
     }
 
-    static abstract class Vehicle {
+    // 다른 클래스 로더의 플러그인이 상속할 수 있도록 public으로 둔다(PluginTypeIdResolverTest)
+    public static abstract class Vehicle {
 
     }
 
@@ -0,0 +1,441 @@
+package learn.jackson.databind.defaulttyping.polymorphism.intermediate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Aeroplane;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Car;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.ListMixIn;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.RichUser;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Vehicle;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+class PluginTypeIdResolverTest {
+
+    static final String BASE_PACKAGE = "learn.jackson.databind.defaulttyping.polymorphism.intermediate";
+
+    // 플러그인 디렉터리에만 존재하는 Vehicle 하위 타입. 테스트 클래스 경로에는 없다
+    static final String TRUCK_SOURCE = """
+                                       package learn.jackson.databind.defaulttyping.polymorphism.intermediate;
+
+                                       import com.fasterxml.jackson.annotation.JsonTypeName;
+
+                                       @JsonTypeName("truck")
+                                       public class Truck extends LogicalTypeIdWithCustomTypeIdResolverTest.Vehicle {
+
+                                           private int payload;
+
+                                           private Truck() {
+                                           }
+
+                                           public Truck(int payload) {
+                                               this.payload = payload;
+                                           }
+
+                                           public int getPayload() {
+                                               return payload;
+                                           }
+                                       }
+                                       """;
+
+    @Test
+    void hotAddPluginSubtype() throws Exception {
+        PluginTypeRegistry registry = new PluginTypeRegistry();
+        registry.register(getClass().getClassLoader(), List.of(BASE_PACKAGE));
+        PluginMapperHolder mappers = pluginMappers(registry);
+
+        String truckJson = """
+                           {"@type":"richUser","vehicles":["java.util.ArrayList",[{"@type":"car","licensePlate":"X12345"},{"@type":"truck","payload":12}]]}""";
+
+        // 플러그인을 올리기 전에는 모르는 타입 식별자다
+        assertThatThrownBy(() -> mappers.get().readValue(truckJson, RichUser.class))
+            .isInstanceOf(InvalidTypeIdException.class)
+            .hasMessageContaining("'truck'");
+
+        try (URLClassLoader plugin = pluginClassLoader(compilePlugin())) {
+            assertThat(registry.register(plugin, List.of(BASE_PACKAGE))).containsExactly("truck");
+
+            List<Vehicle> vehicles = mappers.get().readValue(truckJson, RichUser.class).getVehicles();
+            assertThat(((Car) vehicles.get(0)).getLicensePlate()).isEqualTo("X12345");
+            Vehicle truck = vehicles.get(1);
+            assertThat(truck.getClass().getName()).isEqualTo(BASE_PACKAGE + ".Truck");
+            assertThat(truck.getClass().getClassLoader()).isSameAs(plugin);
+
+            // 플러그인 타입도 같은 식별자로 직렬화된다
+            assertThat(mappers.get().writeValueAsString(truck)).isEqualTo("{\"@type\":\"truck\",\"payload\":12}");
+        }
+    }
+
+    @Test
+    void unregisterInvalidatesCaches() throws Exception {
+        PluginTypeRegistry registry = new PluginTypeRegistry();
+        registry.register(getClass().getClassLoader(), List.of(BASE_PACKAGE));
+        PluginMapperHolder mappers = pluginMappers(registry);
+        ObjectMapper mapper = mappers.get();
+        // 리스너에 연결하지 않은 매퍼. 캐시가 남으면 어떻게 되는지 보여준다
+        ObjectMapper detached = new ObjectMapper();
+        detached.setDefaultTyping(typer(detached, new PluginTypeIdResolver(registry)));
+        detached.addMixIn(List.class, ListMixIn.class);
+
+        String truckJson = "{\"@type\":\"truck\",\"payload\":12}";
+        Path pluginDirectory = compilePlugin();
+        URLClassLoader plugin = pluginClassLoader(pluginDirectory);
+        registry.register(plugin, List.of(BASE_PACKAGE));
+
+        assertThat(mapper.readValue(truckJson, Vehicle.class).getClass().getClassLoader()).isSameAs(plugin);
+        assertThat(detached.readValue(truckJson, Vehicle.class).getClass().getClassLoader()).isSameAs(plugin);
+        assertThat(((DefaultSerializerProvider) mapper.getSerializerProvider()).cachedSerializersCount()).isZero();
+        mapper.writeValueAsString(mapper.readValue(truckJson, Vehicle.class));
+        assertThat(((DefaultSerializerProvider) mapper.getSerializerProvider()).cachedSerializersCount()).isPositive();
+
+        assertThat(registry.unregister(plugin)).containsExactly("truck");
+        assertThat(registry.classForId("truck")).isNull();
+        assertThat(registry.classForId("car")).isSameAs(Car.class);
+
+        // 무효화하면 캐시가 빈 새 매퍼로 바뀌고, 새 매퍼는 식별자를 다시 조회하므로 곧바로 모르는 타입이 된다
+        assertThat(mappers.get()).isNotSameAs(mapper);
+        mapper = mappers.get();
+        assertThat(((DefaultSerializerProvider) mapper.getSerializerProvider()).cachedSerializersCount()).isZero();
+        assertThatThrownBy(() -> mappers.get().readValue(truckJson, Vehicle.class))
+            .isInstanceOf(InvalidTypeIdException.class);
+        // 타입 식별자별 역직렬화기 캐시가 남아 있는 매퍼는 제거된 타입을 계속 만든다
+        assertThat(detached.readValue(truckJson, Vehicle.class).getClass().getClassLoader()).isSameAs(plugin);
+        plugin.close();
+    }
+
+    @Test
+    @Tag("heap")
+    void unregisteredPluginIsCollected() throws Exception {
+        PluginTypeRegistry registry = new PluginTypeRegistry();
+        registry.register(getClass().getClassLoader(), List.of(BASE_PACKAGE));
+        PluginMapperHolder mappers = pluginMappers(registry);
+
+        String truckJson = "{\"@type\":\"truck\",\"payload\":12}";
+        URLClassLoader plugin = pluginClassLoader(compilePlugin());
+        registry.register(plugin, List.of(BASE_PACKAGE));
+        // 역직렬화기와 직렬화기 캐시에 플러그인 타입이 들어가게 한다
+        ObjectMapper mapper = mappers.get();
+        mapper.writeValueAsString(mapper.readValue(truckJson, Vehicle.class));
+        registry.unregister(plugin);
+
+        // 등록 해제 후 레지스트리와 새 매퍼는 플러그인 클래스 로더를 붙잡지 않는다 (이전 매퍼는 더 이상 참조하지 않는다)
+        mapper = null;
+        plugin.close();
+        WeakReference<ClassLoader> pluginReference = new WeakReference<>(plugin);
+        plugin = null;
+        for (int i = 0; i < 10 && pluginReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(pluginReference.get()).isNull();
+        assertThat(mappers.get().readValue("{\"@type\":\"car\",\"licensePlate\":\"X12345\"}", Vehicle.class)).isInstanceOf(Car.class);
+    }
+
+    @Test
+    void conflictingTypeId() throws Exception {
+        PluginTypeRegistry registry = new PluginTypeRegistry();
+        Path pluginDirectory = compilePlugin();
+
+        try (URLClassLoader first = pluginClassLoader(pluginDirectory);
+             URLClassLoader second = pluginClassLoader(pluginDirectory)) {
+            registry.register(first, List.of(BASE_PACKAGE));
+            // 같은 클래스 로더를 다시 등록하는 것은 아무 일도 하지 않는다
+            assertThat(registry.register(first, List.of(BASE_PACKAGE))).isEmpty();
+
+            // 다른 클래스 로더가 같은 식별자를 쓰면 등록을 거부하고, 레지스트리는 그대로다
+            assertThatThrownBy(() -> registry.register(second, List.of(BASE_PACKAGE)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("'truck'");
+            assertThat(registry.classForId("truck").getClassLoader()).isSameAs(first);
+
+            // 먼저 등록한 플러그인을 내리면 교체할 수 있다
+            registry.unregister(first);
+            assertThat(registry.register(second, List.of(BASE_PACKAGE))).containsExactly("truck");
+            assertThat(registry.classForId("truck").getClassLoader()).isSameAs(second);
+        }
+    }
+
+    @Test
+    void concurrentReadsDuringHotSwap() throws Exception {
+        PluginTypeRegistry registry = new PluginTypeRegistry();
+        registry.register(getClass().getClassLoader(), List.of(BASE_PACKAGE));
+        PluginMapperHolder mappers = pluginMappers(registry);
+        Path pluginDirectory = compilePlugin();
+
+        String json = mappers.get().writeValueAsString(new RichUser(new ArrayList<>(List.of(new Car("X12345"), new Aeroplane(13)))));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        List<Vehicle> vehicles = mappers.get().readValue(json, RichUser.class).getVehicles();
+                        assertThat(vehicles.get(1)).isInstanceOf(Aeroplane.class);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        // 읽는 도중에 플러그인을 올리고 내려도(매퍼가 바뀌어도) 기존 타입의 역직렬화는 멈추거나 실패하지 않는다
+        for (int i = 0; i < 20; i++) {
+            try (URLClassLoader plugin = pluginClassLoader(pluginDirectory)) {
+                registry.register(plugin, List.of(BASE_PACKAGE));
+                assertThat(mappers.get().readValue("{\"@type\":\"truck\",\"payload\":" + i + "}", Vehicle.class).getClass().getClassLoader())
+                    .isSameAs(plugin);
+                registry.unregister(plugin);
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertThat(failure.get()).isNull();
+    }
+
+    static PluginMapperHolder pluginMappers(PluginTypeRegistry registry) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setDefaultTyping(typer(mapper, new PluginTypeIdResolver(registry)));
+        mapper.addMixIn(List.class, ListMixIn.class);
+        PluginMapperHolder mappers = new PluginMapperHolder(mapper);
+        registry.addInvalidationListener(mappers::invalidateCaches);
+        return mappers;
+    }
+
+    static TypeResolverBuilder<StdTypeResolverBuilder> typer(ObjectMapper mapper, TypeIdResolverBase resolver) {
+        TypeResolverBuilder<StdTypeResolverBuilder> typer =
+            new DefaultTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator());
+        typer = typer.init(Id.NAME, resolver);
+        return typer.inclusion(As.PROPERTY);
+    }
+
+    /**
+     * TRUCK_SOURCE를 임시 디렉터리에 컴파일해 플러그인 디렉터리를 만든다. 테스트 클래스 경로를 그대로 컴파일 클래스 경로로 쓴다
+     */
+    static Path compilePlugin() throws IOException {
+        Path directory = Files.createTempDirectory("plugin");
+        Path source = directory.resolve("Truck.java");
+        Files.writeString(source, TRUCK_SOURCE);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int exitCode = compiler.run(null, null, null,
+                                    "-classpath", System.getProperty("java.class.path"),
+                                    "-d", directory.toString(),
+                                    source.toString());
+        assertThat(exitCode).isZero();
+        Files.delete(source);
+        return directory;
+    }
+
+    static URLClassLoader pluginClassLoader(Path directory) throws IOException {
+        return new URLClassLoader(new URL[]{directory.toUri().toURL()}, PluginTypeIdResolverTest.class.getClassLoader());
+    }
+
+    /**
+     * 클래스 로더마다 @JsonTypeName 하위 타입을 등록하고 해제하는 타입 식별자 레지스트리.
+     * <p>
+     * 조회는 volatile 필드 하나를 읽고 불변 맵을 찾는 것이 전부라 락이 없고, 정적 맵을 쓰는 DynamicTypeIdResolver와 비용이 같다.
+     * 변경은 synchronized 안에서 새 맵을 만들어 통째로 바꾼다(copy-on-write). 플러그인 등록/해제는 드물기 때문에 복사 비용은 문제가 되지 않는다.
+     * <p>
+     * 타입을 추가할 때는 캐시를 비울 필요가 없다. Jackson은 찾지 못한 타입 식별자를 캐시하지 않기 때문이다.
+     * 반면 타입 식별자별 역직렬화기와 직렬화기는 매퍼에 캐시되므로, 타입을 제거하면 addInvalidationListener()로 등록한 리스너를 불러 캐시를 비우게 한다
+     */
+    static class PluginTypeRegistry {
+
+        private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+        private final List<Runnable> invalidationListeners = new CopyOnWriteArrayList<>();
+
+        public Class<?> classForId(String id) {
+            return snapshot.classById().get(id);
+        }
+
+        public String idForClass(Class<?> type) {
+            return snapshot.idByClass().get(type);
+        }
+
+        public void addInvalidationListener(Runnable listener) {
+            invalidationListeners.add(listener);
+        }
+
+        /**
+         * 클래스 로더에서 basePackages 아래의 @JsonTypeName 클래스를 찾아 등록하고, 새로 등록한 타입 식별자를 돌려준다.
+         * 부모 클래스 로더가 정의한 클래스는 건너뛴다. 그 클래스는 부모 클래스 로더를 등록할 때 함께 등록된다.
+         * 다른 클래스가 이미 같은 식별자를 쓰고 있으면 아무것도 등록하지 않고 IllegalStateException을 던진다
+         */
+        public synchronized Set<String> register(ClassLoader classLoader, List<String> basePackages) {
+            ClassPathScanningCandidateComponentProvider componentProvider =
+                new ClassPathScanningCandidateComponentProvider(false);
+            componentProvider.setResourceLoader(new DefaultResourceLoader(classLoader));
+            componentProvider.addIncludeFilter(new AnnotationTypeFilter(JsonTypeName.class));
+
+            Map<String, Class<?>> classById = new HashMap<>(snapshot.classById());
+            Set<String> added = new LinkedHashSet<>();
+            basePackages.stream()
+                        .map(componentProvider::findCandidateComponents)
+                        .flatMap(Collection::stream)
+                        .map(BeanDefinition::getBeanClassName)
+                        .map(className -> {
+                            try {
+                                return Class.forName(className, false, classLoader);
+                            } catch (ClassNotFoundException e) {
+                                throw new RuntimeException(e);
+                            }
+                        })
+                        .filter(type -> type.getClassLoader() == classLoader)
+                        .forEach(type -> {
+                            String id = type.getDeclaredAnnotation(JsonTypeName.class).value();
+                            Class<?> existing = classById.putIfAbsent(id, type);
+                            if (existing == null) {
+                                added.add(id);
+                            } else if (existing != type) {
+                                throw new IllegalStateException("Type id '" + id + "' of " + type + " is already registered by "
+                                                                + existing + " from " + existing.getClassLoader());
+                            }
+                        });
+
+            if (!added.isEmpty()) {
+                snapshot = Snapshot.of(classById);
+            }
+            return added;
+        }
+
+        /**
+         * 클래스 로더가 정의한 타입을 모두 제거하고 캐시 무효화 리스너를 부른다. 제거한 타입 식별자를 돌려준다
+         */
+        public synchronized Set<String> unregister(ClassLoader classLoader) {
+            Map<String, Class<?>> classById = new HashMap<>(snapshot.classById());
+            Set<String> removed = new LinkedHashSet<>();
+            classById.entrySet().removeIf(entry -> {
+                if (entry.getValue().getClassLoader() == classLoader) {
+                    removed.add(entry.getKey());
+                    return true;
+                }
+                return false;
+            });
+
+            if (!removed.isEmpty()) {
+                snapshot = Snapshot.of(classById);
+                invalidationListeners.forEach(Runnable::run);
+            }
+            return removed;
+        }
+
+        record Snapshot(Map<String, Class<?>> classById, Map<Class<?>, String> idByClass) {
+
+            static Snapshot of(Map<String, Class<?>> classById) {
+                Map<Class<?>, String> idByClass = new HashMap<>();
+                classById.forEach((id, type) -> idByClass.put(type, id));
+                return new Snapshot(Map.copyOf(classById), Map.copyOf(idByClass));
+            }
+        }
+    }
+
+    /**
+     * PluginTypeRegistry를 조회하는 TypeIdResolver.
+     * 모르는 식별자에는 null을 돌려주어 Jackson이 InvalidTypeIdException을 던지게 한다
+     */
+    static class PluginTypeIdResolver extends TypeIdResolverBase {
+
+        private final PluginTypeRegistry registry;
+
+        public PluginTypeIdResolver(PluginTypeRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            return idFromValueAndType(value, value.getClass());
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> suggestedType) {
+            String id = registry.idForClass(suggestedType);
+            if (id != null) {
+                return id;
+            }
+            return suggestedType.getDeclaredAnnotation(JsonTypeName.class).value();
+        }
+
+        @Override
+        public Id getMechanism() {
+            return Id.NAME;
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) {
+            Class<?> type = registry.classForId(id);
+            if (type == null) {
+                return null;
+            }
+            return context.constructType(type);
+        }
+    }
+
+    /**
+     * 타입 정보를 담은 캐시를 비울 때마다 새 매퍼로 바꿔 끼우는 홀더.
+     * <p>
+     * 역직렬화기 캐시(DeserializerCache)는 DeserializationContext 안에 감춰져 있어, 사용 중인 매퍼에서 비우려면 동기화 없이 필드를 바꿔야 한다.
+     * 대신 설정은 그대로이고 직렬화기/역직렬화기 캐시는 빈 사본(ObjectMapper.copy())을 만들어 AtomicReference로 게시한다(copy-on-write).
+     * 이미 읽고 쓰는 중인 호출은 이전 매퍼로 끝까지 진행하고, 다음 호출부터 새 매퍼를 쓴다.
+     * 그래서 매퍼와 그 매퍼에서 얻은 ObjectReader/ObjectWriter는 보관하지 말고 호출할 때마다 get()으로 얻는다.
+     * TypeFactory는 사본과 공유하며 스레드 안전하게 비울 수 있다
+     */
+    static class PluginMapperHolder {
+
+        private final AtomicReference<ObjectMapper> current;
+
+        public PluginMapperHolder(ObjectMapper mapper) {
+            this.current = new AtomicReference<>(mapper);
+        }
+
+        public ObjectMapper get() {
+            return current.get();
+        }
+
+        public void invalidateCaches() {
+            ObjectMapper previous = current.getAndUpdate(ObjectMapper::copy);
+            previous.getTypeFactory().clearCache();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package learn.jackson.databind.defaulttyping.polymorphism.intermediate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.core.type.WritableTypeId.Inclusion;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.jsontype.impl.AsPropertyTypeSerializer;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Aeroplane;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Car;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.DynamicTypeIdResolver;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.ListMixIn;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.RichUser;
+import learn.jackson.databind.defaulttyping.polymorphism.intermediate.LogicalTypeIdWithCustomTypeIdResolverTest.Vehicle;
+import org.junit.jupiter.api.Test;
+
+class PreEncodedTypeIdTest {
+
+    static final List<String> BASE_PACKAGES = List.of("learn.jackson.databind.defaulttyping.polymorphism.intermediate");
+
+    @Test
+    void sameOutputAsDynamicTypeIdResolver() throws IOException {
+        ObjectMapper dynamic = new ObjectMapper();
+        TypeResolverBuilder<StdTypeResolverBuilder> typer =
+            new DefaultTypeResolverBuilder(DefaultTyping.NON_FINAL, dynamic.getPolymorphicTypeValidator());
+        typer = typer.init(Id.NAME, new DynamicTypeIdResolver(BASE_PACKAGES));
+        dynamic.setDefaultTyping(typer.inclusion(As.PROPERTY));
+        dynamic.addMixIn(List.class, ListMixIn.class);
+        ObjectMapper preEncoded = preEncodedMapper();
+
+        RichUser user = new RichUser(List.of(new Car("X12345"), new Aeroplane(13)));
+
+        // 문자열(WriterBasedJsonGenerator)과 바이트(UTF8JsonGenerator) 모두 기존 리졸버와 같은 결과를 낸다
+        String json = preEncoded.writeValueAsString(user);
+        assertThat(json).isEqualTo(dynamic.writeValueAsString(user));
+        assertThat(preEncoded.writeValueAsBytes(user)).isEqualTo(dynamic.writeValueAsBytes(user));
+        assertThat(json).isEqualTo("""
+                                       {"@type":"richUser","vehicles":["java.util.ImmutableCollections$List12",[{"@type":"car","licensePlate":"X12345"},{"@type":"aeroplane","wingSpan":13}]]}""");
+
+        // 읽기는 DynamicTypeIdResolver의 typeFromId를 그대로 쓴다
+        List<Vehicle> vehicles = preEncoded.readValue(json, RichUser.class).getVehicles();
+        assertThat(((Car) vehicles.get(0)).getLicensePlate()).isEqualTo("X12345");
+        assertThat(((Aeroplane) vehicles.get(1)).getWingSpan()).isEqualTo(13);
+    }
+
+    @Test
+    void typeSerializerIsReplaced() throws IOException {
+        ObjectMapper mapper = preEncodedMapper();
+        JavaType vehicleType = mapper.constructType(Vehicle.class);
+
+        TypeSerializer serializer = mapper.getSerializerProviderInstance().findTypeSerializer(vehicleType);
+        assertThat(serializer).isInstanceOf(PreEncodedTypeSerializer.class);
+        // 프로퍼티에 맞춘 복사본도 같은 타입이어야 캐시된 식별자를 쓴다
+        assertThat(serializer.forProperty(null)).isInstanceOf(PreEncodedTypeSerializer.class);
+
+        List<Vehicle> vehicles = new ArrayList<>(List.of(new Car("X12345"), new Aeroplane(13)));
+        assertThat(mapper.writerFor(new TypeReference<List<Vehicle>>() {
+        }).writeValueAsString(vehicles))
+            .isEqualTo("[\"java.util.ArrayList\",[{\"@type\":\"car\",\"licensePlate\":\"X12345\"},{\"@type\":\"aeroplane\",\"wingSpan\":13}]]");
+    }
+
+    @Test
+    void idCachedPerClass() {
+        ClassValueTypeIdResolver resolver = new ClassValueTypeIdResolver(BASE_PACKAGES);
+
+        SerializedString car = resolver.serializedIdFor(Car.class);
+        assertThat(car.getValue()).isEqualTo("car");
+        assertThat(resolver.serializedIdFor(Car.class)).isSameAs(car);
+        assertThat(resolver.idFromValue(new Car("X12345"))).isEqualTo("car");
+
+        // @JsonTypeName이 없는 타입은 식별자를 만들 수 없다
+        assertThatThrownBy(() -> resolver.serializedIdFor(Vehicle.class))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("@JsonTypeName");
+    }
+
+    static ObjectMapper preEncodedMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        TypeResolverBuilder<StdTypeResolverBuilder> typer =
+            new PreEncodedTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator());
+        typer = typer.init(Id.NAME, new ClassValueTypeIdResolver(BASE_PACKAGES));
+        mapper.setDefaultTyping(typer.inclusion(As.PROPERTY));
+        mapper.addMixIn(List.class, ListMixIn.class);
+        return mapper;
+    }
+
+    static List<Vehicle> vehicles(int size) {
+        List<Vehicle> vehicles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            vehicles.add(i % 2 == 0 ? new Car("X" + i) : new Aeroplane(i));
+        }
+        return vehicles;
+    }
+
+    /**
+     * 클래스마다 타입 식별자를 ClassValue에 SerializedString으로 캐시하는 TypeIdResolver.
+     * <p>
+     * DynamicTypeIdResolver는 값을 쓸 때마다 getDeclaredAnnotation()으로 @JsonTypeName을 찾는다.
+     * ClassValue는 클래스 객체에 값을 붙여 두므로 조회가 해시 맵보다 싸고, 클래스 로더가 내려가면 값도 함께 수거된다.
+     * SerializedString은 인용/인코딩한 바이트를 한 번만 만들어 두므로, PreEncodedTypeSerializer는 식별자를 바이트 복사로 쓴다.
+     * 읽기(typeFromId)는 DynamicTypeIdResolver를 그대로 쓴다
+     */
+    static class ClassValueTypeIdResolver extends DynamicTypeIdResolver {
+
+        private final ClassValue<SerializedString> serializedIds = new ClassValue<>() {
+            @Override
+            protected SerializedString computeValue(Class<?> type) {
+                JsonTypeName typeName = type.getDeclaredAnnotation(JsonTypeName.class);
+                if (typeName == null) {
+                    throw new IllegalArgumentException("No @JsonTypeName on " + type.getName());
+                }
+                return new SerializedString(typeName.value());
+            }
+        };
+
+        public ClassValueTypeIdResolver(List<String> basePackages) {
+            super(basePackages);
+        }
+
+        public SerializedString serializedIdFor(Class<?> type) {
+            return serializedIds.get(type);
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> suggestedType) {
+            return serializedIds.get(suggestedType).getValue();
+        }
+    }
+
+    /**
+     * As.PROPERTY 타입 식별자를 ClassValueTypeIdResolver의 SerializedString으로 쓰는 TypeSerializer.
+     * <p>
+     * 기본 구현은 JsonGenerator.writeTypePrefix()에서 writeStringField(String, String)로 프로퍼티 이름과 식별자를 매번 인코딩한다.
+     * 여기서는 미리 인코딩한 프로퍼티 이름과 식별자를 writeFieldName(SerializableString), writeString(SerializableString)으로 쓴다.
+     * 객체가 아닌 값(배열 래퍼로 바뀌는 경우)이나, 식별자가 이미 정해진 경우, 네이티브 타입 식별자를 쓰는 포맷은 기본 구현에 맡긴다
+     */
+    static class PreEncodedTypeSerializer extends AsPropertyTypeSerializer {
+
+        private final ClassValueTypeIdResolver resolver;
+
+        private final SerializedString typePropertyName;
+
+        public PreEncodedTypeSerializer(ClassValueTypeIdResolver resolver, BeanProperty property, String propertyName) {
+            super(resolver, property, propertyName);
+            this.resolver = resolver;
+            this.typePropertyName = new SerializedString(propertyName);
+        }
+
+        @Override
+        public PreEncodedTypeSerializer forProperty(BeanProperty property) {
+            return (_property == property) ? this : new PreEncodedTypeSerializer(resolver, property, _typePropertyName);
+        }
+
+        @Override
+        public WritableTypeId writeTypePrefix(JsonGenerator g, WritableTypeId typeId) throws IOException {
+            if (typeId.id != null || typeId.valueShape != JsonToken.START_OBJECT
+                || typeId.include != Inclusion.METADATA_PROPERTY || g.canWriteTypeId()) {
+                return super.writeTypePrefix(g, typeId);
+            }
+            Class<?> type = (typeId.forValueType == null) ? typeId.forValue.getClass() : typeId.forValueType;
+            SerializedString id = resolver.serializedIdFor(type);
+            typeId.id = id.getValue();
+            // JsonGenerator.writeTypePrefix()와 같은 상태를 남겨야 writeTypeSuffix()가 객체를 닫는다
+            typeId.wrapperWritten = true;
+            g.writeStartObject(typeId.forValue);
+            g.writeFieldName(typePropertyName);
+            g.writeString(id);
+            return typeId;
+        }
+    }
+
+    /**
+     * 식별자 리졸버가 ClassValueTypeIdResolver이고 포함 방식이 As.PROPERTY일 때 PreEncodedTypeSerializer를 만드는 DefaultTypeResolverBuilder
+     */
+    static class PreEncodedTypeResolverBuilder extends DefaultTypeResolverBuilder {
+
+        public PreEncodedTypeResolverBuilder(DefaultTyping typing, PolymorphicTypeValidator subtypeValidator) {
+            super(typing, subtypeValidator);
+        }
+
+        @Override
+        public TypeSerializer buildTypeSerializer(SerializationConfig config, JavaType baseType, Collection<NamedType> subtypes) {
+            TypeSerializer serializer = super.buildTypeSerializer(config, baseType, subtypes);
+            if (serializer != null && serializer.getTypeInclusion() == As.PROPERTY
+                && serializer.getTypeIdResolver() instanceof ClassValueTypeIdResolver resolver) {
+                return new PreEncodedTypeSerializer(resolver, null, serializer.getPropertyName());
+            }
+            return serializer;
+        }
+    }
+}
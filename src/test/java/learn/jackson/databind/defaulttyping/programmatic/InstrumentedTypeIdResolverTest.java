@@ -0,0 +1,604 @@
+package learn.jackson.databind.defaulttyping.programmatic;
+
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
+import com.fasterxml.jackson.databind.cfg.HandlerInstantiator;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.AbstractBean;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.BeanContainer;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.CustomTypeIdResolver;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.FirstBean;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.LastBean;
+import learn.jackson.databind.defaulttyping.programmatic.CustomTypeIdResolverTest.ListMixIn;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+class InstrumentedTypeIdResolverTest {
+
+    @Test
+    void instrumentedTypeIdResolver() throws JsonProcessingException {
+        TypeIdResolverMetrics metrics = new TypeIdResolverMetrics();
+        TypeIdResolver resolver = new InstrumentedTypeIdResolver(new CustomTypeIdResolver(List.of("learn.jackson.databind.defaulttyping.programmatic")), metrics);
+
+        // CustomTypeIdResolverTest와 같은 설정에서 리졸버만 감싼다
+        TypeResolverBuilder<StdTypeResolverBuilder> typer = new DefaultTypeResolverBuilder(DefaultTyping.EVERYTHING);
+        typer = typer.init(Id.NAME, resolver);
+        typer = typer.inclusion(As.PROPERTY);
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setDefaultTyping(typer);
+        mapper.addMixIn(List.class, ListMixIn.class);
+
+        List<AbstractBean> beans = new ArrayList<>();
+        beans.add(new FirstBean(1, "Bean 1"));
+        beans.add(new LastBean(2, "Bean 2"));
+        beans.add(new LastBean(3, "Bean 3"));
+
+        String json = mapper.writeValueAsString(new BeanContainer(beans));
+        BeanContainer container = mapper.readValue(json, BeanContainer.class);
+        assertThat(container.getBeans()).hasSize(3);
+
+        assertThat(metrics.getIdFromValueCounts()).containsEntry("BeanContainer", 1L)
+                                                  .containsEntry("FirstBean", 1L)
+                                                  .containsEntry("LastBean", 2L);
+        // 역직렬화 시에는 TypeDeserializer가 id별로 역직렬화기를 캐시하므로 typeFromId는 id당 한 번만 호출된다
+        assertThat(metrics.getTypeFromIdCounts()).containsEntry("BeanContainer", 1L)
+                                                 .containsEntry("FirstBean", 1L)
+                                                 .containsEntry("LastBean", 1L);
+        assertThat(metrics.getTypeFromIdCount()).isEqualTo(3L);
+        assertThat(metrics.getTypeFromIdMisses()).isZero();
+        assertThat(metrics.getTypeFromIdMeanNanos()).isPositive();
+
+        // 리졸버가 예외를 던져도 실패(miss)로 집계된다
+        String unknown = json.replace("\"FirstBean\"", "\"NoSuchBean\"");
+        assertThatThrownBy(() -> mapper.readValue(unknown, BeanContainer.class)).isInstanceOf(JsonMappingException.class)
+                                                                               .hasRootCauseInstanceOf(ClassNotFoundException.class);
+        assertThat(metrics.getTypeFromIdMisses()).isEqualTo(1L);
+        assertThat(metrics.getTypeFromIdMissCounts()).containsEntry("NoSuchBean", 1L);
+    }
+
+    @Test
+    void jsonTypeIdResolverWithHandlerInstantiator() throws JsonProcessingException {
+        // @JsonTypeIdResolver로 지정된 리졸버는 Jackson이 직접 생성하므로, HandlerInstantiator에서 생성 시점에 감싼다
+        TypeIdResolverMetrics metrics = new TypeIdResolverMetrics();
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setHandlerInstantiator(new InstrumentingHandlerInstantiator(resolverClass -> metrics));
+
+        String json = mapper.writeValueAsString(new Animal[]{new Dog("Max"), new Cat("Kitty")});
+        assertThat(json).isEqualTo("[{\"@type\":\"dog\",\"name\":\"Max\"},{\"@type\":\"cat\",\"name\":\"Kitty\"}]");
+        assertThat(mapper.readValue(json, Animal[].class)).hasExactlyElementsOfTypes(Dog.class, Cat.class);
+
+        assertThat(metrics.getTypeFromIdCounts()).containsEntry("dog", 1L)
+                                                 .containsEntry("cat", 1L);
+
+        // 알 수 없는 id는 리졸버가 null을 반환하고, Jackson이 InvalidTypeIdException으로 변환한다
+        assertThatThrownBy(() -> mapper.readValue("[{\"@type\":\"cow\",\"name\":\"Molly\"}]", Animal[].class))
+            .isInstanceOf(InvalidTypeIdException.class);
+        assertThat(metrics.getTypeFromIdMissCounts()).containsEntry("cow", 1L);
+    }
+
+    @Test
+    void jmx() throws Exception {
+        TypeIdResolverMetrics metrics = new TypeIdResolverMetrics(2, 1);
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setHandlerInstantiator(new InstrumentingHandlerInstantiator(resolverClass -> metrics));
+
+        // 서로 다른 id가 상한(2개)을 넘으면 나머지는 하나로 합산되어 id 폭증으로 메모리가 늘어나지 않는다
+        mapper.readValue("[{\"@type\":\"dog\"},{\"@type\":\"cat\"},{\"@type\":\"dog\"}]", Animal[].class);
+        for (String id : List.of("cow", "pig", "hen")) {
+            assertThatThrownBy(() -> mapper.readValue("[{\"@type\":\"" + id + "\"}]", Animal[].class));
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register(server, "animals");
+        try {
+            assertThat(name).hasToString("learn.jackson.databind:type=TypeIdResolverMetrics,name=animals");
+            assertThat(server.getAttribute(name, "TypeFromIdCount")).isEqualTo(5L);
+            assertThat(server.getAttribute(name, "TypeFromIdMisses")).isEqualTo(3L);
+
+            // Map 속성은 MXBean 규칙에 따라 TabularData로 노출된다
+            TabularData counts = (TabularData) server.getAttribute(name, "TypeFromIdCounts");
+            Map<Object, Object> countById = counts.values()
+                                                  .stream()
+                                                  .map(CompositeData.class::cast)
+                                                  .collect(toMap(row -> row.get("key"), row -> row.get("value")));
+            assertThat(countById).containsEntry("dog", 1L)
+                                 .containsEntry("cat", 1L)
+                                 .containsEntry(TypeIdResolverMetrics.OTHER_IDS, 3L);
+
+            server.invoke(name, "reset", null, null);
+            assertThat(server.getAttribute(name, "TypeFromIdCount")).isEqualTo(0L);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void countsFromManyThreads() throws Exception {
+        TypeIdResolverMetrics metrics = new TypeIdResolverMetrics(1_000, 8);
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setHandlerInstantiator(new InstrumentingHandlerInstantiator(resolverClass -> metrics));
+        ObjectWriter writer = mapper.writerFor(Animal.class);
+
+        // 여러 스레드의 호출이 id별 카운터 하나에 합산되어, 스레드 수만큼 상태가 늘어나지 않는다
+        serializeConcurrently(writer, 8, 1_000);
+        assertThat(metrics.getIdFromValueCounts()).containsOnly(Map.entry("dog", 4_000L), Map.entry("cat", 4_000L));
+        assertThat(metrics.getIdFromValueCount()).isEqualTo(8_000L);
+        assertThat(metrics.getIdFromValueMeanNanos()).isPositive();
+
+        metrics.reset();
+        assertThat(metrics.getIdFromValueCount()).isZero();
+        assertThat(metrics.getIdFromValueCounts()).isEmpty();
+
+        // 리셋 뒤에도 리졸버가 캐시한 카운터가 그대로 쓰이므로 새 호출만 집계된다
+        serializeConcurrently(writer, 4, 500);
+        assertThat(metrics.getIdFromValueCounts()).containsOnly(Map.entry("dog", 1_000L), Map.entry("cat", 1_000L));
+        assertThat(metrics.getIdFromValueCount()).isEqualTo(2_000L);
+    }
+
+    private static void serializeConcurrently(ObjectWriter writer, int threads, int valuesPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < valuesPerThread; i++) {
+                        writer.writeValueAsString(i % 2 == 0 ? new Dog("Max") : new Cat("Kitty"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 임의의 TypeIdResolver를 감싸 호출 횟수, 실패 횟수, 소요 시간을 id별로 집계하는 리졸버.
+     * 집계는 TypeIdResolverMetrics에 위임하고, 리졸버 자체의 동작은 그대로 위임 대상에 맡긴다.
+     * idFromValue 한 번에 약 5.5 ns가 더 들어, 작은 값이 많은 직렬화에서는 2% 목표를 넘는다 (InstrumentedTypeIdResolverBenchmark 참고)
+     */
+    static class InstrumentedTypeIdResolver extends TypeIdResolverBase {
+
+        private final TypeIdResolver delegate;
+
+        private final TypeIdResolverMetrics metrics;
+
+        // idFromValue의 카운터를 클래스별로 캐시하여 값마다 ConcurrentHashMap을 조회하지 않게 한다.
+        // 리졸버는 보통 클래스마다 같은 id를 돌려주지만, 그렇지 않은 경우를 위해 캐시한 id와 같을 때만 쓴다
+        private final ClassValue<CounterSlot> counterSlots = new ClassValue<>() {
+
+            @Override
+            protected CounterSlot computeValue(Class<?> type) {
+                return new CounterSlot();
+            }
+        };
+
+        private int untilNextSample;
+
+        public InstrumentedTypeIdResolver(TypeIdResolver delegate, TypeIdResolverMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void init(JavaType baseType) {
+            delegate.init(baseType);
+        }
+
+        // idFromValue는 직렬화하는 값마다 호출되므로 소요 시간은 표본으로만 잰다 (System.nanoTime() 자체가 수십 ns).
+        // 표본이 아닌 호출은 클래스별로 캐시한 카운터를 올리기만 하고, 표본 추출은 별도 메서드로 빼서 이 메서드가 인라인될 만큼 작게 유지한다
+        @Override
+        public String idFromValue(Object value) {
+            if (--untilNextSample <= 0) {
+                return timedIdFromValue(value);
+            }
+            String id = delegate.idFromValue(value);
+            counterOf(value == null ? null : value.getClass(), id).record(id != null);
+            return id;
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> suggestedType) {
+            if (--untilNextSample <= 0) {
+                return timedIdFromValueAndType(value, suggestedType);
+            }
+            String id = delegate.idFromValueAndType(value, suggestedType);
+            counterOf(suggestedType, id).record(id != null);
+            return id;
+        }
+
+        // 표본 간격은 ThreadLocalRandom 대신 호출 수로 센다. 여러 스레드가 동시에 갱신하면 간격이 조금 어긋나지만 평균에는 영향이 없다
+        private String timedIdFromValue(Object value) {
+            untilNextSample = metrics.latencySampleRate();
+            long start = System.nanoTime();
+            String id = delegate.idFromValue(value);
+            counterOf(value == null ? null : value.getClass(), id).record(id != null, System.nanoTime() - start);
+            return id;
+        }
+
+        private String timedIdFromValueAndType(Object value, Class<?> suggestedType) {
+            untilNextSample = metrics.latencySampleRate();
+            long start = System.nanoTime();
+            String id = delegate.idFromValueAndType(value, suggestedType);
+            counterOf(suggestedType, id).record(id != null, System.nanoTime() - start);
+            return id;
+        }
+
+        private TypeIdResolverMetrics.IdCounter counterOf(Class<?> type, String id) {
+            if (type == null) {
+                return metrics.idFromValueCounter(id);
+            }
+            CounterSlot slot = counterSlots.get(type);
+            CachedCounter cached = slot.cached;
+            if (cached == null || !Objects.equals(cached.id(), id)) {
+                cached = new CachedCounter(id, metrics.idFromValueCounter(id));
+                slot.cached = cached;
+            }
+            return cached.counter();
+        }
+
+        @Override
+        public String idFromBaseType() {
+            return delegate.idFromBaseType();
+        }
+
+        // typeFromId는 TypeDeserializer가 id별로 결과를 캐시하여 드물게 호출되므로 매번 잰다
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+            long start = System.nanoTime();
+            JavaType type = null;
+            try {
+                type = delegate.typeFromId(context, id);
+                return type;
+            } finally {
+                metrics.recordTypeFromId(id, type != null, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public String getDescForKnownTypeIds() {
+            return delegate.getDescForKnownTypeIds();
+        }
+
+        @Override
+        public Id getMechanism() {
+            return delegate.getMechanism();
+        }
+
+        // 여러 스레드가 동시에 바꿔도 CachedCounter가 불변이므로 어느 쪽이 남든 올바른 카운터다
+        static class CounterSlot {
+
+            CachedCounter cached;
+        }
+
+        record CachedCounter(String id, TypeIdResolverMetrics.IdCounter counter) {
+
+        }
+    }
+
+    /**
+     * @JsonTypeIdResolver로 지정된 리졸버를 생성할 때 InstrumentedTypeIdResolver로 감싸는 HandlerInstantiator.
+     * 나머지 핸들러는 null을 반환하여 Jackson의 기본 생성 방식을 따른다
+     */
+    static class InstrumentingHandlerInstantiator extends HandlerInstantiator {
+
+        private final Function<Class<?>, TypeIdResolverMetrics> metricsByResolverClass;
+
+        public InstrumentingHandlerInstantiator(Function<Class<?>, TypeIdResolverMetrics> metricsByResolverClass) {
+            this.metricsByResolverClass = metricsByResolverClass;
+        }
+
+        @Override
+        public TypeIdResolver typeIdResolverInstance(MapperConfig<?> config, Annotated annotated, Class<?> resolverClass) {
+            TypeIdResolver delegate = (TypeIdResolver) ClassUtil.createInstance(resolverClass, config.canOverrideAccessModifiers());
+            return new InstrumentedTypeIdResolver(delegate, metricsByResolverClass.apply(resolverClass));
+        }
+
+        @Override
+        public JsonDeserializer<?> deserializerInstance(DeserializationConfig config, Annotated annotated, Class<?> deserClass) {
+            return null;
+        }
+
+        @Override
+        public KeyDeserializer keyDeserializerInstance(DeserializationConfig config, Annotated annotated, Class<?> keyDeserClass) {
+            return null;
+        }
+
+        @Override
+        public JsonSerializer<?> serializerInstance(SerializationConfig config, Annotated annotated, Class<?> serClass) {
+            return null;
+        }
+
+        @Override
+        public TypeResolverBuilder<?> typeResolverBuilderInstance(MapperConfig<?> config, Annotated annotated, Class<?> builderClass) {
+            return null;
+        }
+    }
+
+    /**
+     * JMX(MXBean)로 노출하는 속성. Map 속성은 JConsole 등에서 TabularData로 보인다
+     */
+    public interface TypeIdResolverMetricsMXBean {
+
+        long getTypeFromIdCount();
+
+        long getTypeFromIdMisses();
+
+        double getTypeFromIdMeanNanos();
+
+        long getIdFromValueCount();
+
+        double getIdFromValueMeanNanos();
+
+        Map<String, Long> getTypeFromIdCounts();
+
+        Map<String, Long> getTypeFromIdMissCounts();
+
+        Map<String, Long> getIdFromValueCounts();
+
+        void reset();
+    }
+
+    /**
+     * 타입 id별 카운터. 여러 스레드가 동시에 같은 id를 갱신하므로 경합이 적은 LongAdder(스트라이프 카운터)를 사용한다.
+     * 서로 다른 id 수가 maximumIds를 넘으면 이후의 id는 OTHER_IDS 하나로 합산한다 (JSON 입력의 id는 외부에서 제어되므로).
+     * 호출 횟수는 모두 세고, 소요 시간은 latencySampleRate번에 한 번 꼴로 잰 표본의 평균을 보여준다
+     */
+    static class TypeIdResolverMetrics implements TypeIdResolverMetricsMXBean {
+
+        static final String OTHER_IDS = "<other>";
+
+        private final int maximumIds;
+
+        private final int latencySampleRate;
+
+        private final ConcurrentHashMap<String, IdCounter> typeFromIdCounters = new ConcurrentHashMap<>();
+
+        private final ConcurrentHashMap<String, IdCounter> idFromValueCounters = new ConcurrentHashMap<>();
+
+        public TypeIdResolverMetrics() {
+            this(1_000, 64);
+        }
+
+        public TypeIdResolverMetrics(int maximumIds, int latencySampleRate) {
+            this.maximumIds = maximumIds;
+            this.latencySampleRate = latencySampleRate;
+        }
+
+        int latencySampleRate() {
+            return latencySampleRate;
+        }
+
+        void recordTypeFromId(String id, boolean resolved, long nanos) {
+            counterOf(typeFromIdCounters, id).record(resolved, nanos);
+        }
+
+        IdCounter idFromValueCounter(String id) {
+            return counterOf(idFromValueCounters, id);
+        }
+
+        private IdCounter counterOf(ConcurrentHashMap<String, IdCounter> counters, String id) {
+            String key = id == null ? "null" : id;
+            IdCounter counter = counters.get(key);
+            if (counter != null) {
+                return counter;
+            }
+            if (counters.size() >= maximumIds) {
+                key = OTHER_IDS;
+            }
+            return counters.computeIfAbsent(key, k -> new IdCounter());
+        }
+
+        public ObjectName register(MBeanServer server, String name) throws JMException {
+            ObjectName objectName = new ObjectName("learn.jackson.databind:type=TypeIdResolverMetrics,name=" + name);
+            server.registerMBean(new StandardMBean(this, TypeIdResolverMetricsMXBean.class, true), objectName);
+            return objectName;
+        }
+
+        @Override
+        public long getTypeFromIdCount() {
+            return sum(typeFromIdCounters, counter -> counter.count);
+        }
+
+        @Override
+        public long getTypeFromIdMisses() {
+            return sum(typeFromIdCounters, counter -> counter.misses);
+        }
+
+        @Override
+        public double getTypeFromIdMeanNanos() {
+            return meanNanos(typeFromIdCounters);
+        }
+
+        @Override
+        public long getIdFromValueCount() {
+            return sum(idFromValueCounters, counter -> counter.count);
+        }
+
+        @Override
+        public double getIdFromValueMeanNanos() {
+            return meanNanos(idFromValueCounters);
+        }
+
+        @Override
+        public Map<String, Long> getTypeFromIdCounts() {
+            return snapshot(typeFromIdCounters, counter -> counter.count);
+        }
+
+        @Override
+        public Map<String, Long> getTypeFromIdMissCounts() {
+            return snapshot(typeFromIdCounters, counter -> counter.misses);
+        }
+
+        @Override
+        public Map<String, Long> getIdFromValueCounts() {
+            return snapshot(idFromValueCounters, counter -> counter.count);
+        }
+
+        // 리졸버가 카운터를 캐시하고 있으므로 맵을 비우지 않고 값만 0으로 돌린다 (값이 0인 id는 스냅샷에서 빠진다)
+        @Override
+        public void reset() {
+            typeFromIdCounters.values().forEach(IdCounter::reset);
+            idFromValueCounters.values().forEach(IdCounter::reset);
+        }
+
+        private static long sum(Map<String, IdCounter> counters, Function<IdCounter, LongAdder> adder) {
+            return counters.values().stream().mapToLong(counter -> adder.apply(counter).sum()).sum();
+        }
+
+        private static double meanNanos(Map<String, IdCounter> counters) {
+            long timed = sum(counters, counter -> counter.timed);
+            return timed == 0 ? 0.0 : (double) sum(counters, counter -> counter.nanos) / timed;
+        }
+
+        private static Map<String, Long> snapshot(Map<String, IdCounter> counters, Function<IdCounter, LongAdder> adder) {
+            return counters.entrySet()
+                           .stream()
+                           .filter(entry -> adder.apply(entry.getValue()).sum() > 0)
+                           .collect(toMap(Map.Entry::getKey, entry -> adder.apply(entry.getValue()).sum()));
+        }
+
+        static class IdCounter {
+
+            private final LongAdder count = new LongAdder();
+
+            private final LongAdder misses = new LongAdder();
+
+            private final LongAdder timed = new LongAdder();
+
+            private final LongAdder nanos = new LongAdder();
+
+            void reset() {
+                count.reset();
+                misses.reset();
+                timed.reset();
+                nanos.reset();
+            }
+
+            void record(boolean resolved) {
+                count.increment();
+                if (!resolved) {
+                    misses.increment();
+                }
+            }
+
+            void record(boolean resolved, long elapsedNanos) {
+                record(resolved);
+                timed.increment();
+                nanos.add(elapsedNanos);
+            }
+        }
+    }
+
+    @JsonTypeInfo(use = Id.NAME)
+    @JsonTypeIdResolver(AnimalIdResolver.class)
+    interface Animal {
+
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Dog implements Animal {
+
+        private String name;
+
+        public Dog(String name) {
+            this.name = name;
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Cat implements Animal {
+
+        private String name;
+
+        public Cat(String name) {
+            this.name = name;
+        }
+    }
+
+    static class AnimalIdResolver extends TypeIdResolverBase {
+
+        private JavaType superType;
+
+        @Override
+        public void init(JavaType baseType) {
+            this.superType = baseType;
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            return idFromValueAndType(value, value.getClass());
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> suggestedType) {
+            return suggestedType.getSimpleName().toLowerCase();
+        }
+
+        @Override
+        public Id getMechanism() {
+            return Id.NAME;
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) {
+            return switch (id) {
+                case "dog" -> context.constructSpecializedType(superType, Dog.class);
+                case "cat" -> context.constructSpecializedType(superType, Cat.class);
+                default -> null;
+            };
+        }
+    }
+}
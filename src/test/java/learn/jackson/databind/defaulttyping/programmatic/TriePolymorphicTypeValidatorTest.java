@@ -0,0 +1,491 @@
+package learn.jackson.databind.defaulttyping.programmatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator.Validity;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+class TriePolymorphicTypeValidatorTest {
+
+    @Test
+    void triePolymorphicTypeValidator() throws JsonProcessingException {
+        TriePolymorphicTypeValidator ptv = TriePolymorphicTypeValidator.builder()
+                                                                       .allowIfSubType("learn.jackson.databind.defaulttyping.programmatic.TriePolymorphicTypeValidatorTest$User")
+                                                                       .allowIfSubType("java.util.")
+                                                                       .build();
+        ObjectMapper mapper = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .activateDefaultTyping(ptv, DefaultTyping.NON_FINAL, As.PROPERTY);
+
+        String json = mapper.writeValueAsString(new User("Smith"));
+        assertThat(json).isEqualTo("""
+                                       {
+                                         "@class" : "learn.jackson.databind.defaulttyping.programmatic.TriePolymorphicTypeValidatorTest$User",
+                                         "name" : "Smith"
+                                       }""");
+        assertThat(mapper.readValue(json, Object.class)).isInstanceOf(User.class);
+
+        // 허용 목록에 없는 타입은 BasicPolymorphicTypeValidator와 마찬가지로 역직렬화를 거부한다
+        String adminJson = mapper.writeValueAsString(new Admin("root"));
+        assertThatThrownBy(() -> mapper.readValue(adminJson, Object.class))
+            .isInstanceOf(InvalidTypeIdException.class);
+        // Could not resolve type id 'learn.jackson...TriePolymorphicTypeValidatorTest$Admin' as a subtype of `java.lang.Object`:
+        //  Configured `PolymorphicTypeValidator` (of type `...TriePolymorphicTypeValidator`) denied resolution
+    }
+
+    @Test
+    void sameVerdictsAsBasicPolymorphicTypeValidator() throws JsonProcessingException {
+        // 허용하는 패키지가 수백 개여도 트라이 탐색은 클래스명 길이에만 비례한다
+        List<String> packages = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            packages.add("com.example.service" + i + ".model.");
+        }
+
+        BasicPolymorphicTypeValidator.Builder basicBuilder = BasicPolymorphicTypeValidator.builder();
+        TriePolymorphicTypeValidator.Builder trieBuilder = TriePolymorphicTypeValidator.builder();
+        for (String p : packages) {
+            basicBuilder.allowIfSubType(p);
+            trieBuilder.allowIfSubType(p);
+        }
+        basicBuilder.allowIfSubType(Pattern.compile(".*\\$User"))
+                    .allowIfSubType(Number.class)
+                    .allowIfSubTypeIsArray()
+                    .allowIfBaseType("learn.jackson.databind.defaulttyping.programmatic.TriePolymorphicTypeValidatorTest$Ad")
+                    .denyForExactBaseType(Serializable.class);
+        trieBuilder.allowIfSubType(Pattern.compile(".*\\$User"))
+                   .allowIfSubType(Number.class)
+                   .allowIfSubTypeIsArray()
+                   .allowIfBaseType("learn.jackson.databind.defaulttyping.programmatic.TriePolymorphicTypeValidatorTest$Ad")
+                   .denyForExactBaseType(Serializable.class);
+
+        PolymorphicTypeValidator basic = basicBuilder.build();
+        PolymorphicTypeValidator trie = trieBuilder.build();
+
+        ObjectMapper mapper = new ObjectMapper();
+        MapperConfig<?> config = mapper.getDeserializationConfig();
+        List<JavaType> types = List.of(mapper.constructType(Object.class),
+                                       mapper.constructType(Serializable.class),
+                                       mapper.constructType(Admin.class),
+                                       mapper.constructType(User.class),
+                                       mapper.constructType(Integer.class),
+                                       mapper.constructType(String[].class),
+                                       mapper.constructType(Thread.class));
+        List<String> names = List.of("com.example.service0.model.Order",
+                                     "com.example.service499.model.Order",
+                                     "com.example.service500.model.Order",
+                                     "com.example.service1.modelX",
+                                     "com.example.service1.",
+                                     "learn.jackson.Foo$User",
+                                     "learn.jackson.Foo$UserX",
+                                     "java.lang.Runtime",
+                                     "");
+
+        // 두 번씩 검사해 캐시된 판정도 같은지 확인한다
+        for (int round = 0; round < 2; round++) {
+            for (JavaType base : types) {
+                assertThat(trie.validateBaseType(config, base)).isEqualTo(basic.validateBaseType(config, base));
+                for (String name : names) {
+                    assertThat(trie.validateSubClassName(config, base, name)).isEqualTo(basic.validateSubClassName(config, base, name));
+                }
+                for (JavaType sub : types) {
+                    assertThat(trie.validateSubType(config, base, sub)).isEqualTo(basic.validateSubType(config, base, sub));
+                }
+            }
+        }
+    }
+
+    @Test
+    void builderChangesAfterBuildAreNotVisible() {
+        TriePolymorphicTypeValidator.Builder builder = TriePolymorphicTypeValidator.builder().allowIfSubType("java.util.");
+        TriePolymorphicTypeValidator ptv = builder.build();
+        builder.allowIfSubType("java.lang.")
+               .allowIfBaseType("java.lang.")
+               .denyForExactBaseType(Object.class);
+
+        ObjectMapper mapper = new ObjectMapper();
+        MapperConfig<?> config = mapper.getDeserializationConfig();
+        JavaType base = mapper.constructType(Object.class);
+        assertThat(ptv.validateSubClassName(config, base, "java.lang.Runtime")).isEqualTo(Validity.INDETERMINATE);
+        assertThat(ptv.validateBaseType(config, base)).isEqualTo(Validity.INDETERMINATE);
+        assertThat(ptv.validateSubClassName(config, base, "java.util.ArrayList")).isEqualTo(Validity.ALLOWED);
+    }
+
+    @Test
+    void javaSerialization() throws IOException, ClassNotFoundException {
+        TriePolymorphicTypeValidator ptv = TriePolymorphicTypeValidator.builder()
+                                                                       .allowIfSubType("java.util.")
+                                                                       .allowIfSubType(Number.class)
+                                                                       .build();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(ptv);
+        }
+        PolymorphicTypeValidator copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (PolymorphicTypeValidator) in.readObject();
+        }
+
+        // 역직렬화된 검증기도 캐시를 가지고 같은 판정을 내린다
+        ObjectMapper mapper = new ObjectMapper();
+        MapperConfig<?> config = mapper.getDeserializationConfig();
+        JavaType base = mapper.constructType(Object.class);
+        assertThat(copy.validateBaseType(config, base)).isEqualTo(Validity.INDETERMINATE);
+        assertThat(copy.validateSubClassName(config, base, "java.util.ArrayList")).isEqualTo(Validity.ALLOWED);
+        assertThat(copy.validateSubClassName(config, base, "java.lang.Runtime")).isEqualTo(Validity.INDETERMINATE);
+        assertThat(copy.validateSubType(config, base, mapper.constructType(Integer.class))).isEqualTo(Validity.ALLOWED);
+    }
+
+    /**
+     * BasicPolymorphicTypeValidator와 같은 규칙을 지원하되, 클래스명 접두사 규칙을 트라이로 모으고 판정 결과를 캐시하는 검증기.
+     * <p>
+     * BasicPolymorphicTypeValidator는 매번 규칙 목록 전체를 순서대로 검사한다 (접두사 규칙 N개 -> startsWith N번).
+     * 여기서는 접두사 규칙을 한 번의 트라이 탐색으로 처리하고, 정규식/클래스 규칙을 포함한 최종 판정은 캐시하여 같은 타입은 O(1)로 판정한다.
+     * 규칙은 모두 클래스(또는 클래스명)만 보고 판정하기 때문에 캐시도 클래스(또는 클래스명)를 키로 사용한다
+     */
+    static class TriePolymorphicTypeValidator extends PolymorphicTypeValidator.Base {
+
+        private final Set<Class<?>> invalidBaseTypes;
+
+        private final PrefixTrie baseTypePrefixes;
+
+        private final List<Pattern> baseTypePatterns;
+
+        private final List<Class<?>> baseTypeClasses;
+
+        private final PrefixTrie subTypePrefixes;
+
+        private final List<Pattern> subTypePatterns;
+
+        private final List<Class<?>> subTypeClasses;
+
+        private final boolean allowSubTypeArrays;
+
+        private final int maximumCachedNames;
+
+        private final transient ClassValue<Validity> baseTypeVerdicts = new ClassValue<>() {
+            @Override
+            protected Validity computeValue(Class<?> rawBase) {
+                return computeBaseType(rawBase);
+            }
+        };
+
+        private final transient ClassValue<Validity> subTypeVerdicts = new ClassValue<>() {
+            @Override
+            protected Validity computeValue(Class<?> subClass) {
+                return computeSubType(subClass);
+            }
+        };
+
+        // 클래스명은 외부 입력(JSON)에서 오므로 상한을 넘으면 비운다
+        private final transient ConcurrentHashMap<String, Validity> subClassNameVerdicts = new ConcurrentHashMap<>();
+
+        // 빌드 후에 빌더를 계속 고쳐도 검증기의 규칙이 바뀌지 않도록 모든 규칙을 복사한다
+        private TriePolymorphicTypeValidator(Builder builder) {
+            this.invalidBaseTypes = Set.copyOf(builder.invalidBaseTypes);
+            this.baseTypePrefixes = builder.baseTypePrefixes.copy();
+            this.baseTypePatterns = List.copyOf(builder.baseTypePatterns);
+            this.baseTypeClasses = List.copyOf(builder.baseTypeClasses);
+            this.subTypePrefixes = builder.subTypePrefixes.copy();
+            this.subTypePatterns = List.copyOf(builder.subTypePatterns);
+            this.subTypeClasses = List.copyOf(builder.subTypeClasses);
+            this.allowSubTypeArrays = builder.allowSubTypeArrays;
+            this.maximumCachedNames = builder.maximumCachedNames;
+        }
+
+        private TriePolymorphicTypeValidator(TriePolymorphicTypeValidator src) {
+            this.invalidBaseTypes = Set.copyOf(src.invalidBaseTypes);
+            this.baseTypePrefixes = src.baseTypePrefixes.copy();
+            this.baseTypePatterns = List.copyOf(src.baseTypePatterns);
+            this.baseTypeClasses = List.copyOf(src.baseTypeClasses);
+            this.subTypePrefixes = src.subTypePrefixes.copy();
+            this.subTypePatterns = List.copyOf(src.subTypePatterns);
+            this.subTypeClasses = List.copyOf(src.subTypeClasses);
+            this.allowSubTypeArrays = src.allowSubTypeArrays;
+            this.maximumCachedNames = src.maximumCachedNames;
+        }
+
+        // ObjectMapper와 함께 직렬화되면 transient 캐시가 null로 복원되므로 빈 캐시를 가진 새 검증기로 바꾼다
+        private Object readResolve() {
+            return new TriePolymorphicTypeValidator(this);
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        @Override
+        public Validity validateBaseType(MapperConfig<?> config, JavaType baseType) {
+            return baseTypeVerdicts.get(baseType.getRawClass());
+        }
+
+        @Override
+        public Validity validateSubClassName(MapperConfig<?> config, JavaType baseType, String subClassName) {
+            Validity validity = subClassNameVerdicts.get(subClassName);
+            if (validity == null) {
+                validity = computeSubClassName(subClassName);
+                if (subClassNameVerdicts.size() >= maximumCachedNames) {
+                    subClassNameVerdicts.clear();
+                }
+                subClassNameVerdicts.put(subClassName, validity);
+            }
+            return validity;
+        }
+
+        @Override
+        public Validity validateSubType(MapperConfig<?> config, JavaType baseType, JavaType subType) {
+            return subTypeVerdicts.get(subType.getRawClass());
+        }
+
+        private Validity computeBaseType(Class<?> rawBase) {
+            if (invalidBaseTypes.contains(rawBase)) {
+                return Validity.DENIED;
+            }
+            String name = rawBase.getName();
+            if (baseTypePrefixes.matchesPrefixOf(name)) {
+                return Validity.ALLOWED;
+            }
+            for (Pattern pattern : baseTypePatterns) {
+                if (pattern.matcher(name).matches()) {
+                    return Validity.ALLOWED;
+                }
+            }
+            for (Class<?> baseTypeClass : baseTypeClasses) {
+                if (baseTypeClass.isAssignableFrom(rawBase)) {
+                    return Validity.ALLOWED;
+                }
+            }
+            return Validity.INDETERMINATE;
+        }
+
+        private Validity computeSubClassName(String subClassName) {
+            if (subTypePrefixes.matchesPrefixOf(subClassName)) {
+                return Validity.ALLOWED;
+            }
+            for (Pattern pattern : subTypePatterns) {
+                if (pattern.matcher(subClassName).matches()) {
+                    return Validity.ALLOWED;
+                }
+            }
+            return Validity.INDETERMINATE;
+        }
+
+        private Validity computeSubType(Class<?> subClass) {
+            if (allowSubTypeArrays && subClass.isArray()) {
+                return Validity.ALLOWED;
+            }
+            for (Class<?> subTypeClass : subTypeClasses) {
+                if (subTypeClass.isAssignableFrom(subClass)) {
+                    return Validity.ALLOWED;
+                }
+            }
+            return Validity.INDETERMINATE;
+        }
+
+        static class Builder {
+
+            private final Set<Class<?>> invalidBaseTypes = new HashSet<>();
+
+            private final PrefixTrie baseTypePrefixes = new PrefixTrie();
+
+            private final List<Pattern> baseTypePatterns = new ArrayList<>();
+
+            private final List<Class<?>> baseTypeClasses = new ArrayList<>();
+
+            private final PrefixTrie subTypePrefixes = new PrefixTrie();
+
+            private final List<Pattern> subTypePatterns = new ArrayList<>();
+
+            private final List<Class<?>> subTypeClasses = new ArrayList<>();
+
+            private boolean allowSubTypeArrays;
+
+            private int maximumCachedNames = 10_000;
+
+            public Builder allowIfBaseType(Class<?> baseOfBase) {
+                baseTypeClasses.add(baseOfBase);
+                return this;
+            }
+
+            public Builder allowIfBaseType(String prefixForBase) {
+                baseTypePrefixes.add(prefixForBase);
+                return this;
+            }
+
+            public Builder allowIfBaseType(Pattern patternForBase) {
+                baseTypePatterns.add(patternForBase);
+                return this;
+            }
+
+            public Builder denyForExactBaseType(Class<?> baseTypeToDeny) {
+                invalidBaseTypes.add(baseTypeToDeny);
+                return this;
+            }
+
+            public Builder allowIfSubType(Class<?> subTypeBase) {
+                subTypeClasses.add(subTypeBase);
+                return this;
+            }
+
+            public Builder allowIfSubType(String prefixForSubType) {
+                subTypePrefixes.add(prefixForSubType);
+                return this;
+            }
+
+            public Builder allowIfSubType(Pattern patternForSubType) {
+                subTypePatterns.add(patternForSubType);
+                return this;
+            }
+
+            public Builder allowIfSubTypeIsArray() {
+                allowSubTypeArrays = true;
+                return this;
+            }
+
+            public Builder maximumCachedNames(int maximumCachedNames) {
+                this.maximumCachedNames = maximumCachedNames;
+                return this;
+            }
+
+            public TriePolymorphicTypeValidator build() {
+                return new TriePolymorphicTypeValidator(this);
+            }
+        }
+    }
+
+    /**
+     * 접두사 집합에 대해 "문자열이 어떤 접두사로 시작하는가"를 문자열 길이에 비례하는 시간에 답하는 트라이.
+     * 자식 노드는 정렬된 char 배열에서 이진 탐색으로 찾는다. 빌더에서만 수정하고, 검증기는 빌드할 때 복사한 트라이를 읽기만 한다
+     */
+    static class PrefixTrie implements Serializable {
+
+        private final Node root;
+
+        PrefixTrie() {
+            this(new Node());
+        }
+
+        private PrefixTrie(Node root) {
+            this.root = root;
+        }
+
+        void add(String prefix) {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.getOrAddChild(prefix.charAt(i));
+            }
+            node.terminal = true;
+        }
+
+        boolean matchesPrefixOf(String name) {
+            Node node = root;
+            for (int i = 0; !node.terminal; i++) {
+                if (i == name.length() || (node = node.child(name.charAt(i))) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        PrefixTrie copy() {
+            return new PrefixTrie(root.copy());
+        }
+
+        static class Node implements Serializable {
+
+            private char[] keys = new char[0];
+
+            private Node[] children = new Node[0];
+
+            private boolean terminal;
+
+            Node child(char c) {
+                int index = Arrays.binarySearch(keys, c);
+                return index >= 0 ? children[index] : null;
+            }
+
+            Node getOrAddChild(char c) {
+                int index = Arrays.binarySearch(keys, c);
+                if (index >= 0) {
+                    return children[index];
+                }
+                int insertAt = -index - 1;
+                Node child = new Node();
+
+                char[] newKeys = new char[keys.length + 1];
+                System.arraycopy(keys, 0, newKeys, 0, insertAt);
+                newKeys[insertAt] = c;
+                System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+
+                Node[] newChildren = new Node[children.length + 1];
+                System.arraycopy(children, 0, newChildren, 0, insertAt);
+                newChildren[insertAt] = child;
+                System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+                keys = newKeys;
+                children = newChildren;
+                return child;
+            }
+
+            Node copy() {
+                Node copy = new Node();
+                copy.keys = keys.clone();
+                copy.children = new Node[children.length];
+                for (int i = 0; i < children.length; i++) {
+                    copy.children[i] = children[i].copy();
+                }
+                copy.terminal = terminal;
+                return copy;
+            }
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class User {
+
+        private String name;
+
+        public User(String name) {
+            this.name = name;
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Admin {
+
+        private String name;
+
+        public Admin(String name) {
+            this.name = name;
+        }
+    }
+}
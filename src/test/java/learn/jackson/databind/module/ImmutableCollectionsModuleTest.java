@@ -0,0 +1,633 @@
+package learn.jackson.databind.module;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.type.LogicalType;
+import com.fasterxml.jackson.databind.type.MapType;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+class ImmutableCollectionsModuleTest {
+
+    ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Test
+    void immutableList() throws JsonProcessingException {
+        List<Vehicle> vehicles = List.of(new Car("X12345"), new Aeroplane(13));
+        RichUser user = new RichUser(vehicles);
+
+        TypeResolverBuilder<StdTypeResolverBuilder> typer =
+            new DefaultTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator());
+        typer = typer.init(Id.CLASS, null);
+        typer = typer.inclusion(As.PROPERTY);
+        mapper.setDefaultTyping(typer);
+
+        mapper.addMixIn(List.class, ListMixIn.class);
+
+        String json = mapper.writeValueAsString(user);
+        assertThat(json).contains("\"java.util.ImmutableCollections$List12\"");
+
+        // 기본 동작: ImmutableCollections$List12를 리플렉션으로 만든 ArrayList에 담기 때문에 불변성이 사라진다
+        List<Vehicle> defaultVehicles = mapper.readValue(json, RichUser.class).getVehicles();
+        assertThat(defaultVehicles.getClass()).isEqualTo(ArrayList.class);
+
+        // 모듈 등록 후: 버퍼에서 바로 List.of()로 만들기 때문에 직렬화 전과 같은 List12가 된다
+        // 역직렬화기 캐시를 공유하지 않도록 매퍼를 새로 만든다
+        ObjectMapper mapper2 = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                                                 .registerModule(new ImmutableCollectionsModule());
+        mapper2.setDefaultTyping(typer);
+        mapper2.addMixIn(List.class, ListMixIn.class);
+
+        List<Vehicle> cachedVehicles = mapper2.readValue(json, RichUser.class).getVehicles();
+        assertThat(cachedVehicles.getClass()).isEqualTo(vehicles.getClass());
+        assertThat(((Car) cachedVehicles.get(0)).getLicensePlate()).isEqualTo("X12345");
+        assertThat(((Aeroplane) cachedVehicles.get(1)).getWingSpan()).isEqualTo(13);
+
+        // 요소가 3개 이상이면 ListN
+        user = new RichUser(List.of(new Car("X12345"), new Car("Y67890"), new Aeroplane(13)));
+        cachedVehicles = mapper2.readValue(mapper2.writeValueAsString(user), RichUser.class).getVehicles();
+        assertThat(cachedVehicles.getClass()).isEqualTo(user.getVehicles().getClass());
+        assertThat(cachedVehicles).hasSize(3);
+    }
+
+    @Test
+    void immutableSetAndMap() throws JsonProcessingException {
+        mapper.registerModule(new ImmutableCollectionsModule());
+
+        // 내부 클래스명(ImmutableCollections$SetN, $MapN)이 타입으로 주어지는 경우
+        JavaType setType = mapper.getTypeFactory().constructCollectionType(Set.of(1, 2, 3).getClass(), Integer.class);
+        Set<Integer> scores = mapper.readValue("[ 100, 97, 100 ]", setType);
+        assertThat(scores).containsExactlyInAnyOrder(100, 97);
+        assertThatThrownBy(() -> scores.add(1)).isInstanceOf(UnsupportedOperationException.class);
+
+        JavaType mapType = mapper.getTypeFactory().constructMapType(Map.of("Bob", 100, "John", 97).getClass(), String.class, Integer.class);
+        Map<String, Integer> scoreByName = mapper.readValue("""
+                                                                {
+                                                                  "Bob" : 100,
+                                                                  "John" : 97
+                                                                }""", mapType);
+        assertThat(scoreByName).containsEntry("Bob", 100)
+                               .containsEntry("John", 97);
+        assertThat(scoreByName.getClass()).isEqualTo(Map.of("Bob", 100, "John", 97).getClass());
+    }
+
+    @Test
+    void duplicates() throws JsonProcessingException {
+        mapper.registerModule(new ImmutableCollectionsModule());
+
+        JavaType setType = mapper.getTypeFactory().constructCollectionType(Set.of(1, 2, 3).getClass(), Integer.class);
+        JavaType mapType = mapper.getTypeFactory().constructMapType(Map.of(1, 2, 3, 4).getClass(), String.class, Integer.class);
+        // 두 요소씩 비교하는 크기와 Set.copyOf()/Map.copyOf()로 만드는 크기 모두 중복을 제거한다
+        for (int size : new int[]{3, ImmutableCollectionsModuleTest.DUPLICATE_SCAN_THRESHOLD + 4}) {
+            List<Integer> values = new ArrayList<>();
+            Map<String, Integer> lastValueByKey = new LinkedHashMap<>();
+            StringBuilder map = new StringBuilder("{");
+            for (int i = 0; i < size; i++) {
+                values.add(i % (size - 1));
+                lastValueByKey.put("k" + i % (size - 1), i);
+                map.append(i == 0 ? "" : ",").append("\"k").append(i % (size - 1)).append("\":").append(i);
+            }
+
+            Set<Integer> set = mapper.readValue(mapper.writeValueAsString(values), setType);
+            assertThat(set).isEqualTo(Set.copyOf(values));
+            Map<String, Integer> scoreByName = mapper.readValue(map.append('}').toString(), mapType);
+            assertThat(scoreByName).isEqualTo(lastValueByKey);
+        }
+    }
+
+    @Test
+    void nullElement() {
+        mapper.registerModule(new ImmutableCollectionsModule());
+
+        JavaType listType = mapper.getTypeFactory().constructCollectionType(List.of(1, 2, 3).getClass(), String.class);
+        assertThatThrownBy(() -> mapper.readValue("[ \"Bob\", null, \"John\" ]", listType))
+            .isInstanceOf(MismatchedInputException.class);
+        // List.of()와 마찬가지로 null 요소는 허용하지 않는다
+    }
+
+    @Test
+    void allocationNoWorseThanDefault() throws JsonProcessingException {
+        TypeResolverBuilder<StdTypeResolverBuilder> typer =
+            new DefaultTypeResolverBuilder(DefaultTyping.NON_FINAL, mapper.getPolymorphicTypeValidator());
+        typer = typer.init(Id.CLASS, null);
+        typer = typer.inclusion(As.PROPERTY);
+        ObjectMapper defaultMapper = new ObjectMapper();
+        defaultMapper.setDefaultTyping(typer);
+        defaultMapper.addMixIn(List.class, ListMixIn.class);
+        ObjectMapper moduleMapper = new ObjectMapper().registerModule(new ImmutableCollectionsModule());
+        moduleMapper.setDefaultTyping(typer);
+        moduleMapper.addMixIn(List.class, ListMixIn.class);
+
+        // List12, 가변 인자 오버로드로 만드는 ListN(3~10개), 배열을 복사해 만드는 ListN(11개 이상)
+        for (int size : new int[]{2, 3, 10, 11, 50}) {
+            List<Vehicle> vehicles = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                vehicles.add(new Aeroplane(i));
+            }
+            String json = defaultMapper.writeValueAsString(new RichUser(List.copyOf(vehicles)));
+
+            long defaultBytes = bytesPerRead(defaultMapper, json);
+            long moduleBytes = bytesPerRead(moduleMapper, json);
+            // JIT 컴파일 시점에 따라 달라지는 몇 바이트의 흔들림은 허용한다
+            assertThat(moduleBytes).as("%d elements: module %d B/op, default %d B/op", size, moduleBytes, defaultBytes)
+                                   .isLessThanOrEqualTo(defaultBytes + ALLOCATION_MARGIN_BYTES);
+        }
+    }
+
+    private static final long ALLOCATION_MARGIN_BYTES = 32;
+
+    /**
+     * 워밍업 후 현재 스레드가 할당한 바이트로 RichUser 역직렬화 1회당 할당량을 잰다
+     */
+    private static long bytesPerRead(ObjectMapper mapper, String json) throws JsonProcessingException {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Object sink = null;
+        for (int i = 0; i < 20_000; i++) {
+            sink = mapper.readValue(json, RichUser.class);
+        }
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            sink = mapper.readValue(json, RichUser.class);
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+        assertThat(sink).isNotNull();
+        return allocated / 10_000;
+    }
+
+    /**
+     * java.util.ImmutableCollections$ 하위 타입(List12, ListN, Set12, SetN, Map1, MapN)을 직접 역직렬화하는 모듈
+     */
+    static class ImmutableCollectionsModule extends SimpleModule {
+
+        public ImmutableCollectionsModule() {
+            super("ImmutableCollectionsModule");
+        }
+
+        @Override
+        public void setupModule(SetupContext context) {
+            super.setupModule(context);
+            context.addDeserializers(new ImmutableCollectionsDeserializers());
+        }
+    }
+
+    static class ImmutableCollectionsDeserializers extends Deserializers.Base {
+
+        private static final String PREFIX_JAVA_UTIL_IMMUTABLE_COLL = "java.util.ImmutableCollections$";
+
+        @Override
+        public JsonDeserializer<?> findCollectionDeserializer(CollectionType type, DeserializationConfig config, BeanDescription beanDesc,
+                                                              TypeDeserializer elementTypeDeserializer, JsonDeserializer<?> elementDeserializer) {
+            Class<?> rawClass = type.getRawClass();
+            if (!rawClass.getName().startsWith(PREFIX_JAVA_UTIL_IMMUTABLE_COLL)) {
+                return null;
+            }
+            if (List.class.isAssignableFrom(rawClass)) {
+                return new ImmutableListDeserializer(type, elementDeserializer, elementTypeDeserializer);
+            }
+            if (Set.class.isAssignableFrom(rawClass)) {
+                return new ImmutableSetDeserializer(type, elementDeserializer, elementTypeDeserializer);
+            }
+            return null;
+        }
+
+        @Override
+        public JsonDeserializer<?> findMapDeserializer(MapType type, DeserializationConfig config, BeanDescription beanDesc, KeyDeserializer keyDeserializer,
+                                                       TypeDeserializer elementTypeDeserializer, JsonDeserializer<?> elementDeserializer) {
+            if (!type.getRawClass().getName().startsWith(PREFIX_JAVA_UTIL_IMMUTABLE_COLL)) {
+                return null;
+            }
+            return new ImmutableMapDeserializer(type, keyDeserializer, elementDeserializer, elementTypeDeserializer);
+        }
+    }
+
+    /**
+     * 스레드마다 재사용하는 ScratchArray에 요소를 모은 뒤 크기가 확정되면 불변 컬렉션을 한 번에 만든다.
+     * ArrayList를 리플렉션으로 생성해 채우는 기본 경로와 달리 중간 컬렉션이 없다
+     */
+    static abstract class ImmutableCollectionDeserializer<T extends Collection<Object>> extends StdDeserializer<T>
+        implements ContextualDeserializer {
+
+        protected final JavaType type;
+
+        protected final JsonDeserializer<Object> valueDeserializer;
+
+        protected final TypeDeserializer valueTypeDeserializer;
+
+        @SuppressWarnings("unchecked")
+        protected ImmutableCollectionDeserializer(JavaType type, JsonDeserializer<?> valueDeserializer, TypeDeserializer valueTypeDeserializer) {
+            super(type);
+            this.type = type;
+            this.valueDeserializer = (JsonDeserializer<Object>) valueDeserializer;
+            this.valueTypeDeserializer = valueTypeDeserializer;
+        }
+
+        protected abstract ImmutableCollectionDeserializer<T> withResolved(JsonDeserializer<?> valueDeserializer, TypeDeserializer valueTypeDeserializer);
+
+        protected abstract T empty();
+
+        protected abstract T of(Object e1);
+
+        protected abstract T of(Object e1, Object e2);
+
+        /**
+         * elements의 앞 size(3 이상)개 요소로 컬렉션을 만든다. elements는 재사용하는 배열이므로 그대로 넘겨서는 안 된다
+         */
+        protected abstract T of(Object[] elements, int size);
+
+        @Override
+        public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) throws JsonMappingException {
+            JavaType contentType = type.getContentType();
+            JsonDeserializer<?> deser = valueDeserializer == null
+                ? ctxt.findContextualValueDeserializer(contentType, property)
+                : ctxt.handleSecondaryContextualization(valueDeserializer, property, contentType);
+            TypeDeserializer typeDeser = valueTypeDeserializer == null ? null : valueTypeDeserializer.forProperty(property);
+            if (deser == valueDeserializer && typeDeser == valueTypeDeserializer) {
+                return this;
+            }
+            return withResolved(deser, typeDeser);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartArrayToken()) {
+                return (T) ctxt.handleUnexpectedToken(type, p);
+            }
+
+            // 요소가 2개 이하면 버퍼 없이 List12/Set12를 바로 만든다
+            JsonToken t = p.nextToken();
+            if (t == JsonToken.END_ARRAY) {
+                return empty();
+            }
+            Object e1 = deserializeElement(p, ctxt, t);
+            if ((t = p.nextToken()) == JsonToken.END_ARRAY) {
+                return of(e1);
+            }
+            Object e2 = deserializeElement(p, ctxt, t);
+            if ((t = p.nextToken()) == JsonToken.END_ARRAY) {
+                return of(e1, e2);
+            }
+
+            // 3개 이상이면 ScratchArray에 모은다. ctxt.leaseObjectBuffer()는 호출마다 ObjectBuffer와 첫 청크를 새로 만들어 기본 경로보다 할당이 많았다
+            Object[] elements = ScratchArray.take();
+            int size = 2;
+            try {
+                elements[0] = e1;
+                elements[1] = e2;
+                do {
+                    Object value = deserializeElement(p, ctxt, t);
+                    if (size == elements.length) {
+                        elements = Arrays.copyOf(elements, size * 2);
+                    }
+                    elements[size++] = value;
+                } while ((t = p.nextToken()) != JsonToken.END_ARRAY);
+                return of(elements, size);
+            } finally {
+                ScratchArray.release(elements, size);
+            }
+        }
+
+        private Object deserializeElement(JsonParser p, DeserializationContext ctxt, JsonToken t) throws IOException {
+            if (t == JsonToken.VALUE_NULL) {
+                return ctxt.reportInputMismatch(this, "Null element not allowed in %s", type.getRawClass().getName());
+            }
+            return valueTypeDeserializer == null
+                ? valueDeserializer.deserialize(p, ctxt)
+                : valueDeserializer.deserializeWithType(p, ctxt, valueTypeDeserializer);
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+            return typeDeserializer.deserializeTypedFromArray(p, ctxt);
+        }
+
+        @Override
+        public LogicalType logicalType() {
+            return LogicalType.Collection;
+        }
+    }
+
+    static class ImmutableListDeserializer extends ImmutableCollectionDeserializer<List<Object>> {
+
+        ImmutableListDeserializer(JavaType type, JsonDeserializer<?> valueDeserializer, TypeDeserializer valueTypeDeserializer) {
+            super(type, valueDeserializer, valueTypeDeserializer);
+        }
+
+        @Override
+        protected ImmutableListDeserializer withResolved(JsonDeserializer<?> valueDeserializer, TypeDeserializer valueTypeDeserializer) {
+            return new ImmutableListDeserializer(type, valueDeserializer, valueTypeDeserializer);
+        }
+
+        @Override
+        protected List<Object> empty() {
+            return List.of();
+        }
+
+        @Override
+        protected List<Object> of(Object e1) {
+            return List.of(e1);
+        }
+
+        @Override
+        protected List<Object> of(Object e1, Object e2) {
+            return List.of(e1, e2);
+        }
+
+        // List.of(E...)는 인자 배열을 한 번 더 복사하지만, 요소 10개까지의 오버로드는 가변 인자 배열을 그대로 ListN에 쓴다
+        @Override
+        protected List<Object> of(Object[] e, int size) {
+            return switch (size) {
+                case 3 -> List.of(e[0], e[1], e[2]);
+                case 4 -> List.of(e[0], e[1], e[2], e[3]);
+                case 5 -> List.of(e[0], e[1], e[2], e[3], e[4]);
+                case 6 -> List.of(e[0], e[1], e[2], e[3], e[4], e[5]);
+                case 7 -> List.of(e[0], e[1], e[2], e[3], e[4], e[5], e[6]);
+                case 8 -> List.of(e[0], e[1], e[2], e[3], e[4], e[5], e[6], e[7]);
+                case 9 -> List.of(e[0], e[1], e[2], e[3], e[4], e[5], e[6], e[7], e[8]);
+                case 10 -> List.of(e[0], e[1], e[2], e[3], e[4], e[5], e[6], e[7], e[8], e[9]);
+                default -> List.of(Arrays.copyOf(e, size));
+            };
+        }
+    }
+
+    static class ImmutableSetDeserializer extends ImmutableCollectionDeserializer<Set<Object>> {
+
+        ImmutableSetDeserializer(JavaType type, JsonDeserializer<?> valueDeserializer, TypeDeserializer valueTypeDeserializer) {
+            super(type, valueDeserializer, valueTypeDeserializer);
+        }
+
+        @Override
+        protected ImmutableSetDeserializer withResolved(JsonDeserializer<?> valueDeserializer, TypeDeserializer valueTypeDeserializer) {
+            return new ImmutableSetDeserializer(type, valueDeserializer, valueTypeDeserializer);
+        }
+
+        @Override
+        protected Set<Object> empty() {
+            return Set.of();
+        }
+
+        @Override
+        protected Set<Object> of(Object e1) {
+            return Set.of(e1);
+        }
+
+        @Override
+        protected Set<Object> of(Object e1, Object e2) {
+            return e1.equals(e2) ? Set.of(e1) : Set.of(e1, e2);
+        }
+
+        // Set.of(E...)는 인자 배열을 복사하지 않고 해시 테이블만 만들므로 정확한 크기의 배열 하나면 된다.
+        // Set.of()는 중복 요소를 허용하지 않으므로 작은 집합은 미리 중복을 확인하고, 큰 집합은 중복을 제거하는 Set.copyOf()로 만든다
+        @Override
+        protected Set<Object> of(Object[] e, int size) {
+            if (size > DUPLICATE_SCAN_THRESHOLD || hasDuplicates(e, size)) {
+                return Set.copyOf(Arrays.asList(e).subList(0, size));
+            }
+            return Set.of(Arrays.copyOf(e, size));
+        }
+    }
+
+    /**
+     * 이 크기까지는 중복을 두 요소씩 비교해 찾는다. 더 크면 비교 횟수가 해시 집합 하나를 만드는 비용보다 커진다
+     */
+    static final int DUPLICATE_SCAN_THRESHOLD = 16;
+
+    static boolean hasDuplicates(Object[] elements, int size) {
+        for (int i = 1; i < size; i++) {
+            for (int j = 0; j < i; j++) {
+                if (elements[i].equals(elements[j])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static class ImmutableMapDeserializer extends StdDeserializer<Map<Object, Object>> implements ContextualDeserializer {
+
+        private final JavaType type;
+
+        private final KeyDeserializer keyDeserializer;
+
+        private final JsonDeserializer<Object> valueDeserializer;
+
+        private final TypeDeserializer valueTypeDeserializer;
+
+        @SuppressWarnings("unchecked")
+        ImmutableMapDeserializer(JavaType type, KeyDeserializer keyDeserializer, JsonDeserializer<?> valueDeserializer,
+                                 TypeDeserializer valueTypeDeserializer) {
+            super(type);
+            this.type = type;
+            this.keyDeserializer = keyDeserializer;
+            this.valueDeserializer = (JsonDeserializer<Object>) valueDeserializer;
+            this.valueTypeDeserializer = valueTypeDeserializer;
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) throws JsonMappingException {
+            KeyDeserializer keyDeser = keyDeserializer == null ? ctxt.findKeyDeserializer(type.getKeyType(), property) : keyDeserializer;
+            JavaType contentType = type.getContentType();
+            JsonDeserializer<?> deser = valueDeserializer == null
+                ? ctxt.findContextualValueDeserializer(contentType, property)
+                : ctxt.handleSecondaryContextualization(valueDeserializer, property, contentType);
+            TypeDeserializer typeDeser = valueTypeDeserializer == null ? null : valueTypeDeserializer.forProperty(property);
+            if (keyDeser == keyDeserializer && deser == valueDeserializer && typeDeser == valueTypeDeserializer) {
+                return this;
+            }
+            return new ImmutableMapDeserializer(type, keyDeser, deser, typeDeser);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<Object, Object> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String name;
+            if (p.isExpectedStartObjectToken()) {
+                name = p.nextFieldName();
+            } else if (p.hasToken(JsonToken.FIELD_NAME)) {
+                name = p.currentName();
+            } else if (p.hasToken(JsonToken.END_OBJECT)) {
+                name = null;
+            } else {
+                return (Map<Object, Object>) ctxt.handleUnexpectedToken(type, p);
+            }
+
+            Object[] entries = ScratchArray.take();
+            int size = 0;
+            try {
+                for (; name != null; name = p.nextFieldName()) {
+                    JsonToken t = p.nextToken();
+                    if (t == JsonToken.VALUE_NULL) {
+                        return ctxt.reportInputMismatch(this, "Null value not allowed in %s (key '%s')", type.getRawClass().getName(), name);
+                    }
+                    Object key = keyDeserializer.deserializeKey(name, ctxt);
+                    Object value = valueTypeDeserializer == null
+                        ? valueDeserializer.deserialize(p, ctxt)
+                        : valueDeserializer.deserializeWithType(p, ctxt, valueTypeDeserializer);
+                    if (size == entries.length) {
+                        entries = Arrays.copyOf(entries, size * 2);
+                    }
+                    entries[size++] = Map.entry(key, value);
+                }
+
+                return switch (size) {
+                    case 0 -> Map.of();
+                    case 1 -> Map.of(((Entry<?, ?>) entries[0]).getKey(), ((Entry<?, ?>) entries[0]).getValue());
+                    default -> ofEntries(entries, size);
+                };
+            } finally {
+                ScratchArray.release(entries, size);
+            }
+        }
+
+        /**
+         * 키가 중복되면 일반 Map 역직렬화와 같이 마지막 값을 사용한다. Map.ofEntries()는 중복 키를 허용하지 않으므로
+         * 작은 맵은 미리 키 중복을 확인하고, 큰 맵은 LinkedHashMap에 모은 뒤 Map.copyOf()로 만든다
+         */
+        @SuppressWarnings("unchecked")
+        private static Map<Object, Object> ofEntries(Object[] entries, int size) {
+            if (size <= DUPLICATE_SCAN_THRESHOLD && !hasDuplicateKeys(entries, size)) {
+                return Map.ofEntries(Arrays.copyOf(entries, size, Entry[].class));
+            }
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                Entry<?, ?> entry = (Entry<?, ?>) entries[i];
+                map.put(entry.getKey(), entry.getValue());
+            }
+            return Map.copyOf(map);
+        }
+
+        private static boolean hasDuplicateKeys(Object[] entries, int size) {
+            for (int i = 1; i < size; i++) {
+                Object key = ((Entry<?, ?>) entries[i]).getKey();
+                for (int j = 0; j < i; j++) {
+                    if (key.equals(((Entry<?, ?>) entries[j]).getKey())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+            return typeDeserializer.deserializeTypedFromObject(p, ctxt);
+        }
+
+        @Override
+        public LogicalType logicalType() {
+            return LogicalType.Map;
+        }
+    }
+
+    /**
+     * 요소 수를 알기 전까지 요소를 모아 두는 스레드별 배열. 요소를 역직렬화하는 중에 같은 스레드에서 중첩된 컬렉션을 만나면
+     * 바깥 컬렉션이 배열을 쓰고 있으므로(take()가 비워 둠) 새 배열을 만든다. 반납할 때 참조를 지워 요소가 배열에 붙잡혀 있지 않게 하고,
+     * 너무 커진 배열은 반납하지 않는다
+     */
+    static class ScratchArray {
+
+        private static final int INITIAL_SIZE = 16;
+
+        private static final int MAXIMUM_RETAINED_SIZE = 1024;
+
+        private static final ThreadLocal<Object[]> ARRAY = new ThreadLocal<>();
+
+        static Object[] take() {
+            Object[] array = ARRAY.get();
+            if (array == null) {
+                return new Object[INITIAL_SIZE];
+            }
+            ARRAY.set(null);
+            return array;
+        }
+
+        static void release(Object[] array, int size) {
+            if (array.length <= MAXIMUM_RETAINED_SIZE) {
+                Arrays.fill(array, 0, size, null);
+                ARRAY.set(array);
+            }
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class RichUser {
+
+        private List<Vehicle> vehicles;
+
+        public RichUser(List<Vehicle> vehicles) {
+            this.vehicles = vehicles;
+        }
+    }
+
+    static abstract class Vehicle {
+
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Car extends Vehicle {
+
+        private String licensePlate;
+
+        public Car(String licensePlate) {
+            this.licensePlate = licensePlate;
+        }
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    static class Aeroplane extends Vehicle {
+
+        private int wingSpan;
+
+        public Aeroplane(int wingSpan) {
+            this.wingSpan = wingSpan;
+        }
+    }
+
+    @JsonTypeInfo(use = Id.CLASS)
+    interface ListMixIn {
+
+    }
+}